@@ -49,6 +49,7 @@ import org.glassfish.grizzly.http.io.NIOInputStream;
 import org.glassfish.grizzly.http.util.Ascii;
 import org.glassfish.grizzly.http.util.Constants;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.utils.Charsets;
 
 /**
  * {@link ReadHandler}, which implements the miltipart message parsing logic
@@ -76,6 +77,7 @@ public class MultipartReadHandler implements ReadHandler {
     private final MultipartEntryHandler multipartHandler;
     private final MultipartContext multipartContext;
     private final String boundary;
+    private final byte[] boundaryBytes;
 
     private final Line line = new Line();
 
@@ -96,6 +98,7 @@ public class MultipartReadHandler implements ReadHandler {
         this.requestCompletionHandler = completionHandler;
         this.multipartContext = multipartContext;
         this.boundary = multipartContext.getBoundary();
+        this.boundaryBytes = boundary.getBytes(Charsets.ASCII_CHARSET);
         this.parentInputStream = request.getInputStream();
 
         multipartMixedCompletionHandler = null;
@@ -113,6 +116,7 @@ public class MultipartReadHandler implements ReadHandler {
         this.multipartMixedCompletionHandler = completionHandler;
         this.multipartContext = multipartContext;
         this.boundary = multipartContext.getBoundary();
+        this.boundaryBytes = boundary.getBytes(Charsets.ASCII_CHARSET);
 
         this.parentInputStream = parentMultipartEntry.getInputStream();
 
@@ -399,15 +403,14 @@ public class MultipartReadHandler implements ReadHandler {
         final int limit = buffer.position() + parentInputStream.readyData();
         int offset = position + line.len;
 
-        while(offset < limit) {
-            final byte b = buffer.get(offset++);
-
-            if (b == Constants.LF) {
-                line.isCrLf = position <= offset - 2 &&
-                        buffer.get(offset - 2) == Constants.CR;
-                line.isComplete = true;
-                break;
-            }
+        final int lfIdx = buffer.indexOf(Constants.LF, offset, limit);
+        if (lfIdx != -1) {
+            offset = lfIdx + 1;
+            line.isCrLf = position <= offset - 2 &&
+                    buffer.get(offset - 2) == Constants.CR;
+            line.isComplete = true;
+        } else {
+            offset = Math.max(offset, limit);
         }
 
         line.len = offset - position;
@@ -511,11 +514,11 @@ public class MultipartReadHandler implements ReadHandler {
             }
 
             // if we called couldBeBoundary() for the incomplete boundary line - let's reuse its findings
-            for (int i = checkIdx; i < boundaryLength + 2; i++) {
-                // '+ 2' because of '--' prefix
-                if (buffer.get(position + i) != boundary.charAt(i - 2)) {
-                    return false;
-                }
+            // '+ 2' because of '--' prefix
+            if (checkIdx < boundaryLength + 2
+                    && buffer.mismatch(position + checkIdx, boundaryBytes,
+                            checkIdx - 2, boundaryLength + 2 - checkIdx) != -1) {
+                return false;
             }
 
             isBoundary = true;
@@ -485,6 +485,90 @@ public abstract class AbstractTransport implements Transport {
         }
     }
     
+    /**
+     * Notify registered {@link TransportProbe}s about the exhausted read budget.
+     *
+     * @param transport the <tt>Transport</tt> event occurred on.
+     * @param connection the <tt>Connection</tt> the data was read from.
+     * @param iterations the number of reads performed.
+     * @param bytesRead the number of bytes read.
+     */
+    protected static void notifyProbesReadBudgetExhausted(
+            final AbstractTransport transport, final Connection connection,
+            final int iterations, final int bytesRead) {
+        final TransportProbe[] probes =
+                transport.transportMonitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                probe.onReadBudgetExhaustedEvent(transport, connection,
+                        iterations, bytesRead);
+            }
+        }
+    }
+    
+    /**
+     * Notify registered {@link TransportProbe}s about the completed selector
+     * spin phase.
+     *
+     * @param transport the <tt>Transport</tt> event occurred on.
+     * @param spinTimeNanos the time spent spinning, in nanoseconds.
+     * @param isParked <tt>true</tt>, if the selector thread falls back to
+     *        the blocking select.
+     */
+    protected static void notifyProbesSelectorSpin(
+            final AbstractTransport transport, final long spinTimeNanos,
+            final boolean isParked) {
+        final TransportProbe[] probes =
+                transport.transportMonitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                probe.onSelectorSpinEvent(transport, spinTimeNanos, isParked);
+            }
+        }
+    }
+    
+    /**
+     * Notify registered {@link TransportProbe}s about the write queue
+     * high-water mark event.
+     *
+     * @param transport the <tt>Transport</tt> event occurred on.
+     * @param connection the {@link Connection}, whose write queue is saturated.
+     * @param queueSize the async write queue size, in bytes.
+     */
+    protected static void notifyProbesWriteQueueHighWaterMark(
+            final AbstractTransport transport, final Connection connection,
+            final int queueSize) {
+        final TransportProbe[] probes =
+                transport.transportMonitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                probe.onWriteQueueHighWaterMarkEvent(transport, connection,
+                        queueSize);
+            }
+        }
+    }
+    
+    /**
+     * Notify registered {@link TransportProbe}s about the write queue
+     * low-water mark event.
+     *
+     * @param transport the <tt>Transport</tt> event occurred on.
+     * @param connection the {@link Connection}, whose write queue is drained.
+     * @param queueSize the async write queue size, in bytes.
+     */
+    protected static void notifyProbesWriteQueueLowWaterMark(
+            final AbstractTransport transport, final Connection connection,
+            final int queueSize) {
+        final TransportProbe[] probes =
+                transport.transportMonitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                probe.onWriteQueueLowWaterMarkEvent(transport, connection,
+                        queueSize);
+            }
+        }
+    }
+    
     /**
      * Notify registered {@link TransportProbe}s about the error.
      *
@@ -1450,6 +1450,122 @@ public interface Buffer extends Comparable<Buffer>, WritableMessage {
     @SuppressWarnings("unused")
     void dumpHex(final java.lang.Appendable appendable);
 
+    /**
+     * Absolute bulk <i>search</i> method.
+     *
+     * <p> Finds the first occurrence of the given byte between the given
+     * indexes. The buffer's position and limit are not changed.
+     * Implementations scan the content several bytes at a time, so this
+     * method should be preferred to the {@link #get(int)} based loops.  </p>
+     *
+     * @param  b
+     *         The byte to search for
+     *
+     * @param  fromIndex
+     *         The index to start the search from (inclusive)
+     *
+     * @param  toIndex
+     *         The index to stop the search at (exclusive)
+     *
+     * @return  The index of the first occurrence of the byte,
+     *          or <tt>-1</tt> if the byte has not been found
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>fromIndex</tt> is negative
+     *          or <tt>toIndex</tt> is greater than the buffer's limit
+     *
+     * @since 3.0
+     */
+    int indexOf(byte b, int fromIndex, int toIndex);
+
+    /**
+     * Absolute bulk <i>search</i> method.
+     *
+     * <p> Finds the first occurrence of either of the given bytes between
+     * the given indexes. The buffer's position and limit are not changed.  </p>
+     *
+     * @param  b1
+     *         The 1st byte to search for
+     *
+     * @param  b2
+     *         The 2nd byte to search for
+     *
+     * @param  fromIndex
+     *         The index to start the search from (inclusive)
+     *
+     * @param  toIndex
+     *         The index to stop the search at (exclusive)
+     *
+     * @return  The index of the first occurrence of either byte,
+     *          or <tt>-1</tt> if none of the bytes has been found
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>fromIndex</tt> is negative
+     *          or <tt>toIndex</tt> is greater than the buffer's limit
+     *
+     * @since 3.0
+     */
+    int indexOf(byte b1, byte b2, int fromIndex, int toIndex);
+
+    /**
+     * Absolute bulk <i>search</i> method.
+     *
+     * <p> Finds the first CRLF (<tt>"\r\n"</tt>) sequence, which lies
+     * entirely between the given indexes. The buffer's position and limit
+     * are not changed.  </p>
+     *
+     * @param  fromIndex
+     *         The index to start the search from (inclusive)
+     *
+     * @param  toIndex
+     *         The index to stop the search at (exclusive)
+     *
+     * @return  The index of the CR byte of the first CRLF sequence,
+     *          or <tt>-1</tt> if the sequence has not been found
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>fromIndex</tt> is negative
+     *          or <tt>toIndex</tt> is greater than the buffer's limit
+     *
+     * @since 3.0
+     */
+    int indexOfCRLF(int fromIndex, int toIndex);
+
+    /**
+     * Absolute bulk <i>compare</i> method.
+     *
+     * <p> Compares this buffer's content, starting at the given index, with
+     * the given region of the byte array and finds the first byte, which
+     * doesn't match. If the buffer has less than <tt>length</tt> bytes
+     * between the index and its limit, only the available bytes are compared.
+     * The buffer's position and limit are not changed.  </p>
+     *
+     * @param  index
+     *         The index to start the comparison from
+     *
+     * @param  bytes
+     *         The array to compare the buffer's content with
+     *
+     * @param  offset
+     *         The offset within the array of the first byte to be compared
+     *
+     * @param  length
+     *         The number of bytes to be compared
+     *
+     * @return  <tt>-1</tt> if the <tt>length</tt> bytes match, otherwise
+     *          the position of the first mismatch relative to <tt>index</tt>,
+     *          which is the number of the available bytes if all of them
+     *          match, but there are less than <tt>length</tt> of them
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or greater than the buffer's
+     *          limit, or the preconditions on the <tt>offset</tt> and
+     *          <tt>length</tt> parameters do not hold
+     *
+     * @since 3.0
+     */
+    int mismatch(int index, byte[] bytes, int offset, int length);
+
     /**
      * <p>
      * Converts this <code>Buffer</code> to a {@link ByteBuffer}.
@@ -46,6 +46,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
+import org.glassfish.grizzly.memory.MappedFileBuffer;
 
 /**
  * A simple class that abstracts {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
@@ -146,6 +147,26 @@ public class FileTransfer implements WritableMessage {
         len -= written;
         return written;
     }
+
+    /**
+     * Maps the next region of the remaining File content into memory and
+     * advances the transfer position past the region. Could be used, when the
+     * content has to be transformed (for example encrypted) before it's written,
+     * so {@link #writeTo(java.nio.channels.WritableByteChannel)} is not applicable.
+     *
+     * @param maxSize the max size of the region to be mapped.
+     * @return the {@link MappedFileBuffer}, representing the region content.
+     * @throws IOException if an error occurs mapping the file.
+     *
+     * @since 3.0
+     */
+    public Buffer mapNext(final int maxSize) throws IOException {
+        final long size = Math.min(len, maxSize);
+        final Buffer region = MappedFileBuffer.map(fileChannel, pos, size);
+        pos += size;
+        len -= size;
+        return region;
+    }
     
     
     // ------------------------------------------ Methods from WritableMessage
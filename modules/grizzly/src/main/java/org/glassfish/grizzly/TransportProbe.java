@@ -129,6 +129,72 @@ public interface TransportProbe {
      */
     void onErrorEvent(Transport transport, Throwable error);
 
+    /**
+     * Method will be called, when the {@link Transport} stopped reading from
+     * the {@link Connection}, because the per-event read budget had been
+     * exhausted, though the {@link Connection} might still have data available.
+     * The default implementation does nothing.
+     *
+     * @param transport {@link Transport}, the event belongs to.
+     * @param connection {@link Connection}, the data was read from.
+     * @param iterations the number of reads performed.
+     * @param bytesRead the number of bytes read.
+     *
+     * @since 3.0
+     */
+    default void onReadBudgetExhaustedEvent(Transport transport,
+            Connection connection, int iterations, int bytesRead) {
+    }
+
+    /**
+     * Method will be called, when a selector thread of the {@link Transport}
+     * completed the busy-poll spin phase.
+     * The default implementation does nothing.
+     *
+     * @param transport {@link Transport}, the event belongs to.
+     * @param spinTimeNanos the time spent spinning, in nanoseconds.
+     * @param isParked <tt>true</tt>, if no event had been detected during
+     *        the spin phase and the selector thread falls back to
+     *        the blocking select, or <tt>false</tt> otherwise.
+     *
+     * @since 3.0
+     */
+    default void onSelectorSpinEvent(Transport transport, long spinTimeNanos,
+            boolean isParked) {
+    }
+
+    /**
+     * Method will be called, when the async write queue size of the
+     * {@link Connection} exceeded the write queue high-water mark, so reading
+     * of the back-pressure source {@link Connection} is suspended.
+     * The default implementation does nothing.
+     *
+     * @param transport {@link Transport}, the event belongs to.
+     * @param connection the {@link Connection}, whose write queue is saturated.
+     * @param queueSize the async write queue size, in bytes.
+     *
+     * @since 3.0
+     */
+    default void onWriteQueueHighWaterMarkEvent(Transport transport,
+            Connection connection, int queueSize) {
+    }
+
+    /**
+     * Method will be called, when the async write queue size of the
+     * {@link Connection} dropped to the write queue low-water mark, so reading
+     * of the back-pressure source {@link Connection} is resumed.
+     * The default implementation does nothing.
+     *
+     * @param transport {@link Transport}, the event belongs to.
+     * @param connection the {@link Connection}, whose write queue is drained.
+     * @param queueSize the async write queue size, in bytes.
+     *
+     * @since 3.0
+     */
+    default void onWriteQueueLowWaterMarkEvent(Transport transport,
+            Connection connection, int queueSize) {
+    }
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -205,6 +271,34 @@ public interface TransportProbe {
         @Override
         public void onErrorEvent(Transport transport, Throwable error) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onReadBudgetExhaustedEvent(Transport transport,
+                Connection connection, int iterations, int bytesRead) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSelectorSpinEvent(Transport transport,
+                long spinTimeNanos, boolean isParked) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onWriteQueueHighWaterMarkEvent(Transport transport,
+                Connection connection, int queueSize) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onWriteQueueLowWaterMarkEvent(Transport transport,
+                Connection connection, int queueSize) {}
+
     } // END Adapter
 
 }
@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+
+/**
+ * Sampling leak detector for the {@link PooledMemoryManager} buffers.
+ * 
+ * A sampled pooled {@link Buffer} remembers its allocation site and the last
+ * few places it has been touched at (split, sliced, duplicated or disposed).
+ * If such a {@link Buffer} gets garbage collected without being returned to
+ * the pool, the leak is logged and reported via
+ * {@link MemoryProbe#onBufferLeakEvent(int)}.
+ * 
+ * The detector also counts sampled allocations per call site, the call site
+ * is the first stack frame outside of the memory package.
+ * 
+ * @since 3.0
+ */
+final class BufferLeakDetector {
+    private static final Logger LOGGER = Grizzly.logger(BufferLeakDetector.class);
+    
+    private static final String MEMORY_PACKAGE =
+            BufferLeakDetector.class.getPackage().getName() + '.';
+    
+    // the number of the last touch points remembered by a tracker
+    static final int MAX_TOUCH_POINTS = 4;
+    
+    private final float samplingRate;
+    private final DefaultMonitoringConfig<MemoryProbe> monitoringConfig;
+    
+    private final ReferenceQueue<Object> referenceQueue =
+            new ReferenceQueue<Object>();
+    
+    // keeps the trackers reachable until their buffers are either released
+    // or collected
+    private final Set<Tracker> trackers =
+            Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+
+    private final ConcurrentHashMap<String, LongAdder> allocationSites =
+            new ConcurrentHashMap<String, LongAdder>();
+    
+    BufferLeakDetector(final float samplingRate,
+            final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
+        this.samplingRate = samplingRate;
+        this.monitoringConfig = monitoringConfig;
+    }
+
+    float getSamplingRate() {
+        return samplingRate;
+    }
+    
+    /**
+     * Decides whether the just allocated {@link Buffer} has to be tracked.
+     * 
+     * @return {@link Tracker}, or <tt>null</tt> if the {@link Buffer} hasn't
+     *  been sampled
+     */
+    Tracker track(final Buffer buffer, final int size) {
+        if (ThreadLocalRandom.current().nextFloat() >= samplingRate) {
+            return null;
+        }
+        
+        // report the leaks, which have been detected since the last sample
+        reportLeaks();
+        
+        final Exception allocationTrace =
+                new Exception("Buffer was allocated from:");
+        
+        final String site = getCallSite(allocationTrace);
+        LongAdder counter = allocationSites.get(site);
+        if (counter == null) {
+            final LongAdder newCounter = new LongAdder();
+            counter = allocationSites.putIfAbsent(site, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.increment();
+        
+        final Tracker tracker = new Tracker(this, buffer, size, allocationTrace);
+        trackers.add(tracker);
+        
+        return tracker;
+    }
+
+    /**
+     * @return the number of sampled allocations per call site
+     */
+    Map<String, Long> getAllocationSites() {
+        final Map<String, Long> result = new HashMap<String, Long>(
+                allocationSites.size());
+        for (Map.Entry<String, LongAdder> entry : allocationSites.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * @return the number of sampled buffers, which are being tracked now
+     */
+    int getTrackedCount() {
+        return trackers.size();
+    }
+    
+    /**
+     * Reports the sampled buffers, which have been garbage collected without
+     * being returned to the pool.
+     * 
+     * @return the number of detected leaks
+     */
+    int reportLeaks() {
+        int count = 0;
+        Reference<?> ref;
+        while ((ref = referenceQueue.poll()) != null) {
+            final Tracker tracker = (Tracker) ref;
+            if (trackers.remove(tracker)) {
+                count++;
+                
+                LOGGER.log(Level.WARNING,
+                        LogMessages.WARNING_GRIZZLY_MEMORY_BUFFER_LEAK(tracker.size),
+                        tracker.getTrace());
+                
+                ProbeNotifier.notifyBufferLeak(monitoringConfig, tracker.size);
+            }
+        }
+        
+        return count;
+    }
+    
+    private static String getCallSite(final Throwable t) {
+        final StackTraceElement[] stackTrace = t.getStackTrace();
+        for (StackTraceElement element : stackTrace) {
+            if (!element.getClassName().startsWith(MEMORY_PACKAGE)) {
+                return element.toString();
+            }
+        }
+        
+        return stackTrace.length > 0
+                ? stackTrace[stackTrace.length - 1].toString()
+                : "unknown";
+    }
+    
+    /**
+     * Tracks a single sampled pooled {@link Buffer}.
+     */
+    static final class Tracker extends PhantomReference<Object> {
+        private final BufferLeakDetector detector;
+        private final int size;
+        private final Exception allocationTrace;
+        
+        private final Exception[] touchPoints = new Exception[MAX_TOUCH_POINTS];
+        private int touchCount;
+        
+        private Tracker(final BufferLeakDetector detector,
+                final Buffer buffer, final int size,
+                final Exception allocationTrace) {
+            super(buffer, detector.referenceQueue);
+            this.detector = detector;
+            this.size = size;
+            this.allocationTrace = allocationTrace;
+        }
+        
+        /**
+         * Records the current stack trace as the buffer touch point.
+         * 
+         * @param hint the operation performed on the buffer
+         */
+        synchronized void touch(final String hint) {
+            touchPoints[touchCount++ % MAX_TOUCH_POINTS] =
+                    new Exception("Buffer was " + hint + " at:");
+        }
+        
+        /**
+         * Stops tracking the buffer, which has been returned to the pool.
+         */
+        void close() {
+            detector.trackers.remove(this);
+            clear();
+        }
+        
+        /**
+         * @return the allocation stack trace with the last touch points
+         *  attached as suppressed exceptions
+         */
+        synchronized Exception getTrace() {
+            final int count = Math.min(touchCount, MAX_TOUCH_POINTS);
+            for (int i = touchCount - count; i < touchCount; i++) {
+                allocationTrace.addSuppressed(touchPoints[i % MAX_TOUCH_POINTS]);
+            }
+            
+            return allocationTrace;
+        }
+    } // END Tracker
+}
@@ -67,6 +67,9 @@ import org.glassfish.grizzly.localization.LogMessages;
 public class Buffers {
     private static final Logger LOGGER = Grizzly.logger(Buffers.class);
 
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
     private static final Appender<Buffer> APPENDER_DISPOSABLE = new BuffersAppender(true);
     private static final Appender<Buffer> APPENDER_NOT_DISPOSABLE = new BuffersAppender(false);
 
@@ -819,6 +822,37 @@ public class Buffers {
     }
 
 
+    // ------------------------------------------------- Package-Private Methods
+
+
+    /**
+     * Finds the first CRLF sequence using the {@link Buffer}'s
+     * {@link Buffer#indexOf(byte, int, int)} search for the CR byte.
+     */
+    static int indexOfCRLF(final Buffer buffer, int fromIndex,
+            final int toIndex) {
+        if (fromIndex < 0 || toIndex > buffer.limit()) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int lastCRIndex = toIndex - 1;
+        while (fromIndex < lastCRIndex) {
+            final int idx = buffer.indexOf(CR, fromIndex, lastCRIndex);
+            if (idx == -1) {
+                return -1;
+            }
+            
+            if (buffer.get(idx + 1) == LF) {
+                return idx;
+            }
+            
+            fromIndex = idx + 1;
+        }
+        
+        return -1;
+    }
+
+
     // --------------------------------------------------------- Private Methods
 
 
@@ -1370,6 +1370,153 @@ public final class BuffersBuffer extends CompositeBuffer {
         Buffers.dumpBuffer(appendable, this);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The search is delegated to the underlying {@link Buffer}s, starting from
+     * the one, which contains the <tt>fromIndex</tt>.
+     */
+    @Override
+    public int indexOf(final byte b, final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > limit) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        int length = toIndex - fromIndex;
+        if (length <= 0) return -1;
+
+        int offset = fromIndex;
+        
+        checkIndex(fromIndex);
+
+        int bufferIdx = lastSegmentIndex;
+        Buffer buffer = activeBuffer;
+        int bufferPosition = toActiveBufferPos(fromIndex);
+
+        while(true) {
+            final int bytesToProcess = Math.min(
+                    buffer.limit() - bufferPosition, length);
+            
+            final int idx = buffer.indexOf(b, bufferPosition,
+                    bufferPosition + bytesToProcess);
+            if (idx != -1) {
+                return offset + (idx - bufferPosition);
+            }
+            
+            length -= bytesToProcess;
+
+            if (length == 0) return -1;
+
+            offset += bytesToProcess;
+            
+            bufferIdx++;
+            buffer = buffers[bufferIdx];
+            bufferPosition = buffer.position();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The search is delegated to the underlying {@link Buffer}s, starting from
+     * the one, which contains the <tt>fromIndex</tt>.
+     */
+    @Override
+    public int indexOf(final byte b1, final byte b2,
+            final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > limit) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        int length = toIndex - fromIndex;
+        if (length <= 0) return -1;
+
+        int offset = fromIndex;
+        
+        checkIndex(fromIndex);
+
+        int bufferIdx = lastSegmentIndex;
+        Buffer buffer = activeBuffer;
+        int bufferPosition = toActiveBufferPos(fromIndex);
+
+        while(true) {
+            final int bytesToProcess = Math.min(
+                    buffer.limit() - bufferPosition, length);
+            
+            final int idx = buffer.indexOf(b1, b2, bufferPosition,
+                    bufferPosition + bytesToProcess);
+            if (idx != -1) {
+                return offset + (idx - bufferPosition);
+            }
+            
+            length -= bytesToProcess;
+
+            if (length == 0) return -1;
+
+            offset += bytesToProcess;
+            
+            bufferIdx++;
+            buffer = buffers[bufferIdx];
+            bufferPosition = buffer.position();
+        }
+    }
+
+    @Override
+    public int indexOfCRLF(final int fromIndex, final int toIndex) {
+        return Buffers.indexOfCRLF(this, fromIndex, toIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The comparison is delegated to the underlying {@link Buffer}s, starting
+     * from the one, which contains the <tt>index</tt>.
+     */
+    @Override
+    public int mismatch(final int index, final byte[] bytes,
+            final int offset, final int length) {
+        checkDispose();
+        if (index < 0 || index > limit
+                || offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int len = Math.min(length, limit - index);
+        if (len == 0) {
+            return length == 0 ? -1 : 0;
+        }
+        
+        checkIndex(index);
+
+        int bufferIdx = lastSegmentIndex;
+        Buffer buffer = activeBuffer;
+        int bufferPosition = toActiveBufferPos(index);
+        int compared = 0;
+
+        while(true) {
+            final int bytesToProcess = Math.min(
+                    buffer.limit() - bufferPosition, len - compared);
+            
+            final int idx = buffer.mismatch(bufferPosition, bytes,
+                    offset + compared, bytesToProcess);
+            if (idx != -1) {
+                return compared + idx;
+            }
+            
+            compared += bytesToProcess;
+
+            if (compared == len) {
+                return len < length ? len : -1;
+            }
+
+            bufferIdx++;
+            buffer = buffers[bufferIdx];
+            bufferPosition = buffer.position();
+        }
+    }
+
     @Override
     public ByteBuffer toByteBuffer() {
         return toByteBuffer(position, limit);
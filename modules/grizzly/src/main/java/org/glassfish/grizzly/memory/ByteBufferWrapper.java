@@ -726,6 +726,65 @@ public class ByteBufferWrapper implements Buffer {
         Buffers.dumpBuffer(appendable, this);
     }
 
+    @Override
+    public int indexOf(final byte b, final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > visible.limit()) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        if (visible.hasArray()) {
+            final int arrayOffset = visible.arrayOffset();
+            final int idx = ByteSearch.indexOf(visible.array(),
+                    arrayOffset + fromIndex, arrayOffset + toIndex, b);
+            return idx != -1 ? idx - arrayOffset : -1;
+        }
+        
+        return ByteSearch.indexOf(visible, fromIndex, toIndex, b);
+    }
+
+    @Override
+    public int indexOf(final byte b1, final byte b2,
+            final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > visible.limit()) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        if (visible.hasArray()) {
+            final int arrayOffset = visible.arrayOffset();
+            final int idx = ByteSearch.indexOf(visible.array(),
+                    arrayOffset + fromIndex, arrayOffset + toIndex, b1, b2);
+            return idx != -1 ? idx - arrayOffset : -1;
+        }
+        
+        return ByteSearch.indexOf(visible, fromIndex, toIndex, b1, b2);
+    }
+
+    @Override
+    public int indexOfCRLF(final int fromIndex, final int toIndex) {
+        return Buffers.indexOfCRLF(this, fromIndex, toIndex);
+    }
+
+    @Override
+    public int mismatch(final int index, final byte[] bytes,
+            final int offset, final int length) {
+        checkDispose();
+        final int lim = visible.limit();
+        if (index < 0 || index > lim
+                || offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int len = Math.min(length, lim - index);
+        final int idx = visible.hasArray()
+                ? ByteSearch.mismatch(visible.array(),
+                        visible.arrayOffset() + index, bytes, offset, len)
+                : ByteSearch.mismatch(visible, index, bytes, offset, len);
+        
+        return idx != -1 ? idx : (len < length ? len : -1);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,237 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.glassfish.grizzly.Buffer;
+
+/**
+ * Word-at-a-time (SWAR) search and compare primitives, used by {@link Buffer}
+ * implementations.
+ *
+ * Eight bytes are loaded into a <tt>long</tt> and tested at once, so
+ * a search costs a single data-dependent branch per eight bytes instead of
+ * one per byte. The remaining tail (less than eight bytes) is processed
+ * byte by byte.
+ *
+ * @since 3.0
+ */
+final class ByteSearch {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private ByteSearch() { }
+
+
+    // -- byte[] --
+
+    static int indexOf(final byte[] array, int from, final int to,
+            final byte b) {
+        final long pattern = broadcast(b);
+
+        for (final int wordsEnd = to - 7; from < wordsEnd; from += 8) {
+            final long mask = zeroBytes(Bits.getLongL(array, from) ^ pattern);
+            if (mask != 0) {
+                return from + firstByte(mask, false);
+            }
+        }
+
+        for (; from < to; from++) {
+            if (array[from] == b) {
+                return from;
+            }
+        }
+
+        return -1;
+    }
+
+    static int indexOf(final byte[] array, int from, final int to,
+            final byte b1, final byte b2) {
+        final long pattern1 = broadcast(b1);
+        final long pattern2 = broadcast(b2);
+
+        for (final int wordsEnd = to - 7; from < wordsEnd; from += 8) {
+            final long word = Bits.getLongL(array, from);
+            final long mask = zeroBytes(word ^ pattern1)
+                    | zeroBytes(word ^ pattern2);
+            if (mask != 0) {
+                return from + firstByte(mask, false);
+            }
+        }
+
+        for (; from < to; from++) {
+            final byte b = array[from];
+            if (b == b1 || b == b2) {
+                return from;
+            }
+        }
+
+        return -1;
+    }
+
+    /*
+     * Returns -1 if the regions are equal, or the position of the 1st
+     * mismatching byte relative to the regions' start.
+     */
+    static int mismatch(final byte[] array1, final int from1,
+            final byte[] array2, final int from2, final int length) {
+        int i = 0;
+        for (final int wordsEnd = length - 7; i < wordsEnd; i += 8) {
+            final long diff = Bits.getLongL(array1, from1 + i)
+                    ^ Bits.getLongL(array2, from2 + i);
+            if (diff != 0) {
+                return i + firstByte(diff, false);
+            }
+        }
+
+        for (; i < length; i++) {
+            if (array1[from1 + i] != array2[from2 + i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    // -- ByteBuffer (absolute indexes) --
+
+    static int indexOf(final ByteBuffer buffer, int from, final int to,
+            final byte b) {
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        final long pattern = broadcast(b);
+
+        for (final int wordsEnd = to - 7; from < wordsEnd; from += 8) {
+            final long mask = zeroBytes(buffer.getLong(from) ^ pattern);
+            if (mask != 0) {
+                return from + firstByte(mask, bigEndian);
+            }
+        }
+
+        for (; from < to; from++) {
+            if (buffer.get(from) == b) {
+                return from;
+            }
+        }
+
+        return -1;
+    }
+
+    static int indexOf(final ByteBuffer buffer, int from, final int to,
+            final byte b1, final byte b2) {
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        final long pattern1 = broadcast(b1);
+        final long pattern2 = broadcast(b2);
+
+        for (final int wordsEnd = to - 7; from < wordsEnd; from += 8) {
+            final long word = buffer.getLong(from);
+            final long mask = zeroBytes(word ^ pattern1)
+                    | zeroBytes(word ^ pattern2);
+            if (mask != 0) {
+                return from + firstByte(mask, bigEndian);
+            }
+        }
+
+        for (; from < to; from++) {
+            final byte b = buffer.get(from);
+            if (b == b1 || b == b2) {
+                return from;
+            }
+        }
+
+        return -1;
+    }
+
+    static int mismatch(final ByteBuffer buffer, final int from1,
+            final byte[] array, final int from2, final int length) {
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+        int i = 0;
+        for (final int wordsEnd = length - 7; i < wordsEnd; i += 8) {
+            final long diff = buffer.getLong(from1 + i)
+                    ^ Bits.getLong(array, from2 + i, bigEndian);
+            if (diff != 0) {
+                return i + firstByte(diff, bigEndian);
+            }
+        }
+
+        for (; i < length; i++) {
+            if (buffer.get(from1 + i) != array[from2 + i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    // -- SWAR helpers --
+
+    /*
+     * Copies the byte into every byte of the long.
+     */
+    private static long broadcast(final byte b) {
+        return (b & 0xFFL) * ONES;
+    }
+
+    /*
+     * Sets the high bit of every zero byte of the word, all the other bits
+     * are cleared. Unlike the classic (x - ONES) & ~x & HIGH_BITS check it
+     * doesn't report false positives, so the first zero byte can be located
+     * from either end of the word (which depends on the byte order).
+     */
+    private static long zeroBytes(final long word) {
+        final long t = (word & LOW_BITS) + LOW_BITS;
+        return ~(t | word | LOW_BITS);
+    }
+
+    /*
+     * Returns the position of the first (in memory order) byte of the word,
+     * which has at least one bit set in the mask.
+     */
+    private static int firstByte(final long mask, final boolean bigEndian) {
+        return (bigEndian
+                ? Long.numberOfLeadingZeros(mask)
+                : Long.numberOfTrailingZeros(mask)) >>> 3;
+    }
+}
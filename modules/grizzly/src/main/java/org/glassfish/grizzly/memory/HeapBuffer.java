@@ -874,6 +874,64 @@ public class HeapBuffer implements Buffer {
         Buffers.dumpBuffer(appendable, this);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(final byte b, final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > lim) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int idx = ByteSearch.indexOf(heap, offset + fromIndex,
+                offset + toIndex, b);
+        return idx != -1 ? idx - offset : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(final byte b1, final byte b2,
+            final int fromIndex, final int toIndex) {
+        checkDispose();
+        if (fromIndex < 0 || toIndex > lim) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int idx = ByteSearch.indexOf(heap, offset + fromIndex,
+                offset + toIndex, b1, b2);
+        return idx != -1 ? idx - offset : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOfCRLF(final int fromIndex, final int toIndex) {
+        return Buffers.indexOfCRLF(this, fromIndex, toIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int mismatch(final int index, final byte[] bytes,
+            final int offset, final int length) {
+        checkDispose();
+        if (index < 0 || index > lim
+                || offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        final int len = Math.min(length, lim - index);
+        final int idx = ByteSearch.mismatch(heap, this.offset + index,
+                bytes, offset, len);
+        
+        return idx != -1 ? idx : (len < length ? len : -1);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,359 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Read-only {@link Buffer} backed by a memory-mapped file region.
+ *
+ * The file content is neither copied to the Java heap nor to a direct buffer,
+ * so the <code>MappedFileBuffer</code> could be passed to any filter chain,
+ * including the ones, which transform the content (SSL, compression, HTTP/2
+ * framing), where zero-copy {@link org.glassfish.grizzly.FileTransfer} is
+ * not applicable.
+ *
+ * <code>MappedFileBuffer</code> is a {@link ReferenceCountedBuffer}:
+ * {@link Buffer}s created using {@link #split(int)}, {@link #slice()},
+ * {@link #duplicate()}, {@link #asReadOnlyBuffer()} or {@link #share()}
+ * share the same mapping and hold their own reference to it. The region is
+ * unmapped deterministically, as soon as the last of these {@link Buffer}s
+ * is disposed, instead of waiting for the garbage collector. If the running JVM
+ * doesn't allow explicit unmapping, the region is released by the garbage
+ * collector.
+ *
+ * Please note, the {@link ByteBuffer}s returned by {@link #toByteBuffer()}
+ * and similar methods refer to the mapped memory directly, so they must not
+ * be used after the <code>MappedFileBuffer</code> has been disposed.
+ *
+ * @since 3.0
+ */
+public class MappedFileBuffer extends ByteBufferWrapper
+        implements ReferenceCountedBuffer {
+
+    private static final Logger LOGGER = Grizzly.logger(MappedFileBuffer.class);
+
+    // The max size of a single mapped region
+    static final int MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+    // the mapping shared by this buffer and all its 'children'
+    private final Region region;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    private MappedFileBuffer(final Region region, final ByteBuffer view) {
+        super(view);
+        this.region = region;
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * Maps the whole {@link File} into memory.
+     *
+     * @param file the {@link File} to be mapped
+     * @return the {@link Buffer} representing the file content. If the file is
+     *  larger than a single region could be - the returned {@link Buffer}
+     *  will be a {@link CompositeBuffer} of <code>MappedFileBuffer</code>s
+     * @throws IOException if an I/O error occurs
+     */
+    public static Buffer map(final File file) throws IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel fileChannel = stream.getChannel();
+            return map(fileChannel, 0, fileChannel.size());
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Maps the region of the {@link FileChannel} into memory.
+     * The mapping stays valid after the {@link FileChannel} is closed.
+     *
+     * @param fileChannel the {@link FileChannel}
+     * @param position the position within the file at which the region starts
+     * @param size the size of the region to be mapped
+     * @return the {@link Buffer} representing the region content. If the region is
+     *  larger than a single mapping could be - the returned {@link Buffer}
+     *  will be a {@link CompositeBuffer} of <code>MappedFileBuffer</code>s
+     * @throws IOException if an I/O error occurs
+     */
+    public static Buffer map(final FileChannel fileChannel,
+            final long position, final long size) throws IOException {
+        if (position < 0 || size < 0) {
+            throw new IllegalArgumentException("position and size must be greater or equal to zero");
+        }
+        
+        if (size <= MAX_REGION_SIZE) {
+            return map(fileChannel, position, (int) size);
+        }
+
+        final CompositeBuffer compositeBuffer = CompositeBuffer.newBuffer();
+        compositeBuffer.allowInternalBuffersDispose(true);
+        compositeBuffer.allowBufferDispose(true);
+
+        try {
+            for (long offset = 0; offset < size; offset += MAX_REGION_SIZE) {
+                final int regionSize = (int) Math.min(MAX_REGION_SIZE, size - offset);
+                final MappedFileBuffer region = map(fileChannel,
+                        position + offset, regionSize);
+                region.allowBufferDispose(true);
+                compositeBuffer.append(region);
+            }
+        } catch (IOException e) {
+            compositeBuffer.dispose();
+            throw e;
+        }
+        
+        return compositeBuffer;
+    }
+
+    /**
+     * Maps the region of the {@link FileChannel} into memory.
+     * The mapping stays valid after the {@link FileChannel} is closed.
+     *
+     * @param fileChannel the {@link FileChannel}
+     * @param position the position within the file at which the region starts
+     * @param size the size of the region to be mapped
+     * @return the <code>MappedFileBuffer</code> representing the region content
+     * @throws IOException if an I/O error occurs
+     */
+    public static MappedFileBuffer map(final FileChannel fileChannel,
+            final long position, final int size) throws IOException {
+        final MappedByteBuffer mapping = fileChannel.map(
+                FileChannel.MapMode.READ_ONLY, position, size);
+        
+        return new MappedFileBuffer(new Region(mapping), mapping.duplicate());
+    }
+
+    /**
+     * Returns a new <code>MappedFileBuffer</code>, which represents the whole
+     * mapped region and holds its own reference to it. Unlike
+     * {@link #duplicate()} this method is not affected by this buffer's state,
+     * so it could be called concurrently with {@link #dispose()}, for example
+     * by a cache, which serves the same mapping to many requests.
+     *
+     * @return the new <code>MappedFileBuffer</code>, or <tt>null</tt> if the
+     *  region has already been unmapped
+     */
+    public MappedFileBuffer share() {
+        if (!region.tryRetain()) {
+            return null;
+        }
+
+        return new MappedFileBuffer(region, region.mapping.duplicate());
+    }
+
+    /**
+     * Loads the region content into physical memory, so it is likely to be
+     * resident when accessed.
+     *
+     * @return this buffer
+     * @see MappedByteBuffer#load()
+     */
+    public MappedFileBuffer load() {
+        checkDispose();
+        region.mapping.load();
+        return this;
+    }
+
+    /**
+     * @return the size of the whole mapped region, which is shared
+     *  by this buffer
+     */
+    public int regionSize() {
+        return region.mapping.capacity();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int referenceCount() {
+        return region.refCount.get();
+    }
+
+    /**
+     * Releases this buffer's reference to the mapped region. The region is
+     * unmapped when the last reference is released.
+     */
+    @Override
+    public void dispose() {
+        checkDispose();
+        if (DEBUG_MODE) {
+            // the content is read-only, so unlike the parent we don't clear it
+            disposeStackTrace = new Exception("MappedFileBuffer was disposed from: ");
+        }
+        
+        visible = null;
+        region.release();
+    }
+
+
+    // ------------------------------------------------------- Protected Methods
+
+
+    @Override
+    protected ByteBufferWrapper wrapByteBuffer(final ByteBuffer byteBuffer) {
+        region.retain();
+        return new MappedFileBuffer(region, byteBuffer);
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /*
+     * The mapped region, shared by a MappedFileBuffer and its 'children'.
+     */
+    private static final class Region {
+        private final MappedByteBuffer mapping;
+
+        // the number of not disposed buffers sharing the mapping
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        Region(final MappedByteBuffer mapping) {
+            this.mapping = mapping;
+        }
+
+        void retain() {
+            refCount.incrementAndGet();
+        }
+
+        boolean tryRetain() {
+            for (;;) {
+                final int count = refCount.get();
+                if (count <= 0) {
+                    return false;
+                }
+
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0) {
+                Unmapper.unmap(mapping);
+            }
+        }
+    } // END Region
+
+    /*
+     * Unmaps MappedByteBuffers using the JDK internal API, which is looked up
+     * reflectively: sun.misc.Unsafe.invokeCleaner(ByteBuffer) on JDK 9+ or
+     * sun.nio.ch.DirectBuffer.cleaner().clean() on JDK 8.
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+        private static final Method CLEANER;
+        private static final Method CLEAN;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            Method cleaner = null;
+            Method clean = null;
+
+            try {
+                final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                        ByteBuffer.class);
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+            } catch (Throwable t) {
+                invokeCleaner = null;
+                
+                try {
+                    cleaner = Class.forName("sun.nio.ch.DirectBuffer")
+                            .getMethod("cleaner");
+                    clean = cleaner.getReturnType().getMethod("clean");
+                } catch (Throwable t2) {
+                    LOGGER.log(Level.FINE,
+                            "Explicit unmapping is not supported, mapped regions will be released by GC", t2);
+                    cleaner = null;
+                    clean = null;
+                }
+            }
+
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+            CLEANER = cleaner;
+            CLEAN = clean;
+        }
+
+        static void unmap(final MappedByteBuffer mapping) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, mapping);
+                } else if (CLEANER != null) {
+                    final Object cleaner = CLEANER.invoke(mapping);
+                    if (cleaner != null) {
+                        CLEAN.invoke(cleaner);
+                    }
+                }
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Can not unmap the region", t);
+            }
+        }
+    } // END Unmapper
+}
@@ -80,6 +80,20 @@ public interface MemoryProbe {
      */
     public void onPoolRestoredToFullEvent();
 
+    /**
+     * Called by {@link MemoryManager}, when a pooled buffer has been garbage
+     * collected without being released back to its pool. Note: These events
+     * are currently only implemented for PooledMemoryManager probes, if leak
+     * detection is enabled, and only sampled buffers are reported.
+     * The default implementation does nothing.
+     *
+     * @param size buffer size
+     *
+     * @since 3.0
+     */
+    public default void onBufferLeakEvent(int size) {
+    }
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -124,5 +138,11 @@ public interface MemoryProbe {
          */
         public void onPoolRestoredToFullEvent() {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onBufferLeakEvent(int size) {}
+
     } // END Adapter
 }
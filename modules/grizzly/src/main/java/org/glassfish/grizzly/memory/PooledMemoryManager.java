@@ -42,17 +42,30 @@ package org.glassfish.grizzly.memory;
 
 import org.glassfish.grizzly.Buffer;
 
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringUtils;
+import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
 
 /**
  * A {@link MemoryManager} implementation based on a series of shared memory pools.
@@ -67,6 +80,9 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>The percentage of the heap that this manager will use when populating the pools</li>
  *     <li>The percentage of buffers to be pre-allocated during MemoryManager initialization</li>
  *     <li>The flag indicating whether direct or heap based {@link Buffer}s will be allocated</li>
+ *     <li>The size of the per-thread magazine, which caches free buffers of every pool locally to a thread</li>
+ *     <li>The number of buffers a magazine exchanges with the shared pool slices when it runs empty or full</li>
+ *     <li>The flag indicating whether Grizzly threads are bound to their own pool slices</li>
  * </ul>
  *
  * If no explicit configuration is provided, the following defaults will be used:
@@ -78,8 +94,70 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>Percentage of heap: 3% ({@link #DEFAULT_HEAP_USAGE_PERCENTAGE})</li>
  *     <li>Percentage of buffers to be pre-allocated: 100% ({@link #DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE})</li>
  *     <li>Heap based {@link Buffer}s will be allocated</li>
+ *     <li>Magazine size: 0 ({@link #DEFAULT_MAGAZINE_SIZE}), which means the thread-local magazines are disabled</li>
+ *     <li>Magazine batch size: half of the magazine size</li>
+ *     <li>Thread affinity: off ({@link #DEFAULT_THREAD_AFFINITY})</li>
  * </ul>
  *
+ * When the thread-local magazines are enabled, each thread keeps a small bounded
+ * stack of free buffers per pool, so most allocate/release pairs performed by the
+ * same thread don't touch the shared (CAS-based) pool slices at all.  A thread
+ * goes to the slices only when its magazine runs empty (refill) or full (flush),
+ * and in that case it moves a whole batch of buffers at once.
+ * Magazines are kept by the long-lived Grizzly threads only
+ * ({@link org.glassfish.grizzly.threadpool.DefaultWorkerThread}), which return
+ * the cached buffers to the slices when they exit. Other threads, for example
+ * short-lived or virtual threads, work with the slices directly.
+ * The buffers cached by the magazines are not counted by the pools' max sizes,
+ * so every thread may retain up to the magazine size of buffers per pool in
+ * addition. When a pool is trimmed or shrunk (see
+ * {@link Builder#setAdaptive(boolean)}), the threads release the buffers
+ * cached by their magazines, once they access the pool next time.
+ *
+ * By default a thread picks a random pool slice for every allocation, so a buffer
+ * read on one core is often returned to a slice last touched by another core.
+ * In the thread affinity mode (see {@link Builder#setThreadAffinity(boolean)})
+ * every Grizzly {@link org.glassfish.grizzly.threadpool.DefaultWorkerThread}
+ * (selector runner or worker thread) is bound to its own slice of every pool,
+ * once it allocates a buffer from this manager, and keeps its magazines next
+ * to the binding. Since a connection's buffers are allocated and, most of the
+ * time, disposed by the thread processing the connection, they stay local to
+ * that thread's slice. Threads not created by Grizzly keep using random slices.
+ * The binding is kept by the manager itself, so it doesn't occupy the thread's
+ * {@link ThreadLocalPool}, which remains available to other {@link MemoryManager}s.
+ *
+ * Please note, this manager is not a {@link ThreadLocalPoolProvider}, so
+ * the {@link org.glassfish.grizzly.threadpool.DefaultWorkerThread}s of a thread
+ * pool configured with this manager get no {@link ThreadLocalPool}, and the
+ * {@link ThreadLocalPool}s created by other managers are bypassed: the buffers
+ * are never allocated from them like {@link AbstractThreadLocalMemoryManager}
+ * does. The per-thread state (slice binding and magazines) is kept by
+ * the manager itself.
+ *
+ * Buffers allocated by this manager are {@link ReferenceCountedBuffer}s:
+ * {@link Buffer}s created by {@link Buffer#split(int)}, {@link Buffer#slice()},
+ * {@link Buffer#duplicate()} or {@link Buffer#asReadOnlyBuffer()} share the
+ * pooled memory without copying and hold their own reference to it. The memory
+ * is returned to the pool only after every such {@link Buffer} has been disposed.
+ * If {@link #DEBUG_MODE} is on, disposing the same {@link Buffer} twice raises an
+ * {@link IllegalStateException}, which refers to the stack trace of the first dispose.
+ *
+ * By default the memory is split evenly between the pools once, during the
+ * manager construction.  In the adaptive mode (see {@link Builder#setAdaptive(boolean)})
+ * the manager periodically collects each pool's hit/miss statistics using
+ * a {@link MemoryProbe} and moves the memory budget from the pools, which have
+ * idle buffers, to the pools, which had to allocate unpooled buffers. The pools,
+ * which haven't been used during the configured quiet period, release their
+ * idle buffers, so they can be garbage collected.
+ * The rebalancing is stopped by {@link #stopAdaptiveSizing()}.
+ *
+ * The manager can also track a configurable share of the allocated buffers
+ * (see {@link Builder#setLeakDetectionSamplingRate(float)}). A sampled buffer
+ * remembers its allocation site and the last few places it has been touched at,
+ * and if it gets garbage collected without being disposed - the leak is logged
+ * and reported via {@link MemoryProbe#onBufferLeakEvent(int)}. The number of
+ * sampled allocations per call site is available via {@link #getAllocationSites()}.
+ *
  * The main advantage of this manager over {@link org.glassfish.grizzly.memory.HeapMemoryManager} or
  * {@link org.glassfish.grizzly.memory.ByteBufferManager} is that this implementation doesn't use ThreadLocal pools
  * and as such, doesn't suffer from the memory fragmentation/reallocation cycle that can impact the ThreadLocal versions.
@@ -100,6 +178,74 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
     private static final long BACK_OFF_DELAY = Long.getLong(
             PooledMemoryManager.class + ".back-off-delay", 0L);
+
+    /**
+     * If <tt>true</tt>, the pooled {@link Buffer}s remember where they were
+     * disposed from and fail on the repeated dispose.
+     * The initial value could be set using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.debug</tt>
+     * system property.
+     *
+     * @since 3.0
+     */
+    public static volatile boolean DEBUG_MODE = Boolean.getBoolean(
+            PooledMemoryManager.class.getName() + ".debug");
+
+    /**
+     * The default per-thread magazine size, <tt>0</tt> means thread-local
+     * magazines are disabled.
+     * The value could be changed using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.magazine-size</tt>
+     * system property.
+     */
+    public static final int DEFAULT_MAGAZINE_SIZE = Integer.getInteger(
+            PooledMemoryManager.class.getName() + ".magazine-size", 0);
+
+    /**
+     * The default number of buffers exchanged between a thread-local magazine
+     * and the shared pool slices, <tt>-1</tt> means half of the magazine size.
+     * The value could be changed using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.magazine-batch-size</tt>
+     * system property.
+     */
+    public static final int DEFAULT_MAGAZINE_BATCH_SIZE = Integer.getInteger(
+            PooledMemoryManager.class.getName() + ".magazine-batch-size", -1);
+
+    /**
+     * The default thread affinity mode, if <tt>true</tt> every Grizzly thread
+     * gets bound to its own slice of every pool.
+     * The value could be changed using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.thread-affinity</tt>
+     * system property.
+     */
+    public static final boolean DEFAULT_THREAD_AFFINITY = Boolean.getBoolean(
+            PooledMemoryManager.class.getName() + ".thread-affinity");
+
+    /**
+     * The default interval between the pool budget rebalancing in the adaptive mode.
+     */
+    public static final long DEFAULT_REBALANCE_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The default quiet period, after which unused pools release their
+     * idle buffers in the adaptive mode.
+     */
+    public static final long DEFAULT_IDLE_TRIM_TIMEOUT_MILLIS =
+            TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The default share of the allocated buffers tracked by the leak detector,
+     * <tt>0</tt> means leak detection is disabled.
+     * The value could be changed using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.leak-detection-sampling-rate</tt>
+     * system property.
+     */
+    public static final float DEFAULT_LEAK_DETECTION_SAMPLING_RATE =
+            Float.parseFloat(System.getProperty(PooledMemoryManager.class.getName()
+                    + ".leak-detection-sampling-rate", "0"));
+
+    private static final Logger LOGGER = Grizzly.logger(PooledMemoryManager.class);
+
     /**
      * Basic monitoring support.  Concrete implementations of this class need
      * only to implement the {@link #createJmxManagementObject()}  method
@@ -121,6 +267,30 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     // the max buffer size pooled by this memory manager
     private final int maxPooledBufferSize;
 
+    // the max number of buffers cached by a thread for each pool
+    private final int magazineSize;
+
+    // the number of buffers exchanged between a magazine and pool slices
+    private final int magazineBatchSize;
+
+    // true, if Grizzly threads are bound to their own pool slices
+    private final boolean threadAffinity;
+
+    // the counter used to distribute the threads among the pool slices
+    private final AtomicInteger threadAffinityCounter = new AtomicInteger();
+
+    // the current thread's binding to the pool slices, null if the thread
+    // affinity mode is off
+    private final ThreadLocal<ThreadAffinity> threadAffinities;
+
+    // pool budget rebalancer, null if adaptive mode is disabled
+    private final AdaptiveSizing adaptiveSizing;
+    // schedules the rebalancing, null if adaptive mode is disabled
+    private final AdaptiveSizingTask adaptiveSizingTask;
+
+    // sampling buffer leak detector, null if leak detection is disabled
+    private final BufferLeakDetector leakDetector;
+
 
     // ------------------------------------------------------------ Constructors
 
@@ -181,6 +351,68 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             final float percentOfHeap,
             final float percentPreallocated,
             final boolean isDirect) {
+        this(baseBufferSize, numberOfPools, growthFactor, numberOfPoolSlices,
+                percentOfHeap, percentPreallocated, isDirect,
+                DEFAULT_MAGAZINE_SIZE, DEFAULT_MAGAZINE_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new <code>PooledMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param baseBufferSize the base size of the buffer for the 1st pool, every next pool n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+     * @param numberOfPools the number of pools, responsible for allocation of buffers of a pool-specific size
+     * @param growthFactor the buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next allocated pool
+     * @param numberOfPoolSlices the number of pool slices that every pool will stripe allocation requests across
+     * @param percentOfHeap percentage of the heap that will be used when populating the pools
+     * @param percentPreallocated percentage of buffers to be pre-allocated during MemoryManager initialization
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     * @param magazineSize the max number of free buffers every thread may cache per pool, <tt>0</tt> disables thread-local magazines
+     * @param magazineBatchSize the number of buffers moved between a magazine and the pool slices when the magazine runs empty or full,
+     *                          <tt>-1</tt> means half of the <tt>magazineSize</tt>
+     *
+     * @since 3.0
+     */
+    public PooledMemoryManager(
+            final int baseBufferSize,
+            final int numberOfPools,
+            final int growthFactor,
+            final int numberOfPoolSlices,
+            final float percentOfHeap,
+            final float percentPreallocated,
+            final boolean isDirect,
+            final int magazineSize,
+            final int magazineBatchSize) {
+        this(builder()
+                .setBaseBufferSize(baseBufferSize)
+                .setNumberOfPools(numberOfPools)
+                .setGrowthFactor(growthFactor)
+                .setNumberOfPoolSlices(numberOfPoolSlices)
+                .setPercentOfHeap(percentOfHeap)
+                .setPercentPreallocated(percentPreallocated)
+                .setDirect(isDirect)
+                .setMagazineSize(magazineSize)
+                .setMagazineBatchSize(magazineBatchSize));
+    }
+
+    /**
+     * Creates a new <code>PooledMemoryManager</code> using the {@link Builder}
+     * configuration.
+     *
+     * @param builder the {@link Builder}
+     *
+     * @since 3.0
+     */
+    protected PooledMemoryManager(final Builder builder) {
+        final int baseBufferSize = builder.baseBufferSize;
+        final int numberOfPools = builder.numberOfPools;
+        final int growthFactor = builder.growthFactor;
+        final int numberOfPoolSlices = builder.numberOfPoolSlices;
+        final float percentOfHeap = builder.percentOfHeap;
+        final float percentPreallocated = builder.percentPreallocated;
+        final boolean isDirect = builder.isDirect;
+        final int magazineSize = builder.magazineSize;
+        final int magazineBatchSize = builder.magazineBatchSize;
+        
         if (baseBufferSize <= 0) {
             throw new IllegalArgumentException("baseBufferSize must be greater than zero");
         }
@@ -209,19 +441,175 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             throw new IllegalArgumentException("percentPreallocated must be greater or equal to zero and less or equal to 1");
         }
 
+        if (magazineSize < 0) {
+            throw new IllegalArgumentException("magazineSize must be greater or equal to zero");
+        }
+
+        if (magazineSize > 0 && magazineBatchSize != -1
+                && (magazineBatchSize <= 0 || magazineBatchSize > magazineSize)) {
+            throw new IllegalArgumentException("magazineBatchSize must be greater than zero and less or equal to magazineSize");
+        }
+
+        if (builder.adaptive && builder.rebalanceIntervalMillis <= 0) {
+            throw new IllegalArgumentException("rebalanceInterval must be greater than zero");
+        }
+
+        if (builder.leakDetectionSamplingRate < 0.0f
+                || builder.leakDetectionSamplingRate > 1.0f) {
+            throw new IllegalArgumentException("leakDetectionSamplingRate must be greater or equal to zero and less or equal to 1");
+        }
+
+        leakDetector = builder.leakDetectionSamplingRate > 0
+                ? new BufferLeakDetector(builder.leakDetectionSamplingRate,
+                        monitoringConfig)
+                : null;
+
+        this.magazineSize = magazineSize;
+        this.magazineBatchSize = magazineSize == 0
+                ? 0
+                : magazineBatchSize == -1
+                        ? Math.max(1, magazineSize / 2)
+                        : magazineBatchSize;
+        this.threadAffinity = builder.threadAffinity;
+        threadAffinities = threadAffinity
+                ? new ThreadLocal<ThreadAffinity>() {
+                    @Override
+                    protected ThreadAffinity initialValue() {
+                        return createThreadAffinity();
+                    }
+                }
+                : null;
+
         final long heapSize = Runtime.getRuntime().maxMemory();
         final long memoryPerSubPool = (long) (heapSize * percentOfHeap / numberOfPools);
+        
+        // in adaptive mode every pool might get the entire memory budget
+        final long maxMemoryPerSubPool = builder.adaptive
+                ? memoryPerSubPool * numberOfPools
+                : memoryPerSubPool;
 
         pools = new Pool[numberOfPools];
         for (int i = 0, bufferSize = baseBufferSize; i < numberOfPools; i++, bufferSize <<= growthFactor) {
-            pools[i] = new Pool(bufferSize, memoryPerSubPool,
+            pools[i] = new Pool(i, bufferSize, memoryPerSubPool,
+                    maxMemoryPerSubPool,
                     numberOfPoolSlices, percentPreallocated, isDirect,
-                    monitoringConfig);
+                    this.magazineSize, this.magazineBatchSize,
+                    threadAffinities, leakDetector, monitoringConfig);
         }
         maxPooledBufferSize = pools[numberOfPools - 1].bufferSize;
+        
+        if (builder.adaptive) {
+            adaptiveSizing = new AdaptiveSizing(pools,
+                    builder.idleTrimTimeoutMillis);
+            monitoringConfig.addProbes(adaptiveSizing);
+            adaptiveSizingTask = AdaptiveSizingTask.schedule(this,
+                    builder.rebalanceIntervalMillis);
+        } else {
+            adaptiveSizing = null;
+            adaptiveSizingTask = null;
+        }
+    }
+
+    /**
+     * @return a new {@link Builder} to configure and create a
+     *  <code>PooledMemoryManager</code>
+     *
+     * @since 3.0
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the max number of free buffers every thread may cache per pool,
+     *  <tt>0</tt> if thread-local magazines are disabled
+     *
+     * @since 3.0
+     */
+    public int getMagazineSize() {
+        return magazineSize;
+    }
+
+    /**
+     * @return the number of buffers moved between a thread-local magazine and
+     *  the shared pool slices when the magazine runs empty or full
+     *
+     * @since 3.0
+     */
+    public int getMagazineBatchSize() {
+        return magazineBatchSize;
+    }
+
+    /**
+     * @return <tt>true</tt> if every Grizzly thread is bound to its own slice
+     *  of every pool, or <tt>false</tt> if the threads pick random slices
+     *
+     * @since 3.0
+     */
+    public boolean isThreadAffinity() {
+        return threadAffinity;
+    }
+
+    /**
+     * @return <tt>true</tt> if the memory budget is moved between the pools
+     *  at runtime depending on the demand, or <tt>false</tt> if the pools
+     *  have fixed size
+     *
+     * @since 3.0
+     */
+    public boolean isAdaptive() {
+        return adaptiveSizing != null;
+    }
+
+    /**
+     * Stops the periodic pool budget rebalancing in the adaptive mode.
+     * The manager remains operational, but the pools keep their current sizes.
+     * The rebalancing thread is shared by all the adaptive managers and
+     * terminates, once none of them needs it, so the method has to be called
+     * when the manager is not used anymore (the rebalancing is also stopped,
+     * once the manager is garbage collected).
+     * The method does nothing if the adaptive mode is disabled.
+     *
+     * @since 3.0
+     */
+    public void stopAdaptiveSizing() {
+        if (adaptiveSizingTask != null) {
+            adaptiveSizingTask.cancel();
+        }
+    }
+
+    /**
+     * @return the share of the allocated buffers tracked by the leak detector,
+     *  <tt>0</tt> if leak detection is disabled
+     *
+     * @since 3.0
+     */
+    public float getLeakDetectionSamplingRate() {
+        return leakDetector != null ? leakDetector.getSamplingRate() : 0;
+    }
+
+    /**
+     * Returns the number of sampled buffer allocations per call site, where the
+     * call site is the first stack frame outside of the memory package. The
+     * actual number of allocations could be estimated by dividing the sampled
+     * number by the {@link #getLeakDetectionSamplingRate()}.
+     *
+     * @return the number of sampled buffer allocations per call site, the map
+     *  is empty if leak detection is disabled
+     *
+     * @since 3.0
+     */
+    public Map<String, Long> getAllocationSites() {
+        return leakDetector != null
+                ? leakDetector.getAllocationSites()
+                : Collections.<String, Long>emptyMap();
+    }
+
+
     // ---------------------------------------------- Methods from MemoryManager
 
 
@@ -406,10 +794,49 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     Pool[] getPools() {
         return Arrays.copyOf(pools, pools.length);
     }
+
+    AdaptiveSizing getAdaptiveSizing() {
+        return adaptiveSizing;
+    }
+
+    BufferLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
     
     // --------------------------------------------------------- Private Methods
 
 
+    /*
+     * Binds the current Grizzly thread to a pool slice. The slices are
+     * assigned to the threads in round-robin fashion. Threads not created
+     * by Grizzly are not bound and keep using random slices.
+     */
+    private ThreadAffinity createThreadAffinity() {
+        if (!(Thread.currentThread() instanceof DefaultWorkerThread)) {
+            return null;
+        }
+        
+        final int sliceIndex = (threadAffinityCounter.getAndIncrement()
+                & Integer.MAX_VALUE) % pools[0].slices.length;
+        
+        final ThreadAffinity affinity =
+                new ThreadAffinity(pools.length, sliceIndex, magazineSize);
+        if (affinity.magazines != null) {
+            // return the cached buffers to the slices, once the thread is gone
+            ((DefaultWorkerThread) Thread.currentThread()).addExitHook(
+                    new Runnable() {
+                @Override
+                public void run() {
+                    for (Magazine magazine : affinity.magazines) {
+                        magazine.drain();
+                    }
+                }
+            });
+        }
+        
+        return affinity;
+    }
+
     private Pool getPoolFor(final int size) {
         for (int i = 0; i < pools.length; i++) {
             final Pool pool = pools[i];
@@ -455,6 +882,32 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         return cb;
     }
 
+    /*
+     * Releases a single reference to the shared pooled memory.
+     *
+     * @return <tt>true</tt> if the last reference has been released and the
+     *      source buffer has to be returned to the pool
+     */
+    private static boolean releaseReference(final AtomicInteger refCount) {
+        // the counter never drops below zero, so the racing releases of
+        // the last reference can't both return the buffer to the pool
+        for (;;) {
+            final int count = refCount.get();
+            if (count <= 0) {
+                if (DEBUG_MODE) {
+                    throw new IllegalStateException(
+                            "PoolBuffer memory has already been released");
+                }
+                
+                return false;
+            }
+            
+            if (refCount.compareAndSet(count, count - 1)) {
+                return count == 1;
+            }
+        }
+    }
+
     private static boolean isPowerOfTwo(final int valueToCheck) {
         return ((valueToCheck & (valueToCheck - 1)) == 0);
     }
@@ -484,20 +937,57 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     }
 
     static final class Pool {
+        private final int index;
         private final PoolSlice[] slices;
         private final int bufferSize;
 
-        public Pool(final int bufferSize, final long memoryPerSubPool,
+        // the threads' bindings to the pool slices, null if disabled
+        private final ThreadLocal<ThreadAffinity> threadAffinities;
+
+        // thread-local magazines, null if disabled
+        private final ThreadLocal<Magazine> magazines;
+        private final int magazineBatchSize;
+        // incremented every time the pool is trimmed or shrunk, so the
+        // threads release the buffers cached by their magazines
+        private final AtomicInteger trimEpoch = new AtomicInteger();
+
+        // sampling buffer leak detector, null if disabled
+        private final BufferLeakDetector leakDetector;
+        
+        private final DefaultMonitoringConfig<MemoryProbe> monitoringConfig;
+
+        public Pool(final int index, final int bufferSize,
+                final long memoryPerSubPool,
+                final long maxMemoryPerSubPool,
                 final int numberOfPoolSlices, final float percentPreallocated,
                 final boolean isDirect,
+                final int magazineSize, final int magazineBatchSize,
+                final ThreadLocal<ThreadAffinity> threadAffinities,
+                final BufferLeakDetector leakDetector,
                 final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
+            this.index = index;
             this.bufferSize = bufferSize;
+            this.threadAffinities = threadAffinities;
+            this.leakDetector = leakDetector;
+            this.monitoringConfig = monitoringConfig;
+            this.magazineBatchSize = magazineBatchSize;
+            magazines = magazineSize > 0
+                    ? new ThreadLocal<Magazine>() {
+                        @Override
+                        protected Magazine initialValue() {
+                            return createMagazine(magazineSize);
+                        }
+                    }
+                    : null;
+            
             slices = new PoolSlice[numberOfPoolSlices];
             final long memoryPerSlice = memoryPerSubPool / numberOfPoolSlices;
+            final long maxMemoryPerSlice = maxMemoryPerSubPool / numberOfPoolSlices;
             
             for (int i = 0; i < numberOfPoolSlices; i++) {
-                slices[i] = new PoolSlice(this, memoryPerSlice, bufferSize,
-                        percentPreallocated, isDirect, monitoringConfig);
+                slices[i] = new PoolSlice(this, memoryPerSlice, maxMemoryPerSlice,
+                        bufferSize, percentPreallocated, isDirect,
+                        monitoringConfig);
             }
         }
 
@@ -517,19 +1007,143 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public int getBufferSize() {
             return bufferSize;
         }
+
+        /**
+         * @return the max amount of memory (in bytes), which could be
+         *  retained by this pool
+         */
+        public long getMaxSize() {
+            long sum = 0;
+            for (int i = 0; i < slices.length; i++) {
+                sum += slices[i].getMaxElementsCount();
+            }
+            
+            return sum * bufferSize;
+        }
+
+        /**
+         * @return the max amount of memory (in bytes), this pool could grow to
+         */
+        long getCapacity() {
+            return (long) slices[0].getCapacity() * bufferSize * slices.length;
+        }
+
+        /**
+         * Changes the max amount of memory (in bytes), which could be retained
+         * by this pool. If the pool shrinks, the excessive idle buffers get
+         * released, and the threads' magazines get emptied.
+         *
+         * @return the actual max amount of memory (in bytes), which could be
+         *  retained by this pool
+         */
+        long setMaxSize(final long maxSize) {
+            final long oldMaxSize = getMaxSize();
+            final long elementsPerSlice = maxSize / bufferSize / slices.length;
+            for (int i = 0; i < slices.length; i++) {
+                slices[i].setMaxElementsCount(elementsPerSlice);
+            }
+            
+            final long newMaxSize = getMaxSize();
+            if (newMaxSize < oldMaxSize) {
+                trimEpoch.incrementAndGet();
+            }
+            
+            return newMaxSize;
+        }
+
+        /**
+         * Releases all the idle buffers retained by the pool slices.
+         * The buffers cached by the threads' magazines can't be touched by
+         * other threads, so every thread releases them, once it accesses
+         * the pool next time.
+         */
+        void trim() {
+            trimEpoch.incrementAndGet();
+            for (int i = 0; i < slices.length; i++) {
+                slices[i].clear();
+            }
+        }
         
         public PoolSlice[] getSlices() {
             return Arrays.copyOf(slices, slices.length);
         }
         
         public Buffer allocate() {
-            final PoolSlice slice = getSlice();
-            PoolBuffer b = slice.poll();
+            final ThreadAffinity affinity = currentAffinity();
+            final Magazine magazine = getMagazine(affinity);
+            final PoolBuffer b;
+            if (magazine != null) {
+                b = allocateFromMagazine(magazine, affinity);
+            } else {
+                final PoolSlice slice = getSlice(affinity);
+                final PoolBuffer pb = slice.poll();
+                b = pb != null ? pb : slice.allocate();
+            }
+            
+            b.prepare();
+            
+            if (leakDetector != null) {
+                b.tracker(leakDetector.track(b, bufferSize));
+            }
+            
+            return b;
+        }
+
+        /**
+         * Returns the {@link PoolBuffer} back to the current thread's magazine,
+         * if the thread has one, or directly to its owner {@link PoolSlice}
+         * otherwise.
+         */
+        void release(final PoolBuffer b) {
+            final Magazine magazine = getMagazine(currentAffinity());
+            if (magazine == null) {
+                b.owner().offer(b);
+                return;
+            }
+            
+            if (magazine.isFull()) {
+                magazine.flush(magazineBatchSize);
+            }
+            
+            magazine.push(b);
+            ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig, bufferSize);
+        }
+        
+        /**
+         * @return the number of free {@link Buffer}s cached by the current
+         * thread's magazine
+         */
+        int magazineElementsCount() {
+            final Magazine magazine = getMagazine(currentAffinity());
+            return magazine != null ? magazine.size : 0;
+        }
+        
+        private PoolBuffer allocateFromMagazine(final Magazine magazine,
+                final ThreadAffinity affinity) {
+            PoolBuffer b = magazine.pop();
+            if (b != null) {
+                ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
+                        bufferSize);
+                return b;
+            }
+            
+            // the magazine is empty - refill it from a shared slice
+            final PoolSlice slice = getSlice(affinity);
+            b = slice.poll();
             if (b == null) {
-                b = slice.allocate();
+                return slice.allocate();
+            }
+
+            for (int i = 1; i < magazineBatchSize; i++) {
+                final PoolBuffer pb = slice.poll(false);
+                if (pb == null) {
+                    break;
+                }
+                
+                magazine.push(pb);
             }
             
-            return b.prepare();
+            return b;
         }
 
         @Override
@@ -552,12 +1166,572 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             return sb.toString();
         }
         
-        @SuppressWarnings("unchecked")
-        private PoolSlice getSlice() {
-            return slices[ThreadLocalRandom.current().nextInt(slices.length)];
+        private PoolSlice getSlice(final ThreadAffinity affinity) {
+            return affinity != null
+                    ? slices[affinity.sliceIndex]
+                    : slices[ThreadLocalRandom.current().nextInt(slices.length)];
+        }
+
+        /*
+         * Returns the current thread's magazine, or null if magazines are
+         * disabled or the thread is not a Grizzly thread. If the pool has
+         * been trimmed since the thread's last access, the magazine's buffers
+         * are released.
+         */
+        private Magazine getMagazine(final ThreadAffinity affinity) {
+            if (magazines == null) {
+                return null;
+            }
+            
+            final Magazine magazine = affinity != null
+                    ? affinity.magazines[index]
+                    : magazines.get();
+            
+            if (magazine != null) {
+                final int epoch = trimEpoch.get();
+                if (magazine.trimEpoch != epoch) {
+                    magazine.clear();
+                    magazine.trimEpoch = epoch;
+                }
+            }
+            
+            return magazine;
+        }
+
+        /*
+         * Creates the magazine for the current thread. Only the long-lived
+         * Grizzly threads get magazines, and the magazine's buffers are
+         * returned to the slices once the thread exits, so short-lived
+         * threads can't strand the pooled buffers.
+         */
+        private static Magazine createMagazine(final int magazineSize) {
+            final Thread currentThread = Thread.currentThread();
+            if (!(currentThread instanceof DefaultWorkerThread)) {
+                return null;
+            }
+            
+            final Magazine magazine = new Magazine(magazineSize);
+            ((DefaultWorkerThread) currentThread).addExitHook(new Runnable() {
+                @Override
+                public void run() {
+                    magazine.drain();
+                }
+            });
+            
+            return magazine;
+        }
+
+        /*
+         * Returns the current thread's binding to the pool slices, or null
+         * if the thread affinity mode is off or the thread is not bound.
+         */
+        private ThreadAffinity currentAffinity() {
+            return threadAffinities != null ? threadAffinities.get() : null;
         }
     }
 
+    /*
+     * Moves the memory budget between the pools in adaptive mode.
+     * Hits (allocations served by a pool) and misses (allocations, which had
+     * to create a new buffer) are collected via {@link MemoryProbe} events,
+     * and periodically the pools, which haven't missed, donate part of their
+     * idle memory to the pools, which have.
+     */
+    static final class AdaptiveSizing extends MemoryProbe.Adapter {
+        private final Pool[] pools;
+        private final long idleTrimTimeoutMillis;
+
+        private final LongAdder[] hits;
+        private final LongAdder[] misses;
+        
+        // the minimal budget of every pool
+        private final long[] minSizes;
+        // the budget, which couldn't be assigned to any pool yet
+        private long unassigned;
+
+        // accessed by the rebalancing thread only
+        private final long[] lastActivityMillis;
+        private final boolean[] isTrimmed;
+        
+        AdaptiveSizing(final Pool[] pools, final long idleTrimTimeoutMillis) {
+            this.pools = pools;
+            this.idleTrimTimeoutMillis = idleTrimTimeoutMillis;
+            
+            hits = new LongAdder[pools.length];
+            misses = new LongAdder[pools.length];
+            minSizes = new long[pools.length];
+            lastActivityMillis = new long[pools.length];
+            isTrimmed = new boolean[pools.length];
+            
+            final long now = System.currentTimeMillis();
+            for (int i = 0; i < pools.length; i++) {
+                hits[i] = new LongAdder();
+                misses[i] = new LongAdder();
+                minSizes[i] = pools[i].getMaxSize() / 4;
+                lastActivityMillis[i] = now;
+            }
+        }
+
+        @Override
+        public void onBufferAllocateEvent(final int size) {
+            final int idx = indexOf(size);
+            if (idx != -1) {
+                misses[idx].increment();
+            }
+        }
+
+        @Override
+        public void onBufferAllocateFromPoolEvent(final int size) {
+            final int idx = indexOf(size);
+            if (idx != -1) {
+                hits[idx].increment();
+            }
+        }
+
+        synchronized void rebalance(final long now) {
+            final int poolsCount = pools.length;
+            final long[] missedSizes = new long[poolsCount];
+            long totalMissedSize = 0;
+            
+            for (int i = 0; i < poolsCount; i++) {
+                final long h = hits[i].sumThenReset();
+                final long m = misses[i].sumThenReset();
+                
+                if (h + m > 0) {
+                    lastActivityMillis[i] = now;
+                    isTrimmed[i] = false;
+                }
+                
+                missedSizes[i] = m * pools[i].getBufferSize();
+                totalMissedSize += missedSizes[i];
+            }
+            
+            if (totalMissedSize > 0) {
+                long donated = unassigned;
+                
+                // take up to a half of the idle memory from the pools,
+                // which have had no misses
+                for (int i = 0; i < poolsCount && donated < totalMissedSize; i++) {
+                    if (missedSizes[i] > 0) {
+                        continue;
+                    }
+                    
+                    final Pool pool = pools[i];
+                    final long maxSize = pool.getMaxSize();
+                    final long donation = Math.min(totalMissedSize - donated,
+                            Math.min(maxSize - minSizes[i], pool.size() / 2));
+                    
+                    if (donation > 0) {
+                        donated += maxSize - pool.setMaxSize(maxSize - donation);
+                    }
+                }
+                
+                // distribute the donated memory proportionally to the misses
+                long assigned = 0;
+                for (int i = 0; i < poolsCount && donated > 0; i++) {
+                    if (missedSizes[i] == 0) {
+                        continue;
+                    }
+                    
+                    final Pool pool = pools[i];
+                    final long maxSize = pool.getMaxSize();
+                    final long share = (long) ((double) donated
+                            * missedSizes[i] / totalMissedSize);
+                    
+                    assigned += pool.setMaxSize(Math.min(pool.getCapacity(),
+                            maxSize + share)) - maxSize;
+                }
+                
+                unassigned = donated - assigned;
+            }
+            
+            // release idle buffers of the pools, which haven't been used for a while
+            for (int i = 0; i < poolsCount; i++) {
+                if (!isTrimmed[i] &&
+                        now - lastActivityMillis[i] >= idleTrimTimeoutMillis) {
+                    pools[i].trim();
+                    isTrimmed[i] = true;
+                }
+            }
+        }
+        
+        private int indexOf(final int size) {
+            for (int i = 0; i < pools.length; i++) {
+                if (pools[i].getBufferSize() == size) {
+                    return i;
+                }
+            }
+            
+            return -1;
+        }
+    } // END AdaptiveSizing
+
+    /*
+     * Periodically rebalances a PooledMemoryManager's pools. The task
+     * references the manager weakly and cancels itself, once the manager
+     * is garbage collected. The scheduler thread is shared by all the tasks,
+     * it's started by the first scheduled task and shut down, once the last
+     * one is cancelled.
+     */
+    static final class AdaptiveSizingTask implements Runnable {
+        private static final Object SYNC = new Object();
+
+        // guarded by SYNC
+        private static ScheduledExecutorService scheduler;
+        private static int scheduledTasks;
+
+        private final WeakReference<PooledMemoryManager> mmRef;
+
+        // guarded by SYNC
+        private ScheduledFuture<?> future;
+
+        private AdaptiveSizingTask(final PooledMemoryManager mm) {
+            mmRef = new WeakReference<PooledMemoryManager>(mm);
+        }
+
+        static AdaptiveSizingTask schedule(final PooledMemoryManager mm,
+                final long intervalMillis) {
+            final AdaptiveSizingTask task = new AdaptiveSizingTask(mm);
+
+            synchronized (SYNC) {
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(
+                            new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            final Thread newThread = new Thread(r);
+                            newThread.setName("Grizzly-PooledMemoryManager-Rebalancer");
+                            newThread.setDaemon(true);
+                            return newThread;
+                        }
+                    });
+                }
+
+                scheduledTasks++;
+                task.future = scheduler.scheduleWithFixedDelay(task,
+                        intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+
+            return task;
+        }
+
+        static boolean isSchedulerRunning() {
+            synchronized (SYNC) {
+                return scheduler != null;
+            }
+        }
+
+        void cancel() {
+            synchronized (SYNC) {
+                if (future == null) {
+                    return;
+                }
+
+                future.cancel(false);
+                future = null;
+
+                if (--scheduledTasks == 0) {
+                    scheduler.shutdown();
+                    scheduler = null;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            final PooledMemoryManager mm = mmRef.get();
+            if (mm == null) {
+                cancel();
+                return;
+            }
+            
+            try {
+                mm.adaptiveSizing.rebalance(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error rebalancing the memory pools", e);
+            }
+        }
+    } // END AdaptiveSizingTask
+
+    /**
+     * {@link PooledMemoryManager} builder, which exposes the options, which
+     * are not available via the <code>PooledMemoryManager</code> constructors.
+     *
+     * @since 3.0
+     */
+    public static final class Builder {
+        private int baseBufferSize = DEFAULT_BASE_BUFFER_SIZE;
+        private int numberOfPools = DEFAULT_NUMBER_OF_POOLS;
+        private int growthFactor = DEFAULT_GROWTH_FACTOR;
+        private int numberOfPoolSlices =
+                Runtime.getRuntime().availableProcessors();
+        private float percentOfHeap = DEFAULT_HEAP_USAGE_PERCENTAGE;
+        private float percentPreallocated =
+                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE;
+        private boolean isDirect;
+        private int magazineSize = DEFAULT_MAGAZINE_SIZE;
+        private int magazineBatchSize = DEFAULT_MAGAZINE_BATCH_SIZE;
+        private boolean adaptive;
+        private long rebalanceIntervalMillis = DEFAULT_REBALANCE_INTERVAL_MILLIS;
+        private long idleTrimTimeoutMillis = DEFAULT_IDLE_TRIM_TIMEOUT_MILLIS;
+        private float leakDetectionSamplingRate =
+                DEFAULT_LEAK_DETECTION_SAMPLING_RATE;
+        private boolean threadAffinity = DEFAULT_THREAD_AFFINITY;
+
+        private Builder() {
+        }
+
+        /**
+         * @param baseBufferSize the base size of the buffer for the 1st pool,
+         *  every next pool n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+         * @return this builder
+         */
+        public Builder setBaseBufferSize(final int baseBufferSize) {
+            this.baseBufferSize = baseBufferSize;
+            return this;
+        }
+
+        /**
+         * @param numberOfPools the number of pools, responsible for allocation
+         *  of buffers of a pool-specific size
+         * @return this builder
+         */
+        public Builder setNumberOfPools(final int numberOfPools) {
+            this.numberOfPools = numberOfPools;
+            return this;
+        }
+
+        /**
+         * @param growthFactor the buffer size growth factor, that defines 2^x
+         *  multiplier, used to calculate buffer size for next allocated pool
+         * @return this builder
+         */
+        public Builder setGrowthFactor(final int growthFactor) {
+            this.growthFactor = growthFactor;
+            return this;
+        }
+
+        /**
+         * @param numberOfPoolSlices the number of pool slices that every pool
+         *  will stripe allocation requests across
+         * @return this builder
+         */
+        public Builder setNumberOfPoolSlices(final int numberOfPoolSlices) {
+            this.numberOfPoolSlices = numberOfPoolSlices;
+            return this;
+        }
+
+        /**
+         * @param percentOfHeap percentage of the heap that will be used when
+         *  populating the pools
+         * @return this builder
+         */
+        public Builder setPercentOfHeap(final float percentOfHeap) {
+            this.percentOfHeap = percentOfHeap;
+            return this;
+        }
+
+        /**
+         * @param percentPreallocated percentage of buffers to be pre-allocated
+         *  during MemoryManager initialization
+         * @return this builder
+         */
+        public Builder setPercentPreallocated(final float percentPreallocated) {
+            this.percentPreallocated = percentPreallocated;
+            return this;
+        }
+
+        /**
+         * @param isDirect flag, indicating whether direct or heap based
+         *  {@link Buffer}s will be allocated
+         * @return this builder
+         */
+        public Builder setDirect(final boolean isDirect) {
+            this.isDirect = isDirect;
+            return this;
+        }
+
+        /**
+         * @param magazineSize the max number of free buffers every thread may
+         *  cache per pool, <tt>0</tt> disables thread-local magazines
+         * @return this builder
+         */
+        public Builder setMagazineSize(final int magazineSize) {
+            this.magazineSize = magazineSize;
+            return this;
+        }
+
+        /**
+         * @param magazineBatchSize the number of buffers moved between a
+         *  magazine and the pool slices when the magazine runs empty or full,
+         *  <tt>-1</tt> means half of the magazine size
+         * @return this builder
+         */
+        public Builder setMagazineBatchSize(final int magazineBatchSize) {
+            this.magazineBatchSize = magazineBatchSize;
+            return this;
+        }
+
+        /**
+         * @param threadAffinity <tt>true</tt>, if every Grizzly thread, which
+         *  allocates buffers from the manager, has to be bound to its own slice
+         *  of every pool
+         * @return this builder
+         */
+        public Builder setThreadAffinity(final boolean threadAffinity) {
+            this.threadAffinity = threadAffinity;
+            return this;
+        }
+
+        /**
+         * @param adaptive <tt>true</tt>, if the memory budget has to be moved
+         *  between the pools depending on the demand, and the idle pools have
+         *  to release their buffers after the quiet period
+         * @return this builder
+         */
+        public Builder setAdaptive(final boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * @param rebalanceInterval the interval between the pool budget
+         *  rebalancing in the adaptive mode
+         * @param timeUnit the interval {@link TimeUnit}
+         * @return this builder
+         */
+        public Builder setRebalanceInterval(final long rebalanceInterval,
+                final TimeUnit timeUnit) {
+            this.rebalanceIntervalMillis = timeUnit.toMillis(rebalanceInterval);
+            return this;
+        }
+
+        /**
+         * @param idleTrimTimeout the quiet period, after which an unused pool
+         *  releases its idle buffers in the adaptive mode
+         * @param timeUnit the timeout {@link TimeUnit}
+         * @return this builder
+         */
+        public Builder setIdleTrimTimeout(final long idleTrimTimeout,
+                final TimeUnit timeUnit) {
+            this.idleTrimTimeoutMillis = timeUnit.toMillis(idleTrimTimeout);
+            return this;
+        }
+
+        /**
+         * @param leakDetectionSamplingRate the share of the allocated buffers
+         *  (from <tt>0</tt> to <tt>1</tt>), which have to be tracked by the
+         *  leak detector, <tt>0</tt> disables leak detection
+         * @return this builder
+         */
+        public Builder setLeakDetectionSamplingRate(
+                final float leakDetectionSamplingRate) {
+            this.leakDetectionSamplingRate = leakDetectionSamplingRate;
+            return this;
+        }
+
+        /**
+         * @return a new {@link PooledMemoryManager}
+         */
+        public PooledMemoryManager build() {
+            return new PooledMemoryManager(this);
+        }
+    } // END Builder
+
+    /*
+     * Binds a Grizzly thread to a slice of every {@link Pool} of the
+     * {@link PooledMemoryManager} and holds the thread's magazines.
+     */
+    static final class ThreadAffinity {
+        private final int sliceIndex;
+        
+        // per pool magazines, null if magazines are disabled
+        private final Magazine[] magazines;
+
+        ThreadAffinity(final int poolsCount, final int sliceIndex,
+                final int magazineSize) {
+            this.sliceIndex = sliceIndex;
+            
+            if (magazineSize > 0) {
+                magazines = new Magazine[poolsCount];
+                for (int i = 0; i < poolsCount; i++) {
+                    magazines[i] = new Magazine(magazineSize);
+                }
+            } else {
+                magazines = null;
+            }
+        }
+
+        int getSliceIndex() {
+            return sliceIndex;
+        }
+    } // END ThreadAffinity
+
+    /*
+     * Per-thread bounded LIFO stack of free {@link PoolBuffer}s of a single
+     * {@link Pool}. The most recently released buffers are handed out first,
+     * because they are more likely to be still in the CPU cache, and the
+     * oldest ones are flushed back to their {@link PoolSlice}s.
+     */
+    static final class Magazine {
+        private final PoolBuffer[] buffers;
+        private int size;
+        // the pool's trim epoch, the magazine's buffers have been cached at
+        private int trimEpoch;
+
+        Magazine(final int capacity) {
+            buffers = new PoolBuffer[capacity];
+        }
+
+        boolean isFull() {
+            return size == buffers.length;
+        }
+
+        void push(final PoolBuffer b) {
+            buffers[size++] = b;
+        }
+
+        PoolBuffer pop() {
+            if (size == 0) {
+                return null;
+            }
+
+            final PoolBuffer b = buffers[--size];
+            buffers[size] = null;
+            return b;
+        }
+
+        /*
+         * Returns the <tt>count</tt> oldest buffers back to their owner slices.
+         */
+        void flush(final int count) {
+            final int n = Math.min(count, size);
+            for (int i = 0; i < n; i++) {
+                final PoolBuffer b = buffers[i];
+                b.owner().offer(b, false);
+            }
+
+            System.arraycopy(buffers, n, buffers, 0, size - n);
+            Arrays.fill(buffers, size - n, size, null);
+            size -= n;
+        }
+
+        /*
+         * Returns all the buffers back to their owner slices.
+         */
+        void drain() {
+            flush(size);
+        }
+
+        /*
+         * Releases all the buffers, so they can be garbage collected.
+         */
+        void clear() {
+            Arrays.fill(buffers, 0, size, null);
+            size = 0;
+        }
+    } // END Magazine
+
     /*
      *   This array backed by this pool can only support
      *   2^30-1 elements instead of the usual 2^32-1.
@@ -600,6 +1774,10 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // The max size of the pool.
         private final int maxPoolSize;
 
+        // The max number of elements retained by the pool, which might be
+        // less than maxPoolSize in adaptive mode
+        private volatile int maxElements;
+
         // Strides in pool
         private final int stridesInPool;
         
@@ -618,6 +1796,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
         PoolSlice(final Pool owner,
                    final long totalPoolSize,
+                   final long maxTotalPoolSize,
                    final int bufferSize,
                    final float percentPreallocated,
                    final boolean isDirect,
@@ -628,24 +1807,28 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             this.isDirect = isDirect;
             this.monitoringConfig = monitoringConfig;
             int initialSize = (int) (totalPoolSize / ((long) bufferSize));
+            final long maxSize = Math.max(initialSize,
+                    maxTotalPoolSize / ((long) bufferSize));
+            
+            // poolSize must be less than or equal to 2^30 - 1.
+            if (maxSize >= WRAP_BIT_MASK - STRIDE) {
+                throw new IllegalStateException(
+                        "Cannot manage a pool larger than 2^30-1");
+            }
 
             // Round up to the nearest multiple of 16 (STRIDE).  This is
             // done as elements will be accessed at (offset + index + STRIDE).
             // Offset is calculated each time we overflow the array.
             // This access scheme should help us avoid false sharing.
-            maxPoolSize = ((initialSize + (STRIDE - 1)) & ~(STRIDE - 1));
+            maxPoolSize = (((int) maxSize + (STRIDE - 1)) & ~(STRIDE - 1));
             stridesInPool = maxPoolSize >> LOG2_STRIDE; // maxPoolSize / STRIDE
-            
-            // poolSize must be less than or equal to 2^30 - 1.
-            if (maxPoolSize >= WRAP_BIT_MASK) {
-                throw new IllegalStateException(
-                        "Cannot manage a pool larger than 2^30-1");
-            }
+            maxElements = Math.min(maxPoolSize,
+                    ((initialSize + (STRIDE - 1)) & ~(STRIDE - 1)));
 
             pool1 = new PaddedAtomicReferenceArray<>(maxPoolSize);
             
-            final int preallocatedBufs = Math.min(maxPoolSize,
-                    (int) (percentPreallocated * maxPoolSize));
+            final int preallocatedBufs = Math.min(maxElements,
+                    (int) (percentPreallocated * maxElements));
             
             int idx = 0;
             
@@ -663,6 +1846,15 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
 
         public final PoolBuffer poll() {
+            return poll(true);
+        }
+
+        /*
+         * @param notify <tt>false</tt>, if the buffer is moved into a
+         *      thread-local magazine rather than handed out to a user, so
+         *      "allocated from pool" probe event should not be fired.
+         */
+        final PoolBuffer poll(final boolean notify) {
             int pollIdx;
             for (;;) {
                 pollIdx = this.pollIdx.get();
@@ -687,8 +1879,10 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 // unmask the current read value to the actual array index.
                 final PoolBuffer pb = pool.getAndSet(unmaskedPollIdx, null);
                 if (pb != null) {
-                    ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
-                                                                bufferSize);
+                    if (notify) {
+                        ProbeNotifier.notifyBufferAllocatedFromPool(
+                                monitoringConfig, bufferSize);
+                    }
                     pollIdx = this.pollIdx.get();
                     final int offerIdx = this.offerIdx.get();
                     if (isEmpty(pollIdx, offerIdx)) {
@@ -703,13 +1897,22 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         }
 
         public final boolean offer(final PoolBuffer b) {
+            return offer(b, true);
+        }
+
+        /*
+         * @param notify <tt>false</tt>, if the buffer is flushed from a
+         *      thread-local magazine, so "released to pool" probe event has
+         *      been fired already.
+         */
+        final boolean offer(final PoolBuffer b, final boolean notify) {
             int offerIdx;
             for (;;) {
                 offerIdx = this.offerIdx.get();
                 final int pollIdx = this.pollIdx.get();
                 
                 // weak isFull check, might return false positives
-                if (isFull(pollIdx, offerIdx)) {
+                if (isAtLimit(pollIdx, offerIdx)) {
                     return false;
                 }
                 final int nextOfferIndex = nextIndex(offerIdx);
@@ -725,11 +1928,13 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             for (;;) {
                 // unmask the current write value to the actual array index.
                 if (pool.compareAndSet(unmaskedOfferIdx, null, b)) {
-                    ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
-                                                             bufferSize);
+                    if (notify) {
+                        ProbeNotifier.notifyBufferReleasedToPool(
+                                monitoringConfig, bufferSize);
+                    }
                     final int pollIdx = this.pollIdx.get();
                     offerIdx = this.offerIdx.get();
-                    if (isFull(pollIdx, offerIdx)) {
+                    if (isAtLimit(pollIdx, offerIdx)) {
                         ProbeNotifier.notifyPoolRestoredToFull(monitoringConfig);
                     }
                     return true;
@@ -769,8 +1974,30 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
          * this <tt>PoolSlice</tt>
          */
         public int getMaxElementsCount() {
+            return maxElements;
+        }
+
+        /**
+         * @return the max number of {@link Buffer}s, this <tt>PoolSlice</tt>
+         * could grow to
+         */
+        int getCapacity() {
             return maxPoolSize;
         }
+
+        /*
+         * Changes the max number of pooled buffers, releasing the excessive
+         * idle buffers if needed.
+         */
+        void setMaxElementsCount(final long maxElementsCount) {
+            maxElements = (int) Math.min(maxPoolSize, maxElementsCount);
+            
+            while (elementsCount() > maxElements) {
+                if (poll(false) == null) {
+                    break;
+                }
+            }
+        }
         
         public final long size() {
             return (long) elementsCount() * (long) bufferSize;
@@ -778,7 +2005,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         
         public void clear() {
             //noinspection StatementWithEmptyBody
-            while (poll() != null) ;
+            while (poll(false) != null) ;
         }
 
         public PoolBuffer allocate() {
@@ -805,6 +2032,16 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             return (pollIdx ^ offerIdx) == WRAP_BIT_MASK;
         }
 
+        /*
+         * Checks if the slice reached its current max elements limit, which
+         * may be less than the slice capacity in adaptive mode.
+         */
+        private boolean isAtLimit(final int pollIdx, final int offerIdx) {
+            final int max = maxElements;
+            return isFull(pollIdx, offerIdx) ||
+                    (max < maxPoolSize && elementsCount(pollIdx, offerIdx) >= max);
+        }
+
         private static boolean isEmpty(final int pollIdx, final int offerIdx) {
             return pollIdx == offerIdx;
         }
@@ -867,6 +2104,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                                 ", offer index=" + unmask(widx) +
                                 ", offer wrap bit=" + (fillHighestOneBitRight(
                     getWrappingBit(widx)) & 1) +
+                                ", maxElements=" + maxElements +
                                 ", maxPoolSize=" + maxPoolSize +
                                 '}';
         }
@@ -908,12 +2146,18 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     } // END BufferPool
 
 
-    interface PoolBuffer extends Buffer {
+    interface PoolBuffer extends ReferenceCountedBuffer {
         PoolBuffer prepare();
         boolean free();
         PoolBuffer free(boolean free);
 
         PoolSlice owner();
+
+        /**
+         * Assigns the leak detector {@link BufferLeakDetector.Tracker},
+         * <tt>null</tt> if the buffer is not sampled.
+         */
+        void tracker(BufferLeakDetector.Tracker tracker);
     }
     
     private static final class PoolHeapBuffer extends HeapBuffer
@@ -926,15 +2170,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // be true.
         boolean free;
 
-        // represents the number of 'child' buffers that have been created using
-        // this as the foundation.  This source buffer can't be returned
-        // to the pool unless this value is zero.
-        protected final AtomicInteger shareCount;
+        // the number of not disposed buffers (the source and its 'children'),
+        // which share the source's memory.  The source buffer can't be
+        // returned to the pool unless this value drops to zero.
+        protected final AtomicInteger refCount;
 
         // represents the original buffer from the pool.  This value will be
         // non-null in any 'child' buffers created from the original.
         protected final PoolHeapBuffer source;
 
+        // the leak detector tracker, non-null only if the source buffer has
+        // been sampled
+        private BufferLeakDetector.Tracker tracker;
+
         
         // ------------------------------------------------------------ Constructors
 
@@ -962,26 +2210,26 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
          *                             May be <tt>null</tt>.
          * @param source               the <tt>PoolBuffer</tt> that is the
          *                             'parent' of this new buffer instance.  May be <tt>null</tt>.
-         * @param shareCount          shared reference to an {@link java.util.concurrent.atomic.AtomicInteger} that enables
+         * @param refCount            shared reference to an {@link java.util.concurrent.atomic.AtomicInteger} that enables
          *                             shared buffer book-keeping.
          *
-         * @throws IllegalArgumentException if <tt>underlyingByteBuffer</tt> or <tt>shareCount</tt>
+         * @throws IllegalArgumentException if <tt>underlyingByteBuffer</tt> or <tt>refCount</tt>
          *                                  are <tt>null</tt>.
          */
         private PoolHeapBuffer(final byte[] heap, final int offs, final int cap,
                            final PoolSlice owner,
                            final PoolHeapBuffer source,
-                           final AtomicInteger shareCount) {
+                           final AtomicInteger refCount) {
             super(heap, offs, cap);
             if (heap == null) {
                 throw new IllegalArgumentException("heap cannot be null.");
             }
-            if (shareCount == null) {
-                throw new IllegalArgumentException("shareCount cannot be null");
+            if (refCount == null) {
+                throw new IllegalArgumentException("refCount cannot be null");
             }
 
             this.owner = owner;
-            this.shareCount = shareCount;
+            this.refCount = refCount;
             this.source = source != null ? source : this;
         }
 
@@ -989,10 +2237,22 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public PoolBuffer prepare() {
             allowBufferDispose = true;
             free = false;
+            disposeStackTrace = null;
+            refCount.set(1);
             
             return this;
         }
 
+        @Override
+        public int referenceCount() {
+            return refCount.get();
+        }
+
+        @Override
+        public void tracker(final BufferLeakDetector.Tracker tracker) {
+            this.tracker = tracker;
+        }
+
         @Override
         public PoolSlice owner() {
             return owner;
@@ -1054,27 +2314,29 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         @Override
         public void dispose() {
             if (free) {
+                if (PooledMemoryManager.DEBUG_MODE) {
+                    throw new IllegalStateException(
+                            "PoolBuffer has already been disposed",
+                            disposeStackTrace);
+                }
                 return;
             }
             free = true;
             
+            if (PooledMemoryManager.DEBUG_MODE) {
+                disposeStackTrace = new Exception("PoolBuffer was disposed from: ");
+            }
+            
+            final BufferLeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch("disposed");
+            }
+            
             dispose0();
         }
 
         private void dispose0() {
-            // check shared counter optimistically
-            boolean isNotShared = shareCount.get() == 0;
-            if (!isNotShared) {
-                // try pessimistic check using CAS loop
-                isNotShared = (shareCount.getAndDecrement() == 0);
-                if (isNotShared) {
-                    // if the former check is true - the shared counter is negative,
-                    // so we have to reset it
-                    shareCount.set(0);
-                }
-            }
-            
-            if (isNotShared) {
+            if (releaseReference(refCount)) {
                 // we can now safely return source back to the queue
                 source.returnToPool();
             }
@@ -1082,12 +2344,17 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
 
         private void returnToPool() {
+            if (tracker != null) {
+                tracker.close();
+                tracker = null;
+            }
+            
             // restore capacity
             cap = heap.length;
             // clear
             clear();
             
-            owner.offer(this);
+            owner.owner.release(this);
         }
         
         // ----------------------------------------------------- Protected Methods
@@ -1122,7 +2389,7 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                     new PoolHeapBuffer(heap, offs + offset, capacity,
                             null, // don't keep track of the owner for child buffers
                             source, // pass the 'parent' buffer along
-                            shareCount); // pass the shareCount
+                            refCount); // pass the refCount
             b.allowBufferDispose(true);
 
             return b;
@@ -1132,7 +2399,12 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         protected void onShareHeap() {
             super.onShareHeap();
             
-            shareCount.incrementAndGet();
+            refCount.incrementAndGet();
+            
+            final BufferLeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch("shared");
+            }
         }
     } // END PoolBuffer
 
@@ -1147,15 +2419,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // be true.
         boolean free;
 
-        // represents the number of 'child' buffers that have been created using
-        // this as the foundation.  This source buffer can't be returned
-        // to the pool unless this value is zero.
-        protected final AtomicInteger shareCount;
+        // the number of not disposed buffers (the source and its 'children'),
+        // which share the source's memory.  The source buffer can't be
+        // returned to the pool unless this value drops to zero.
+        protected final AtomicInteger refCount;
 
         // represents the original buffer from the pool.  This value will be
         // non-null in any 'child' buffers created from the original.
         protected final PoolByteBufferWrapper source;
 
+        // the leak detector tracker, non-null only if the source buffer has
+        // been sampled
+        private BufferLeakDetector.Tracker tracker;
+
         // Used for the special case of the split() method.  This maintains
         // the original wrapper from the pool which must ultimately be returned.
         private final ByteBuffer origVisible;
@@ -1187,26 +2463,26 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
          *                             May be <tt>null</tt>.
          * @param source               the <tt>PoolBuffer</tt> that is the
          *                             'parent' of this new buffer instance.  May be <tt>null</tt>.
-         * @param shareCount          shared reference to an {@link java.util.concurrent.atomic.AtomicInteger} that enables
+         * @param refCount            shared reference to an {@link java.util.concurrent.atomic.AtomicInteger} that enables
          *                             shared buffer book-keeping.
          *
-         * @throws IllegalArgumentException if <tt>underlyingByteBuffer</tt> or <tt>shareCount</tt>
+         * @throws IllegalArgumentException if <tt>underlyingByteBuffer</tt> or <tt>refCount</tt>
          *                                  are <tt>null</tt>.
          */
         private PoolByteBufferWrapper(final ByteBuffer underlyingByteBuffer,
                            final PoolSlice owner,
                            final PoolByteBufferWrapper source,
-                           final AtomicInteger shareCount) {
+                           final AtomicInteger refCount) {
             super(underlyingByteBuffer);
             if (underlyingByteBuffer == null) {
                 throw new IllegalArgumentException("underlyingByteBuffer cannot be null.");
             }
-            if (shareCount == null) {
-                throw new IllegalArgumentException("shareCount cannot be null");
+            if (refCount == null) {
+                throw new IllegalArgumentException("refCount cannot be null");
             }
 
             this.owner = owner;
-            this.shareCount = shareCount;
+            this.refCount = refCount;
             this.source = source != null ? source : this;
             
             this.origVisible = this.source.visible;
@@ -1216,9 +2492,22 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         public PoolBuffer prepare() {
             allowBufferDispose = true;
             free = false;
+            disposeStackTrace = null;
+            refCount.set(1);
+            
             return this;
         }
 
+        @Override
+        public int referenceCount() {
+            return refCount.get();
+        }
+
+        @Override
+        public void tracker(final BufferLeakDetector.Tracker tracker) {
+            this.tracker = tracker;
+        }
+
         @Override
         public PoolSlice owner() {
             return owner;
@@ -1240,27 +2529,29 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         @Override
         public void dispose() {
             if (free) {
+                if (PooledMemoryManager.DEBUG_MODE) {
+                    throw new IllegalStateException(
+                            "PoolBuffer has already been disposed",
+                            disposeStackTrace);
+                }
                 return;
             }
             free = true;
             
+            if (PooledMemoryManager.DEBUG_MODE) {
+                disposeStackTrace = new Exception("PoolBuffer was disposed from: ");
+            }
+            
+            final BufferLeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch("disposed");
+            }
+            
             dispose0();
         }
 
         private void dispose0() {
-            // check shared counter optimistically
-            boolean isNotShared = shareCount.get() == 0;
-            if (!isNotShared) {
-                // try pessimistic check using CAS loop
-                isNotShared = (shareCount.getAndDecrement() == 0);
-                if (isNotShared) {
-                    // if the former check is true - the shared counter is negative,
-                    // so we have to reset it
-                    shareCount.set(0);
-                }
-            }
-            
-            if (isNotShared) {
+            if (releaseReference(refCount)) {
                 // we can now safely return source back to the queue
                 source.returnToPool();
             }
@@ -1275,9 +2566,14 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                     new PoolByteBufferWrapper(buffer,
                             null, // don't keep track of the owner for child buffers
                             source, // pass the 'parent' buffer along
-                            shareCount); // pass the shareCount
+                            refCount); // pass the refCount
             b.allowBufferDispose(true);
-            shareCount.incrementAndGet();
+            refCount.incrementAndGet();
+            
+            final BufferLeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch("shared");
+            }
 
             return b;
         }
@@ -1301,9 +2597,14 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         
         private void returnToPool() {
             // should be called on "source" only
+            if (tracker != null) {
+                tracker.close();
+                tracker = null;
+            }
+            
             visible = origVisible;
             visible.clear();
-            owner.offer(this);
+            owner.owner.release(this);
         }
     } // END PoolBuffer    
 }
@@ -133,4 +133,21 @@ final class ProbeNotifier {
         }
     }
 
+    /**
+     * Notify registered {@link MemoryProbe}s about the "buffer leak" event.
+     *
+     * @param size buffer size
+     */
+    static void notifyBufferLeak(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferLeakEvent(size);
+            }
+        }
+    }
+
 }
@@ -213,6 +213,7 @@ public abstract class AbstractNIOAsyncQueueWriter
                     writeTaskQueue.offer(queueRecord);
                 }
 
+                checkHighWaterMark(nioConnection);
                 return;
             }
             
@@ -230,6 +231,8 @@ public abstract class AbstractNIOAsyncQueueWriter
                         writeTaskQueue.releaseSpaceAndNotify(bytesToRelease);
                 
                 final boolean isQueueEmpty = (pendingBytesAfterRelease == 0);
+                
+                checkLowWaterMark(nioConnection);
 
                 if (isLogFine) {
                     doFineLog("AsyncQueueWriter.write directWrite connection={0}, record={1}, "
@@ -265,6 +268,8 @@ public abstract class AbstractNIOAsyncQueueWriter
             } else {
                 writeTaskQueue.offer(queueRecord);
             }
+            
+            checkHighWaterMark(nioConnection);
         } catch (IOException e) {
             if (isLogFine) {
                 LOGGER.log(Level.FINEST,
@@ -338,6 +343,8 @@ public abstract class AbstractNIOAsyncQueueWriter
 
                 final int remaining = writeTaskQueue.releaseSpaceAndNotify(bytesToRelease);
                 done = (remaining == 0);
+                
+                checkLowWaterMark(nioConnection);
 
                 if (isFinished) {
                     finishQueueRecord(nioConnection, queueRecord);
@@ -378,6 +385,49 @@ public abstract class AbstractNIOAsyncQueueWriter
         return AsyncResult.COMPLETE;
     }
 
+    /**
+     * Suspends reading of the connection's back-pressure source, if the
+     * async write queue size exceeds the high-water mark.
+     */
+    private void checkHighWaterMark(final NIOConnection nioConnection) {
+        final int highWaterMark = transport.getWriteQueueHighWaterMark();
+        if (highWaterMark <= 0 || !nioConnection.isOpen()) {
+            return;
+        }
+        
+        final int queueSize = nioConnection.getAsyncWriteQueue().size();
+        if (queueSize > highWaterMark
+                && nioConnection.setWriteQueueSaturated(true)) {
+            transport.notifyWriteQueueHighWaterMark(nioConnection, queueSize);
+            
+            // the queue might have been drained (or the connection closed)
+            // before the saturated state became visible
+            checkLowWaterMark(nioConnection);
+        }
+    }
+    
+    /**
+     * Resumes reading of the connection's back-pressure source, if the
+     * async write queue size dropped to the low-water mark, or
+     * the connection is closed.
+     */
+    private void checkLowWaterMark(final NIOConnection nioConnection) {
+        if (!nioConnection.isWriteQueueSaturated()) {
+            return;
+        }
+        
+        final int queueSize = nioConnection.getAsyncWriteQueue().size();
+        if ((queueSize <= transport.getWriteQueueLowWaterMark()
+                || !nioConnection.isOpen())
+                && nioConnection.setWriteQueueSaturated(false)) {
+            transport.notifyWriteQueueLowWaterMark(nioConnection, queueSize);
+            
+            // the queue might have grown before the saturated state
+            // was reset
+            checkHighWaterMark(nioConnection);
+        }
+    }
+    
     private static void finishQueueRecord(final NIOConnection nioConnection,
             final AsyncWriteQueueRecord queueRecord) {
         final boolean isLogFine = LOGGER.isLoggable(Level.FINEST);
@@ -449,6 +499,9 @@ public abstract class AbstractNIOAsyncQueueWriter
         final TaskQueue<AsyncWriteQueueRecord> writeQueue =
                 nioConnection.getAsyncWriteQueue();
         writeQueue.onClose(nioConnection.getCloseReason().getCause());
+        
+        // don't keep the back-pressure source suspended
+        checkLowWaterMark(nioConnection);
     }
     
     /**
@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ReceiveBufferSizePredictor}, which adapts the receive buffer size
+ * to the amount of data actually read from the connection.
+ * 
+ * The predicted size grows quickly as soon as a read fills up the entire
+ * buffer, and shrinks gradually, only after two consecutive reads didn't
+ * need even the next smaller size. So connections with small requests end up
+ * with small buffers, while bulk transfers quickly reach the maximum size.
+ * 
+ * @since 3.0
+ */
+public final class AdaptiveReceiveBufferSizePredictor
+        implements ReceiveBufferSizePredictor {
+
+    public static final int DEFAULT_MINIMUM_SIZE = 64;
+    public static final int DEFAULT_INITIAL_SIZE = 2048;
+
+    private static final int INDEX_INCREMENT = 4;
+    private static final int INDEX_DECREMENT = 1;
+
+    private static final int[] SIZE_TABLE;
+
+    static {
+        final List<Integer> sizes = new ArrayList<Integer>();
+        for (int i = 16; i < 512; i += 16) {
+            sizes.add(i);
+        }
+
+        for (int i = 512; i > 0; i <<= 1) {
+            sizes.add(i);
+        }
+
+        SIZE_TABLE = new int[sizes.size()];
+        for (int i = 0; i < SIZE_TABLE.length; i++) {
+            SIZE_TABLE[i] = sizes.get(i);
+        }
+    }
+
+    private final int minIndex;
+    private final int maxIndex;
+    private int index;
+    private int nextReceiveBufferSize;
+    private boolean decreaseNow;
+
+    /**
+     * Constructs a predictor, which starts with the initial size and
+     * adapts the receive buffer size within [minimum, maximum] range.
+     * 
+     * @param minimum the smallest size to be predicted.
+     * @param initial the size to be used for the first read.
+     * @param maximum the largest size to be predicted.
+     */
+    public AdaptiveReceiveBufferSizePredictor(final int minimum,
+            final int initial, final int maximum) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum: " + minimum);
+        }
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+
+        int idx = sizeTableIndex(minimum);
+        minIndex = SIZE_TABLE[idx] < minimum ? idx + 1 : idx;
+
+        idx = sizeTableIndex(maximum);
+        maxIndex = Math.max(SIZE_TABLE[idx] > maximum ? idx - 1 : idx,
+                minIndex);
+
+        index = Math.min(Math.max(sizeTableIndex(initial), minIndex), maxIndex);
+        nextReceiveBufferSize = SIZE_TABLE[index];
+    }
+
+    /**
+     * Returns the {@link ReceiveBufferSizePredictor.Factory}, which creates
+     * {@link AdaptiveReceiveBufferSizePredictor}s bounded by the connection's
+     * read buffer size.
+     * 
+     * @return {@link ReceiveBufferSizePredictor.Factory}
+     */
+    public static ReceiveBufferSizePredictor.Factory factory() {
+        return new Factory(DEFAULT_MINIMUM_SIZE, DEFAULT_INITIAL_SIZE, -1);
+    }
+
+    /**
+     * Returns the {@link ReceiveBufferSizePredictor.Factory}, which creates
+     * {@link AdaptiveReceiveBufferSizePredictor}s with the given limits.
+     * 
+     * @param minimum the smallest size to be predicted.
+     * @param initial the size to be used for the first read.
+     * @param maximum the largest size to be predicted.
+     * 
+     * @return {@link ReceiveBufferSizePredictor.Factory}
+     */
+    public static ReceiveBufferSizePredictor.Factory factory(final int minimum,
+            final int initial, final int maximum) {
+        // validate the arguments
+        new AdaptiveReceiveBufferSizePredictor(minimum, initial, maximum);
+        return new Factory(minimum, initial, maximum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextReceiveBufferSize() {
+        return nextReceiveBufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRead(final int read) {
+        if (read <= SIZE_TABLE[Math.max(0, index - INDEX_DECREMENT)]) {
+            if (decreaseNow) {
+                index = Math.max(index - INDEX_DECREMENT, minIndex);
+                nextReceiveBufferSize = SIZE_TABLE[index];
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else if (read >= nextReceiveBufferSize) {
+            index = Math.min(index + INDEX_INCREMENT, maxIndex);
+            nextReceiveBufferSize = SIZE_TABLE[index];
+            decreaseNow = false;
+        }
+    }
+
+    private static int sizeTableIndex(final int size) {
+        for (int low = 0, high = SIZE_TABLE.length - 1;;) {
+            if (high < low) {
+                return low;
+            }
+            if (high == low) {
+                return high;
+            }
+
+            final int mid = low + high >>> 1;
+            final int a = SIZE_TABLE[mid];
+            final int b = SIZE_TABLE[mid + 1];
+            if (size > b) {
+                low = mid + 1;
+            } else if (size < a) {
+                high = mid - 1;
+            } else if (size == a) {
+                return mid;
+            } else {
+                return mid + 1;
+            }
+        }
+    }
+
+    private static final class Factory
+            implements ReceiveBufferSizePredictor.Factory {
+        private final int minimum;
+        private final int initial;
+        private final int maximum;
+
+        private Factory(final int minimum, final int initial,
+                final int maximum) {
+            this.minimum = minimum;
+            this.initial = initial;
+            this.maximum = maximum;
+        }
+
+        @Override
+        public ReceiveBufferSizePredictor create(final NIOConnection connection) {
+            int max = maximum;
+            if (max < 0) {
+                max = connection.getReadBufferSize();
+            }
+            max = Math.max(max, minimum);
+
+            return new AdaptiveReceiveBufferSizePredictor(minimum,
+                    Math.min(Math.max(initial, minimum), max), max);
+        }
+    }
+}
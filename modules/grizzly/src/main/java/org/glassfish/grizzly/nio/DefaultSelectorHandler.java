@@ -107,11 +107,22 @@ public class DefaultSelectorHandler implements SelectorHandler {
         final boolean hasPostponedTasks =
                 !selectorRunner.getPostponedTasks().isEmpty();
         
+        boolean isSpinDetected = false;
+        
         // The selector.select(...) returns the *new* SelectionKey count,
         // so it may return 0 even in the case, when there are unprocessed, but
         // ready SelectionKeys in the Selector's selected key set.
         if (!hasPostponedTasks) {
-            selector.select(selectTimeout);
+            final long spinTimeNanos = selectorRunner.getTransport()
+                    .getSelectorSpinTime(TimeUnit.NANOSECONDS);
+            
+            if (spinTimeNanos > 0) {
+                isSpinDetected = selectorRunner.spinSelect(spinTimeNanos);
+            }
+            
+            if (!isSpinDetected) {
+                selector.select(selectTimeout);
+            }
         } else {
             selector.selectNow();
         }
@@ -120,7 +131,7 @@ public class DefaultSelectorHandler implements SelectorHandler {
 
         if (IS_WORKAROUND_SELECTOR_SPIN) {
             selectorRunner.checkSelectorSpin(
-                    !selectedKeys.isEmpty() || hasPostponedTasks,
+                    !selectedKeys.isEmpty() || hasPostponedTasks || isSpinDetected,
                     SPIN_RATE_THRESHOLD);
         }
 
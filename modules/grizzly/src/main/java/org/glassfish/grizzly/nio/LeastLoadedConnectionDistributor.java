@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+
+/**
+ * Load-aware {@link NIOChannelDistributor} implementation, which assigns
+ * a new channel to the {@link SelectorRunner} with the smallest
+ * {@link SelectorRunner#getLoad() estimated load}.
+ * 
+ * The distributor could either scan all the {@link SelectorRunner}s, or
+ * use the cheaper "power of two choices" algorithm, when two random
+ * {@link SelectorRunner}s are compared and the channel is assigned to
+ * the less loaded one.
+ * 
+ * Unlike {@link RoundRobinConnectionDistributor}, this distributor keeps
+ * the {@link SelectorRunner}s balanced, when long-lived connections are
+ * mixed with short-lived ones.
+ * 
+ * @since 3.0
+ */
+public final class LeastLoadedConnectionDistributor
+        extends AbstractNIOConnectionDistributor {
+    
+    private final boolean useDedicatedAcceptor;
+    private final boolean isPowerOfTwoChoices;
+    
+    public LeastLoadedConnectionDistributor(final NIOTransport transport) {
+        this(transport, false, false);
+    }
+
+    public LeastLoadedConnectionDistributor(final NIOTransport transport,
+            final boolean useDedicatedAcceptor) {
+        this(transport, useDedicatedAcceptor, false);
+    }
+
+    /**
+     * Constructs LeastLoadedConnectionDistributor with the given configuration.
+     * 
+     * @param transport
+     * @param useDedicatedAcceptor depending on this flag server {@link Connection}s,
+     *          responsible for accepting client connections, will or will not
+     *          use dedicated {@link SelectorRunner}
+     * @param isPowerOfTwoChoices if <tt>true</tt>, only two random
+     *          {@link SelectorRunner}s are compared, otherwise the least loaded
+     *          {@link SelectorRunner} is looked up among all of them.
+     */
+    public LeastLoadedConnectionDistributor(final NIOTransport transport,
+            final boolean useDedicatedAcceptor,
+            final boolean isPowerOfTwoChoices) {
+        super(transport);
+        this.useDedicatedAcceptor = useDedicatedAcceptor;
+        this.isPowerOfTwoChoices = isPowerOfTwoChoices;
+    }
+
+    /**
+     * @return <tt>true</tt> if "power of two choices" algorithm is used,
+     *          or <tt>false</tt> if all the {@link SelectorRunner}s are scanned.
+     */
+    public boolean isPowerOfTwoChoices() {
+        return isPowerOfTwoChoices;
+    }
+    
+    @Override
+    public void registerChannel(final SelectableChannel channel,
+            final int interestOps, final Object attachment) throws IOException {
+        transport.getSelectorHandler().registerChannel(next(),
+                channel, interestOps, attachment);
+    }
+
+    @Override
+    public void registerChannelAsync(
+            final SelectableChannel channel, final int interestOps,
+            final Object attachment,
+            final CompletionHandler<RegisterChannelResult> completionHandler) {
+        transport.getSelectorHandler().registerChannelAsync(
+                next(), channel, interestOps, attachment, completionHandler);
+    }
+
+    @Override
+    public void registerServiceChannelAsync(
+            final SelectableChannel channel, final int interestOps,
+            final Object attachment,
+            final CompletionHandler<RegisterChannelResult> completionHandler) {
+        
+        transport.getSelectorHandler().registerChannelAsync(
+                nextService(), channel, interestOps,
+                attachment, completionHandler);
+    }
+    
+    private SelectorRunner nextService() {
+        return useDedicatedAcceptor
+                ? getTransportSelectorRunners()[0]
+                : next();
+    }
+    
+    private SelectorRunner next() {
+        final SelectorRunner[] runners = getTransportSelectorRunners();
+        if (runners.length == 1) {
+            return runners[0];
+        }
+        
+        // skip the acceptor runner if it's dedicated
+        final int offset = useDedicatedAcceptor ? 1 : 0;
+        final int count = runners.length - offset;
+        if (count == 1) {
+            return runners[offset];
+        }
+        
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        
+        if (isPowerOfTwoChoices) {
+            final int first = random.nextInt(count);
+            int second = random.nextInt(count - 1);
+            if (second >= first) {
+                second++;
+            }
+            
+            final SelectorRunner runner1 = runners[offset + first];
+            final SelectorRunner runner2 = runners[offset + second];
+            
+            return runner1.getLoad() <= runner2.getLoad() ? runner1 : runner2;
+        }
+        
+        // start from a random runner, so the runners with equal load
+        // get channels evenly
+        final int start = random.nextInt(count);
+        SelectorRunner leastLoaded = null;
+        int minLoad = Integer.MAX_VALUE;
+        
+        for (int i = 0; i < count; i++) {
+            final SelectorRunner runner = runners[offset + (start + i) % count];
+            final int load = runner.getLoad();
+            if (load < minLoad) {
+                if (load == 0) {
+                    return runner;
+                }
+                
+                minLoad = load;
+                leastLoaded = runner;
+            }
+        }
+        
+        return leastLoaded;
+    }
+}
@@ -41,6 +41,7 @@
 package org.glassfish.grizzly.nio;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.SocketAddress;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -52,7 +53,10 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
@@ -133,6 +137,31 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
     private volatile GrizzlyFuture<CloseReason> closeFuture;
 
     protected volatile boolean isBlocking;
+    
+    // the threads parked in a blocking read/write, waiting for the channel
+    // to become readable/writable
+    private final AtomicReference<Thread> parkedReader =
+            new AtomicReference<>();
+    private volatile Thread parkedWriter;
+    private final AtomicInteger blockingReadsCount = new AtomicInteger();
+    // set by the first blocking reader, read by the SelectorRunner thread,
+    // when the last blocking read is over
+    private volatile boolean wasReadInterestRegistered;
+    private final ReentrantLock blockingWriteLock = new ReentrantLock();
+    // the number of the read suspensions, requested by the write queue
+    // back-pressure (or by the user)
+    private final AtomicInteger readSuspensionsCount = new AtomicInteger();
+    // true, if OP_READ has been deregistered because of the read suspension
+    private final AtomicBoolean isReadPaused = new AtomicBoolean();
+    // true, if the async write queue is above the high-water mark
+    private volatile boolean isWriteQueueSaturated;
+    // the back-pressure source, whose reading has been suspended, when
+    // the async write queue became saturated
+    private NIOConnection saturationSuspendedSource; // guarded by writeQueueSaturationSync
+    private final Object writeQueueSaturationSync = new Object();
+    // the connection, whose reading is suspended, when this connection's
+    // async write queue is saturated. "null" means this connection itself
+    private volatile NIOConnection backPressureSource;
     protected short zeroByteReadCount;
     private final List<CloseListener> closeListeners =
             Collections.synchronizedList(new LinkedList<>());
@@ -622,6 +651,7 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
             preClose();
             notifyCloseListeners(closeReason);
             notifyProbesClose(this);
+            unparkBlockedThreads();
 
             transport.getSelectorHandler().execute(
                     selectorRunner, new SelectorHandler.Task() {
@@ -868,6 +898,355 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
         }
     }
 
+    /**
+     * Is called, when the processing of a READ event is completed in the
+     * current thread, right before OP_READ interest is re-enabled, so the next
+     * READ event can't be processed concurrently with this method.
+     * 
+     * @since 3.0
+     */
+    protected void onReadEventComplete() {
+    }
+
+    /**
+     * Returns <tt>true</tt> if the current thread could be parked using
+     * {@link #parkUntilReady(int, long)}, or <tt>false</tt> otherwise, for example
+     * if the current thread is the connection's {@link SelectorRunner} thread,
+     * which is responsible for waking the parked thread up.
+     * 
+     * @return <tt>true</tt> if the current thread could be parked.
+     * 
+     * @since 3.0
+     */
+    public boolean canParkCurrentThread() {
+        final SelectorRunner runner = selectorRunner;
+        return runner != null && selectionKey != null
+                && runner.getRunnerThread() != Thread.currentThread();
+    }
+
+    /**
+     * Marks the beginning of a blocking read operation, which may park the
+     * current thread using {@link #parkUntilReady(int, long)}.
+     * Until the matching {@link #endBlockingRead()} is called, the connection's
+     * read readiness is not reported to the {@link NIOTransport} as
+     * {@link IOEvent#READ}, but wakes up the parked reader.
+     * 
+     * @since 3.0
+     */
+    public void beginBlockingRead() {
+        if (blockingReadsCount.getAndIncrement() == 0) {
+            final SelectionKey key = selectionKey;
+            wasReadInterestRegistered = key.isValid()
+                    && (key.interestOps() & SelectionKey.OP_READ) != 0;
+        }
+    }
+
+    /**
+     * Marks the end of a blocking read operation, started by
+     * {@link #beginBlockingRead()}. The connection's OP_READ interest is
+     * restored by the {@link SelectorRunner} thread, so no read readiness
+     * can be reported as {@link IOEvent#READ} in between.
+     * 
+     * @since 3.0
+     */
+    public void endBlockingRead() {
+        transport.getSelectorHandler().execute(selectorRunner,
+                new SelectorHandler.Task() {
+
+            @Override
+            public boolean run() throws IOException {
+                if (blockingReadsCount.decrementAndGet() == 0) {
+                    if (wasReadInterestRegistered) {
+                        registerKeyInterest(SelectionKey.OP_READ);
+                    } else {
+                        deregisterKeyInterest(SelectionKey.OP_READ);
+                    }
+                }
+                
+                return true;
+            }
+        }, null);
+    }
+
+    /**
+     * Parks the current thread until the connection's {@link SelectorRunner}
+     * detects the channel is ready for the given operation, the timeout
+     * expires or the connection gets closed.
+     * Unlike temporary {@link java.nio.channels.Selector}s, no extra
+     * {@link java.nio.channels.Selector} and channel registration is
+     * involved, and parked virtual threads don't occupy their carrier threads.
+     * 
+     * The method may return spuriously, so the caller is expected to retry
+     * the I/O operation and park again, if nothing could be read/written.
+     * Only one thread per operation could be parked at a time: the writers
+     * have to be serialized using {@link #getBlockingWriteLock()}, and if
+     * another thread is already parked in a read - the method throws
+     * {@link IllegalStateException}. Reads must be wrapped with
+     * {@link #beginBlockingRead()} and {@link #endBlockingRead()}.
+     * 
+     * @param interest either {@link SelectionKey#OP_READ} or
+     *        {@link SelectionKey#OP_WRITE}.
+     * @param timeoutNanos the max time to wait, in nanoseconds.
+     * @throws IOException if the connection is closed, or the current thread
+     *         is interrupted.
+     * @throws IllegalStateException if another thread is already parked
+     *         waiting for the connection to become readable.
+     * @see #canParkCurrentThread()
+     * 
+     * @since 3.0
+     */
+    public void parkUntilReady(final int interest, final long timeoutNanos)
+            throws IOException {
+        final boolean isRead;
+        if (interest == SelectionKey.OP_READ) {
+            isRead = true;
+        } else if (interest == SelectionKey.OP_WRITE) {
+            isRead = false;
+        } else {
+            throw new IllegalArgumentException("Unexpected interest: " + interest);
+        }
+        
+        assertOpen();
+        
+        final Thread currentThread = Thread.currentThread();
+        if (isRead) {
+            // the single reader slot can't be shared, otherwise one
+            // of the readers would never be unparked
+            if (!parkedReader.compareAndSet(null, currentThread)) {
+                throw new IllegalStateException(
+                        "Another thread is already parked in a blocking read");
+            }
+        } else {
+            parkedWriter = currentThread;
+        }
+        
+        try {
+            // the interest is registered directly, bypassing
+            // registerKeyInterest(), which affects the initial OP_READ state.
+            // OP_READ is deregistered by the SelectorRunner on wake up,
+            // OP_WRITE is deregistered by NIOTransport#processOpWrite(),
+            // if the async write queue is empty.
+            transport.getSelectorHandler().registerKeyInterest(selectorRunner,
+                    selectionKey, interest);
+            LockSupport.parkNanos(this, timeoutNanos);
+        } finally {
+            if (isRead) {
+                parkedReader.set(null);
+            } else {
+                parkedWriter = null;
+            }
+        }
+        
+        if (currentThread.isInterrupted()) {
+            throw new InterruptedIOException();
+        }
+        
+        assertOpen();
+    }
+
+    /**
+     * Returns the {@link ReentrantLock}, which serializes the blocking writes
+     * to the connection, both the parking and the temporary selector ones.
+     * 
+     * @return the blocking write {@link ReentrantLock}.
+     * 
+     * @since 3.0
+     */
+    public ReentrantLock getBlockingWriteLock() {
+        return blockingWriteLock;
+    }
+
+    /**
+     * Wakes up the thread, waiting for the connection to become readable,
+     * if a blocking read is in progress.
+     * The method is called by the {@link SelectorRunner} thread.
+     * 
+     * @return <tt>true</tt> if a blocking read is in progress, so
+     *         the read event must not be processed by the {@link NIOTransport}.
+     */
+    boolean unparkReader() throws IOException {
+        if (blockingReadsCount.get() > 0) {
+            // the reader will re-register OP_READ if needed
+            deregisterKeyInterest(SelectionKey.OP_READ);
+            
+            final Thread reader = parkedReader.get();
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+            
+            return true;
+        }
+        
+        return false;
+    }
+
+    /**
+     * Suspends reading of the connection: the {@link SelectorRunner} stops
+     * reporting the connection's read readiness as {@link IOEvent#READ}
+     * and deregisters OP_READ interest, until the matching
+     * {@link #resumeRead()} is called. The suspensions are counted, so
+     * the reading is resumed once all of them are released.
+     * The method is used by the async write queue back-pressure
+     * (see {@link NIOTransport#setWriteQueueWaterMarks(int, int)}).
+     * 
+     * @since 3.0
+     */
+    public void suspendRead() {
+        readSuspensionsCount.incrementAndGet();
+    }
+
+    /**
+     * Releases the read suspension, requested by {@link #suspendRead()}.
+     * Once the last suspension is released, OP_READ interest is restored.
+     * 
+     * @throws IOException if OP_READ interest can't be registered.
+     * @throws IllegalStateException if the reading is not suspended, so
+     *         the call doesn't match any {@link #suspendRead()}.
+     * @since 3.0
+     */
+    public void resumeRead() throws IOException {
+        int count;
+        do {
+            count = readSuspensionsCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("The connection reading is not suspended");
+            }
+        } while (!readSuspensionsCount.compareAndSet(count, count - 1));
+        
+        if (count == 1 && isReadPaused.compareAndSet(true, false)) {
+            registerKeyInterest(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt>, if the connection reading is suspended.
+     * @see #suspendRead()
+     * 
+     * @since 3.0
+     */
+    public boolean isReadSuspended() {
+        return readSuspensionsCount.get() > 0;
+    }
+
+    /**
+     * Returns the connection, whose reading is suspended, when this
+     * connection's async write queue exceeds the high-water mark.
+     * 
+     * @return the back-pressure source connection, by default the connection
+     *         itself.
+     * @see NIOTransport#setWriteQueueWaterMarks(int, int)
+     * 
+     * @since 3.0
+     */
+    public NIOConnection getBackPressureSource() {
+        final NIOConnection source = backPressureSource;
+        return source != null ? source : this;
+    }
+
+    /**
+     * Sets the connection, whose reading is suspended, when this
+     * connection's async write queue exceeds the high-water mark.
+     * For example a proxy may link the outbound connection to the inbound
+     * one, so the inbound data is not read faster than it can be written.
+     * 
+     * @param backPressureSource the back-pressure source connection,
+     *        or <tt>null</tt> to use the connection itself.
+     * @see NIOTransport#setWriteQueueWaterMarks(int, int)
+     * 
+     * @since 3.0
+     */
+    public void setBackPressureSource(final NIOConnection backPressureSource) {
+        this.backPressureSource = backPressureSource;
+    }
+
+    /**
+     * Deregisters OP_READ interest, if the connection reading is suspended.
+     * The method is called by the {@link SelectorRunner} thread.
+     * 
+     * @return <tt>true</tt>, if the reading is suspended, so
+     *         the read event must not be processed by the {@link NIOTransport}.
+     */
+    boolean pauseSuspendedRead() throws IOException {
+        if (readSuspensionsCount.get() == 0) {
+            return false;
+        }
+        
+        deregisterKeyInterest(SelectionKey.OP_READ);
+        isReadPaused.set(true);
+        
+        // check if the reading has been resumed concurrently
+        if (readSuspensionsCount.get() == 0
+                && isReadPaused.compareAndSet(true, false)) {
+            registerKeyInterest(SelectionKey.OP_READ);
+            return false;
+        }
+        
+        return true;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the async write queue size is above
+     *         the high-water mark.
+     */
+    boolean isWriteQueueSaturated() {
+        return isWriteQueueSaturated;
+    }
+
+    /**
+     * Updates the async write queue saturation state and suspends
+     * (or resumes) the back-pressure source reading accordingly.
+     * The reading is resumed on the same connection, whose reading has been
+     * suspended, even if the back-pressure source has been changed since.
+     * 
+     * @return <tt>true</tt>, if the state has been changed.
+     */
+    boolean setWriteQueueSaturated(final boolean isSaturated) {
+        final NIOConnection source;
+        synchronized (writeQueueSaturationSync) {
+            if (isWriteQueueSaturated == isSaturated) {
+                return false;
+            }
+            
+            isWriteQueueSaturated = isSaturated;
+            if (isSaturated) {
+                source = getBackPressureSource();
+                source.suspendRead();
+                saturationSuspendedSource = source;
+                return true;
+            }
+            
+            source = saturationSuspendedSource;
+            saturationSuspendedSource = null;
+            try {
+                source.resumeRead();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Can't resume the back-pressure source reading", e);
+            }
+        }
+        
+        return true;
+    }
+
+    /**
+     * Wakes up the thread, waiting for the connection to become writable, if any.
+     * The method is called by the {@link SelectorRunner} thread.
+     */
+    void unparkWriter() {
+        final Thread writer = parkedWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void unparkBlockedThreads() {
+        final Thread reader = parkedReader.get();
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+        
+        unparkWriter();
+    }
+
     /**
      * Enables OP_READ if it has never been enabled before.
      * 
@@ -81,6 +81,7 @@ import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
 import org.glassfish.grizzly.threadpool.AbstractThreadPool;
 import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.threadpool.VirtualThreadExecutorService;
 import org.glassfish.grizzly.utils.Futures;
 
 /**
@@ -99,6 +100,11 @@ public abstract class NIOTransport extends AbstractTransport
             SocketConnectorHandler.DEFAULT_CONNECTION_TIMEOUT;
     public static final int DEFAULT_SELECTOR_RUNNER_COUNT = -1;
     public static final boolean DEFAULT_OPTIMIZED_FOR_MULTIPLEXING = false;
+    public static final boolean DEFAULT_PARKING_BLOCKING_IO_ENABLED = false;
+    public static final int DEFAULT_WORKER_GROUP_SIZE = 0;
+    public static final long DEFAULT_SELECTOR_SPIN_TIME_MICROS = 0;
+    public static final int DEFAULT_WRITE_QUEUE_LOW_WATER_MARK = 0;
+    public static final int DEFAULT_WRITE_QUEUE_HIGH_WATER_MARK = 0;
 
     private static final Logger LOGGER = Grizzly.logger(NIOTransport.class);
 
@@ -148,6 +154,52 @@ public abstract class NIOTransport extends AbstractTransport
      */
     protected int writeBufferSize;
 
+    /**
+     * Factory of per-connection receive buffer size predictors
+     */
+    protected ReceiveBufferSizePredictor.Factory receiveBufferSizePredictorFactory;
+
+    /**
+     * <tt>true</tt>, if blocking reads/writes park the calling thread instead
+     * of polling temporary selectors
+     */
+    protected boolean parkingBlockingIOEnabled = DEFAULT_PARKING_BLOCKING_IO_ENABLED;
+
+    /**
+     * The number of worker threads dedicated to each {@link SelectorRunner},
+     * or <tt>0</tt>, if all the {@link SelectorRunner}s share the transport
+     * worker thread pool
+     */
+    protected int workerGroupSize = DEFAULT_WORKER_GROUP_SIZE;
+
+    /**
+     * Creates {@link java.util.concurrent.ThreadFactory}s for the
+     * {@link SelectorRunner} worker groups
+     */
+    protected WorkerGroupThreadFactory workerGroupThreadFactory;
+
+    /**
+     * The max duration of the busy-poll spin phase, which precedes
+     * the blocking select, in nanoseconds
+     */
+    protected long selectorSpinTimeNanos =
+            TimeUnit.MICROSECONDS.toNanos(DEFAULT_SELECTOR_SPIN_TIME_MICROS);
+
+    /**
+     * The async write queue size (in bytes), at or below which reading of
+     * the back-pressure source connection is resumed
+     */
+    protected volatile int writeQueueLowWaterMark =
+            DEFAULT_WRITE_QUEUE_LOW_WATER_MARK;
+
+    /**
+     * The async write queue size (in bytes), above which reading of
+     * the back-pressure source connection is suspended,
+     * or <tt>0</tt>, if the write queue back-pressure is disabled
+     */
+    protected volatile int writeQueueHighWaterMark =
+            DEFAULT_WRITE_QUEUE_HIGH_WATER_MARK;
+
     /**
      * Future to control graceful shutdown status
      */
@@ -243,6 +295,237 @@ public abstract class NIOTransport extends AbstractTransport
         notifyProbesConfigChanged(this);
     }
 
+    /**
+     * Get the {@link ReceiveBufferSizePredictor.Factory}, which creates
+     * per-connection {@link ReceiveBufferSizePredictor}s, or <tt>null</tt>
+     * if {@link org.glassfish.grizzly.Buffer}s allocated for reading are
+     * always sized according to the {@link NIOConnection#getReadBufferSize()}.
+     *
+     * @return the {@link ReceiveBufferSizePredictor.Factory}, or <tt>null</tt>.
+     * @since 3.0
+     */
+    public ReceiveBufferSizePredictor.Factory getReceiveBufferSizePredictorFactory() {
+        return receiveBufferSizePredictorFactory;
+    }
+
+    /**
+     * Set the {@link ReceiveBufferSizePredictor.Factory}, which creates
+     * per-connection {@link ReceiveBufferSizePredictor}s. The predictor
+     * is consulted each time the transport allocates a
+     * {@link org.glassfish.grizzly.Buffer} to read stream data into, so the
+     * buffer size follows the amount of data the peer actually sends.
+     *
+     * The setting affects only connections initialized after the call.
+     * If <tt>null</tt> (default), the {@link NIOConnection#getReadBufferSize()}
+     * is used for every read.
+     *
+     * @param receiveBufferSizePredictorFactory the
+     * {@link ReceiveBufferSizePredictor.Factory}, or <tt>null</tt>.
+     * @see AdaptiveReceiveBufferSizePredictor#factory()
+     * @since 3.0
+     */
+    public void setReceiveBufferSizePredictorFactory(
+            final ReceiveBufferSizePredictor.Factory receiveBufferSizePredictorFactory) {
+        this.receiveBufferSizePredictorFactory = receiveBufferSizePredictorFactory;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns <tt>true</tt>, if blocking reads and writes park the calling
+     * thread until the connection's {@link SelectorRunner} detects the
+     * channel readiness, or <tt>false</tt>, if temporary
+     * {@link java.nio.channels.Selector}s are used.
+     *
+     * @return <tt>true</tt>, if parking blocking I/O mode is enabled.
+     * @since 3.0
+     */
+    public boolean isParkingBlockingIOEnabled() {
+        return parkingBlockingIOEnabled;
+    }
+
+    /**
+     * Enables or disables parking blocking I/O mode.
+     * If enabled, a thread performing a blocking read or write on a
+     * connection, which is not ready for the operation, is parked
+     * using {@link java.util.concurrent.locks.LockSupport} and woken up by
+     * the connection's {@link SelectorRunner}, so no temporary
+     * {@link java.nio.channels.Selector} is polled, and parked virtual threads
+     * release their carrier threads.
+     * Blocking operations performed by a {@link SelectorRunner} thread itself
+     * keep using temporary {@link java.nio.channels.Selector}s.
+     * Virtual threads are parked regardless of this setting.
+     *
+     * @param parkingBlockingIOEnabled <tt>true</tt> to enable parking blocking I/O mode.
+     * @since 3.0
+     */
+    public void setParkingBlockingIOEnabled(final boolean parkingBlockingIOEnabled) {
+        this.parkingBlockingIOEnabled = parkingBlockingIOEnabled;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the number of worker threads dedicated to each
+     * {@link SelectorRunner}, or <tt>0</tt>, if all the {@link SelectorRunner}s
+     * share the transport worker thread pool.
+     *
+     * @return the number of worker threads dedicated to each {@link SelectorRunner}.
+     * @since 3.0
+     */
+    public int getWorkerGroupSize() {
+        return workerGroupSize;
+    }
+
+    /**
+     * Sets the number of worker threads dedicated to each {@link SelectorRunner}.
+     * If the value is positive, each {@link SelectorRunner} owns a worker
+     * group of the given size, and the {@link org.glassfish.grizzly.IOStrategy}
+     * runs events of a connection only on the group of the connection's
+     * {@link SelectorRunner}, so the connection state, thread caches and
+     * buffers stay local to the same threads (thread-per-core mode).
+     * The groups are configured as copies of the worker
+     * {@link ThreadPoolConfig} (see {@link #getWorkerThreadPoolConfig()}),
+     * so the groups are created only if the transport manages its worker thread pool
+     * and the {@link org.glassfish.grizzly.IOStrategy} requires one.
+     * The groups always run platform threads.
+     * The transport worker thread pool is still created for the tasks,
+     * which are not bound to a connection.
+     *
+     * The setting is applied when the transport is started.
+     *
+     * @param workerGroupSize the number of worker threads dedicated to each
+     *        {@link SelectorRunner}, or <tt>0</tt> to share the transport
+     *        worker thread pool.
+     * @see #setWorkerGroupThreadFactory(WorkerGroupThreadFactory)
+     * @since 3.0
+     */
+    public void setWorkerGroupSize(final int workerGroupSize) {
+        this.workerGroupSize = Math.max(0, workerGroupSize);
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return the {@link WorkerGroupThreadFactory}, or <tt>null</tt>, if
+     *         the default Grizzly worker threads are used by the
+     *         {@link SelectorRunner} worker groups.
+     * @since 3.0
+     */
+    public WorkerGroupThreadFactory getWorkerGroupThreadFactory() {
+        return workerGroupThreadFactory;
+    }
+
+    /**
+     * Sets the {@link WorkerGroupThreadFactory}, which creates thread
+     * factories for the {@link SelectorRunner} worker groups. The callback may
+     * be used to pin the group threads to the CPU core(s), dedicated to
+     * the group's {@link SelectorRunner}.
+     *
+     * @param workerGroupThreadFactory the {@link WorkerGroupThreadFactory},
+     *        or <tt>null</tt> to use the default Grizzly worker threads.
+     * @see #setWorkerGroupSize(int)
+     * @since 3.0
+     */
+    public void setWorkerGroupThreadFactory(
+            final WorkerGroupThreadFactory workerGroupThreadFactory) {
+        this.workerGroupThreadFactory = workerGroupThreadFactory;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the max duration of the busy-poll spin phase, which precedes
+     * the blocking select, or <tt>0</tt>, if the busy-poll mode is disabled.
+     *
+     * @param timeUnit the {@link TimeUnit} to convert the duration to.
+     * @return the max duration of the busy-poll spin phase.
+     * @since 3.0
+     */
+    public long getSelectorSpinTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(selectorSpinTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the max duration of the busy-poll spin phase.
+     * If positive, a {@link SelectorRunner}, which has nothing to process,
+     * polls its {@link java.nio.channels.Selector} with
+     * {@link java.nio.channels.Selector#selectNow()} in a loop up to the
+     * given time, before it falls back to the blocking select.
+     * While the {@link SelectorRunner} is spinning, the threads adding
+     * the tasks for the {@link SelectorRunner} skip the
+     * {@link java.nio.channels.Selector#wakeup()} call, so the latency of
+     * the events is reduced at the cost of the CPU time.
+     * The spin statistics are reported to the {@link org.glassfish.grizzly.TransportProbe}s
+     * (see {@link org.glassfish.grizzly.TransportProbe#onSelectorSpinEvent(Transport, long, boolean)}).
+     *
+     * @param spinTime the max duration of the spin phase, or <tt>0</tt> to
+     *        disable the busy-poll mode.
+     * @param timeUnit the {@link TimeUnit} of the duration.
+     * @since 3.0
+     */
+    public void setSelectorSpinTime(final long spinTime, final TimeUnit timeUnit) {
+        this.selectorSpinTimeNanos = spinTime <= 0
+                ? 0
+                : TimeUnit.NANOSECONDS.convert(spinTime, timeUnit);
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the async write queue size (in bytes), at or below which
+     * reading of the back-pressure source connection is resumed.
+     *
+     * @return the write queue low-water mark, in bytes.
+     * @see #setWriteQueueWaterMarks(int, int)
+     * @since 3.0
+     */
+    public int getWriteQueueLowWaterMark() {
+        return writeQueueLowWaterMark;
+    }
+
+    /**
+     * Returns the async write queue size (in bytes), above which
+     * reading of the back-pressure source connection is suspended,
+     * or <tt>0</tt>, if the write queue back-pressure is disabled.
+     *
+     * @return the write queue high-water mark, in bytes.
+     * @see #setWriteQueueWaterMarks(int, int)
+     * @since 3.0
+     */
+    public int getWriteQueueHighWaterMark() {
+        return writeQueueHighWaterMark;
+    }
+
+    /**
+     * Sets the async write queue water marks, which control the automatic
+     * read back-pressure.
+     * Once the async write queue size of a {@link NIOConnection} exceeds
+     * the high-water mark, reading of its back-pressure source connection
+     * (see {@link NIOConnection#setBackPressureSource(NIOConnection)}) is
+     * suspended, so no new data is read until the write queue size drops to
+     * the low-water mark. By default the back-pressure source is
+     * the connection itself, a proxy may link the outbound connection to
+     * the inbound one, so the slow peer throttles the fast one.
+     * The water mark events are reported to the {@link org.glassfish.grizzly.TransportProbe}s.
+     *
+     * @param lowWaterMark the write queue size (in bytes), at or below which
+     *        reading is resumed.
+     * @param highWaterMark the write queue size (in bytes), above which
+     *        reading is suspended, or <tt>0</tt> to disable the
+     *        write queue back-pressure.
+     * @throws IllegalArgumentException if the low-water mark is negative or
+     *         greater than the positive high-water mark.
+     * @since 3.0
+     */
+    public void setWriteQueueWaterMarks(final int lowWaterMark,
+            final int highWaterMark) {
+        if (highWaterMark > 0
+                && (lowWaterMark < 0 || lowWaterMark > highWaterMark)) {
+            throw new IllegalArgumentException("Illegal write queue water marks: low="
+                    + lowWaterMark + " high=" + highWaterMark);
+        }
+        
+        this.writeQueueLowWaterMark = highWaterMark > 0 ? lowWaterMark : 0;
+        this.writeQueueHighWaterMark = Math.max(highWaterMark, 0);
+        notifyProbesConfigChanged(this);
+    }
+
     public NIOConnection getConnectionForKey(SelectionKey selectionKey) {
         return (NIOConnection) selectionKey.attachment();
     }
@@ -477,8 +760,8 @@ public abstract class NIOTransport extends AbstractTransport
                                 getThreadPoolMonitoringConfig().getProbes());
                     }
                     workerPoolConfig.setMemoryManager(memoryManager);
-                    setWorkerThreadPool0(GrizzlyExecutorService.createInstance(
-                            workerPoolConfig));
+                    setWorkerThreadPool0(VirtualThreadExecutorService
+                            .createExecutorService(workerPoolConfig));
                 }
             }
 
@@ -684,12 +967,43 @@ public abstract class NIOTransport extends AbstractTransport
         selectorRunners = new SelectorRunner[selectorRunnersCount];
         
         for (int i = 0; i < selectorRunnersCount; i++) {
-            final SelectorRunner runner = SelectorRunner.create(this);
+            final SelectorRunner runner =
+                    SelectorRunner.create(this, createWorkerGroup(i));
             runner.start();
             selectorRunners[i] = runner;
         }
     }
     
+    /**
+     * Creates the worker group dedicated to the {@link SelectorRunner}
+     * with the given index.
+     * 
+     * @param index the {@link SelectorRunner} index.
+     * @return the worker group, or <tt>null</tt>, if the
+     *         {@link SelectorRunner} uses the transport worker thread pool.
+     * @see #setWorkerGroupSize(int)
+     */
+    protected ExecutorService createWorkerGroup(final int index) {
+        if (workerGroupSize <= 0 || !managedWorkerPool
+                || workerPoolConfig == null) {
+            return null;
+        }
+        
+        final ThreadPoolConfig groupConfig = workerPoolConfig.copy()
+                .setPoolName(workerPoolConfig.getPoolName() + "-group-" + index)
+                .setCorePoolSize(workerGroupSize)
+                .setMaxPoolSize(workerGroupSize)
+                .setQueue(null)
+                .setVirtualThreads(false);
+        
+        if (workerGroupThreadFactory != null) {
+            groupConfig.setThreadFactory(
+                    workerGroupThreadFactory.createThreadFactory(index, groupConfig));
+        }
+        
+        return GrizzlyExecutorService.createInstance(groupConfig);
+    }
+    
     protected synchronized void stopSelectorRunners() {
         if (selectorRunners == null) {
             return;
@@ -699,6 +1013,12 @@ public abstract class NIOTransport extends AbstractTransport
             final SelectorRunner runner = selectorRunners[i];
             if (runner != null) {
                 runner.stop();
+                
+                final ExecutorService workerGroup = runner.getWorkerThreadPool();
+                if (workerGroup != null) {
+                    workerGroup.shutdown();
+                }
+                
                 selectorRunners[i] = null;
             }
         }
@@ -715,6 +1035,32 @@ public abstract class NIOTransport extends AbstractTransport
         notifyProbesConfigChanged(this);
     }
 
+    /**
+     * Notifies the {@link org.glassfish.grizzly.TransportProbe}s about the
+     * completed {@link SelectorRunner} spin phase.
+     */
+    void notifySelectorSpin(final long spinTimeNanos, final boolean isParked) {
+        notifyProbesSelectorSpin(this, spinTimeNanos, isParked);
+    }
+
+    /**
+     * Notifies the {@link org.glassfish.grizzly.TransportProbe}s about the
+     * write queue high-water mark event.
+     */
+    void notifyWriteQueueHighWaterMark(final NIOConnection connection,
+            final int queueSize) {
+        notifyProbesWriteQueueHighWaterMark(this, connection, queueSize);
+    }
+
+    /**
+     * Notifies the {@link org.glassfish.grizzly.TransportProbe}s about the
+     * write queue low-water mark event.
+     */
+    void notifyWriteQueueLowWaterMark(final NIOConnection connection,
+            final int queueSize) {
+        notifyProbesWriteQueueLowWaterMark(this, connection, queueSize);
+    }
+
     protected abstract TemporarySelectorIO createTemporarySelectorIO();
 
     protected abstract void listen();
@@ -755,6 +1101,33 @@ public abstract class NIOTransport extends AbstractTransport
     protected SelectorRunner[] getSelectorRunners() {
         return selectorRunners;
     }
+
+    /**
+     * Returns the estimated load of the transport {@link SelectorRunner}s.
+     * 
+     * @return the array, which contains {@link SelectorRunner#getLoad()}
+     *          of every transport {@link SelectorRunner}, or an empty array
+     *          if the transport is not started.
+     * @see NIOChannelDistributor
+     * 
+     * @since 3.0
+     */
+    public int[] getSelectorRunnersLoad() {
+        final SelectorRunner[] runners = selectorRunners;
+        if (runners == null) {
+            return new int[0];
+        }
+        
+        final int[] load = new int[runners.length];
+        for (int i = 0; i < runners.length; i++) {
+            final SelectorRunner runner = runners[i];
+            if (runner != null) {
+                load[i] = runner.getLoad();
+            }
+        }
+        
+        return load;
+    }
     
     protected boolean processOpRead(final NIOConnection nioConnection)
             throws IOException {
@@ -790,6 +1163,11 @@ public abstract class NIOTransport extends AbstractTransport
             case EXPECTING_MORE:
                 if (!isOpWriteEnabled) {
                     connection.enqueOpWriteReady();
+                } else if (connection.getAsyncWriteQueue().isEmpty()) {
+                    // nothing is pending, so OP_WRITE has been registered by
+                    // a parked blocking writer, which is already woken up.
+                    // The next async write will enqueue its own onReady() call
+                    connection.deregisterKeyInterest(SelectionKey.OP_WRITE);
                 }
         }
         
@@ -821,9 +1199,11 @@ public abstract class NIOTransport extends AbstractTransport
 
         @Override
         public void onComplete(final Context context) throws IOException {
+            final NIOConnection connection = (NIOConnection) context.getConnection();
+            connection.onReadEventComplete();
+            
             if (context.wasSuspended()) {
-                ((NIOConnection) context.getConnection()).registerKeyInterest(
-                        SelectionKey.OP_READ);
+                connection.registerKeyInterest(SelectionKey.OP_READ);
             }
         }
 
@@ -841,8 +1221,9 @@ public abstract class NIOTransport extends AbstractTransport
 
         @Override
         public void onComplete(final Context context) throws IOException {
-            ((NIOConnection) context.getConnection()).registerKeyInterest(
-                    SelectionKey.OP_READ);
+            final NIOConnection connection = (NIOConnection) context.getConnection();
+            connection.onReadEventComplete();
+            connection.registerKeyInterest(SelectionKey.OP_READ);
         }
     }
     
@@ -82,6 +82,13 @@ public abstract class NIOTransportBuilder<T extends NIOTransportBuilder> {
     protected FilterChain filterChain;
     protected int readBufferSize = Transport.DEFAULT_READ_BUFFER_SIZE;
     protected int writeBufferSize = Transport.DEFAULT_WRITE_BUFFER_SIZE;
+    protected ReceiveBufferSizePredictor.Factory receiveBufferSizePredictorFactory;
+    protected boolean parkingBlockingIOEnabled = NIOTransport.DEFAULT_PARKING_BLOCKING_IO_ENABLED;
+    protected int workerGroupSize = NIOTransport.DEFAULT_WORKER_GROUP_SIZE;
+    protected WorkerGroupThreadFactory workerGroupThreadFactory;
+    protected long selectorSpinTimeMicros = NIOTransport.DEFAULT_SELECTOR_SPIN_TIME_MICROS;
+    protected int writeQueueLowWaterMark = NIOTransport.DEFAULT_WRITE_QUEUE_LOW_WATER_MARK;
+    protected int writeQueueHighWaterMark = NIOTransport.DEFAULT_WRITE_QUEUE_HIGH_WATER_MARK;
     protected int clientSocketSoTimeout = NIOTransport.DEFAULT_CLIENT_SOCKET_SO_TIMEOUT;
     protected int connectionTimeout = NIOTransport.DEFAULT_CONNECTION_TIMEOUT;
     protected boolean reuseAddress = NIOTransport.DEFAULT_REUSE_ADDRESS;
@@ -246,6 +253,78 @@ public abstract class NIOTransportBuilder<T extends NIOTransportBuilder> {
         return getThis();
     }
 
+    /**
+     * @see NIOTransport#setReceiveBufferSizePredictorFactory(ReceiveBufferSizePredictor.Factory)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T receiveBufferSizePredictorFactory(
+            final ReceiveBufferSizePredictor.Factory receiveBufferSizePredictorFactory) {
+        this.receiveBufferSizePredictorFactory = receiveBufferSizePredictorFactory;
+        return getThis();
+    }
+
+    /**
+     * @see NIOTransport#setParkingBlockingIOEnabled(boolean)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T parkingBlockingIOEnabled(final boolean parkingBlockingIOEnabled) {
+        this.parkingBlockingIOEnabled = parkingBlockingIOEnabled;
+        return getThis();
+    }
+
+    /**
+     * @see NIOTransport#setWorkerGroupSize(int)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T workerGroupSize(final int workerGroupSize) {
+        this.workerGroupSize = workerGroupSize;
+        return getThis();
+    }
+
+    /**
+     * @see NIOTransport#setWorkerGroupThreadFactory(WorkerGroupThreadFactory)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T workerGroupThreadFactory(
+            final WorkerGroupThreadFactory workerGroupThreadFactory) {
+        this.workerGroupThreadFactory = workerGroupThreadFactory;
+        return getThis();
+    }
+
+    /**
+     * @see NIOTransport#setSelectorSpinTime(long, TimeUnit)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T selectorSpinTime(final long spinTime, final TimeUnit timeUnit) {
+        selectorSpinTimeMicros = spinTime <= 0
+                ? 0
+                : TimeUnit.MICROSECONDS.convert(spinTime, timeUnit);
+        return getThis();
+    }
+
+    /**
+     * @see NIOTransport#setWriteQueueWaterMarks(int, int)
+     *
+     * @return this <code>NIOTransportBuilder</code>
+     * @since 3.0
+     */
+    public T writeQueueWaterMarks(final int lowWaterMark,
+            final int highWaterMark) {
+        this.writeQueueLowWaterMark = lowWaterMark;
+        this.writeQueueHighWaterMark = highWaterMark;
+        return getThis();
+    }
+
     /**
      * @see NIOTransport#setOptimizedForMultiplexing(boolean)
      *
@@ -343,6 +422,12 @@ public abstract class NIOTransportBuilder<T extends NIOTransportBuilder> {
         transport.setBlockingWriteTimeout(blockingWriteTimeout, TimeUnit.MILLISECONDS);
         transport.setReadBufferSize(readBufferSize);
         transport.setWriteBufferSize(writeBufferSize);
+        transport.setReceiveBufferSizePredictorFactory(receiveBufferSizePredictorFactory);
+        transport.setParkingBlockingIOEnabled(parkingBlockingIOEnabled);
+        transport.setWorkerGroupSize(workerGroupSize);
+        transport.setWorkerGroupThreadFactory(workerGroupThreadFactory);
+        transport.setSelectorSpinTime(selectorSpinTimeMicros, TimeUnit.MICROSECONDS);
+        transport.setWriteQueueWaterMarks(writeQueueLowWaterMark, writeQueueHighWaterMark);
         transport.setReuseAddress(reuseAddress);
         transport.setOptimizedForMultiplexing(optimizedForMultiplexing);
         transport.getAsyncQueueWriter()
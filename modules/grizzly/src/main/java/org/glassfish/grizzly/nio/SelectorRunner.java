@@ -54,6 +54,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -78,6 +79,8 @@ public final class SelectorRunner implements Runnable {
     private final static Logger LOGGER = Grizzly.logger(SelectorRunner.class);
     
     private final static String THREAD_MARKER = " SelectorRunner";
+
+    private final static int SELECTED_KEYS_AVERAGE_SHIFT = 3;
     
     private final NIOTransport transport;
     private final AtomicReference<State> stateHolder;
@@ -96,26 +99,57 @@ public final class SelectorRunner implements Runnable {
     private boolean isPostponed;
 
     private int lastSelectedKeysCount;
+    // moving average of the selected keys count, scaled by 2^SELECTED_KEYS_AVERAGE_SHIFT
+    private int selectedKeysAverage;
     private Set<SelectionKey> readyKeySet;
     private Iterator<SelectionKey> iterator;
     private SelectionKey key = null;
     private int keyReadyOps;
 
     private final AtomicBoolean selectorWakeupFlag = new AtomicBoolean();
+    // true, while the runner polls the selector in the busy-poll spin phase
+    private volatile boolean isSpinning;
     private final AtomicInteger runnerThreadActivityCounter = new AtomicInteger();
+    // approximate number of the tasks added since the pending tasks queue was
+    // processed last time
+    private final AtomicInteger pendingTasksCounter = new AtomicInteger();
+
+    // the worker group dedicated to the runner's connections, if any
+    private final ExecutorService workerThreadPool;
 
     public static SelectorRunner create(final NIOTransport transport)
             throws IOException {
+        return create(transport, null);
+    }
+    
+    /**
+     * Creates the {@link SelectorRunner}, which owns the dedicated worker
+     * thread pool.
+     * 
+     * @param transport the {@link NIOTransport}.
+     * @param workerThreadPool the worker thread pool, which processes events
+     *        of the runner's connections, or <tt>null</tt> if the transport
+     *        worker thread pool has to be used.
+     * @return the {@link SelectorRunner}.
+     * @throws IOException if the {@link Selector} can not be opened.
+     * 
+     * @see NIOTransport#setWorkerGroupSize(int)
+     * @since 3.0
+     */
+    public static SelectorRunner create(final NIOTransport transport,
+            final ExecutorService workerThreadPool) throws IOException {
         return new SelectorRunner(transport,
-                Selectors.newSelector(transport.getSelectorProvider()));
+                Selectors.newSelector(transport.getSelectorProvider()),
+                workerThreadPool);
     }
     
     volatile boolean hasPendingTasks;
     
     private SelectorRunner(final NIOTransport transport,
-            final Selector selector) {
+            final Selector selector, final ExecutorService workerThreadPool) {
         this.transport = transport;
         this.selector = selector;
+        this.workerThreadPool = workerThreadPool;
         stateHolder = new AtomicReference<State>(State.STOPPED);
 
         pendingTasks = new ConcurrentLinkedQueue<SelectorHandlerTask>();
@@ -127,11 +161,17 @@ public final class SelectorRunner implements Runnable {
     void addPendingTask(final SelectorHandlerTask task) {
         pendingTasks.offer(task);
         hasPendingTasks = true;
+        pendingTasksCounter.incrementAndGet();
 
         wakeupSelector();
     }
 
     private void wakeupSelector() {
+        if (isSpinning) {
+            // the spinning runner checks the pending tasks and state itself
+            return;
+        }
+        
         final Selector localSelector = getSelector();
         if (localSelector != null &&
                 selectorWakeupFlag.compareAndSet(false, true)) {
@@ -171,6 +211,20 @@ public final class SelectorRunner implements Runnable {
         dumbVolatile++;
     }
 
+    /**
+     * Returns the worker thread pool, dedicated to the runner, which processes
+     * events of the runner's connections, or <tt>null</tt>, if the events are
+     * processed by the {@link NIOTransport} worker thread pool.
+     * 
+     * @return the worker thread pool dedicated to the runner, or <tt>null</tt>.
+     * 
+     * @see NIOTransport#setWorkerGroupSize(int)
+     * @since 3.0
+     */
+    public ExecutorService getWorkerThreadPool() {
+        return workerThreadPool;
+    }
+
     public Thread getRunnerThread() {
         if (dumbVolatile != 0) {
             return selectorRunnerThread;
@@ -345,6 +399,8 @@ public final class SelectorRunner implements Runnable {
             if (stateHolder.get() == State.STOPPING) return true;
             
             lastSelectedKeysCount = readyKeySet.size();
+            selectedKeysAverage += lastSelectedKeysCount
+                    - (selectedKeysAverage >> SELECTED_KEYS_AVERAGE_SHIFT);
             
             if (lastSelectedKeysCount != 0) {
                 iterator = readyKeySet.iterator();
@@ -407,7 +463,9 @@ public final class SelectorRunner implements Runnable {
 
         if ((keyReadyOps & SelectionKey.OP_READ) != 0) {
             keyReadyOps &= (~SelectionKey.OP_READ);
-            if (!transport.processOpRead(connection)) {
+            if (!connection.unparkReader()
+                    && !connection.pauseSuspendedRead()
+                    && !transport.processOpRead(connection)) {
                 return false;
             }
             
@@ -416,6 +474,7 @@ public final class SelectorRunner implements Runnable {
 
         if ((keyReadyOps & SelectionKey.OP_WRITE) != 0) {
             keyReadyOps &= (~SelectionKey.OP_WRITE);
+            connection.unparkWriter();
             return transport.processOpWrite(connection);
 
         }
@@ -435,8 +494,55 @@ public final class SelectorRunner implements Runnable {
         return true;
     }
 
+    /**
+     * Polls the {@link Selector} using {@link Selector#selectNow()} in a loop
+     * for up to the given time, or until ready keys or pending tasks are
+     * detected, or the runner is being stopped.
+     * While the runner is spinning, the tasks are added without waking up
+     * the {@link Selector}.
+     * 
+     * @param spinTimeNanos the max spin phase duration, in nanoseconds.
+     * @return <tt>true</tt>, if an event has been detected during the spin
+     *         phase, or <tt>false</tt>, if the spin phase has expired and
+     *         the runner has to fall back to the blocking select.
+     * @throws IOException
+     * 
+     * @see NIOTransport#setSelectorSpinTime(long, TimeUnit)
+     */
+    boolean spinSelect(final long spinTimeNanos) throws IOException {
+        final Selector localSelector = selector;
+        final long startTime = System.nanoTime();
+        boolean isDetected = false;
+        
+        isSpinning = true;
+        try {
+            do {
+                if (localSelector.selectNow() > 0 || hasPendingTasks
+                        || stateHolder.get() == State.STOPPING) {
+                    isDetected = true;
+                    break;
+                }
+            } while (System.nanoTime() - startTime < spinTimeNanos);
+        } finally {
+            isSpinning = false;
+        }
+        
+        // a task might have been added, skipping the selector wakeup,
+        // just before the spin phase was over
+        if (!isDetected && (hasPendingTasks
+                || stateHolder.get() == State.STOPPING)) {
+            isDetected = true;
+        }
+        
+        transport.notifySelectorSpin(System.nanoTime() - startTime,
+                !isDetected);
+        
+        return isDetected;
+    }
+    
     public Queue<SelectorHandlerTask> getPendingTasks() {
         hasPendingTasks = false;
+        pendingTasksCounter.set(0);
         return pendingTasks;
     }
 
@@ -511,6 +617,70 @@ public final class SelectorRunner implements Runnable {
         return lastSelectedKeysCount;
     }
 
+    /**
+     * Moving average of the number of {@link SelectionKey}s selected per
+     * select operation. Unlike {@link #getLastSelectedKeysCount()} the value
+     * is not reset while the selector is blocked, so it could be used to
+     * estimate the recent activity of the runner from other threads.
+     *
+     * @return the average number of recently selected {@link SelectionKey}s.
+     * 
+     * @since 3.0
+     */
+    public int getAverageSelectedKeysCount() {
+        return selectedKeysAverage >> SELECTED_KEYS_AVERAGE_SHIFT;
+    }
+
+    /**
+     * Number of {@link SelectionKey}s registered with the runner's
+     * {@link Selector}. The value is approximate if the method is called
+     * from a thread other than the runner thread.
+     *
+     * @return number of {@link SelectionKey}s registered with this runner.
+     * 
+     * @since 3.0
+     */
+    public int getRegisteredKeysCount() {
+        final Selector localSelector = getSelector();
+        if (localSelector == null) {
+            return 0;
+        }
+        
+        try {
+            return localSelector.keys().size();
+        } catch (ClosedSelectorException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Approximate number of {@link SelectorHandlerTask}s (channel
+     * registrations, interest updates etc.), which are waiting to be
+     * processed by the runner thread.
+     *
+     * @return number of pending {@link SelectorHandlerTask}s.
+     * 
+     * @since 3.0
+     */
+    public int getPendingTasksCount() {
+        return pendingTasksCounter.get();
+    }
+
+    /**
+     * Estimated load of the runner, which is calculated as:
+     * <tt>registered keys + 2 * average selected keys + pending tasks</tt>.
+     * Pending tasks are counted to reflect channels, which were
+     * assigned to the runner, but not registered with its {@link Selector} yet.
+     *
+     * @return the estimated load of the runner.
+     * 
+     * @since 3.0
+     */
+    public int getLoad() {
+        return getRegisteredKeysCount() + 2 * getAverageSelectedKeysCount()
+                + getPendingTasksCount();
+    }
+
     protected final void switchToNewSelector() throws IOException {
         final Selector oldSelector = selector;
         final Selector newSelector = Selectors.newSelector(transport.getSelectorProvider());
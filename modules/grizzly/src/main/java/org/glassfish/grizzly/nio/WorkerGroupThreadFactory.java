@@ -0,0 +1,75 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio;
+
+import java.util.concurrent.ThreadFactory;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+/**
+ * Creates {@link ThreadFactory}s for the worker groups, owned by
+ * {@link SelectorRunner}s, when the transport runs in selector-affine worker
+ * group mode (see {@link NIOTransport#setWorkerGroupSize(int)}).
+ * 
+ * The callback is the hook to bind the group threads to the CPU core(s)
+ * dedicated to the {@link SelectorRunner}, for example the returned
+ * {@link ThreadFactory} may wrap the thread's {@link Runnable} with the code,
+ * which pins the current thread before running the worker loop.
+ * The threads are expected to be
+ * {@link org.glassfish.grizzly.threadpool.DefaultWorkerThread}s, so the
+ * Grizzly thread-local caches and memory pools keep working.
+ * 
+ * @since 3.0
+ */
+public interface WorkerGroupThreadFactory {
+    /**
+     * Creates the {@link ThreadFactory} for the worker group of the
+     * {@link SelectorRunner} with the given index.
+     * 
+     * @param groupIndex the {@link SelectorRunner} index, from <tt>0</tt>
+     *        to {@link NIOTransport#getSelectorRunnersCount()} - 1.
+     * @param groupConfig the worker group {@link ThreadPoolConfig}.
+     * 
+     * @return the {@link ThreadFactory}, or <tt>null</tt> to use the default
+     *        Grizzly worker threads.
+     */
+    ThreadFactory createThreadFactory(int groupIndex,
+            ThreadPoolConfig groupConfig);
+}
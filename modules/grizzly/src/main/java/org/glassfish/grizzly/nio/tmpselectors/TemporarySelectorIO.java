@@ -42,6 +42,9 @@ package org.glassfish.grizzly.nio.tmpselectors;
 
 import java.util.logging.Logger;
 import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.NIOTransport;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 
 /**
  *
@@ -76,4 +79,18 @@ public class TemporarySelectorIO {
     public TemporarySelectorWriter getWriter() {
         return writer;
     }
+
+    /**
+     * Returns <tt>true</tt>, if the blocking operation on the connection has
+     * to park the current thread instead of using a temporary selector.
+     * Virtual threads are always parked, so they don't block their carrier
+     * threads in {@link java.nio.channels.Selector#select(long)}.
+     * 
+     * @see NIOTransport#setParkingBlockingIOEnabled(boolean)
+     */
+    static boolean isParkingBlockingIO(final NIOConnection connection) {
+        return (((NIOTransport) connection.getTransport()).isParkingBlockingIOEnabled()
+                || VirtualThreads.isVirtual(Thread.currentThread()))
+                && connection.canParkCurrentThread();
+    }
 }
@@ -52,6 +52,7 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.ReadResult;
 import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.NIOTransport;
 
 /**
  *
@@ -91,6 +92,10 @@ public abstract class TemporarySelectorReader {
 
         final NIOConnection nioConnection = (NIOConnection) connection;
         
+        if (TemporarySelectorIO.isParkingBlockingIO(nioConnection)) {
+            return parkingRead(nioConnection, buffer, timeout, timeunit);
+        }
+        
         int bytesRead;
 
         Selector readSelector = null;
@@ -134,6 +139,45 @@ public abstract class TemporarySelectorReader {
         return currentResult;
     }
 
+    /**
+     * Reads data to the <tt>buffer</tt>, parking the current thread, while
+     * there is no data available.
+     * @see NIOTransport#setParkingBlockingIOEnabled(boolean)
+     */
+    private ReadResult<Buffer, SocketAddress> parkingRead(
+            final NIOConnection nioConnection, final Buffer buffer,
+            final long timeout, final TimeUnit timeunit) throws IOException {
+        
+        final ReadResult<Buffer, SocketAddress> currentResult =
+                ReadResult.create(nioConnection, buffer, null, 0);
+        
+        final long timeoutNanos = timeout > 0 ? timeunit.toNanos(timeout) : -1;
+        final long deadline = System.nanoTime() + timeoutNanos;
+        
+        nioConnection.beginBlockingRead();
+        try {
+            int bytesRead;
+            while ((bytesRead = readNow0(nioConnection, buffer, currentResult)) == 0) {
+                final long remaining = timeoutNanos < 0
+                        ? Long.MAX_VALUE
+                        : deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IOException("Blocking read timeout expired");
+                }
+                
+                nioConnection.parkUntilReady(SelectionKey.OP_READ, remaining);
+            }
+            
+            if (bytesRead == -1) {
+                throw new EOFException();
+            }
+        } finally {
+            nioConnection.endBlockingRead();
+        }
+        
+        return currentResult;
+    }
+
     protected abstract int readNow0(NIOConnection connection,
             Buffer buffer, ReadResult<Buffer, SocketAddress> currentResult)
             throws IOException;
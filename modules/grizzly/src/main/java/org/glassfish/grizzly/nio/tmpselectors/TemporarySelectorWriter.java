@@ -46,10 +46,12 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import org.glassfish.grizzly.*;
 import org.glassfish.grizzly.asyncqueue.LifeCycleHandler;
 import org.glassfish.grizzly.WritableMessage;
 import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.NIOTransport;
 
 /**
  *
@@ -148,6 +150,11 @@ public abstract class TemporarySelectorWriter
             final WriteResult<WritableMessage, SocketAddress> currentResult,
             final long timeout, final TimeUnit timeunit) throws IOException {
 
+        if (TemporarySelectorIO.isParkingBlockingIO(connection)) {
+            return parkingWrite0(connection, dstAddress, message, currentResult,
+                    timeout, timeunit);
+        }
+        
         final SelectableChannel channel = connection.getChannel();
         final long writeTimeout = TimeUnit.MILLISECONDS.convert(timeout, timeunit);
 
@@ -156,45 +163,95 @@ public abstract class TemporarySelectorWriter
         int attempts = 0;
         int bytesWritten = 0;
 
+        // the same lock as in parkingWrite0(), so the parking and
+        // non-parking blocking writes to the connection don't interleave
+        final ReentrantLock lock = connection.getBlockingWriteLock();
+        lock.lock();
         try {
-            synchronized (connection) {
-                while (message.hasRemaining()) {
-                    long len = writeNow0(connection, dstAddress, message,
-                            currentResult);
-
-                    if (len > 0) {
-                        attempts = 0;
-                        bytesWritten += len;
-                    } else {
-                        attempts++;
+            while (message.hasRemaining()) {
+                long len = writeNow0(connection, dstAddress, message,
+                        currentResult);
+
+                if (len > 0) {
+                    attempts = 0;
+                    bytesWritten += len;
+                } else {
+                    attempts++;
+                    if (writeSelector == null) {
+                        writeSelector = getTemporarySelectorIO().getSelectorPool().poll();
+
                         if (writeSelector == null) {
-                            writeSelector = getTemporarySelectorIO().getSelectorPool().poll();
-
-                            if (writeSelector == null) {
-                                // Continue using the main one.
-                                continue;
-                            }
-                            key = channel.register(writeSelector,
-                                    SelectionKey.OP_WRITE);
-                        } else {
-                            writeSelector.selectedKeys().clear();
+                            // Continue using the main one.
+                            continue;
                         }
+                        key = channel.register(writeSelector,
+                                SelectionKey.OP_WRITE);
+                    } else {
+                        writeSelector.selectedKeys().clear();
+                    }
 
-                        if (writeSelector.select(writeTimeout) == 0) {
-                            if (attempts > 2) {
-                                throw new IOException("Client disconnected");
-                            }
+                    if (writeSelector.select(writeTimeout) == 0) {
+                        if (attempts > 2) {
+                            throw new IOException("Client disconnected");
                         }
                     }
                 }
             }
         } finally {
+            lock.unlock();
             getTemporarySelectorIO().getSelectorPool().offer(writeSelector, key);
         }
         
         return bytesWritten;
     }
 
+    /**
+     * Flush the buffer by looping until the {@link Buffer} is empty, parking
+     * the current thread, while the channel is not writable.
+     * The {@link NIOConnection#getBlockingWriteLock()} is used instead of
+     * synchronization, so parked virtual threads are not pinned to their
+     * carrier threads. The same lock is taken by the non-parking blocking
+     * writes, so the writes don't interleave.
+     * 
+     * @see NIOTransport#setParkingBlockingIOEnabled(boolean)
+     */
+    private long parkingWrite0(final NIOConnection connection,
+            final SocketAddress dstAddress, final WritableMessage message,
+            final WriteResult<WritableMessage, SocketAddress> currentResult,
+            final long timeout, final TimeUnit timeunit) throws IOException {
+
+        final long timeoutNanos = timeout > 0 ? timeunit.toNanos(timeout) : -1;
+        long deadline = System.nanoTime() + timeoutNanos;
+        long bytesWritten = 0;
+        
+        final ReentrantLock lock = connection.getBlockingWriteLock();
+        lock.lock();
+        try {
+            while (message.hasRemaining()) {
+                final long len = writeNow0(connection, dstAddress, message,
+                        currentResult);
+
+                if (len > 0) {
+                    bytesWritten += len;
+                    deadline = System.nanoTime() + timeoutNanos;
+                } else {
+                    final long remaining = timeoutNanos < 0
+                            ? Long.MAX_VALUE
+                            : deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new IOException("Blocking write timeout expired");
+                    }
+                    
+                    connection.parkUntilReady(SelectionKey.OP_WRITE, remaining);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        return bytesWritten;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -42,6 +42,7 @@ package org.glassfish.grizzly.nio.transport;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
@@ -52,6 +53,7 @@ import org.glassfish.grizzly.*;
 import org.glassfish.grizzly.asyncqueue.AsyncQueueWriter;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.ReceiveBufferSizePredictor;
 import org.glassfish.grizzly.nio.SelectorRunner;
 import org.glassfish.grizzly.utils.Holder;
 
@@ -71,6 +73,12 @@ public class TCPNIOConnection extends NIOConnection {
     private int readBufferSize = -1;
     private int writeBufferSize = -1;
 
+    private ReceiveBufferSizePredictor receiveBufferSizePredictor;
+
+    // created by the thread, which processes the read event, but read
+    // by the other writing threads too
+    private volatile TCPNIOWriteCork writeCork;
+
     private AtomicReference<ConnectResultHandler> connectHandlerRef;
 
     public TCPNIOConnection(TCPNIOTransport transport,
@@ -95,6 +103,50 @@ public class TCPNIOConnection extends NIOConnection {
         checkConnectFailed(null);
         super.preClose();
     }
+
+    @Override
+    protected void closeGracefully0(
+            final CompletionHandler<Closeable> completionHandler,
+            final CloseReason closeReason) {
+        // make sure the corked data is written before the connection is closed
+        final TCPNIOWriteCork cork = writeCork;
+        if (cork != null) {
+            cork.flush();
+        }
+        
+        super.closeGracefully0(completionHandler, closeReason);
+    }
+
+    @Override
+    protected void onReadEventComplete() {
+        final TCPNIOWriteCork cork = writeCork;
+        if (cork != null) {
+            cork.uncork();
+        }
+    }
+
+    /**
+     * Returns the connection's {@link TCPNIOWriteCork}, creating it if needed.
+     * The method is called by the thread, which processes the read event,
+     * the read events of a connection are not processed concurrently.
+     */
+    TCPNIOWriteCork obtainWriteCork() {
+        TCPNIOWriteCork cork = writeCork;
+        if (cork == null) {
+            cork = new TCPNIOWriteCork(this);
+            writeCork = cork;
+        }
+        
+        return cork;
+    }
+
+    /**
+     * Returns the connection's {@link TCPNIOWriteCork}, or <tt>null</tt>, if
+     * the connection has never been corked.
+     */
+    TCPNIOWriteCork getWriteCork() {
+        return writeCork;
+    }
     
     protected boolean notifyReady() {
         return connectCloseSemaphore.compareAndSet(null,
@@ -128,6 +180,12 @@ public class TCPNIOConnection extends NIOConnection {
             setReadBufferSize(transport.getReadBufferSize());
             setWriteBufferSize(transport.getWriteBufferSize());
 
+            final ReceiveBufferSizePredictor.Factory predictorFactory =
+                    ((TCPNIOTransport) transport).getReceiveBufferSizePredictorFactory();
+            receiveBufferSizePredictor = predictorFactory != null
+                    ? predictorFactory.create(this)
+                    : null;
+
             final int transportMaxAsyncWriteQueueSize =
                     ((TCPNIOTransport) transport).getAsyncQueueWriter()
                     .getMaxPendingBytesPerConnection();
@@ -137,8 +195,16 @@ public class TCPNIOConnection extends NIOConnection {
                     ? getWriteBufferSize() * 4
                     : transportMaxAsyncWriteQueueSize);
 
-            localSocketAddressHolder = Holder.lazyHolder(((SocketChannel) channel).socket()::getLocalSocketAddress);
-            peerSocketAddressHolder = Holder.lazyHolder(((SocketChannel) channel).socket()::getRemoteSocketAddress);
+            final SocketChannel socketChannel = (SocketChannel) channel;
+            if (UnixDomainSockets.isUnixDomainSocketChannel(socketChannel)) {
+                localSocketAddressHolder = Holder.lazyHolder(
+                        () -> UnixDomainSockets.getLocalAddress(socketChannel));
+                peerSocketAddressHolder = Holder.lazyHolder(
+                        () -> UnixDomainSockets.getRemoteAddress(socketChannel));
+            } else {
+                localSocketAddressHolder = Holder.lazyHolder(socketChannel.socket()::getLocalSocketAddress);
+                peerSocketAddressHolder = Holder.lazyHolder(socketChannel.socket()::getRemoteSocketAddress);
+            }
         }
     }
 
@@ -152,7 +218,7 @@ public class TCPNIOConnection extends NIOConnection {
         }
         
         try {
-            readBufferSize = ((SocketChannel) channel).socket().getReceiveBufferSize();
+            readBufferSize = ((SocketChannel) channel).getOption(StandardSocketOptions.SO_RCVBUF);
         } catch (IOException e) {
             LOGGER.log(Level.FINE,
                     LogMessages.WARNING_GRIZZLY_CONNECTION_GET_READBUFFER_SIZE_EXCEPTION(),
@@ -170,9 +236,9 @@ public class TCPNIOConnection extends NIOConnection {
     public void setReadBufferSize(final int readBufferSize) {
         if (readBufferSize > 0) {
             try {
-                final int currentReadBufferSize = ((SocketChannel) channel).socket().getReceiveBufferSize();
+                final int currentReadBufferSize = ((SocketChannel) channel).getOption(StandardSocketOptions.SO_RCVBUF);
                 if (readBufferSize > currentReadBufferSize) {
-                    ((SocketChannel) channel).socket().setReceiveBufferSize(readBufferSize);
+                    ((SocketChannel) channel).setOption(StandardSocketOptions.SO_RCVBUF, readBufferSize);
                 }
                 
                 this.readBufferSize = readBufferSize;
@@ -184,6 +250,31 @@ public class TCPNIOConnection extends NIOConnection {
         }
     }
 
+    /**
+     * Returns the {@link ReceiveBufferSizePredictor}, which sizes the
+     * {@link Buffer}s allocated for reading from this connection, or
+     * <tt>null</tt> if the {@link #getReadBufferSize()} is used for every read.
+     *
+     * @return the {@link ReceiveBufferSizePredictor}, or <tt>null</tt>.
+     * @since 3.0
+     */
+    public ReceiveBufferSizePredictor getReceiveBufferSizePredictor() {
+        return receiveBufferSizePredictor;
+    }
+
+    /**
+     * Sets the {@link ReceiveBufferSizePredictor}, which sizes the
+     * {@link Buffer}s allocated for reading from this connection.
+     *
+     * @param receiveBufferSizePredictor the {@link ReceiveBufferSizePredictor},
+     *        or <tt>null</tt> to use the {@link #getReadBufferSize()} for every read.
+     * @since 3.0
+     */
+    public void setReceiveBufferSizePredictor(
+            final ReceiveBufferSizePredictor receiveBufferSizePredictor) {
+        this.receiveBufferSizePredictor = receiveBufferSizePredictor;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -194,7 +285,7 @@ public class TCPNIOConnection extends NIOConnection {
         }
         
         try {
-            writeBufferSize = ((SocketChannel) channel).socket().getSendBufferSize();
+            writeBufferSize = ((SocketChannel) channel).getOption(StandardSocketOptions.SO_SNDBUF);
         } catch (IOException e) {
             LOGGER.log(Level.FINE,
                     LogMessages.WARNING_GRIZZLY_CONNECTION_GET_WRITEBUFFER_SIZE_EXCEPTION(),
@@ -212,9 +303,9 @@ public class TCPNIOConnection extends NIOConnection {
     public void setWriteBufferSize(int writeBufferSize) {
         if (writeBufferSize > 0) {
             try {
-                final int currentSendBufferSize = ((SocketChannel) channel).socket().getSendBufferSize();
+                final int currentSendBufferSize = ((SocketChannel) channel).getOption(StandardSocketOptions.SO_SNDBUF);
                 if (writeBufferSize > currentSendBufferSize) {
-                    ((SocketChannel) channel).socket().setSendBufferSize(writeBufferSize);
+                    ((SocketChannel) channel).setOption(StandardSocketOptions.SO_SNDBUF, writeBufferSize);
                 }
                 this.writeBufferSize = writeBufferSize;
             } catch (IOException e) {
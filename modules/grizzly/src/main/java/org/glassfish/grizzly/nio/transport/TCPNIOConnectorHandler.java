@@ -100,25 +100,35 @@ public class TCPNIOConnectorHandler extends AbstractSocketConnectorHandler {
         final TCPNIOTransport nioTransport = (TCPNIOTransport) transport;
         TCPNIOConnection newConnection = null;
         try {
-            final SocketChannel socketChannel =
-                    nioTransport.getSelectorProvider().openSocketChannel();
+            final boolean isUnixDomain =
+                    UnixDomainSockets.isUnixDomainSocketAddress(remoteAddress);
+            final SocketChannel socketChannel = isUnixDomain
+                    ? UnixDomainSockets.openSocketChannel(
+                            nioTransport.getSelectorProvider())
+                    : nioTransport.getSelectorProvider().openSocketChannel();
 
             newConnection = nioTransport.obtainNIOConnection(socketChannel);
 
             final TCPNIOConnection finalConnection = newConnection;
 
-            final Socket socket = socketChannel.socket();
-            
             nioTransport.getChannelConfigurator().preConfigure(
                     nioTransport, socketChannel);
             
-            final boolean reuseAddr = isReuseAddress;
-            if (reuseAddr != nioTransport.isReuseAddress()) {
-                socket.setReuseAddress(reuseAddr);
-            }
+            if (isUnixDomain) {
+                if (localAddress != null) {
+                    socketChannel.bind(localAddress);
+                }
+            } else {
+                final Socket socket = socketChannel.socket();
 
-            if (localAddress != null) {
-                socket.bind(localAddress);
+                final boolean reuseAddr = isReuseAddress;
+                if (reuseAddr != nioTransport.isReuseAddress()) {
+                    socket.setReuseAddress(reuseAddr);
+                }
+
+                if (localAddress != null) {
+                    socket.bind(localAddress);
+                }
             }
 
 
@@ -41,9 +41,12 @@
 package org.glassfish.grizzly.nio.transport;
 
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -77,6 +80,18 @@ public class TCPNIOServerConnection extends TCPNIOConnection {
     private FutureImpl<Connection> acceptListener;
     private final RegisterAcceptedChannelCompletionHandler defaultCompletionHandler;
     private volatile int maxAcceptRetries = 5;
+
+    /**
+     * The index of the SO_REUSEPORT acceptor, or <tt>-1</tt> if this is the
+     * only server connection bound to the address.
+     */
+    int acceptorIndex = -1;
+    
+    /**
+     * The rest of the SO_REUSEPORT acceptors bound to the same address,
+     * which have to be unbound together with this server connection.
+     */
+    List<TCPNIOServerConnection> acceptorSiblings;
     
 
     public TCPNIOServerConnection(TCPNIOTransport transport,
@@ -87,16 +102,26 @@ public class TCPNIOServerConnection extends TCPNIOConnection {
     }
 
     public void listen() throws IOException {
+        final TCPNIOTransport tcpNIOTransport = (TCPNIOTransport) transport;
         final CompletionHandler<RegisterChannelResult> registerCompletionHandler =
-                ((TCPNIOTransport) transport).selectorRegistrationHandler;
+                tcpNIOTransport.selectorRegistrationHandler;
 
         final FutureImpl<RegisterChannelResult> future =
                 SafeFutureImpl.create();
         
-        transport.getNIOChannelDistributor().registerServiceChannelAsync(
-                channel, SelectionKey.OP_ACCEPT, this,
+        final CompletionHandler<RegisterChannelResult> completionHandler =
                 new CompletionHandlerAdapter<RegisterChannelResult, RegisterChannelResult>(
-                future, registerCompletionHandler));
+                future, registerCompletionHandler);
+        
+        if (acceptorIndex >= 0) {
+            // each SO_REUSEPORT acceptor gets its own selector
+            tcpNIOTransport.getSelectorHandler().registerChannelAsync(
+                    tcpNIOTransport.getAcceptorSelectorRunner(acceptorIndex),
+                    channel, SelectionKey.OP_ACCEPT, this, completionHandler);
+        } else {
+            transport.getNIOChannelDistributor().registerServiceChannelAsync(
+                    channel, SelectionKey.OP_ACCEPT, this, completionHandler);
+        }
         try {
             future.get(10, TimeUnit.SECONDS);
         } catch (ExecutionException e) {
@@ -173,6 +198,9 @@ public class TCPNIOServerConnection extends TCPNIOConnection {
     
     @Override
     protected void preClose() {
+        // resolve the address before the channel gets closed
+        final SocketAddress localAddress = getLocalAddress();
+        
         if (acceptListener != null) {
             acceptListener.failure(new IOException("Connection is closed"));
         }
@@ -184,9 +212,26 @@ public class TCPNIOServerConnection extends TCPNIOConnection {
                     "Exception occurred, when unbind connection: " + this, e);
         }
 
+        deleteUnixDomainSocketFile(localAddress);
+        
         super.preClose();
     }
     
+    /**
+     * Removes the socket file of the Unix domain server socket, so the
+     * address could be bound again.
+     */
+    private void deleteUnixDomainSocketFile(final SocketAddress localAddress) {
+        if (UnixDomainSockets.isUnixDomainSocketAddress(localAddress)) {
+            try {
+                Files.deleteIfExists(UnixDomainSockets.getPath(localAddress));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE,
+                        "Exception occurred, when deleting the socket file of connection: " + this, e);
+            }
+        }
+    }
+    
     private SocketChannel doAccept() throws IOException {
         if (!DISABLE_INTERRUPT_CLEAR && Thread.currentThread().isInterrupted()) {
             Thread.interrupted();
@@ -270,7 +315,10 @@ public class TCPNIOServerConnection extends TCPNIOConnection {
     @Override
     @SuppressWarnings("unchecked")
     protected void resetProperties() {
-        localSocketAddressHolder = Holder.lazyHolder(((ServerSocketChannel) channel).socket()::getLocalSocketAddress);
+        final ServerSocketChannel serverSocketChannel = (ServerSocketChannel) channel;
+        localSocketAddressHolder = UnixDomainSockets.isUnixDomainSocketChannel(serverSocketChannel)
+                ? Holder.lazyHolder(() -> UnixDomainSockets.getLocalAddress(serverSocketChannel))
+                : Holder.lazyHolder(serverSocketChannel.socket()::getLocalSocketAddress);
         peerSocketAddressHolder = Holder.staticHolder(null);
     }
     
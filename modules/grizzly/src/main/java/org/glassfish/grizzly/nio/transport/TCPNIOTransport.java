@@ -46,12 +46,17 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Channel;
+import java.nio.channels.NetworkChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -73,6 +78,7 @@ import org.glassfish.grizzly.Writer;
 import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.monitoring.MonitoringUtils;
@@ -113,6 +119,17 @@ public class TCPNIOTransport extends NIOTransport {
     public static final boolean DEFAULT_KEEP_ALIVE = true;
     public static final int DEFAULT_LINGER = -1;
     public static final int DEFAULT_SERVER_CONNECTION_BACKLOG = 4096;
+    public static final int DEFAULT_ACCEPTORS_COUNT = 1;
+    public static final int DEFAULT_READ_BUDGET_ITERATIONS = 1;
+    public static final int DEFAULT_READ_BUDGET_BYTES = 64 * 1024;
+    public static final boolean DEFAULT_WRITE_CORKING_ENABLED = false;
+    public static final int DEFAULT_MAX_CORKED_WRITE_SIZE = 16384;
+
+    /**
+     * SO_REUSEPORT {@link SocketOption} (available since JDK 9), or
+     * <tt>null</tt> if it's not supported by the running JVM.
+     */
+    private static final SocketOption<Boolean> SO_REUSEPORT = lookupReusePortOption();
 
     private static final String DEFAULT_TRANSPORT_NAME = "TCPNIOTransport";
     /**
@@ -129,6 +146,32 @@ public class TCPNIOTransport extends NIOTransport {
      */
     int serverConnectionBackLog = DEFAULT_SERVER_CONNECTION_BACKLOG;
 
+    /**
+     * The number of server socket channels bound to the same address
+     */
+    int acceptorsCount = DEFAULT_ACCEPTORS_COUNT;
+
+    /**
+     * The max number of socket reads performed per READ event
+     */
+    int readBudgetIterations = DEFAULT_READ_BUDGET_ITERATIONS;
+
+    /**
+     * The max number of bytes read per READ event, if
+     * {@link #readBudgetIterations} is greater than one
+     */
+    int readBudgetBytes = DEFAULT_READ_BUDGET_BYTES;
+
+    /**
+     * Are writes, initiated during a READ event processing, corked
+     */
+    boolean isWriteCorkingEnabled = DEFAULT_WRITE_CORKING_ENABLED;
+
+    /**
+     * The max number of bytes corked per connection before flush
+     */
+    int maxCorkedWriteSize = DEFAULT_MAX_CORKED_WRITE_SIZE;
+
     /**
      * The socket tcpDelay.
      *
@@ -244,21 +287,103 @@ public class TCPNIOTransport extends NIOTransport {
             final int backlog)
             throws IOException {
         
+        final int acceptors = acceptorsCount;
+        if (acceptors <= 1
+                || UnixDomainSockets.isUnixDomainSocketAddress(socketAddress)) {
+            return bindServerConnection(socketAddress, backlog, -1);
+        }
+        
+        if (!isReusePortSupported()) {
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_SOCKET_REUSEPORT_NOT_SUPPORTED(socketAddress));
+            return bindServerConnection(socketAddress, backlog, -1);
+        }
+        
+        final Lock lock = state.getStateLocker().writeLock();
+        lock.lock();
+        try {
+            final TCPNIOServerConnection serverConnection =
+                    bindServerConnection(socketAddress, backlog, 0);
+            
+            if (serverConnection.acceptorIndex < 0) {
+                // the channel doesn't support SO_REUSEPORT
+                return serverConnection;
+            }
+            
+            // if the ephemeral port was requested - the rest of the acceptors
+            // have to be bound to the port chosen for the first one
+            final SocketAddress boundAddress = ((ServerSocketChannel)
+                    serverConnection.getChannel()).socket().getLocalSocketAddress();
+            
+            final List<TCPNIOServerConnection> acceptorSiblings =
+                    new ArrayList<TCPNIOServerConnection>(acceptors - 1);
+            serverConnection.acceptorSiblings = acceptorSiblings;
+            
+            try {
+                for (int i = 1; i < acceptors; i++) {
+                    acceptorSiblings.add(
+                            bindServerConnection(boundAddress, backlog, i));
+                }
+            } catch (IOException e) {
+                unbind(serverConnection);
+                throw e;
+            }
+            
+            return serverConnection;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Binds a single server socket channel.
+     * 
+     * @param acceptorIndex the index of the SO_REUSEPORT acceptor, or <tt>-1</tt>
+     *        if the channel is the only one bound to the address. If the first
+     *        acceptor's channel doesn't support SO_REUSEPORT - it's bound as
+     *        the only one, and the returned connection's acceptor index is
+     *        <tt>-1</tt>
+     */
+    private TCPNIOServerConnection bindServerConnection(
+            final SocketAddress socketAddress, final int backlog,
+            final int acceptorIndex) throws IOException {
+        
         TCPNIOServerConnection serverConnection = null;
-        final ServerSocketChannel serverSocketChannel =
-                selectorProvider.openServerSocketChannel();
+        final boolean isUnixDomain =
+                UnixDomainSockets.isUnixDomainSocketAddress(socketAddress);
+        final ServerSocketChannel serverSocketChannel = isUnixDomain
+                ? UnixDomainSockets.openServerSocketChannel(selectorProvider)
+                : selectorProvider.openServerSocketChannel();
 
         final Lock lock = state.getStateLocker().writeLock();
         lock.lock();
         try {
             getChannelConfigurator().preConfigure(this, serverSocketChannel);
             
-            final ServerSocket serverSocket = serverSocketChannel.socket();
-            serverSocket.bind(socketAddress, backlog);
+            int reusePortIndex = acceptorIndex;
+            if (acceptorIndex >= 0) {
+                if (serverSocketChannel.supportedOptions().contains(SO_REUSEPORT)) {
+                    serverSocketChannel.setOption(SO_REUSEPORT, true);
+                } else if (acceptorIndex == 0) {
+                    LOGGER.log(Level.WARNING,
+                            LogMessages.WARNING_GRIZZLY_SOCKET_REUSEPORT_NOT_SUPPORTED(socketAddress));
+                    reusePortIndex = -1;
+                } else {
+                    throw new IOException("SO_REUSEPORT is not supported by " + serverSocketChannel);
+                }
+            }
+            
+            if (isUnixDomain) {
+                serverSocketChannel.bind(socketAddress, backlog);
+            } else {
+                final ServerSocket serverSocket = serverSocketChannel.socket();
+                serverSocket.bind(socketAddress, backlog);
+            }
             
             getChannelConfigurator().postConfigure(this, serverSocketChannel);
 
             serverConnection = obtainServerNIOConnection(serverSocketChannel);
+            serverConnection.acceptorIndex = reusePortIndex;
             serverConnections.add(serverConnection);
             serverConnection.resetProperties();
 
@@ -397,6 +522,15 @@ public class TCPNIOTransport extends NIOTransport {
                             LogMessages.WARNING_GRIZZLY_TRANSPORT_UNBINDING_CONNECTION_EXCEPTION(connection),
                             e);
                 }
+                
+                // unbind the rest of the SO_REUSEPORT acceptors
+                final List<TCPNIOServerConnection> acceptorSiblings =
+                        ((TCPNIOServerConnection) connection).acceptorSiblings;
+                if (acceptorSiblings != null) {
+                    for (TCPNIOServerConnection sibling : acceptorSiblings) {
+                        unbind(sibling);
+                    }
+                }
             }
         } finally {
             lock.unlock();
@@ -587,6 +721,175 @@ public class TCPNIOTransport extends NIOTransport {
         this.serverConnectionBackLog = serverConnectionBackLog;
     }
 
+    /**
+     * Get the number of server socket channels, which will be bound to
+     * the same address using SO_REUSEPORT.
+     * @return the number of server socket channels bound per address.
+     * 
+     * @since 3.0
+     */
+    public int getAcceptorsCount() {
+        return acceptorsCount;
+    }
+
+    /**
+     * Set the number of server socket channels, which will be bound to
+     * the same address using SO_REUSEPORT. Each of these channels is
+     * registered with its own {@link SelectorRunner}, so the kernel balances
+     * new connections between them and the accept path isn't handled by a
+     * single selector.
+     * 
+     * If SO_REUSEPORT is not supported by the running JVM - only one server
+     * socket channel will be bound.
+     * 
+     * @param acceptorsCount the number of server socket channels bound per address.
+     * @see #isReusePortSupported()
+     * 
+     * @since 3.0
+     */
+    public void setAcceptorsCount(final int acceptorsCount) {
+        if (acceptorsCount < 1) {
+            throw new IllegalArgumentException("acceptorsCount must be greater than zero");
+        }
+        
+        this.acceptorsCount = acceptorsCount;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return the max number of socket reads, which will be performed
+     *         to process a single READ event.
+     * @see #setReadBudget(int, int)
+     * 
+     * @since 3.0
+     */
+    public int getReadBudgetIterations() {
+        return readBudgetIterations;
+    }
+
+    /**
+     * @return the max number of bytes, which will be read to process
+     *         a single READ event.
+     * @see #setReadBudget(int, int)
+     * 
+     * @since 3.0
+     */
+    public int getReadBudgetBytes() {
+        return readBudgetBytes;
+    }
+
+    /**
+     * Set the per-event read budget. When a READ event fires, the transport
+     * keeps reading from the socket until there is no more data available,
+     * or until either <tt>maxIterations</tt> reads were performed or
+     * <tt>maxBytes</tt> bytes were read; all the data read is passed to
+     * the {@link org.glassfish.grizzly.filterchain.FilterChain} as one message.
+     * 
+     * Larger budget saves <tt>select()</tt> round trips for pipelining
+     * and bulk-upload clients, smaller budget gives other connections
+     * served by the same {@link SelectorRunner} a fairer share.
+     * By default only one read per event is performed.
+     * 
+     * @param maxIterations the max number of reads per READ event.
+     * @param maxBytes the max number of bytes read per READ event.
+     * @see org.glassfish.grizzly.TransportProbe#onReadBudgetExhaustedEvent(org.glassfish.grizzly.Transport, org.glassfish.grizzly.Connection, int, int)
+     * 
+     * @since 3.0
+     */
+    public void setReadBudget(final int maxIterations, final int maxBytes) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations must be greater than zero");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be greater than zero");
+        }
+
+        this.readBudgetIterations = maxIterations;
+        this.readBudgetBytes = maxBytes;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return <tt>true</tt> if the writes, initiated during a READ event
+     *         processing, are corked.
+     * @see #setWriteCorkingEnabled(boolean)
+     * 
+     * @since 3.0
+     */
+    public boolean isWriteCorkingEnabled() {
+        return isWriteCorkingEnabled;
+    }
+
+    /**
+     * Enables or disables write corking. If enabled, a {@link TCPNIOConnection}
+     * gets corked for the duration of a READ event processing, so the
+     * {@link Buffer}s written by the processing thread are not passed to the
+     * async write queue one by one, but accumulated and written as one
+     * gathering write, when the event processing is completed or suspended,
+     * the {@link FilterChain} is flushed, the connection is closed, or the
+     * amount of accumulated data exceeds {@link #getMaxCorkedWriteSize()}.
+     * 
+     * Writes initiated by other threads, as well as blocking writes,
+     * are not corked.
+     * 
+     * @param isWriteCorkingEnabled <tt>true</tt> to enable write corking.
+     * 
+     * @since 3.0
+     */
+    public void setWriteCorkingEnabled(final boolean isWriteCorkingEnabled) {
+        this.isWriteCorkingEnabled = isWriteCorkingEnabled;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return the max number of bytes, which could be corked per connection
+     *         before they get flushed.
+     * @see #setWriteCorkingEnabled(boolean)
+     * 
+     * @since 3.0
+     */
+    public int getMaxCorkedWriteSize() {
+        return maxCorkedWriteSize;
+    }
+
+    /**
+     * Set the max number of bytes, which could be corked per connection
+     * before they get flushed.
+     * 
+     * @param maxCorkedWriteSize the max number of corked bytes per connection.
+     * @see #setWriteCorkingEnabled(boolean)
+     * 
+     * @since 3.0
+     */
+    public void setMaxCorkedWriteSize(final int maxCorkedWriteSize) {
+        if (maxCorkedWriteSize < 0) {
+            throw new IllegalArgumentException("maxCorkedWriteSize can't be negative");
+        }
+        
+        this.maxCorkedWriteSize = maxCorkedWriteSize;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return <tt>true</tt> if SO_REUSEPORT socket option is supported by
+     *         the running JVM and platform, so server socket channels could
+     *         be bound to the same address, or <tt>false</tt> otherwise.
+     * 
+     * @since 3.0
+     */
+    public static boolean isReusePortSupported() {
+        return ReusePortSupport.IS_SUPPORTED;
+    }
+    
+    /**
+     * Returns the {@link SelectorRunner}, which serves the SO_REUSEPORT
+     * acceptor with the given index.
+     */
+    SelectorRunner getAcceptorSelectorRunner(final int acceptorIndex) {
+        final SelectorRunner[] runners = getSelectorRunners();
+        return runners[acceptorIndex % runners.length];
+    }
+
     @Override
     public Filter getTransportFilter() {
         return defaultTransportFilter;
@@ -661,8 +964,18 @@ public class TCPNIOTransport extends NIOTransport {
         final boolean isAllocate = (buffer == null);
         if (isAllocate) {
             try {
-                buffer = TCPNIOUtils.allocateAndReadBuffer(tcpConnection);
+                final int receiveBufferSize =
+                        TCPNIOUtils.getReceiveBufferSize(tcpConnection);
+                buffer = TCPNIOUtils.allocateAndReadBuffer(tcpConnection,
+                        receiveBufferSize);
                 read = buffer.position();
+                
+                // a short read means the socket has been drained
+                if (read >= receiveBufferSize && readBudgetIterations > 1) {
+                    buffer = readMore(tcpConnection, buffer);
+                    read = buffer.position();
+                }
+                
                 tcpConnection.onRead(buffer, read);
             } catch (Exception e) {
                 if (LOGGER.isLoggable(Level.FINE)) {
@@ -707,6 +1020,70 @@ public class TCPNIOTransport extends NIOTransport {
         return buffer;
     }
 
+    /**
+     * Keeps reading from the connection until it has no more data available,
+     * or the read budget is exhausted, and appends the data to the
+     * already read {@link Buffer}. The connection is considered drained, once
+     * a read returns less data than requested, so no extra read is
+     * performed just to find out there is nothing left.
+     * An exception, including EOF, which occurs after some data has been
+     * read, is not propagated here - it will be reported by the next read.
+     */
+    private Buffer readMore(final TCPNIOConnection tcpConnection,
+            Buffer buffer) {
+        final int maxIterations = readBudgetIterations;
+        final int maxBytes = readBudgetBytes;
+        
+        int iterations = 1;
+        int total = buffer.position();
+        
+        while (true) {
+            if (iterations >= maxIterations || total >= maxBytes) {
+                notifyProbesReadBudgetExhausted(this, tcpConnection,
+                        iterations, total);
+                break;
+            }
+            
+            final int receiveBufferSize =
+                    TCPNIOUtils.getReceiveBufferSize(tcpConnection);
+            final Buffer next;
+            try {
+                next = TCPNIOUtils.allocateAndReadBuffer(tcpConnection,
+                        receiveBufferSize);
+            } catch (IOException e) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "TCPNIOConnection (" + tcpConnection
+                            + ") read exception after " + total
+                            + " bytes have been read", e);
+                }
+                break;
+            }
+            
+            iterations++;
+            
+            final int read = next.position();
+            if (read == 0) {
+                break;
+            }
+            
+            buffer.trim();
+            next.trim();
+            buffer = Buffers.appendBuffers(memoryManager, buffer, next, true);
+            if (buffer.isComposite()) {
+                ((CompositeBuffer) buffer).allowInternalBuffersDispose(true);
+            }
+            
+            total += read;
+            buffer.position(total);
+            
+            if (read < receiveBufferSize) {
+                break;
+            }
+        }
+        
+        return buffer;
+    }
+
     public int write(final TCPNIOConnection connection, final WritableMessage message)
             throws IOException {
         return write(connection, message, null);
@@ -800,12 +1177,52 @@ public class TCPNIOTransport extends NIOTransport {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> lookupReusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class
+                    .getField("SO_REUSEPORT").get(null);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+    
+    /*
+     * The JDK may declare SO_REUSEPORT, but not support it on the platform
+     * (for example on Windows), so the check is made on a real channel,
+     * which is opened lazily, on the first isReusePortSupported() call.
+     */
+    private static final class ReusePortSupport {
+        static final boolean IS_SUPPORTED = check();
+        
+        private static boolean check() {
+            if (SO_REUSEPORT == null) {
+                return false;
+            }
+            
+            try {
+                final ServerSocketChannel channel = ServerSocketChannel.open();
+                try {
+                    return channel.supportedOptions().contains(SO_REUSEPORT);
+                } finally {
+                    channel.close();
+                }
+            } catch (Throwable t) {
+                return false;
+            }
+        }
+    } // END ReusePortSupport
+    
     private static class DefaultChannelConfigurator implements ChannelConfigurator {
         @Override
         public void preConfigure(NIOTransport transport,
                 SelectableChannel channel) throws IOException {
             final TCPNIOTransport tcpNioTransport = (TCPNIOTransport) transport;
-            if (channel instanceof SocketChannel) {
+            if (UnixDomainSockets.isUnixDomainSocketChannel(
+                    (NetworkChannel) channel)) {
+                // TCP socket options don't apply to Unix domain sockets
+                channel.configureBlocking(false);
+            } else if (channel instanceof SocketChannel) {
                 final SocketChannel sc = (SocketChannel) channel;
                 final Socket socket = sc.socket();
 
@@ -839,7 +1256,21 @@ public class TCPNIOTransport extends NIOTransport {
                 final SelectableChannel channel) throws IOException {
             
             final TCPNIOTransport tcpNioTransport = (TCPNIOTransport) transport;
-            if (channel instanceof SocketChannel) {
+            if (UnixDomainSockets.isUnixDomainSocketChannel(
+                    (NetworkChannel) channel)) {
+                if (channel instanceof SocketChannel) {
+                    final int linger = tcpNioTransport.getLinger();
+                    try {
+                        if (linger >= 0) {
+                            ((SocketChannel) channel).setOption(
+                                    StandardSocketOptions.SO_LINGER, linger);
+                        }
+                    } catch (IOException | UnsupportedOperationException e) {
+                        LOGGER.log(Level.WARNING,
+                                LogMessages.WARNING_GRIZZLY_SOCKET_LINGER_EXCEPTION(linger), e);
+                    }
+                }
+            } else if (channel instanceof SocketChannel) {
                 final SocketChannel sc = (SocketChannel) channel;
                 final Socket socket = sc.socket();
 
@@ -53,6 +53,11 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
     protected boolean keepAlive = TCPNIOTransport.DEFAULT_KEEP_ALIVE;
     protected int linger = TCPNIOTransport.DEFAULT_LINGER;
     protected int serverConnectionBackLog = TCPNIOTransport.DEFAULT_SERVER_CONNECTION_BACKLOG;
+    protected int acceptorsCount = TCPNIOTransport.DEFAULT_ACCEPTORS_COUNT;
+    protected int readBudgetIterations = TCPNIOTransport.DEFAULT_READ_BUDGET_ITERATIONS;
+    protected int readBudgetBytes = TCPNIOTransport.DEFAULT_READ_BUDGET_BYTES;
+    protected boolean writeCorkingEnabled = TCPNIOTransport.DEFAULT_WRITE_CORKING_ENABLED;
+    protected int maxCorkedWriteSize = TCPNIOTransport.DEFAULT_MAX_CORKED_WRITE_SIZE;
     protected int serverSocketSoTimeout = TCPNIOTransport.DEFAULT_SERVER_SOCKET_SO_TIMEOUT;
     protected boolean tcpNoDelay = TCPNIOTransport.DEFAULT_TCP_NO_DELAY;
 
@@ -101,6 +106,55 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         return getThis();
     }
 
+    /**
+     * @see TCPNIOTransport#setAcceptorsCount(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * 
+     * @since 3.0
+     */
+    public TCPNIOTransportBuilder acceptorsCount(int acceptorsCount) {
+        this.acceptorsCount = acceptorsCount;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#setReadBudget(int, int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * 
+     * @since 3.0
+     */
+    public TCPNIOTransportBuilder readBudget(int maxIterations, int maxBytes) {
+        this.readBudgetIterations = maxIterations;
+        this.readBudgetBytes = maxBytes;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#setWriteCorkingEnabled(boolean)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * 
+     * @since 3.0
+     */
+    public TCPNIOTransportBuilder writeCorkingEnabled(boolean writeCorkingEnabled) {
+        this.writeCorkingEnabled = writeCorkingEnabled;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#setMaxCorkedWriteSize(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * 
+     * @since 3.0
+     */
+    public TCPNIOTransportBuilder maxCorkedWriteSize(int maxCorkedWriteSize) {
+        this.maxCorkedWriteSize = maxCorkedWriteSize;
+        return getThis();
+    }
+
     /**
      * @return this <code>TCPNIOTransportBuilder</code>
      */
@@ -128,6 +182,10 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         transport.setKeepAlive(keepAlive);
         transport.setLinger(linger);
         transport.setServerConnectionBackLog(serverConnectionBackLog);
+        transport.setAcceptorsCount(acceptorsCount);
+        transport.setReadBudget(readBudgetIterations, readBudgetBytes);
+        transport.setWriteCorkingEnabled(writeCorkingEnabled);
+        transport.setMaxCorkedWriteSize(maxCorkedWriteSize);
         transport.setTcpNoDelay(tcpNoDelay);
         transport.setServerSocketSoTimeout(serverSocketSoTimeout);
         return transport;
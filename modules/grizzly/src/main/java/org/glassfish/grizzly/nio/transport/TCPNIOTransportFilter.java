@@ -96,6 +96,10 @@ public final class TCPNIOTransportFilter extends BaseFilter {
             
             ctx.setMessage(buffer);
             ctx.setAddressHolder(connection.peerSocketAddressHolder);
+            
+            if (!isBlocking && transport.isWriteCorkingEnabled()) {
+                connection.obtainWriteCork().cork(ctx.getInternalContext());
+            }
         }
 
         return ctx.getInvokeAction();
@@ -118,6 +122,27 @@ public final class TCPNIOTransportFilter extends BaseFilter {
             transportContext.setCompletionHandler(null);
             transportContext.setLifeCycleHandler(null);
 
+            final TCPNIOWriteCork cork =
+                    ((TCPNIOConnection) connection).getWriteCork();
+            
+            if (cork != null) {
+                if (!transportContext.isBlocking() && message instanceof Buffer
+                        && cork.isCorkedByCurrentThread()) {
+                    // notify the caller the message is queued
+                    cork.append(lifeCycleHandler == null
+                            ? (Buffer) message
+                            : (Buffer) lifeCycleHandler.onThreadContextSwitch(
+                                    connection, message),
+                            completionHandler);
+                    
+                    return ctx.getInvokeAction();
+                }
+                
+                // the data corked earlier (possibly by another thread)
+                // has to be written first
+                cork.flush();
+            }
+            
             if (!transportContext.isBlocking()) {
                 transport.getAsyncQueueWriter().write(connection, null,
                         message, completionHandler, lifeCycleHandler);
@@ -147,6 +172,12 @@ public final class TCPNIOTransportFilter extends BaseFilter {
             final CompletionHandler<WriteResult<WritableMessage, SocketAddress>> completionHandler =
                     ((TransportFilter.FlushEvent) event).getCompletionHandler();
 
+            final TCPNIOWriteCork cork =
+                    ((TCPNIOConnection) connection).getWriteCork();
+            if (cork != null) {
+                cork.flush();
+            }
+
             transport.getWriter(transportContext.isBlocking()).write(connection,
                     Buffers.EMPTY_BUFFER, completionHandler);
         }
@@ -53,6 +53,7 @@ import org.glassfish.grizzly.memory.ByteBufferArray;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.DirectByteBufferRecord;
+import org.glassfish.grizzly.nio.ReceiveBufferSizePredictor;
 import org.glassfish.grizzly.utils.Exceptions;
 
 /**
@@ -216,6 +217,41 @@ public class TCPNIOUtils {
 
     public static Buffer allocateAndReadBuffer(final TCPNIOConnection connection)
             throws IOException {
+        return allocateAndReadBuffer(connection,
+                getReceiveBufferSize(connection));
+    }
+
+    /**
+     * Returns the number of bytes {@link #allocateAndReadBuffer(TCPNIOConnection)}
+     * is going to read from the connection at most, if the connection has
+     * enough data available.
+     *
+     * @param connection {@link TCPNIOConnection}
+     * @return the size of the next read
+     */
+    public static int getReceiveBufferSize(final TCPNIOConnection connection) {
+        final ReceiveBufferSizePredictor predictor =
+                connection.getReceiveBufferSizePredictor();
+        
+        return Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+                predictor != null
+                        ? predictor.nextReceiveBufferSize()
+                        : connection.getReadBufferSize());
+    }
+
+    /**
+     * Allocates a {@link Buffer} and reads up to
+     * <tt>receiveBufferSize</tt> bytes from the connection into it.
+     *
+     * @param connection {@link TCPNIOConnection}
+     * @param receiveBufferSize the number of bytes to read at most, usually
+     *        returned by {@link #getReceiveBufferSize(TCPNIOConnection)}
+     * @return the read {@link Buffer}, its position is equal to the number of
+     *         bytes read
+     * @throws IOException if an I/O error occurs or EOF has been reached
+     */
+    public static Buffer allocateAndReadBuffer(final TCPNIOConnection connection,
+            final int receiveBufferSize) throws IOException {
         
         final MemoryManager memoryManager = connection.getMemoryManager();
         
@@ -223,12 +259,12 @@ public class TCPNIOUtils {
         Throwable error = null;
         Buffer buffer = null;
         
-        try {
-            final int receiveBufferSize =
-                    Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
-                            connection.getReadBufferSize());
+        final ReceiveBufferSizePredictor predictor =
+                connection.getReceiveBufferSizePredictor();
         
-            if (!memoryManager.willAllocateDirect(receiveBufferSize)) {
+        try {
+            if (predictor == null &&
+                    !memoryManager.willAllocateDirect(receiveBufferSize)) {
                 final DirectByteBufferRecord ioRecord = 
                         DirectByteBufferRecord.get();
                 final ByteBuffer directByteBuffer =
@@ -245,8 +281,15 @@ public class TCPNIOUtils {
                     ioRecord.release();
                 }
             } else {
+                // the predicted size is expected to be close to the amount
+                // of data available, so read directly into the (possibly heap)
+                // pooled buffer, its unused tail is returned on trim().
                 buffer = memoryManager.allocateAtLeast(receiveBufferSize);
                 read = readBuffer(connection, buffer);
+                
+                if (predictor != null && read > 0) {
+                    predictor.onRead(read);
+                }
             }
         } catch (Throwable e) {
             error = e;
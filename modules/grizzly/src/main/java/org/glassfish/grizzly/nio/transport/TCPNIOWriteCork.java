@@ -0,0 +1,241 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Context;
+import org.glassfish.grizzly.EventLifeCycleListener;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+
+/**
+ * The {@link TCPNIOConnection} write cork. While the connection is corked,
+ * {@link Buffer}s written by the thread, which processes the connection's
+ * READ event, are accumulated in a {@link CompositeBuffer} and get written
+ * to the network as one gathering write, when the event processing is
+ * completed (or suspended), on explicit flush, or when the amount of
+ * accumulated data exceeds {@link TCPNIOTransport#getMaxCorkedWriteSize()}.
+ * 
+ * Writes initiated by other threads are not corked, but the data corked
+ * so far is flushed before them, so the writes are not reordered.
+ * 
+ * @see TCPNIOTransport#setWriteCorkingEnabled(boolean)
+ * 
+ * @since 3.0
+ */
+final class TCPNIOWriteCork extends EventLifeCycleListener.Adapter {
+    private final TCPNIOConnection connection;
+    
+    // the thread, which processes the event the connection is corked for
+    private volatile Thread owner;
+    
+    // guarded by this
+    private CompositeBuffer buffer;
+    private AggrCompletionHandler aggrCompletionHandler;
+
+    TCPNIOWriteCork(final TCPNIOConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Corks the connection for the duration of the {@link Context} processing.
+     * 
+     * @return <tt>true</tt> if the connection has been corked, or
+     *          <tt>false</tt> if it had already been corked.
+     */
+    boolean cork(final Context context) {
+        if (owner != null) {
+            return false;
+        }
+        
+        owner = Thread.currentThread();
+        context.addLifeCycleListener(this);
+        return true;
+    }
+
+    /**
+     * @return <tt>true</tt> if the connection is corked by the current thread.
+     */
+    boolean isCorkedByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    /**
+     * Appends the {@link Buffer} to the corked data and flushes it, if the max
+     * corked write size has been exceeded.
+     * Must be called only if {@link #isCorkedByCurrentThread()}.
+     */
+    synchronized void append(final Buffer message,
+            final CompletionHandler completionHandler) {
+        obtainCompositeBuffer().append(message);
+        if (completionHandler != null) {
+            obtainAggrCompletionHandler().add(completionHandler);
+        }
+        
+        if (buffer.remaining() > ((TCPNIOTransport) connection.getTransport())
+                .getMaxCorkedWriteSize()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the corked data, if any, to the connection's async write queue.
+     * Could be called by any thread, which is about to write to the
+     * connection bypassing the cork.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void flush() {
+        final CompositeBuffer localBuffer = buffer;
+        if (localBuffer != null) {
+            final AggrCompletionHandler localHandler = aggrCompletionHandler;
+            buffer = null;
+            aggrCompletionHandler = null;
+            
+            ((TCPNIOTransport) connection.getTransport()).getAsyncQueueWriter()
+                    .write(connection, null, localBuffer, localHandler, null);
+        }
+    }
+
+    @Override
+    public void onSuspend(final Context context) throws IOException {
+        uncork();
+    }
+
+    @Override
+    public void onComplete(final Context context) throws IOException {
+        uncork();
+    }
+
+    @Override
+    public void onTerminate(final Context context, final Object type)
+            throws IOException {
+        uncork();
+    }
+
+    @Override
+    public void onError(final Context context, final Object errorDescription)
+            throws IOException {
+        uncork();
+    }
+
+    /**
+     * Flushes the corked data and uncorks the connection, if it's corked by
+     * the current thread.
+     */
+    void uncork() {
+        // the listener stays registered on a suspended Context, so make sure
+        // it's the corking thread, which completes the event
+        if (isCorkedByCurrentThread()) {
+            flush();
+            owner = null;
+        }
+    }
+
+    private CompositeBuffer obtainCompositeBuffer() {
+        if (buffer == null) {
+            buffer = CompositeBuffer.newBuffer(connection.getMemoryManager());
+            buffer.allowBufferDispose(true);
+            buffer.allowInternalBuffersDispose(true);
+            buffer.disposeOrder(CompositeBuffer.DisposeOrder.LAST_TO_FIRST);
+        }
+        
+        return buffer;
+    }
+
+    private AggrCompletionHandler obtainAggrCompletionHandler() {
+        if (aggrCompletionHandler == null) {
+            aggrCompletionHandler = new AggrCompletionHandler();
+        }
+
+        return aggrCompletionHandler;
+    }
+
+    /**
+     * Notifies the {@link CompletionHandler}s of all the corked writes about
+     * the result of the gathering write.
+     */
+    private static final class AggrCompletionHandler
+            implements CompletionHandler {
+
+        private CompletionHandler[] handlers = new CompletionHandler[4];
+        private int sz;
+
+        void add(final CompletionHandler handler) {
+            if (handlers.length == sz) {
+                handlers = Arrays.copyOf(handlers, sz * 3 / 2 + 1);
+            }
+            
+            handlers[sz++] = handler;
+        }
+
+        @Override
+        public void cancelled() {
+            for (int i = 0; i < sz; i++) {
+                handlers[i].cancelled();
+            }
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            for (int i = 0; i < sz; i++) {
+                handlers[i].failed(throwable);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void completed(final Object result) {
+            for (int i = 0; i < sz; i++) {
+                handlers[i].completed(result);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void updated(final Object result) {
+            for (int i = 0; i < sz; i++) {
+                handlers[i].updated(result);
+            }
+        }
+    }
+}
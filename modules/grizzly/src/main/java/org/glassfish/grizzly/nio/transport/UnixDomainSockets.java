@@ -0,0 +1,265 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Unix domain socket support for the {@link TCPNIOTransport}.
+ * 
+ * Unix domain sockets are available starting with JDK 16, so the
+ * <tt>java.net.UnixDomainSocketAddress</tt> and the related NIO APIs are
+ * accessed reflectively, and {@link #isSupported()} returns <tt>false</tt>
+ * on older JDKs.
+ * 
+ * Once the {@link TCPNIOTransport} is asked to bind or connect to
+ * an address returned by {@link #address(String)}, it opens a Unix
+ * domain stream channel instead of a TCP one, the rest of the
+ * {@link org.glassfish.grizzly.nio.SelectorRunner}, filter chain and
+ * connection machinery stays the same.
+ * TCP specific options like TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR
+ * don't apply to Unix domain sockets and are ignored.
+ * 
+ * @since 3.0
+ */
+public final class UnixDomainSockets {
+    private static final Logger LOGGER = Grizzly.logger(UnixDomainSockets.class);
+
+    private static final Class<?> ADDRESS_CLASS;
+    private static final Method ADDRESS_OF;
+    private static final Method ADDRESS_GET_PATH;
+    private static final ProtocolFamily UNIX_FAMILY;
+    private static final Method OPEN_SOCKET_CHANNEL;
+    private static final Method OPEN_SERVER_SOCKET_CHANNEL;
+
+    static {
+        Class<?> addressClass = null;
+        Method addressOf = null;
+        Method addressGetPath = null;
+        ProtocolFamily unixFamily = null;
+        Method openSocketChannel = null;
+        Method openServerSocketChannel = null;
+        
+        try {
+            addressClass = Class.forName("java.net.UnixDomainSocketAddress");
+            addressOf = addressClass.getMethod("of", Path.class);
+            addressGetPath = addressClass.getMethod("getPath");
+            unixFamily = StandardProtocolFamily.valueOf("UNIX");
+            openSocketChannel = SelectorProvider.class.getMethod(
+                    "openSocketChannel", ProtocolFamily.class);
+            openServerSocketChannel = SelectorProvider.class.getMethod(
+                    "openServerSocketChannel", ProtocolFamily.class);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Unix domain sockets are not supported", t);
+            addressClass = null;
+        }
+        
+        ADDRESS_CLASS = addressClass;
+        ADDRESS_OF = addressOf;
+        ADDRESS_GET_PATH = addressGetPath;
+        UNIX_FAMILY = unixFamily;
+        OPEN_SOCKET_CHANNEL = openSocketChannel;
+        OPEN_SERVER_SOCKET_CHANNEL = openServerSocketChannel;
+    }
+    
+    private UnixDomainSockets() {
+    }
+    
+    /**
+     * @return <tt>true</tt>, if the JDK supports Unix domain socket channels.
+     */
+    public static boolean isSupported() {
+        return ADDRESS_CLASS != null;
+    }
+    
+    /**
+     * Returns the Unix domain socket address for the given socket file path.
+     * 
+     * @param path the socket file path.
+     * @return <tt>java.net.UnixDomainSocketAddress</tt>.
+     * @throws UnsupportedOperationException if Unix domain sockets are not supported.
+     */
+    public static SocketAddress address(final String path) {
+        return address(Paths.get(path));
+    }
+    
+    /**
+     * Returns the Unix domain socket address for the given socket file path.
+     * 
+     * @param path the socket file path.
+     * @return <tt>java.net.UnixDomainSocketAddress</tt>.
+     * @throws UnsupportedOperationException if Unix domain sockets are not supported.
+     */
+    public static SocketAddress address(final Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path can't be null");
+        }
+        
+        checkSupported();
+        try {
+            return (SocketAddress) ADDRESS_OF.invoke(null, path);
+        } catch (InvocationTargetException e) {
+            throw unwrapUnchecked(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * @param address {@link SocketAddress}.
+     * @return <tt>true</tt>, if the address is a Unix domain socket address.
+     */
+    public static boolean isUnixDomainSocketAddress(final SocketAddress address) {
+        return ADDRESS_CLASS != null && ADDRESS_CLASS.isInstance(address);
+    }
+    
+    /**
+     * Returns the socket file path of the Unix domain socket address.
+     * 
+     * @param address the Unix domain socket address.
+     * @return the socket file path, which is empty for unnamed addresses.
+     * @throws IllegalArgumentException if the address is not a Unix domain
+     *         socket address.
+     */
+    public static Path getPath(final SocketAddress address) {
+        if (!isUnixDomainSocketAddress(address)) {
+            throw new IllegalArgumentException(
+                    "Not a Unix domain socket address: " + address);
+        }
+        
+        try {
+            return (Path) ADDRESS_GET_PATH.invoke(address);
+        } catch (InvocationTargetException e) {
+            throw unwrapUnchecked(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Returns <tt>true</tt>, if the channel is a Unix domain socket channel.
+     * Unlike checking the channel's local address, the method works for
+     * unbound channels too: Unix domain socket channels are the only
+     * stream channels, which don't support TCP_NODELAY.
+     */
+    static boolean isUnixDomainSocketChannel(final NetworkChannel channel) {
+        return ADDRESS_CLASS != null && !channel.supportedOptions()
+                .contains(StandardSocketOptions.TCP_NODELAY);
+    }
+    
+    static SocketChannel openSocketChannel(final SelectorProvider provider)
+            throws IOException {
+        checkSupported();
+        return (SocketChannel) open(OPEN_SOCKET_CHANNEL, provider);
+    }
+
+    static ServerSocketChannel openServerSocketChannel(
+            final SelectorProvider provider) throws IOException {
+        checkSupported();
+        return (ServerSocketChannel) open(OPEN_SERVER_SOCKET_CHANNEL, provider);
+    }
+    
+    static SocketAddress getLocalAddress(final NetworkChannel channel) {
+        try {
+            return channel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static SocketAddress getRemoteAddress(final SocketChannel channel) {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private static Object open(final Method method,
+            final SelectorProvider provider) throws IOException {
+        try {
+            return method.invoke(provider, UNIX_FAMILY);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            
+            throw unwrapUnchecked(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Unix domain sockets are not supported by the JDK");
+        }
+    }
+    
+    private static RuntimeException unwrapUnchecked(
+            final InvocationTargetException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        
+        return new IllegalStateException(cause);
+    }
+}
@@ -46,10 +46,16 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Filter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -60,6 +66,8 @@ import javax.net.ssl.SSLEngineResult.Status;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CloseReason;
+import org.glassfish.grizzly.CloseType;
 import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Context;
@@ -73,7 +81,9 @@ import org.glassfish.grizzly.ProcessorExecutor;
 import org.glassfish.grizzly.ReadResult;
 import org.glassfish.grizzly.Transport;
 import org.glassfish.grizzly.WritableMessage;
+import org.glassfish.grizzly.WriteResult;
 import org.glassfish.grizzly.asyncqueue.LifeCycleHandler;
+import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
@@ -84,8 +94,12 @@ import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringAware;
+import org.glassfish.grizzly.monitoring.MonitoringConfig;
 import org.glassfish.grizzly.ssl.SSLConnectionContext.Allocator;
 import org.glassfish.grizzly.ssl.SSLConnectionContext.SslResult;
+import org.glassfish.grizzly.utils.Exceptions;
 import org.glassfish.grizzly.utils.Futures;
 
 import static org.glassfish.grizzly.filterchain.FilterChainContext.*;
@@ -96,19 +110,29 @@ import static org.glassfish.grizzly.ssl.SSLUtils.*;
  *
  *
  */
-public class SSLBaseFilter extends BaseFilter {
+public class SSLBaseFilter extends BaseFilter
+        implements MonitoringAware<SSLProbe> {
     private static final Logger LOGGER = Grizzly.logger(SSLBaseFilter.class);
 
-    private static final Allocator MM_ALLOCATOR = new Allocator() {
+    // the max number of FileTransfer bytes to be encrypted and written at once
+    private static final int FILE_TRANSFER_CHUNK_SIZE = 64 * 1024;
+
+    static final Allocator MM_ALLOCATOR = new Allocator() {
         @Override
         @SuppressWarnings("unchecked")
         public Buffer grow(final SSLConnectionContext sslCtx,
             final Buffer oldBuffer, final int newSize) {
             final MemoryManager mm = sslCtx.getConnection().getMemoryManager();
             
-            return oldBuffer == null ?
-                    mm.allocate(newSize) :
-                    mm.reallocate(oldBuffer, newSize);
+            if (oldBuffer == null) {
+                return mm.allocate(newSize);
+            } else if (oldBuffer.isComposite()) {
+                // grow the composite buffer without copying its content
+                return ((CompositeBuffer) oldBuffer).append(
+                        mm.allocate(newSize - oldBuffer.capacity()));
+            }
+            
+            return mm.reallocate(oldBuffer, newSize);
         }
     };
     
@@ -129,9 +153,20 @@ public class SSLBaseFilter extends BaseFilter {
             Collections.newSetFromMap(new ConcurrentHashMap<>(2));
     
     private long handshakeTimeoutMillis = -1;
+    
+    private volatile Executor handshakeTaskExecutor;
+    
+    /**
+     * SSL probes
+     */
+    protected final DefaultMonitoringConfig<SSLProbe> monitoringConfig =
+            new DefaultMonitoringConfig<>(SSLProbe.class);
         
     private SSLTransportFilterWrapper optimizedTransportFilter;
 
+    private final Attribute<FileTransferWriter> fileTransferWriterAttr =
+            Attribute.create("SSLBaseFilter-FileTransferWriterAttr");
+
     // ------------------------------------------------------------ Constructors
 
 
@@ -240,6 +275,46 @@ public class SSLBaseFilter extends BaseFilter {
         this.renegotiationDisabled = renegotiationDisabled;
     }
 
+    /**
+     * @return the {@link Executor} to run the {@link SSLEngine} delegated
+     * handshake tasks, or <code>null</code>, if the tasks are run in
+     * the current thread (default)
+     * 
+     * @since 3.0
+     */
+    public Executor getHandshakeTaskExecutor() {
+        return handshakeTaskExecutor;
+    }
+
+    /**
+     * Sets the {@link Executor} to run the {@link SSLEngine} delegated
+     * handshake tasks (the expensive key exchange and certificate
+     * validation operations).
+     * If set, the non-blocking handshake suspends the {@link FilterChainContext}
+     * once the {@link SSLEngine} asks to run the delegated tasks, so the
+     * thread (which could be a selector thread) gets released, and resumes
+     * the handshake once the tasks are completed by the {@link Executor}.
+     * The blocking handshake mode (see {@link #setHandshakeTimeout(long, TimeUnit)})
+     * always runs the tasks in the current thread.
+     * The task execution statistics is reported to the {@link SSLProbe}s.
+     * 
+     * @param handshakeTaskExecutor the {@link Executor}, or <code>null</code>
+     * to run the tasks in the current thread.
+     * 
+     * @since 3.0
+     */
+    public void setHandshakeTaskExecutor(final Executor handshakeTaskExecutor) {
+        this.handshakeTaskExecutor = handshakeTaskExecutor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitoringConfig<SSLProbe> getMonitoringConfig() {
+        return monitoringConfig;
+    }
+
     protected SSLTransportFilterWrapper getOptimizedTransportFilter(
             final TransportFilter childFilter) {
         if (optimizedTransportFilter == null ||
@@ -326,21 +401,44 @@ public class SSLBaseFilter extends BaseFilter {
             if (sslEngine == null) {
                 sslEngine = serverSSLEngineFactory.createSSLEngine(null, -1);
                 sslEngine.beginHandshake();
-                sslCtx.configure(sslEngine);
+                sslCtx.configure(sslEngine, serverSSLEngineFactory);
                 notifyHandshakeStart(connection);
             }
 
-            final Buffer buffer;
-            buffer = ((handshakeTimeoutMillis >= 0)
-                        ? doHandshakeSync(sslCtx,
-                                          ctx,
-                                          (Buffer) ctx.getMessage(),
-                                          handshakeTimeoutMillis)
-                        : makeInputRemainder(sslCtx,
-                                             ctx,
-                                             doHandshakeStep(sslCtx,
-                                                             ctx,
-                                                             (Buffer) ctx.getMessage())));
+            Buffer buffer;
+            if (handshakeTimeoutMillis >= 0) {
+                buffer = doHandshakeSync(sslCtx,
+                                         ctx,
+                                         (Buffer) ctx.getMessage(),
+                                         handshakeTimeoutMillis);
+            } else {
+                final Executor taskExecutor = handshakeTaskExecutor;
+                buffer = ctx.getMessage();
+                
+                while (true) {
+                    buffer = makeInputRemainder(sslCtx,
+                                                ctx,
+                                                doHandshakeStep(sslCtx,
+                                                                ctx,
+                                                                buffer,
+                                                                null,
+                                                                taskExecutor != null));
+                    
+                    if (taskExecutor == null ||
+                            sslEngine.getHandshakeStatus() != HandshakeStatus.NEED_TASK) {
+                        break;
+                    }
+                    
+                    final NextAction suspendAction =
+                            executeDelegatedTasks(ctx, sslCtx, buffer, taskExecutor);
+                    if (suspendAction != null) {
+                        return suspendAction;
+                    }
+                    
+                    // the executor rejected the tasks, they have been run in
+                    // the current thread, so the handshake continues here
+                }
+            }
         
             final boolean hasRemaining = buffer != null && buffer.hasRemaining();
             
@@ -384,16 +482,25 @@ public class SSLBaseFilter extends BaseFilter {
     @SuppressWarnings("unchecked")
     @Override
     public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
-        if (ctx.getMessage() instanceof FileTransfer) {
-            throw new IllegalStateException("TLS operations not supported with SendFile messages");
-        }
-
         final Connection connection = ctx.getConnection();
 
         //noinspection SynchronizationOnLocalVariableOrMethodParameter
         synchronized(connection) {
-            final Buffer output =
-                    wrapAll(ctx, obtainSslConnectionContext(connection));
+            final FileTransferWriter fileTransferWriter =
+                    fileTransferWriterAttr.get(connection);
+            if (fileTransferWriter != null) {
+                // the message will be written, once the file is transferred
+                return fileTransferWriter.addPendingWrite(ctx);
+            }
+            
+            final SSLConnectionContext sslCtx =
+                    obtainSslConnectionContext(connection);
+            
+            if (ctx.getMessage() instanceof FileTransfer) {
+                return writeFileTransfer(ctx, sslCtx);
+            }
+            
+            final Buffer output = wrapAll(ctx, sslCtx);
 
             final TransportContext transportContext =
                     ctx.getTransportContext();
@@ -409,12 +516,46 @@ public class SSLBaseFilter extends BaseFilter {
 
     // ------------------------------------------------------- Protected Methods
 
+    /**
+     * Encrypts and writes the {@link FileTransfer} content chunk by chunk.
+     * The chunks are memory-mapped, so the file content is not read to the
+     * Java heap, and the next chunk is encrypted only when the previous one
+     * has been written, so at most one encrypted chunk per {@link Connection}
+     * is kept in memory. The {@link FilterChainContext} stays suspended until
+     * the transfer is completed, and the messages written meanwhile are
+     * postponed.
+     *
+     * Has to be called in synchronized(connection) {...} scope.
+     */
+    protected NextAction writeFileTransfer(final FilterChainContext ctx,
+            final SSLConnectionContext sslCtx) {
+        final FileTransferWriter fileTransferWriter =
+                new FileTransferWriter(ctx, sslCtx);
+        fileTransferWriterAttr.set(ctx.getConnection(), fileTransferWriter);
+        
+        final NextAction suspendAction = ctx.getSuspendAction();
+        ctx.suspend();
+        
+        fileTransferWriter.writeNext();
+        
+        return suspendAction;
+    }
+    
     protected NextAction unwrapAll(final FilterChainContext ctx,
             final SSLConnectionContext sslCtx) throws SSLException {
         Buffer input = ctx.getMessage();
         
-        Buffer output = null;
+        // all the complete records are unwrapped in one batch into
+        // the output buffer, which is allocated upfront
+        final int packetsSize = getCompleteSSLPacketsSize(input);
+        if (packetsSize == 0) {
+            return ctx.getStopAction(makeInputRemainder(sslCtx, ctx, input));
+        }
+        
+        Buffer output = sslCtx.allocateApplicationBuffer(packetsSize);
         
+        int recordsCount = 0;
+        int bytesUnwrapped = 0;
         boolean isClosed = false;
         
         _outter:
@@ -426,7 +567,7 @@ public class SSLBaseFilter extends BaseFilter {
             }
 
             final SslResult result =
-                    sslCtx.unwrap(len, input, output, MM_ALLOCATOR);
+                    sslCtx.unwrapRecord(len, input, output, MM_ALLOCATOR);
 
             output = result.getOutput();
 
@@ -434,6 +575,9 @@ public class SSLBaseFilter extends BaseFilter {
                 output.dispose();
                 throw result.getError();
             }
+            
+            recordsCount++;
+            bytesUnwrapped += len;
 
             if (isHandshaking(sslCtx.getSslEngine())) {
                 // is it re-handshake or graceful ssl termination
@@ -463,14 +607,19 @@ public class SSLBaseFilter extends BaseFilter {
             }
         } while (true);
         
-        if (output != null) {
-            output.trim();
+        output.trim();
+        
+        if (monitoringConfig.getProbesUnsafe() != null) {
+            notifyProbesUnwrap(ctx.getConnection(), bytesUnwrapped,
+                    output.remaining(), recordsCount);
+        }
 
-            if (output.hasRemaining() || isClosed) {
-                ctx.setMessage(output);
-                return ctx.getInvokeAction(makeInputRemainder(sslCtx, ctx, input));
-            }
+        if (output.hasRemaining() || isClosed) {
+            ctx.setMessage(output);
+            return ctx.getInvokeAction(makeInputRemainder(sslCtx, ctx, input));
         }
+        
+        output.dispose();
 
         return ctx.getStopAction(makeInputRemainder(sslCtx, ctx, input));
     }
@@ -480,10 +629,16 @@ public class SSLBaseFilter extends BaseFilter {
                              final SSLConnectionContext sslCtx) throws SSLException {
         
         final Buffer input = ctx.getMessage();
+        final int bytesToWrap = input.remaining();
         
         final Buffer output = sslCtx.wrapAll(input, OUTPUT_BUFFER_ALLOCATOR);
 
         input.tryDispose();
+        
+        if (monitoringConfig.getProbesUnsafe() != null) {
+            notifyProbesWrap(ctx.getConnection(), bytesToWrap,
+                    output.remaining());
+        }
 
         return output;
     }
@@ -630,6 +785,15 @@ public class SSLBaseFilter extends BaseFilter {
                                      Buffer inputBuffer,
                                      final Buffer tmpAppBuffer0)
             throws IOException {
+        return doHandshakeStep(sslCtx, ctx, inputBuffer, tmpAppBuffer0, false);
+    }
+
+    private Buffer doHandshakeStep(final SSLConnectionContext sslCtx,
+                                   final FilterChainContext ctx,
+                                   Buffer inputBuffer,
+                                   final Buffer tmpAppBuffer0,
+                                   final boolean isOffloadTasks)
+            throws IOException {
 
         final SSLEngine sslEngine = sslCtx.getSslEngine();
         final Connection connection = ctx.getConnection();
@@ -708,7 +872,13 @@ public class SSLBaseFilter extends BaseFilter {
                         if (isLoggingFinest) {
                             LOGGER.log(Level.FINEST, "NEED_TASK Engine: {0}", sslEngine);
                         }
-                        executeDelegatedTask(sslEngine);
+                        
+                        if (isOffloadTasks) {
+                            // the tasks will be run by the handshake task executor
+                            break _exitWhile;
+                        }
+                        
+                        runDelegatedTasks(connection, sslEngine);
                         handshakeStatus = sslEngine.getHandshakeStatus();
                         break;
                     }
@@ -750,6 +920,92 @@ public class SSLBaseFilter extends BaseFilter {
         return inputBuffer;
     }
     
+    /**
+     * Runs the {@link SSLEngine} delegated tasks in the current thread.
+     */
+    private void runDelegatedTasks(final Connection connection,
+            final SSLEngine sslEngine) {
+        if (monitoringConfig.getProbesUnsafe() == null) {
+            executeDelegatedTask(sslEngine);
+            return;
+        }
+        
+        final long startTime = System.nanoTime();
+        executeDelegatedTask(sslEngine);
+        notifyProbesHandshakeTasks(connection, 0,
+                System.nanoTime() - startTime, false);
+    }
+    
+    /**
+     * Suspends the {@link FilterChainContext} and runs the {@link SSLEngine}
+     * delegated tasks using the handshake task {@link Executor}.
+     * Once the tasks are completed, the {@link FilterChainContext} is resumed,
+     * so the handshake continues with the unprocessed input.
+     * If the {@link Executor} rejects the tasks - they are run in the current
+     * thread, the {@link FilterChainContext} is not suspended and the method
+     * returns <tt>null</tt>, so the caller has to continue the handshake.
+     */
+    private NextAction executeDelegatedTasks(final FilterChainContext ctx,
+            final SSLConnectionContext sslCtx, final Buffer inputRemainder,
+            final Executor taskExecutor) {
+        
+        final Connection connection = ctx.getConnection();
+        
+        // the tasks runner may not resume the context before it's suspended
+        final Object suspendSync = new Object();
+        
+        final long submitTime = System.nanoTime();
+        final Runnable tasksRunner = new Runnable() {
+            @Override
+            public void run() {
+                final long startTime = System.nanoTime();
+                Throwable error = null;
+                try {
+                    executeDelegatedTask(sslCtx.getSslEngine());
+                } catch (Throwable t) {
+                    error = t;
+                }
+                
+                //noinspection EmptySynchronizedStatement
+                synchronized (suspendSync) {
+                    // wait until the context is suspended
+                }
+                
+                if (error != null) {
+                    notifyHandshakeFailed(connection, error);
+                    ctx.resume(error);
+                    return;
+                }
+                
+                notifyProbesHandshakeTasks(connection, startTime - submitTime,
+                        System.nanoTime() - startTime, true);
+                
+                // re-run SSLBaseFilter to continue the handshake
+                ctx.resume();
+            }
+        };
+        
+        synchronized (suspendSync) {
+            try {
+                taskExecutor.execute(tasksRunner);
+            } catch (RejectedExecutionException e) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Handshake tasks were rejected by the executor, "
+                            + "running them in the current thread", e);
+                }
+                
+                runDelegatedTasks(connection, sslCtx.getSslEngine());
+                return null;
+            }
+            
+            final NextAction suspendAction = ctx.getSuspendAction();
+            ctx.setMessage(inputRemainder);
+            ctx.suspend();
+            
+            return suspendAction;
+        }
+    }
+    
     /**
      * Performs an SSL renegotiation.
      *
@@ -1017,6 +1273,11 @@ public class SSLBaseFilter extends BaseFilter {
     }
 
     protected void notifyHandshakeStart(final Connection connection) {
+        final SSLConnectionContext sslCtx = getSslConnectionContext(connection);
+        if (sslCtx != null) {
+            sslCtx.onHandshakeStart();
+        }
+        
         if (!handshakeListeners.isEmpty()) {
             for (final HandshakeListener listener : handshakeListeners) {
                 listener.onStart(connection);
@@ -1032,6 +1293,15 @@ public class SSLBaseFilter extends BaseFilter {
                 listener.onComplete(connection);
             }
         }
+        
+        if (monitoringConfig.getProbesUnsafe() != null) {
+            final SSLConnectionContext sslCtx =
+                    getSslConnectionContext(connection);
+            if (sslCtx != null) {
+                notifyProbesHandshakeComplete(connection,
+                        sslCtx.isSessionResumed());
+            }
+        }
     }
 
     protected void notifyHandshakeFailed(final Connection connection,
@@ -1043,6 +1313,50 @@ public class SSLBaseFilter extends BaseFilter {
         }
     }
     
+    protected void notifyProbesHandshakeTasks(final Connection connection,
+            final long queueTimeNanos, final long taskTimeNanos,
+            final boolean isOffloaded) {
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (SSLProbe probe : probes) {
+                probe.onHandshakeTasksEvent(connection, queueTimeNanos,
+                        taskTimeNanos, isOffloaded);
+            }
+        }
+    }
+    
+    protected void notifyProbesHandshakeComplete(final Connection connection,
+            final boolean isSessionResumed) {
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (SSLProbe probe : probes) {
+                probe.onHandshakeCompleteEvent(connection, isSessionResumed);
+            }
+        }
+    }
+    
+    protected void notifyProbesWrap(final Connection connection,
+            final int plainBytes, final int encryptedBytes) {
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (SSLProbe probe : probes) {
+                probe.onWrapEvent(connection, plainBytes, encryptedBytes);
+            }
+        }
+    }
+    
+    protected void notifyProbesUnwrap(final Connection connection,
+            final int encryptedBytes, final int plainBytes,
+            final int recordsCount) {
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (SSLProbe probe : probes) {
+                probe.onUnwrapEvent(connection, encryptedBytes, plainBytes,
+                        recordsCount);
+            }
+        }
+    }
+    
     // ----------------------------------------------------------- Inner Classes
 
     public static class CertificateEvent implements Event {
@@ -1147,7 +1461,7 @@ public class SSLBaseFilter extends BaseFilter {
             if (sslCtx.getSslEngine() == null) {
                 final SSLEngine sslEngine = sslBaseFilter.serverSSLEngineFactory.createSSLEngine(null, -1);
                 sslEngine.beginHandshake();
-                sslCtx.configure(sslEngine);
+                sslCtx.configure(sslEngine, sslBaseFilter.serverSSLEngineFactory);
                 sslBaseFilter.notifyHandshakeStart(connection);
             }
             
@@ -1177,6 +1491,202 @@ public class SSLBaseFilter extends BaseFilter {
         }
     }
     
+    /**
+     * Writes the {@link FileTransfer} content over SSL,
+     * see {@link #writeFileTransfer(FilterChainContext, SSLConnectionContext)}.
+     */
+    private final class FileTransferWriter
+            implements CompletionHandler<WriteResult> {
+        
+        private final FilterChainContext ctx;
+        private final SSLConnectionContext sslCtx;
+        private final Connection<?> connection;
+        private final FileTransfer fileTransfer;
+        private final CompletionHandler<WriteResult> completionHandler;
+        private final boolean isBlocking;
+        
+        // the number of writeNext() requests to be processed, used to avoid
+        // recursion, when the chunk writes are completed in the same thread
+        private final AtomicInteger writeNextRequests = new AtomicInteger();
+        
+        private long bytesWritten;
+        private boolean isDone;
+        private List<FilterChainContext> pendingWriteContexts;
+
+        @SuppressWarnings("unchecked")
+        private FileTransferWriter(final FilterChainContext ctx,
+                final SSLConnectionContext sslCtx) {
+            this.ctx = ctx;
+            this.sslCtx = sslCtx;
+            this.connection = ctx.getConnection();
+            this.fileTransfer = ctx.getMessage();
+            
+            final TransportContext transportContext = ctx.getTransportContext();
+            this.completionHandler = transportContext.getCompletionHandler();
+            this.isBlocking = transportContext.isBlocking();
+        }
+        
+        /**
+         * Has to be called in synchronized(connection) {...} scope.
+         */
+        private NextAction addPendingWrite(final FilterChainContext context) {
+            if (pendingWriteContexts == null) {
+                pendingWriteContexts = new LinkedList<FilterChainContext>();
+            }
+            
+            pendingWriteContexts.add(context);
+            
+            final NextAction suspendAction = context.getSuspendAction();
+            context.suspend();
+            
+            return suspendAction;
+        }
+        
+        private void writeNext() {
+            if (writeNextRequests.getAndIncrement() != 0) {
+                // the request will be processed by the thread, which is
+                // already in the loop below
+                return;
+            }
+            
+            do {
+                writeNextChunk();
+            } while (writeNextRequests.decrementAndGet() != 0);
+        }
+        
+        private void writeNextChunk() {
+            IOException error = null;
+            
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (connection) {
+                if (isDone) {
+                    return;
+                }
+                
+                if (fileTransfer.hasRemaining()) {
+                    try {
+                        writeChunk();
+                        return;
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                
+                done(error);
+            }
+            
+            notifyDone(error);
+        }
+        
+        /**
+         * Has to be called in synchronized(connection) {...} scope.
+         */
+        private void writeChunk() throws IOException {
+            final Buffer chunk = fileTransfer.mapNext(FILE_TRANSFER_CHUNK_SIZE);
+            final int chunkSize = chunk.remaining();
+            
+            final Buffer output;
+            try {
+                output = sslCtx.wrapAll(chunk, OUTPUT_BUFFER_ALLOCATOR);
+            } finally {
+                chunk.dispose();
+            }
+            
+            bytesWritten += chunkSize;
+            
+            if (monitoringConfig.getProbesUnsafe() != null) {
+                notifyProbesWrap(connection, chunkSize, output.remaining());
+            }
+            
+            ctx.write(null, output, this, new OnWriteCopyCloner(null),
+                    isBlocking);
+        }
+        
+        /**
+         * Has to be called in synchronized(connection) {...} scope,
+         * {@link #notifyDone(Throwable)} has to be called once the lock
+         * is released.
+         */
+        private void done(final Throwable error) {
+            isDone = true;
+            fileTransferWriterAttr.remove(connection);
+            fileTransfer.release();
+            
+            final List<FilterChainContext> pendingWriteContextsLocal =
+                    pendingWriteContexts;
+            pendingWriteContexts = null;
+            
+            if (error != null) {
+                // the peer has got just a part of the file
+                connection.closeWithReason(
+                        new CloseReason(CloseType.LOCALLY,
+                                Exceptions.makeIOException(error)));
+            }
+            
+            // the postponed writes have to be processed before the completion
+            // notification, which might initiate new writes
+            if (pendingWriteContextsLocal != null) {
+                for (FilterChainContext context : pendingWriteContextsLocal) {
+                    if (error == null) {
+                        context.resume();
+                    } else {
+                        context.resume(error);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Notifies the completion handler about the transfer result. Has to be
+         * called out of synchronized(connection) {...} scope, so the handler
+         * doesn't block other threads writing to the connection.
+         */
+        private void notifyDone(final Throwable error) {
+            if (completionHandler != null) {
+                if (error == null) {
+                    completionHandler.completed(WriteResult.create(connection,
+                            fileTransfer, null, bytesWritten));
+                } else {
+                    completionHandler.failed(error);
+                }
+            }
+            
+            ctx.completeAndRecycle();
+        }
+        
+        private void fail(final Throwable error) {
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (connection) {
+                if (isDone) {
+                    return;
+                }
+                
+                done(error);
+            }
+            
+            notifyDone(error);
+        }
+
+        @Override
+        public void cancelled() {
+            fail(new CancellationException());
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void completed(final WriteResult result) {
+            writeNext();
+        }
+
+        @Override
+        public void updated(final WriteResult result) {
+        }
+    } // END FileTransferWriter
+    
     private static final class OnWriteCopyCloner extends LifeCycleHandler.Adapter {
 
         private final LifeCycleHandler parentHandler;
@@ -41,6 +41,7 @@
 package org.glassfish.grizzly.ssl;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLEngine;
@@ -54,6 +55,7 @@ import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 
 import static org.glassfish.grizzly.ssl.SSLUtils.*;
@@ -99,6 +101,17 @@ public final class SSLConnectionContext {
     
     private final Connection connection;
 
+    // dynamic record sizing settings, the record size is <= 0, if disabled
+    private int dynamicRecordSize;
+    private long dynamicRecordSizeThreshold;
+    private long dynamicRecordSizeIdleTimeoutNanos;
+    // the number of bytes wrapped since the small records mode was (re)started
+    private long bytesWrappedSinceReset;
+    private long lastWrapTimeNanos;
+
+    // the time the current handshake has been started at
+    private volatile long handshakeStartTimeMillis;
+
     /*
      * This value may be non-null if NPN is use and a protocol is negotiated.
      */
@@ -126,10 +139,55 @@ public final class SSLConnectionContext {
         updateBufferSizes();
     }
 
+    /**
+     * Configures the context with the {@link SSLEngine} and the settings of
+     * the {@link SSLEngineFactory} the {@link SSLEngine} has been created by.
+     * 
+     * @param sslEngine the {@link SSLEngine}
+     * @param sslEngineFactory the {@link SSLEngineFactory}
+     * 
+     * @since 3.0
+     */
+    public void configure(final SSLEngine sslEngine,
+            final SSLEngineFactory sslEngineFactory) {
+        configure(sslEngine);
+        
+        if (sslEngineFactory instanceof SSLEngineConfigurator) {
+            final SSLEngineConfigurator configurator =
+                    (SSLEngineConfigurator) sslEngineFactory;
+            
+            if (configurator.isDynamicRecordSizing()) {
+                dynamicRecordSize = configurator.getDynamicRecordSize();
+                dynamicRecordSizeThreshold =
+                        configurator.getDynamicRecordSizeThreshold();
+                dynamicRecordSizeIdleTimeoutNanos =
+                        configurator.getDynamicRecordSizeIdleTimeout(
+                                TimeUnit.NANOSECONDS);
+                lastWrapTimeNanos = System.nanoTime();
+            }
+        }
+    }
+
     public boolean isServerMode() {
         return isServerMode;
     }
     
+    void onHandshakeStart() {
+        handshakeStartTimeMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * @return <tt>true</tt>, if the completed handshake has resumed the
+     *      {@link SSLSession} established earlier (abbreviated handshake),
+     *      or <tt>false</tt>, if a new {@link SSLSession} has been created
+     *      (full handshake).
+     */
+    boolean isSessionResumed() {
+        // a heuristic: the resumed session has been created before
+        // the handshake started (see SSLProbe#onHandshakeCompleteEvent)
+        return sslEngine.getSession().getCreationTime() < handshakeStartTimeMillis;
+    }
+    
     void updateBufferSizes() {
         final SSLSession session = sslEngine.getSession();
         appBufferSize = session.getApplicationBufferSize();
@@ -179,7 +237,58 @@ public final class SSLConnectionContext {
             final Allocator allocator) {
             
         output = ensureBufferSize(output, appBufferSize, allocator);
-
+        return unwrap0(len, input, output, allocator);
+    }
+    
+    /**
+     * Unwraps the SSL record of the given length into the output
+     * {@link Buffer}, which is expected to be pre-sized by the caller
+     * (see {@link #allocateApplicationBuffer(int)}). Unlike
+     * {@link #unwrap(int, Buffer, Buffer, Allocator)}, the output is grown
+     * only if it can't fit the record, because the record's plain text is
+     * never longer than the record itself.
+     */
+    SslResult unwrapRecord(final int len, final Buffer input,
+            final Buffer output, final Allocator allocator) {
+        if (output != null && output.remaining() >= len) {
+            return unwrap0(len, input, output, allocator);
+        }
+        
+        return unwrap(len, input, output, allocator);
+    }
+    
+    /**
+     * Allocates the {@link Buffer} to unwrap SSL records of the given total
+     * length into. If the records don't fit into one application buffer
+     * (see {@link SSLSession#getApplicationBufferSize()}), the returned
+     * {@link CompositeBuffer} consists of application buffer sized chunks,
+     * so the memory could be reused by the {@link MemoryManager} pool and
+     * no reallocation is needed while unwrapping.
+     */
+    Buffer allocateApplicationBuffer(final int size) {
+        final MemoryManager memoryManager = connection.getMemoryManager();
+        final int chunkSize = appBufferSize;
+        
+        if (size <= chunkSize) {
+            return memoryManager.allocate(size);
+        }
+        
+        final Buffer[] chunks = new Buffer[(size + chunkSize - 1) / chunkSize];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = memoryManager.allocate(
+                    Math.min(chunkSize, size - i * chunkSize));
+        }
+        
+        final CompositeBuffer output =
+                CompositeBuffer.newBuffer(memoryManager, chunks);
+        output.allowBufferDispose(true);
+        
+        return output;
+    }
+    
+    private SslResult unwrap0(final int len, final Buffer input, Buffer output,
+            final Allocator allocator) {
+            
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, "unwrap engine: {0} input: {1} output: {2}",
                     new Object[] {sslEngine, input, output});
@@ -221,7 +330,7 @@ public final class SSLConnectionContext {
         if (allocator != null && isOverflow) {
             updateBufferSizes();
             output = ensureBufferSize(output, appBufferSize, allocator);
-            return unwrap(len, input, output, null);
+            return unwrap0(len, input, output, null);
         } else if (isOverflow || status == Status.BUFFER_UNDERFLOW) {
             return new SslResult(output, new SSLException("SSL unwrap error: " + status));
         }
@@ -239,6 +348,111 @@ public final class SSLConnectionContext {
 
     Buffer wrapAll(final Buffer input,
             final Allocator allocator) throws SSLException {
+        final int smallRecordsBytes = reserveSmallRecordsBytes(input.remaining());
+        if (smallRecordsBytes == 0) {
+            return wrapAll0(input, allocator);
+        }
+        
+        final Buffer output = wrapSmallRecords(input, smallRecordsBytes);
+        if (!input.hasRemaining()) {
+            return output;
+        }
+        
+        try {
+            return Buffers.appendBuffers(connection.getMemoryManager(),
+                    output, wrapAll0(input, allocator));
+        } catch (SSLException e) {
+            output.dispose();
+            throw e;
+        }
+    }
+    
+    /**
+     * Returns the number of input bytes, which have to be wrapped using
+     * small records, according to the dynamic record sizing settings.
+     */
+    private int reserveSmallRecordsBytes(final int bytesToWrap) {
+        if (dynamicRecordSize <= 0) {
+            return 0;
+        }
+        
+        final long now = System.nanoTime();
+        if (dynamicRecordSizeIdleTimeoutNanos >= 0 &&
+                now - lastWrapTimeNanos > dynamicRecordSizeIdleTimeoutNanos) {
+            // the connection has been idle, restart with small records
+            bytesWrappedSinceReset = 0;
+        }
+        
+        lastWrapTimeNanos = now;
+        
+        final long smallRecordsBytesLeft =
+                dynamicRecordSizeThreshold - bytesWrappedSinceReset;
+        if (smallRecordsBytesLeft <= 0) {
+            return 0;
+        }
+        
+        bytesWrappedSinceReset += bytesToWrap;
+        return (int) Math.min(smallRecordsBytesLeft, bytesToWrap);
+    }
+    
+    /**
+     * Wraps the given number of input bytes into records, which carry up to
+     * dynamicRecordSize bytes each. The output buffer is allocated upfront to
+     * fit all the records.
+     */
+    private Buffer wrapSmallRecords(final Buffer input, final int bytesToWrap)
+            throws SSLException {
+        final int recordsCount = (bytesToWrap + dynamicRecordSize - 1)
+                / dynamicRecordSize;
+        final int maxRecordOverhead = Math.max(netBufferSize - appBufferSize, 0);
+        
+        Buffer output = connection.getMemoryManager().allocate(
+                (int) ((float) netBufferSize * BUFFER_SIZE_COEF)
+                + recordsCount * (dynamicRecordSize + maxRecordOverhead));
+        
+        final int oldLimit = input.limit();
+        final int endPosition = input.position() + bytesToWrap;
+        SslResult result = null;
+        
+        try {
+            while (input.position() < endPosition) {
+                input.limit(Math.min(input.position() + dynamicRecordSize,
+                        endPosition));
+                
+                final ByteBufferArray bba =
+                        input.toByteBufferArray(inputByteBufferArray);
+                final int inputPosition;
+                try {
+                    result = wrap(input, bba.getArray(), bba.size(),
+                            output, SSLBaseFilter.MM_ALLOCATOR);
+                } finally {
+                    // restore() may roll back the input position if the
+                    // input shares its ByteBuffer with the array
+                    inputPosition = input.position();
+                    bba.restore();
+                    bba.reset();
+                    input.position(inputPosition);
+                }
+                
+                output = result.getOutput();
+                
+                if (result.isError()) {
+                    throw result.getError();
+                }
+            }
+            
+            output.trim();
+            return output;
+        } catch (SSLException e) {
+            output.dispose();
+            throw e;
+        } finally {
+            input.limit(oldLimit);
+        }
+    }
+    
+    private Buffer wrapAll0(final Buffer input,
+            final Allocator allocator) throws SSLException {
         final MemoryManager memoryManager = connection.getMemoryManager();
         
         final ByteBufferArray bba =
@@ -57,6 +57,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import org.glassfish.grizzly.Grizzly;
 
@@ -121,6 +122,9 @@ public class SSLContextConfigurator {
 
     private String securityProtocol = "TLS";
 
+    private int serverSessionCacheSize = -1;
+    private int serverSessionTimeout = -1;
+
     /**
      * Default constructor. Reads configuration properties from
      * {@link System#getProperties()}. Calls {@link #SSLContextConfigurator(boolean)} with
@@ -319,6 +323,65 @@ public class SSLContextConfigurator {
         this.securityProtocol = securityProtocol;
     }
 
+    /**
+     * Sets the max number of the server-side SSL sessions cached by the
+     * created {@link SSLContext}, so the returning clients could resume
+     * their sessions using the abbreviated handshake.
+     * The negative value (default) means the JDK default cache size is used,
+     * <code>0</code> means there is no limit.
+     * 
+     * The effect could be observed via
+     * {@link SSLProbe#onHandshakeCompleteEvent(org.glassfish.grizzly.Connection, boolean)},
+     * please note the resumed session detection there is a heuristic.
+     *
+     * @param serverSessionCacheSize the server session cache size.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionCacheSize(int)
+     * @since 3.0
+     */
+    public void setServerSessionCacheSize(int serverSessionCacheSize) {
+        this.serverSessionCacheSize = serverSessionCacheSize;
+    }
+
+    /**
+     * @return the max number of the server-side SSL sessions cached by the
+     *         created {@link SSLContext}, the negative value means the JDK
+     *         default cache size is used.
+     *
+     * @see #setServerSessionCacheSize(int)
+     * @since 3.0
+     */
+    public int getServerSessionCacheSize() {
+        return serverSessionCacheSize;
+    }
+
+    /**
+     * Sets the timeout (in seconds) the server-side SSL sessions, cached by
+     * the created {@link SSLContext}, could be resumed within.
+     * The negative value (default) means the JDK default timeout is used,
+     * <code>0</code> means there is no limit.
+     *
+     * @param serverSessionTimeout the server session timeout in seconds.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionTimeout(int)
+     * @since 3.0
+     */
+    public void setServerSessionTimeout(int serverSessionTimeout) {
+        this.serverSessionTimeout = serverSessionTimeout;
+    }
+
+    /**
+     * @return the timeout (in seconds) the server-side SSL sessions, cached
+     *         by the created {@link SSLContext}, could be resumed within,
+     *         the negative value means the JDK default timeout is used.
+     *
+     * @see #setServerSessionTimeout(int)
+     * @since 3.0
+     */
+    public int getServerSessionTimeout() {
+        return serverSessionTimeout;
+    }
+
     /**
      * Create a new {@link SSLContext}.  If the {@link SSLContext} cannot be created for whatever reason,
      * a {@link GenericStoreException}
@@ -440,6 +503,19 @@ public class SSLContextConfigurator {
                             .getKeyManagers() : null,
                     trustManagerFactory != null ? trustManagerFactory
                             .getTrustManagers() : null, null);
+            
+            final SSLSessionContext serverSessionContext =
+                    sslContext.getServerSessionContext();
+            if (serverSessionContext != null) {
+                if (serverSessionCacheSize >= 0) {
+                    serverSessionContext.setSessionCacheSize(
+                            serverSessionCacheSize);
+                }
+                if (serverSessionTimeout >= 0) {
+                    serverSessionContext.setSessionTimeout(
+                            serverSessionTimeout);
+                }
+            }
         } catch (KeyManagementException e) {
             LOGGER.log(Level.FINE, "Key management error.", e);
             throw new GenericStoreException(e);
@@ -478,6 +554,9 @@ public class SSLContextConfigurator {
         keyStoreBytes = null;
 
         securityProtocol = "TLS";
+
+        serverSessionCacheSize = -1;
+        serverSessionTimeout = -1;
     }
 
     private static void loadBytes(final byte[] bytes, final String storeFile, final char[] password, final KeyStore store)
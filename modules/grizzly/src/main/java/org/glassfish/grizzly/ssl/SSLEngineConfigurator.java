@@ -42,6 +42,7 @@ package org.glassfish.grizzly.ssl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -55,6 +56,10 @@ import org.glassfish.grizzly.Grizzly;
 public class SSLEngineConfigurator implements SSLEngineFactory {
     private static final Logger LOGGER = Grizzly.logger(SSLEngineConfigurator.class);
 
+    public static final int DEFAULT_DYNAMIC_RECORD_SIZE = 1400;
+    public static final long DEFAULT_DYNAMIC_RECORD_SIZE_THRESHOLD = 1024 * 1024;
+    public static final long DEFAULT_DYNAMIC_RECORD_SIZE_IDLE_TIMEOUT_MILLIS = 1000;
+
     private final Object sync = new Object();
     
     protected volatile SSLContextConfigurator sslContextConfiguration;
@@ -89,6 +94,26 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
      * Has the enabled Cipher configured.
      */
     private boolean isCipherConfigured = false;
+    /**
+     * True, if new and idle connections send MTU-sized records.
+     */
+    protected boolean dynamicRecordSizing;
+    /**
+     * The max size of the record payload, sent by new and idle connections.
+     */
+    protected int dynamicRecordSize = DEFAULT_DYNAMIC_RECORD_SIZE;
+    /**
+     * The number of bytes, sent using small records, before switching to
+     * full-size records.
+     */
+    protected long dynamicRecordSizeThreshold =
+            DEFAULT_DYNAMIC_RECORD_SIZE_THRESHOLD;
+    /**
+     * The idle period, after which a connection switches back to
+     * small records.
+     */
+    protected long dynamicRecordSizeIdleTimeoutMillis =
+            DEFAULT_DYNAMIC_RECORD_SIZE_IDLE_TIMEOUT_MILLIS;
     
     /**
      * Create SSL Engine configuration basing on passed {@link SSLContext}.
@@ -172,6 +197,12 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
         this.isCipherConfigured = pattern.isCipherConfigured;
         this.isProtocolConfigured = pattern.isProtocolConfigured;
+        
+        this.dynamicRecordSizing = pattern.dynamicRecordSizing;
+        this.dynamicRecordSize = pattern.dynamicRecordSize;
+        this.dynamicRecordSizeThreshold = pattern.dynamicRecordSizeThreshold;
+        this.dynamicRecordSizeIdleTimeoutMillis =
+                pattern.dynamicRecordSizeIdleTimeoutMillis;
     }
 
     protected SSLEngineConfigurator() {
@@ -366,6 +397,133 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
         return this;
     }
 
+    /**
+     * @return <tt>true</tt>, if dynamic TLS record sizing is enabled,
+     *      or <tt>false</tt> otherwise (default)
+     * 
+     * @since 3.0
+     */
+    public boolean isDynamicRecordSizing() {
+        return dynamicRecordSizing;
+    }
+
+    /**
+     * Enables or disables dynamic TLS record sizing.
+     * If enabled, a new connection (or a connection, which has been idle for
+     * longer than {@link #getDynamicRecordSizeIdleTimeout(TimeUnit)}) sends
+     * its application data using small records, which carry up to
+     * {@link #getDynamicRecordSize()} bytes each, so every record fits into
+     * a single TCP segment and the peer could decrypt the data as soon as
+     * the first segments arrive. Once {@link #getDynamicRecordSizeThreshold()}
+     * bytes have been sent, the connection switches to full-size records,
+     * which are more efficient for bulk transfers.
+     * 
+     * @param dynamicRecordSizing <tt>true</tt> to enable dynamic TLS record
+     *      sizing
+     * @return this SSLEngineConfigurator
+     * 
+     * @since 3.0
+     */
+    public SSLEngineConfigurator setDynamicRecordSizing(
+            final boolean dynamicRecordSizing) {
+        this.dynamicRecordSizing = dynamicRecordSizing;
+        return this;
+    }
+
+    /**
+     * @return the max payload size (in bytes) of the small records, sent by
+     *      new and idle connections
+     * 
+     * @since 3.0
+     */
+    public int getDynamicRecordSize() {
+        return dynamicRecordSize;
+    }
+
+    /**
+     * Sets the max payload size (in bytes) of the small records, sent by
+     * new and idle connections, when dynamic TLS record sizing is enabled.
+     * The default value is {@value #DEFAULT_DYNAMIC_RECORD_SIZE}, so a record
+     * along with its protocol overhead fits into a typical TCP segment.
+     * 
+     * @param dynamicRecordSize the small record payload size
+     * @return this SSLEngineConfigurator
+     * 
+     * @since 3.0
+     */
+    public SSLEngineConfigurator setDynamicRecordSize(
+            final int dynamicRecordSize) {
+        if (dynamicRecordSize <= 0) {
+            throw new IllegalArgumentException("Record size has to be positive");
+        }
+        
+        this.dynamicRecordSize = dynamicRecordSize;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes, sent using small records, before
+     *      the connection switches to full-size records
+     * 
+     * @since 3.0
+     */
+    public long getDynamicRecordSizeThreshold() {
+        return dynamicRecordSizeThreshold;
+    }
+
+    /**
+     * Sets the number of bytes, sent using small records, before
+     * the connection switches to full-size records, when dynamic TLS record
+     * sizing is enabled.
+     * 
+     * @param dynamicRecordSizeThreshold the number of bytes
+     * @return this SSLEngineConfigurator
+     * 
+     * @since 3.0
+     */
+    public SSLEngineConfigurator setDynamicRecordSizeThreshold(
+            final long dynamicRecordSizeThreshold) {
+        this.dynamicRecordSizeThreshold = dynamicRecordSizeThreshold;
+        return this;
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the idle period, after which the connection switches back to
+     *      small records, or <tt>-1</tt>, if the connection never switches back
+     * 
+     * @since 3.0
+     */
+    public long getDynamicRecordSizeIdleTimeout(final TimeUnit timeUnit) {
+        if (dynamicRecordSizeIdleTimeoutMillis < 0) {
+            return -1;
+        }
+        
+        return timeUnit.convert(dynamicRecordSizeIdleTimeoutMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the idle period, after which the connection switches back to
+     * small records, when dynamic TLS record sizing is enabled.
+     * After the quiet period the peer's TCP congestion window is likely to be
+     * reset, so the small records help again.
+     * 
+     * @param idleTimeout the idle period, or <tt>-1</tt> if the connection
+     *      should never switch back to small records
+     * @param timeUnit {@link TimeUnit}
+     * @return this SSLEngineConfigurator
+     * 
+     * @since 3.0
+     */
+    public SSLEngineConfigurator setDynamicRecordSizeIdleTimeout(
+            final long idleTimeout, final TimeUnit timeUnit) {
+        this.dynamicRecordSizeIdleTimeoutMillis = idleTimeout < 0
+                ? -1
+                : TimeUnit.MILLISECONDS.convert(idleTimeout, timeUnit);
+        return this;
+    }
+
     public SSLContext getSslContext() {
         if (sslContext == null) {
             synchronized(sync) {
@@ -461,6 +619,10 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
         sb.append(", wantClientAuth=").append(wantClientAuth);
         sb.append(", isProtocolConfigured=").append(isProtocolConfigured);
         sb.append(", isCipherConfigured=").append(isCipherConfigured);
+        sb.append(", dynamicRecordSizing=").append(dynamicRecordSizing);
+        sb.append(", dynamicRecordSize=").append(dynamicRecordSize);
+        sb.append(", dynamicRecordSizeThreshold=").append(dynamicRecordSizeThreshold);
+        sb.append(", dynamicRecordSizeIdleTimeoutMillis=").append(dynamicRecordSizeIdleTimeoutMillis);
         sb.append('}');
         return sb.toString();
     }
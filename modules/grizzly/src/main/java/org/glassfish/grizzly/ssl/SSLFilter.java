@@ -54,9 +54,9 @@ import org.glassfish.grizzly.CloseType;
 import org.glassfish.grizzly.Closeable;
 import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
-import org.glassfish.grizzly.FileTransfer;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.PendingWriteQueueLimitExceededException;
+import org.glassfish.grizzly.WritableMessage;
 import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
@@ -148,10 +148,6 @@ public class SSLFilter extends SSLBaseFilter {
     public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
         final Connection connection = ctx.getConnection();
 
-        if (ctx.getMessage() instanceof FileTransfer) {
-            throw new IllegalStateException("TLS operations not supported with SendFile messages");
-        }
-
         synchronized (connection) {
             final SSLConnectionContext sslCtx =
                     obtainSslConnectionContext(connection);
@@ -249,7 +245,7 @@ public class SSLFilter extends SSLBaseFilter {
         if (sslEngine == null) {
             sslEngine = createClientSSLEngine(sslCtx, sslEngineFactory);
             
-            sslCtx.configure(sslEngine);
+            sslCtx.configure(sslEngine, sslEngineFactory);
         }
         
         notifyHandshakeStart(connection);
@@ -334,7 +330,8 @@ public class SSLFilter extends SSLBaseFilter {
 
         return IS_JDK7_OR_HIGHER
                 ? sslEngineFactory.createSSLEngine(
-                        HostNameResolver.getPeerHostName(sslCtx.getConnection()), -1)
+                        HostNameResolver.getPeerHostName(sslCtx.getConnection()),
+                        HostNameResolver.getPeerPort(sslCtx.getConnection()))
                 : sslEngineFactory.createSSLEngine(null, -1);
     }
 
@@ -365,9 +362,12 @@ public class SSLFilter extends SSLBaseFilter {
             if (error != null) throw Exceptions.makeIOException(error);
             if (isComplete) return false;
 
-            final Buffer buffer = context.getMessage();
+            final WritableMessage message = context.getMessage();
 
-            final int newSize = sizeInBytes + buffer.remaining();
+            // external messages (like FileTransfer) are not kept in memory
+            final int newSize = message.isExternal()
+                    ? sizeInBytes
+                    : sizeInBytes + message.remaining();
             if (newSize > maxPendingBytes) {
                 throw new PendingWriteQueueLimitExceededException(
                         "Max queued data limit exceeded: "
@@ -496,5 +496,14 @@ public class SSLFilter extends SSLBaseFilter {
                     ? ((InetSocketAddress) addr).getHostString() : //supported in 1.7+
                     null;
         }
+
+        public static int getPeerPort(final Connection<?> connection) {
+            // the client session cache is keyed by the host name and port,
+            // so the session could be resumed only if both are known
+            final Object addr = connection.getPeerAddress();
+            return (addr instanceof InetSocketAddress)
+                    ? ((InetSocketAddress) addr).getPort() :
+                    -1;
+        }
     }
 }
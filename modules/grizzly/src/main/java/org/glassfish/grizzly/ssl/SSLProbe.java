@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.ssl;
+
+import org.glassfish.grizzly.Connection;
+
+/**
+ * Monitoring probe providing callbacks that may be invoked by Grizzly
+ * {@link SSLBaseFilter}.
+ *
+ * @since 3.0
+ */
+public interface SSLProbe {
+
+    /**
+     * Method will be called, when the {@link javax.net.ssl.SSLEngine}
+     * delegated handshake tasks have been executed.
+     *
+     * @param connection {@link Connection}, the event belongs to.
+     * @param queueTimeNanos the time the tasks were waiting for the
+     *        handshake task executor, in nanoseconds, or <tt>0</tt>, if
+     *        the tasks were run in the current thread.
+     * @param taskTimeNanos the time spent executing the tasks, in nanoseconds.
+     * @param isOffloaded <tt>true</tt>, if the tasks were run by the handshake
+     *        task executor (see {@link SSLBaseFilter#setHandshakeTaskExecutor(java.util.concurrent.Executor)}),
+     *        or <tt>false</tt> otherwise.
+     */
+    void onHandshakeTasksEvent(Connection connection, long queueTimeNanos,
+            long taskTimeNanos, boolean isOffloaded);
+
+    /**
+     * Method will be called, when the SSL handshake has been completed.
+     * The {@link javax.net.ssl.SSLEngine} doesn't report if the session has
+     * been resumed, so it's a heuristic: the session is considered resumed,
+     * if it had been created (see {@link javax.net.ssl.SSLSession#getCreationTime()})
+     * before the handshake started, with the millisecond precision.
+     * A session resumed within the same millisecond it has been created in
+     * is reported as a new one.
+     *
+     * @param connection {@link Connection}, the event belongs to.
+     * @param isSessionResumed <tt>true</tt>, if the earlier established
+     *        SSL session has been resumed (abbreviated handshake),
+     *        or <tt>false</tt>, if a new SSL session has been created
+     *        (full handshake).
+     */
+    void onHandshakeCompleteEvent(Connection connection,
+            boolean isSessionResumed);
+
+    /**
+     * Method will be called, when the outbound application data has been
+     * encrypted by a single {@link SSLBaseFilter} write operation.
+     *
+     * @param connection {@link Connection}, the event belongs to.
+     * @param plainBytes the number of application data bytes encrypted.
+     * @param encryptedBytes the number of SSL record bytes produced.
+     */
+    void onWrapEvent(Connection connection, int plainBytes, int encryptedBytes);
+
+    /**
+     * Method will be called, when the inbound SSL records have been decrypted
+     * by a single {@link SSLBaseFilter} read operation.
+     *
+     * @param connection {@link Connection}, the event belongs to.
+     * @param encryptedBytes the number of SSL record bytes decrypted.
+     * @param plainBytes the number of application data bytes produced.
+     * @param recordsCount the number of SSL records decrypted.
+     */
+    void onUnwrapEvent(Connection connection, int encryptedBytes,
+            int plainBytes, int recordsCount);
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * {@link SSLProbe} adapter that provides no-op implementations for
+     * all interface methods allowing easy extension by the developer.
+     *
+     * @since 3.0
+     */
+    @SuppressWarnings("UnusedDeclaration")
+    public static class Adapter implements SSLProbe {
+
+
+        // ----------------------------------------------- Methods from SSLProbe
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onHandshakeTasksEvent(Connection connection,
+                long queueTimeNanos, long taskTimeNanos, boolean isOffloaded) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onHandshakeCompleteEvent(Connection connection,
+                boolean isSessionResumed) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onWrapEvent(Connection connection, int plainBytes,
+                int encryptedBytes) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onUnwrapEvent(Connection connection, int encryptedBytes,
+                int plainBytes, int recordsCount) {}
+
+    } // END Adapter
+}
@@ -262,6 +262,25 @@ public final class SSLUtils {
         return len;
     }
 
+    /*
+     * Returns the total length of the complete SSL packets at the beginning
+     * of the Buffer. The Buffer position is not changed.
+     */
+    static int getCompleteSSLPacketsSize(final Buffer buf) throws SSLException {
+        final int initialPosition = buf.position();
+        
+        try {
+            int len;
+            while ((len = getSSLPacketSize(buf)) != -1 && buf.remaining() >= len) {
+                buf.position(buf.position() + len);
+            }
+            
+            return buf.position() - initialPosition;
+        } finally {
+            buf.position(initialPosition);
+        }
+    }
+
     /**
      * Complete handshakes operations.
      * @param sslEngine The SSLEngine used to manage the SSL operations.
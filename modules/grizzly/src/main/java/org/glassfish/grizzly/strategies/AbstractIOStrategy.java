@@ -46,6 +46,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.*;
 import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.SelectorRunner;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 
 /**
@@ -81,7 +83,26 @@ public abstract class AbstractIOStrategy implements IOStrategy {
 
     // ------------------------------------------------------- Protected Methods
 
+    /**
+     * Returns the worker thread pool to process the {@link Connection} events.
+     * If the {@link Connection}'s {@link SelectorRunner} owns a dedicated
+     * worker group (see {@link org.glassfish.grizzly.nio.NIOTransport#setWorkerGroupSize(int)}),
+     * the group is returned, otherwise the {@link Transport} worker thread pool.
+     * 
+     * @param c {@link Connection}
+     * @return the worker thread pool.
+     */
     protected static Executor getWorkerThreadPool(final Connection c) {
+        if (c instanceof NIOConnection) {
+            final SelectorRunner runner = ((NIOConnection) c).getSelectorRunner();
+            if (runner != null) {
+                final Executor workerGroup = runner.getWorkerThreadPool();
+                if (workerGroup != null) {
+                    return workerGroup;
+                }
+            }
+        }
+        
         return c.getTransport().getWorkerThreadPool();
     }
 
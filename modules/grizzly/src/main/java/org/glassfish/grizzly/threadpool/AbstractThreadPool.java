@@ -161,8 +161,10 @@ public abstract class AbstractThreadPool extends AbstractExecutorService
 
                 @Override
                 public boolean doWork(final Worker worker) {
-                    worker.t.interrupt();
+                    // reset the timeout before the interruption, otherwise
+                    // the timeout of the next task might be overwritten
                     delayedQueue.add(worker, NEVER_TIMEOUT, TimeUnit.MILLISECONDS);
+                    worker.t.interrupt();
                     return true;
                 }
             };
@@ -352,6 +354,7 @@ public abstract class AbstractThreadPool extends AbstractExecutorService
         if (delayedQueue != null) {
             worker.transactionExpirationTime =
                     System.currentTimeMillis() + transactionTimeoutMillis;
+            delayedQueue.reschedule(worker);
         }
 
         final ClassLoader initial = config.getInitialClassLoader();
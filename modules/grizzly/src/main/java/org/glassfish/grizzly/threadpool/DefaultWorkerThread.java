@@ -40,6 +40,8 @@
 
 package org.glassfish.grizzly.threadpool;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.glassfish.grizzly.ThreadCache;
 import org.glassfish.grizzly.ThreadCache.ObjectCache;
@@ -63,6 +65,9 @@ public class DefaultWorkerThread extends Thread implements WorkerThread {
     private long transactionTimeoutMillis =
             WorkerThread.UNLIMITED_TRANSACTION_TIMEOUT;
 
+    // the tasks to be executed by this thread right before it exits
+    private List<Runnable> exitHooks;
+
     public DefaultWorkerThread(AttributeBuilder attrBuilder,
                                String name,
                                ThreadLocalPool pool,
@@ -73,6 +78,15 @@ public class DefaultWorkerThread extends Thread implements WorkerThread {
 
     }
 
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } finally {
+            runExitHooks();
+        }
+    }
+
     @Override
     public Thread getThread() {
         return this;
@@ -118,6 +132,22 @@ public class DefaultWorkerThread extends Thread implements WorkerThread {
         return objectCache.put(index, o);
     }
 
+    /**
+     * Registers the task to be executed by this thread right before it exits,
+     * for example to return the resources cached by the thread to a shared pool.
+     * The method has to be called by this thread.
+     *
+     * @param hook the task to be executed on the thread exit.
+     * @since 3.0
+     */
+    public void addExitHook(final Runnable hook) {
+        if (exitHooks == null) {
+            exitHooks = new ArrayList<Runnable>(2);
+        }
+        
+        exitHooks.add(hook);
+    }
+
     @Override
     public long getTransactionTimeout(TimeUnit timeunit) {
         return timeunit.convert(transactionTimeoutMillis, TimeUnit.MILLISECONDS);
@@ -128,4 +158,20 @@ public class DefaultWorkerThread extends Thread implements WorkerThread {
         this.transactionTimeoutMillis =
                 TimeUnit.MILLISECONDS.convert(timeout, timeunit);
     }
+
+    private void runExitHooks() {
+        if (exitHooks == null) {
+            return;
+        }
+        
+        for (Runnable hook : exitHooks) {
+            try {
+                hook.run();
+            } catch (Throwable t) {
+                getUncaughtExceptionHandler().uncaughtException(this, t);
+            }
+        }
+        
+        exitHooks = null;
+    }
 }
@@ -94,8 +94,12 @@ public class GrizzlyExecutorService extends AbstractExecutorService
         }
         
         final Queue<Runnable> queue = cfg.getQueue();
-        if ((queue == null || queue instanceof BlockingQueue) &&
-                (cfg.getCorePoolSize() < 0 || cfg.getCorePoolSize() == cfg.getMaxPoolSize())) {
+        final boolean isFixedSize = cfg.getCorePoolSize() < 0
+                || cfg.getCorePoolSize() == cfg.getMaxPoolSize();
+        
+        if (cfg.isWorkStealing() && isFixedSize) {
+            this.pool = new WorkStealingThreadPool(cfg);
+        } else if ((queue == null || queue instanceof BlockingQueue) && isFixedSize) {
 
             this.pool = cfg.getQueueLimit() < 0
                 ? new FixedThreadPool(cfg)
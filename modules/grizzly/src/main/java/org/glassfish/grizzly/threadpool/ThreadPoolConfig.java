@@ -97,6 +97,8 @@ public final class ThreadPoolConfig {
     protected DelayedExecutor transactionMonitor;
     protected long transactionTimeoutMillis;
     protected ClassLoader initialClassLoader;
+    protected boolean isVirtualThreads;
+    protected boolean isWorkStealing;
 
     /**
      * Thread pool probes
@@ -155,6 +157,8 @@ public final class ThreadPoolConfig {
         this.keepAliveTimeMillis   = cfg.keepAliveTimeMillis;
         this.mm              = cfg.mm;
         this.initialClassLoader = cfg.initialClassLoader;
+        this.isVirtualThreads = cfg.isVirtualThreads;
+        this.isWorkStealing = cfg.isWorkStealing;
         
         this.threadPoolMonitoringConfig =
                 new DefaultMonitoringConfig<ThreadPoolProbe>(ThreadPoolProbe.class);
@@ -420,6 +424,66 @@ public final class ThreadPoolConfig {
         return this;
     }
 
+    /**
+     * @return <tt>true</tt>, if the thread pool runs each task on a new
+     *      virtual thread.
+     *
+     * @since 3.0
+     */
+    public boolean isVirtualThreads() {
+        return isVirtualThreads;
+    }
+
+    /**
+     * Specifies whether the thread pool should run each task on a new virtual
+     * thread (see {@link VirtualThreadExecutorService}) instead of a limited
+     * number of platform threads.
+     * Only {@link #setPoolName(String)} and
+     * {@link #setInitialClassLoader(ClassLoader)} settings are considered for
+     * virtual threads. If the JDK doesn't support virtual threads, the
+     * setting is ignored.
+     *
+     * @param isVirtualThreads <tt>true</tt> to use virtual threads.
+     *
+     * @return the {@link ThreadPoolConfig}
+     *
+     * @see VirtualThreads#isSupported()
+     * @since 3.0
+     */
+    public ThreadPoolConfig setVirtualThreads(final boolean isVirtualThreads) {
+        this.isVirtualThreads = isVirtualThreads;
+        return this;
+    }
+
+    /**
+     * @return <tt>true</tt>, if each thread pool worker has its own task
+     *      queue and steals tasks from other workers, when idle.
+     *
+     * @since 3.0
+     */
+    public boolean isWorkStealing() {
+        return isWorkStealing;
+    }
+
+    /**
+     * Specifies whether each thread pool worker should have its own task
+     * queue and steal tasks from other workers, when idle.
+     * Tasks submitted by a worker thread are added to its own queue, so
+     * there is no single task queue all the workers contend on.
+     * The setting is considered for fixed size pools only, the
+     * {@link #setQueue(java.util.Queue)} setting is ignored for such pools.
+     *
+     * @param isWorkStealing <tt>true</tt> to use the work-stealing pool.
+     *
+     * @return the {@link ThreadPoolConfig}
+     *
+     * @since 3.0
+     */
+    public ThreadPoolConfig setWorkStealing(final boolean isWorkStealing) {
+        this.isWorkStealing = isWorkStealing;
+        return this;
+    }
+
     @Override
     public String toString() {
         return ThreadPoolConfig.class.getSimpleName() + " :\r\n"
@@ -434,6 +498,8 @@ public final class ThreadPoolConfig {
                 + "  transactionTimeoutMillis: " + transactionTimeoutMillis + "\r\n"
                 + "  priority: " + priority + "\r\n"
                 + "  isDaemon: " + isDaemon + "\r\n"
-                + "  initialClassLoader: " + initialClassLoader;
+                + "  initialClassLoader: " + initialClassLoader + "\r\n"
+                + "  isVirtualThreads: " + isVirtualThreads + "\r\n"
+                + "  isWorkStealing: " + isWorkStealing;
     }
 }
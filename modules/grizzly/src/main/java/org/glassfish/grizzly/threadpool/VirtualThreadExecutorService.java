@@ -0,0 +1,342 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+
+/**
+ * {@link java.util.concurrent.ExecutorService}, which runs each task on a new
+ * virtual thread.
+ * Virtual threads are cheap to create and park, so the number of tasks
+ * blocked on I/O or downstream services is not limited by the number of
+ * platform threads.
+ * 
+ * Unlike {@link GrizzlyExecutorService}, the tasks are never queued, so
+ * the {@link ThreadPoolConfig} pool size and priority settings are not
+ * considered, and the queue limit, if positive, limits the number of tasks
+ * being executed at the same time.
+ * The transaction timeout is supported the same way as by
+ * {@link AbstractThreadPool}, if the transaction monitor is set.
+ * {@link ThreadPoolProbe}s are not supported, because they report
+ * {@link AbstractThreadPool} events.
+ * 
+ * @see VirtualThreads#isSupported()
+ * @since 3.0
+ */
+public class VirtualThreadExecutorService extends AbstractExecutorService {
+    private static final Logger LOGGER =
+            Grizzly.logger(VirtualThreadExecutorService.class);
+    
+    private final Object stateLock = new Object();
+    private final Set<Thread> threads =
+            Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private volatile boolean running = true;
+    
+    private final ThreadPoolConfig config;
+    private final ThreadFactory threadFactory;
+    private final int maxTasks;
+    private final long transactionTimeoutMillis;
+    private final DelayedExecutor.DelayQueue<Task> delayedQueue;
+    
+    private static final DelayedExecutor.Resolver<Task> transactionResolver =
+            new DelayedExecutor.Resolver<Task>() {
+
+        @Override
+        public boolean removeTimeout(final Task element) {
+            element.transactionExpirationTime = DelayedExecutor.UNSET_TIMEOUT;
+            return true;
+        }
+
+        @Override
+        public long getTimeoutMillis(final Task element) {
+            return element.transactionExpirationTime;
+        }
+
+        @Override
+        public void setTimeoutMillis(final Task element,
+                final long timeoutMillis) {
+            element.transactionExpirationTime = timeoutMillis;
+        }
+    };
+
+    /**
+     * @param cfg {@link ThreadPoolConfig}
+     * @return {@link VirtualThreadExecutorService}
+     * @throws UnsupportedOperationException if virtual threads are not supported.
+     * @throws IllegalArgumentException if the {@link ThreadPoolConfig} has
+     *         {@link ThreadPoolProbe}s registered.
+     */
+    public static VirtualThreadExecutorService createInstance(
+            final ThreadPoolConfig cfg) {
+        return new VirtualThreadExecutorService(cfg);
+    }
+
+    /**
+     * Creates {@link VirtualThreadExecutorService}, if the {@link ThreadPoolConfig}
+     * requests virtual threads and the JDK supports them, or
+     * {@link GrizzlyExecutorService} otherwise.
+     * 
+     * @param cfg {@link ThreadPoolConfig}
+     * @return {@link java.util.concurrent.ExecutorService}.
+     * @see ThreadPoolConfig#setVirtualThreads(boolean)
+     */
+    public static ExecutorService createExecutorService(
+            final ThreadPoolConfig cfg) {
+        if (cfg.isVirtualThreads()) {
+            if (VirtualThreads.isSupported()) {
+                if (cfg.getInitialMonitoringConfig().hasProbes()) {
+                    LOGGER.log(Level.WARNING,
+                            LogMessages.WARNING_GRIZZLY_THREADPOOL_VIRTUAL_THREADS_PROBES_NOT_SUPPORTED(
+                            cfg.getPoolName()));
+                    
+                    final ThreadPoolConfig noProbesCfg = cfg.copy();
+                    noProbesCfg.getInitialMonitoringConfig().clearProbes();
+                    return createInstance(noProbesCfg);
+                }
+                
+                return createInstance(cfg);
+            }
+            
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_THREADPOOL_VIRTUAL_THREADS_NOT_SUPPORTED(
+                    cfg.getPoolName()));
+        }
+        
+        return GrizzlyExecutorService.createInstance(cfg);
+    }
+    
+    protected VirtualThreadExecutorService(final ThreadPoolConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config is null");
+        }
+        
+        if (config.getInitialMonitoringConfig().hasProbes()) {
+            throw new IllegalArgumentException(
+                    "ThreadPoolProbes are not supported by virtual thread pool "
+                    + config.getPoolName());
+        }
+        
+        this.config = config.copy();
+        this.threadFactory = VirtualThreads.newThreadFactory(
+                config.getPoolName());
+        this.maxTasks = config.getQueueLimit();
+        
+        transactionTimeoutMillis = config.getTransactionTimeout(TimeUnit.MILLISECONDS);
+        final DelayedExecutor transactionMonitor = transactionTimeoutMillis > 0 ?
+            config.getTransactionMonitor() : null;
+
+        if (transactionMonitor != null) {
+            final DelayedExecutor.Worker<Task> transactionWorker =
+                    new DelayedExecutor.Worker<Task>() {
+
+                @Override
+                public boolean doWork(final Task task) {
+                    final Thread thread = task.thread;
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                    return true;
+                }
+            };
+            delayedQueue = transactionMonitor.createDelayQueue(
+                    transactionWorker, transactionResolver);
+        } else {
+            delayedQueue = null;
+        }
+    }
+
+    /**
+     * @return config - {@link ThreadPoolConfig}
+     */
+    public ThreadPoolConfig getConfiguration() {
+        return config.copy();
+    }
+
+    /**
+     * @return the number of virtual threads, which are currently running tasks.
+     */
+    public int getSize() {
+        return threads.size();
+    }
+    
+    @Override
+    public void execute(final Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Runnable task is null");
+        }
+        
+        final Thread thread = threadFactory.newThread(new Task(task));
+        
+        final ClassLoader initial = config.getInitialClassLoader();
+        if (initial != null) {
+            thread.setContextClassLoader(initial);
+        }
+        
+        synchronized (stateLock) {
+            if (!running) {
+                throw new RejectedExecutionException("ThreadPool is not running");
+            }
+            
+            if (maxTasks > 0 && threads.size() >= maxTasks) {
+                throw new RejectedExecutionException(
+                        "The limit of running tasks is reached: " + maxTasks);
+            }
+            
+            threads.add(thread);
+        }
+        
+        thread.start();
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (stateLock) {
+            running = false;
+            stateLock.notifyAll();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return !running;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (stateLock) {
+            return !running && threads.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        long millis = unit.toMillis(timeout);
+        final long timeEnd = System.currentTimeMillis() + millis;
+
+        synchronized (stateLock) {
+            while (!isTerminated()) {
+                if (millis <= 0) {
+                    return false;
+                }
+                
+                stateLock.wait(millis);
+                millis = timeEnd - System.currentTimeMillis();
+            }
+            
+            return true;
+        }
+    }
+
+    private void onTaskComplete(final Thread thread) {
+        threads.remove(thread);
+        
+        if (!running) {
+            synchronized (stateLock) {
+                stateLock.notifyAll();
+            }
+        }
+    }
+    
+    private final class Task implements Runnable {
+        private final Runnable task;
+        private volatile Thread thread;
+        private volatile long transactionExpirationTime =
+                DelayedExecutor.UNSET_TIMEOUT;
+
+        private Task(final Runnable task) {
+            this.task = task;
+        }
+        
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            if (delayedQueue != null) {
+                delayedQueue.add(this, transactionTimeoutMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+            
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING,
+                        LogMessages.WARNING_GRIZZLY_THREADPOOL_UNCAUGHT_EXCEPTION(
+                        thread), t);
+            } finally {
+                if (delayedQueue != null) {
+                    delayedQueue.remove(this);
+                }
+                
+                onTaskComplete(thread);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " config: [" + config + "]\r\n"
+                + ", is-shutdown=" + isShutdown();
+    }
+}
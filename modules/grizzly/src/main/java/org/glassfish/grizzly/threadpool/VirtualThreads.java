@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Virtual {@link Thread} utilities.
+ * 
+ * Virtual threads are available starting with JDK 21, so the API is
+ * accessed reflectively and {@link #isSupported()} returns <tt>false</tt>
+ * on older JDKs, where Grizzly keeps using platform threads only.
+ * 
+ * @since 3.0
+ */
+public final class VirtualThreads {
+    private static final Logger LOGGER = Grizzly.logger(VirtualThreads.class);
+    
+    private static final MethodHandle IS_VIRTUAL;
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    
+    static {
+        MethodHandle isVirtual = null;
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            isVirtual = MethodHandles.publicLookup().findVirtual(Thread.class,
+                    "isVirtual", MethodType.methodType(boolean.class));
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Virtual threads are not supported", t);
+            isVirtual = null;
+        }
+        
+        IS_VIRTUAL = isVirtual;
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+    }
+    
+    private VirtualThreads() {
+    }
+    
+    /**
+     * @return <tt>true</tt>, if the JDK supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return IS_VIRTUAL != null;
+    }
+    
+    /**
+     * @param thread {@link Thread}.
+     * @return <tt>true</tt>, if the thread is a virtual thread.
+     */
+    public static boolean isVirtual(final Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+    
+    /**
+     * Creates the {@link ThreadFactory}, which creates virtual threads named
+     * <tt>namePrefix-N</tt>.
+     * 
+     * @param namePrefix the thread name prefix.
+     * @return the virtual thread {@link ThreadFactory}.
+     * @throws UnsupportedOperationException if virtual threads are not supported.
+     */
+    public static ThreadFactory newThreadFactory(final String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads are not supported by the JDK");
+        }
+        
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, namePrefix + '-', 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
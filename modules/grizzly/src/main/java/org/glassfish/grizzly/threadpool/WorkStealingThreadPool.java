@@ -0,0 +1,346 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed thread pool, where each worker thread has its own task deque and
+ * idle workers steal tasks from the deques of busy ones, in the style
+ * of {@link java.util.concurrent.ForkJoinPool} (asynchronous mode).
+ * 
+ * Unlike {@link FixedThreadPool}, which shares a single task queue between
+ * all the workers, tasks submitted from a worker thread are added to that
+ * worker's own deque, and tasks submitted from other threads are spread
+ * over the worker deques, so there's no single point of contention.
+ * 
+ * The pool runs {@link ThreadPoolConfig#getMaxPoolSize()} worker threads.
+ * The {@link ThreadPoolConfig#getQueue()} setting is not considered, the
+ * pool replaces it with the view of its worker deques.
+ * 
+ * @since 3.0
+ */
+final class WorkStealingThreadPool extends AbstractThreadPool {
+
+    private final StealingWorker[] stealingWorkers;
+    
+    private final ConcurrentLinkedQueue<StealingWorker> idleWorkers =
+            new ConcurrentLinkedQueue<StealingWorker>();
+    
+    private final ThreadLocal<StealingWorker> currentWorker =
+            new ThreadLocal<StealingWorker>();
+    
+    private final int queueLimit;
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+
+    /**
+     * @param config the {@link ThreadPoolConfig} to configure this pool.
+     */
+    WorkStealingThreadPool(final ThreadPoolConfig config) {
+        super(config);
+        
+        queueLimit = config.getQueueLimit();
+        config.setQueue(new StealingQueue());
+
+        final int poolSize = config.getMaxPoolSize();
+        stealingWorkers = new StealingWorker[poolSize];
+        
+        synchronized (stateLock) {
+            for (int i = 0; i < poolSize; i++) {
+                stealingWorkers[i] = new StealingWorker();
+            }
+            
+            for (StealingWorker worker : stealingWorkers) {
+                startWorker(worker);
+            }
+        }
+
+        ProbeNotifier.notifyThreadPoolStarted(this);
+        super.onMaxNumberOfThreadsReached();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) { // must nullcheck to ensure queuesize is valid
+            throw new IllegalArgumentException("Runnable task is null");
+        }
+
+        if (!running) {
+            throw new RejectedExecutionException("ThreadPool is not running");
+        }
+        
+        if (queueLimit >= 0 && queuedTasks.incrementAndGet() > queueLimit) {
+            queuedTasks.decrementAndGet();
+            onTaskQueueOverflow();
+        }
+        
+        final StealingWorker worker = push(command);
+        
+        // doublecheck the pool is still running
+        if (!running && worker.deque.remove(command)) {
+            onTaskTaken();
+            throw new RejectedExecutionException("ThreadPool is not running");
+        }
+        
+        onTaskQueued(command);
+    }
+
+    /**
+     * Wakes up all the workers, so they can complete the tasks left in
+     * the deques and exit. Unlike the shared queue pools, the workers
+     * are not poisoned, because a poisoned worker would leave the tasks
+     * in its own deque unprocessed.
+     */
+    @Override
+    protected void poisonAll() {
+        for (StealingWorker worker : stealingWorkers) {
+            worker.idle.set(false);
+            LockSupport.unpark(worker.t);
+        }
+    }
+
+    /**
+     * Adds the task to the current worker deque, if called by a worker
+     * thread, or to a random worker deque otherwise.
+     */
+    private StealingWorker push(final Runnable task) {
+        StealingWorker worker = currentWorker.get();
+        if (worker == null) {
+            worker = stealingWorkers[
+                    ThreadLocalRandom.current().nextInt(stealingWorkers.length)];
+        }
+        
+        worker.deque.offerLast(task);
+        signalWork();
+        
+        return worker;
+    }
+
+    /**
+     * Wakes up one idle worker, if any.
+     */
+    private void signalWork() {
+        StealingWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            // the queue may contain stale entries of the workers,
+            // which are not idle anymore
+            if (worker.idle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker.t);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Polls a task starting with the given worker's deque and then
+     * stealing from the other worker deques.
+     */
+    private Runnable scan(final StealingWorker worker) {
+        Runnable task = worker.deque.pollFirst();
+        if (task != null) {
+            return task;
+        }
+        
+        final StealingWorker[] localWorkers = stealingWorkers;
+        final int length = localWorkers.length;
+        final int offset = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            final StealingWorker victim = localWorkers[(offset + i) % length];
+            if (victim != worker
+                    && (task = victim.deque.pollFirst()) != null) {
+                
+                // let one more idle worker help with the victim's tasks
+                if (!victim.deque.isEmpty() && !idleWorkers.isEmpty()) {
+                    signalWork();
+                }
+                
+                return task;
+            }
+        }
+        
+        return null;
+    }
+
+    private void onTaskTaken() {
+        if (queueLimit >= 0) {
+            queuedTasks.decrementAndGet();
+        }
+    }
+    
+    private final class StealingWorker extends Worker {
+        private final ConcurrentLinkedDeque<Runnable> deque =
+                new ConcurrentLinkedDeque<Runnable>();
+        
+        private final AtomicBoolean idle = new AtomicBoolean();
+
+        @Override
+        public void run() {
+            currentWorker.set(this);
+            try {
+                super.run();
+            } finally {
+                currentWorker.remove();
+            }
+        }
+        
+        @Override
+        protected Runnable getTask() throws InterruptedException {
+            for (;;) {
+                Runnable task = scan(this);
+                if (task != null) {
+                    onTaskTaken();
+                    return task;
+                }
+                
+                if (!running) {
+                    return null;
+                }
+                
+                // register as idle and re-scan before parking, so a task
+                // submitted concurrently is not missed
+                idle.set(true);
+                idleWorkers.offer(this);
+                
+                task = scan(this);
+                if (task != null) {
+                    idle.set(false);
+                    onTaskTaken();
+                    return task;
+                }
+                
+                while (idle.get() && running) {
+                    LockSupport.park(this);
+                    
+                    if (Thread.interrupted()) {
+                        idle.set(false);
+                        throw new InterruptedException();
+                    }
+                }
+                
+                idle.set(false);
+            }
+        }
+    }
+    
+    /**
+     * The {@link java.util.Queue} view of the worker deques.
+     */
+    private final class StealingQueue extends AbstractQueue<Runnable> {
+
+        @Override
+        public boolean offer(final Runnable task) {
+            if (queueLimit >= 0) {
+                queuedTasks.incrementAndGet();
+            }
+            
+            push(task);
+            return true;
+        }
+
+        @Override
+        public Runnable poll() {
+            for (StealingWorker worker : stealingWorkers) {
+                final Runnable task = worker.deque.pollFirst();
+                if (task != null) {
+                    onTaskTaken();
+                    return task;
+                }
+            }
+            
+            return null;
+        }
+
+        @Override
+        public Runnable peek() {
+            for (StealingWorker worker : stealingWorkers) {
+                final Runnable task = worker.deque.peekFirst();
+                if (task != null) {
+                    return task;
+                }
+            }
+            
+            return null;
+        }
+
+        @Override
+        public boolean remove(final Object task) {
+            for (StealingWorker worker : stealingWorkers) {
+                if (worker.deque.remove(task)) {
+                    onTaskTaken();
+                    return true;
+                }
+            }
+            
+            return false;
+        }
+        
+        @Override
+        public int size() {
+            int size = 0;
+            for (StealingWorker worker : stealingWorkers) {
+                size += worker.deque.size();
+            }
+            
+            return size;
+        }
+
+        @Override
+        public Iterator<Runnable> iterator() {
+            final List<Runnable> snapshot = new ArrayList<Runnable>();
+            for (StealingWorker worker : stealingWorkers) {
+                snapshot.addAll(worker.deque);
+            }
+            
+            return Collections.unmodifiableList(snapshot).iterator();
+        }
+    }
+}
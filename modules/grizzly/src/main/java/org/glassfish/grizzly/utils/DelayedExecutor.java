@@ -122,9 +122,15 @@ public class DelayedExecutor {
         return queue;
     }
 
-    private static boolean wasModified(final long l1, final long l2) {
+    static boolean wasModified(final long l1, final long l2) {
         return l1 != l2;
-        }
+    }
+
+    static long toTimeoutMillis(final long delay, final TimeUnit timeUnit) {
+        final long delayWithSysTime =
+                System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
+        return (delayWithSysTime < 0) ? Long.MAX_VALUE : delayWithSysTime;
+    }
 
     private class DelayedRunnable implements Runnable {
 
@@ -191,9 +197,7 @@ public class DelayedExecutor {
 
         public void add(final E elem, final long delay, final TimeUnit timeUnit) {
             if (delay >= 0) {
-                final long delayWithSysTime =
-                        System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
-                resolver.setTimeoutMillis(elem, ((delayWithSysTime < 0) ? Long.MAX_VALUE : delayWithSysTime));
+                resolver.setTimeoutMillis(elem, toTimeoutMillis(delay, timeUnit));
                 queue.put(elem, this);
             }
         }
@@ -202,6 +206,21 @@ public class DelayedExecutor {
             resolver.removeTimeout(elem);
         }
 
+        /**
+         * Notifies the queue, that the element's timeout has been changed
+         * directly using the {@link Resolver}, without calling
+         * {@link #add(Object, long, TimeUnit)}. This queue checks all its
+         * elements periodically, so the method does nothing, but queue
+         * implementations, which don't scan the elements, like
+         * {@link TimingWheelDelayedExecutor}, rely on the notification
+         * when the timeout gets earlier.
+         * 
+         * @param elem the element, whose timeout has been changed
+         * @since 3.0
+         */
+        public void reschedule(final E elem) {
+        }
+
         public void destroy() {
             queues.remove(this);
         }
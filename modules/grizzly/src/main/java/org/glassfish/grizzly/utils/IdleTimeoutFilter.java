@@ -195,17 +195,7 @@ public class IdleTimeoutFilter extends BaseFilter {
     public static DelayedExecutor createDefaultIdleDelayedExecutor(final long checkInterval,
                                                                    final TimeUnit checkIntervalUnit) {
 
-        final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
-
-            @Override
-            public Thread newThread(Runnable r) {
-                final Thread newThread = new Thread(r);
-                newThread.setName("Grizzly-IdleTimeoutFilter-IdleCheck");
-                newThread.setDaemon(true);
-                return newThread;
-            }
-        });
-        return new DelayedExecutor(executor,
+        return new DelayedExecutor(createIdleCheckThreadPool(),
                                    ((checkInterval > 0)
                                        ? checkInterval
                                        : 1000L),
@@ -215,6 +205,32 @@ public class IdleTimeoutFilter extends BaseFilter {
 
     }
 
+    /**
+     * Creates {@link TimingWheelDelayedExecutor}, which doesn't check every
+     * connection periodically, so it suits better for the large number of
+     * idle connections.
+     *
+     * @param tickDuration the wheel tick duration, which is the accuracy of
+     *        the idle timeouts
+     * @param tickDurationUnit the tick duration {@link TimeUnit}
+     * @return the {@link TimingWheelDelayedExecutor}
+     * 
+     * @since 3.0
+     */
+    public static DelayedExecutor createTimingWheelIdleDelayedExecutor(final long tickDuration,
+                                                                       final TimeUnit tickDurationUnit) {
+
+        return new TimingWheelDelayedExecutor(createIdleCheckThreadPool(),
+                                   ((tickDuration > 0)
+                                       ? tickDuration
+                                       : TimingWheelDelayedExecutor.DEFAULT_TICK_MILLIS),
+                                   ((tickDurationUnit != null)
+                                       ? tickDurationUnit
+                                       : TimeUnit.MILLISECONDS),
+                                   TimingWheelDelayedExecutor.DEFAULT_WHEEL_SIZE);
+
+    }
+
 
     /**
      * Provides an override mechanism for the default timeout.  
@@ -246,6 +262,19 @@ public class IdleTimeoutFilter extends BaseFilter {
 
     // ------------------------------------------------------- Private Methods
     
+    private static ExecutorService createIdleCheckThreadPool() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread newThread = new Thread(r);
+                newThread.setName("Grizzly-IdleTimeoutFilter-IdleCheck");
+                newThread.setDaemon(true);
+                return newThread;
+            }
+        });
+    }
+
     private static long convertToMillis(final long time, final TimeUnit timeUnit) {
         return time >= 0 ? TimeUnit.MILLISECONDS.convert(time, timeUnit) : FOREVER;
     }
@@ -293,7 +322,10 @@ public class IdleTimeoutFilter extends BaseFilter {
                                 System.currentTimeMillis() + timeout;
                 }
                 
-                idleRecord.timeoutMillis.compareAndSet(FOREVER_SPECIAL, timeoutToSet);
+                if (idleRecord.timeoutMillis.compareAndSet(FOREVER_SPECIAL, timeoutToSet)) {
+                    // the timeout might get earlier, let the queue know
+                    queue.reschedule(connection);
+                }
             }
         }
     } // END ContextCompletionListener
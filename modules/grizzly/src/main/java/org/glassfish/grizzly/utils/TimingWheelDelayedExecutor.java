@@ -0,0 +1,454 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link DelayedExecutor} implementation based on a hashed timing wheel.
+ * 
+ * Unlike {@link DelayedExecutor}, which periodically checks every element
+ * of every {@link DelayedExecutor.DelayQueue}, this executor places the
+ * elements into the wheel buckets according to their timeouts, so each tick
+ * only the elements, which are about to expire, are checked. Adding,
+ * removing and rescheduling an element are O(1) operations.
+ * 
+ * The {@link DelayedExecutor.Resolver} contract is the same: the element's
+ * timeout is always read from the {@link DelayedExecutor.Resolver}, so if
+ * the timeout gets later - the element will be moved to the proper bucket,
+ * when its original bucket is processed. If the timeout, changed directly via
+ * {@link DelayedExecutor.Resolver}, gets earlier -
+ * {@link DelayedExecutor.DelayQueue#reschedule(Object)} has to be called,
+ * otherwise the element will be checked at its original timeout.
+ * 
+ * @since 3.0
+ */
+public class TimingWheelDelayedExecutor extends DelayedExecutor {
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    
+    private final long tickMillis;
+    
+    // the wheel buckets, accessed by the wheel thread only
+    private final Node<?>[] wheel;
+    private final int mask;
+    
+    // the absolute index (time / tickMillis) of the next tick to be processed,
+    // accessed by the wheel thread only
+    private long tick = -1;
+    
+    // the nodes to be (re)placed into the wheel
+    private final Queue<Node<?>> pendingNodes =
+            new ConcurrentLinkedQueue<>();
+    
+    private final Queue<WheelDelayQueue<?>> queues =
+            new ConcurrentLinkedQueue<>();
+    
+    private final WheelRunnable runnable = new WheelRunnable();
+    
+    private final Object sync = new Object();
+
+    private volatile boolean isStarted;
+
+    public TimingWheelDelayedExecutor(final ExecutorService threadPool) {
+        this(threadPool, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param threadPool the thread pool to run the wheel thread
+     * @param tickDuration the wheel tick duration, which is the accuracy of
+     *        the timeouts
+     * @param timeUnit the tick duration {@link TimeUnit}
+     * @param wheelSize the number of the wheel buckets (will be rounded up to
+     *        the power of two)
+     */
+    public TimingWheelDelayedExecutor(final ExecutorService threadPool,
+            final long tickDuration, final TimeUnit timeUnit,
+            final int wheelSize) {
+        super(threadPool, tickDuration, timeUnit);
+        
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheel size has to be greater than zero");
+        }
+        
+        tickMillis = Math.max(1,
+                TimeUnit.MILLISECONDS.convert(tickDuration, timeUnit));
+        
+        final int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        wheel = new Node<?>[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the wheel tick duration in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @return the number of the wheel buckets
+     */
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    @Override
+    public void start() {
+        synchronized(sync) {
+            if (!isStarted) {
+                isStarted = true;
+                getThreadPool().execute(runnable);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized(sync) {
+            if (isStarted) {
+                isStarted = false;
+                sync.notify();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+        synchronized(sync) {
+            for (WheelDelayQueue<?> queue : queues) {
+                queue.clear();
+            }
+            
+            queues.clear();
+            pendingNodes.clear();
+        }
+    }
+
+    @Override
+    public <E> WheelDelayQueue<E> createDelayQueue(final Worker<E> worker,
+            final Resolver<E> resolver) {
+        
+        final WheelDelayQueue<E> queue = new WheelDelayQueue<>(worker, resolver);
+
+        queues.add(queue);
+
+        return queue;
+    }
+
+    private void enqueue(final Node<?> node) {
+        if (node.isPending.compareAndSet(false, true)) {
+            pendingNodes.offer(node);
+        }
+    }
+    
+    private void processPendingNodes() {
+        Node<?> node;
+        while ((node = pendingNodes.poll()) != null) {
+            processPendingNode(node);
+        }
+    }
+    
+    private <E> void processPendingNode(final Node<E> node) {
+        // reset the flag before reading the timeout, so the concurrent
+        // reschedule won't be lost
+        node.isPending.set(false);
+        unlink(node);
+        
+        final WheelDelayQueue<E> queue = node.queue;
+        if (!queue.isCurrent(node)) {
+            return;
+        }
+        
+        place(node, queue.resolver.getTimeoutMillis(node.element));
+    }
+    
+    private void processBucket(final int index, final long currentTimeMillis) {
+        Node<?> node = wheel[index];
+        wheel[index] = null;
+        
+        while (node != null) {
+            final Node<?> next = node.next;
+            node.prev = node.next = null;
+            node.bucket = -1;
+            
+            if (node.rounds > 0) {
+                node.rounds--;
+                link(node, index);
+            } else {
+                expire(node, currentTimeMillis);
+            }
+            
+            node = next;
+        }
+    }
+    
+    private <E> void expire(final Node<E> node, final long currentTimeMillis) {
+        final WheelDelayQueue<E> queue = node.queue;
+        if (!queue.isCurrent(node)) {
+            return;
+        }
+        
+        final E element = node.element;
+        final Resolver<E> resolver = queue.resolver;
+        final long timeoutMillis = resolver.getTimeoutMillis(element);
+        
+        if (timeoutMillis == UNSET_TIMEOUT) {
+            queue.nodes.remove(element, node);
+            if (wasModified(timeoutMillis,
+                    resolver.getTimeoutMillis(element))) {
+                reinsert(node);
+            }
+        } else if (currentTimeMillis - timeoutMillis >= 0) {
+            queue.nodes.remove(element, node);
+            if (wasModified(timeoutMillis,
+                    resolver.getTimeoutMillis(element))) {
+                reinsert(node);
+            } else {
+                try {
+                    if (!queue.worker.doWork(element)) {
+                        reinsert(node);
+                    }
+                } catch (Exception ignored) {
+                }
+            }
+        } else {
+            // the timeout has been moved forward
+            place(node, timeoutMillis);
+        }
+    }
+    
+    private <E> void reinsert(final Node<E> node) {
+        final WheelDelayQueue<E> queue = node.queue;
+        if (queue.nodes.putIfAbsent(node.element, node) == null) {
+            place(node, queue.resolver.getTimeoutMillis(node.element));
+        }
+    }
+    
+    private void place(final Node<?> node, final long timeoutMillis) {
+        // the expired elements are checked on the next tick
+        final long nodeTick = Math.max(timeoutMillis / tickMillis, tick);
+        
+        node.rounds = (nodeTick - tick) / wheel.length;
+        node.scheduledTimeoutMillis = timeoutMillis;
+        link(node, (int) (nodeTick & mask));
+    }
+    
+    private void link(final Node<?> node, final int index) {
+        final Node<?> head = wheel[index];
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        
+        node.bucket = index;
+        wheel[index] = node;
+    }
+    
+    private void unlink(final Node<?> node) {
+        final int index = node.bucket;
+        if (index == -1) {
+            return;
+        }
+        
+        final Node<?> prev = node.prev;
+        final Node<?> next = node.next;
+        
+        if (prev == null) {
+            wheel[index] = next;
+        } else {
+            prev.next = next;
+        }
+        
+        if (next != null) {
+            next.prev = prev;
+        }
+        
+        node.prev = node.next = null;
+        node.bucket = -1;
+    }
+    
+    private class WheelRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            while (isStarted) {
+                final long currentTimeMillis = System.currentTimeMillis();
+                final long currentTick = currentTimeMillis / tickMillis;
+                
+                if (tick == -1 || currentTick + 1 < tick) {
+                    // first run or the system clock has been moved back
+                    tick = currentTick;
+                }
+                
+                processPendingNodes();
+                
+                // the bucket is processed once its tick is over
+                while (tick < currentTick) {
+                    processBucket((int) (tick++ & mask), currentTimeMillis);
+                }
+                
+                synchronized (sync) {
+                    if (!isStarted) return;
+                    
+                    final long waitMillis = (tick + 1) * tickMillis
+                            - System.currentTimeMillis();
+                    if (waitMillis > 0) {
+                        try {
+                            sync.wait(waitMillis);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link DelayedExecutor.DelayQueue}, which places its elements into
+     * the timing wheel.
+     */
+    public class WheelDelayQueue<E> extends DelayQueue<E> {
+        final ConcurrentMap<E, Node<E>> nodes = new ConcurrentHashMap<>();
+        
+        private volatile boolean isDestroyed;
+
+        public WheelDelayQueue(final Worker<E> worker, final Resolver<E> resolver) {
+            super(worker, resolver);
+        }
+
+        @Override
+        public void add(final E elem, final long delay, final TimeUnit timeUnit) {
+            if (delay >= 0) {
+                resolver.setTimeoutMillis(elem, toTimeoutMillis(delay, timeUnit));
+                
+                Node<E> node = nodes.get(elem);
+                if (node == null) {
+                    final Node<E> newNode = new Node<>(this, elem);
+                    node = nodes.putIfAbsent(elem, newNode);
+                    if (node == null) {
+                        enqueue(newNode);
+                        return;
+                    }
+                }
+                
+                reschedule(node);
+            }
+        }
+
+        @Override
+        public void remove(final E elem) {
+            resolver.removeTimeout(elem);
+            
+            final Node<E> node = nodes.remove(elem);
+            if (node != null) {
+                // the buckets are accessed by the wheel thread only, so
+                // the node is unlinked from its bucket on the next tick
+                enqueue(node);
+            }
+        }
+
+        @Override
+        public void reschedule(final E elem) {
+            final Node<E> node = nodes.get(elem);
+            if (node != null) {
+                reschedule(node);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            queues.remove(this);
+            clear();
+        }
+        
+        private void reschedule(final Node<E> node) {
+            final long timeoutMillis = resolver.getTimeoutMillis(node.element);
+            
+            // if the timeout got later - the node will be moved, when
+            // its current bucket is processed
+            if (timeoutMillis != UNSET_TIMEOUT
+                    && timeoutMillis < node.scheduledTimeoutMillis) {
+                enqueue(node);
+            }
+        }
+        
+        void clear() {
+            isDestroyed = true;
+            nodes.clear();
+        }
+        
+        boolean isCurrent(final Node<E> node) {
+            return !isDestroyed && nodes.get(node.element) == node;
+        }
+    }
+    
+    private static final class Node<E> {
+        final TimingWheelDelayedExecutor.WheelDelayQueue<E> queue;
+        final E element;
+        
+        final AtomicBoolean isPending = new AtomicBoolean();
+        
+        // the timeout the node is placed for, Long.MIN_VALUE if the node
+        // hasn't been placed yet
+        volatile long scheduledTimeoutMillis = Long.MIN_VALUE;
+        
+        // accessed by the wheel thread only
+        long rounds;
+        int bucket = -1;
+        Node<?> prev;
+        Node<?> next;
+
+        Node(final TimingWheelDelayedExecutor.WheelDelayQueue<E> queue,
+                final E element) {
+            this.queue = queue;
+            this.element = element;
+        }
+    }
+}
@@ -43,12 +43,19 @@ package org.glassfish.grizzly;
 import java.util.concurrent.ExecutorService;
 import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.threadpool.VirtualThreadExecutorService;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.threadpool.AbstractThreadPool;
 import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
+import org.glassfish.grizzly.threadpool.WorkerThread;
 import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.TimingWheelDelayedExecutor;
 
 /**
  *
@@ -137,6 +144,106 @@ public class GrizzlyExecutorServiceTest extends GrizzlyTestCase {
         }
     }
 
+    public void testTransactionTimeoutTimingWheel() throws Exception {
+        final ExecutorService threadPool = Executors.newSingleThreadExecutor();
+
+        try {
+            final DelayedExecutor delayedExecutor =
+                    new TimingWheelDelayedExecutor(threadPool,
+                    50, TimeUnit.MILLISECONDS, 64);
+            delayedExecutor.start();
+
+            final int tasksNum = 10;
+            final long transactionTimeoutMillis = 1000;
+
+            final CountDownLatch cdl = new CountDownLatch(tasksNum);
+            final ThreadPoolConfig tpc = ThreadPoolConfig.newConfig()
+                    .setTransactionTimeout(delayedExecutor, transactionTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .setCorePoolSize(tasksNum / 2).setMaxPoolSize(tasksNum / 2);
+
+            final GrizzlyExecutorService ges = GrizzlyExecutorService.createInstance(tpc);
+
+            for (int i = 0; i < tasksNum; i++) {
+                ges.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(transactionTimeoutMillis * 10);
+                        } catch (InterruptedException e) {
+                            cdl.countDown();
+                        }
+                    }
+                });
+            }
+
+            assertTrue(cdl.await(transactionTimeoutMillis * 5, TimeUnit.MILLISECONDS));
+            ges.shutdownNow();
+            delayedExecutor.destroy();
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    public void testTimingWheelRemove() throws Exception {
+        final ExecutorService threadPool = Executors.newSingleThreadExecutor();
+
+        try {
+            final DelayedExecutor delayedExecutor =
+                    new TimingWheelDelayedExecutor(threadPool,
+                    10, TimeUnit.MILLISECONDS, 64);
+            delayedExecutor.start();
+
+            final AtomicInteger fired = new AtomicInteger();
+            final CountDownLatch cdl = new CountDownLatch(1);
+            final DelayedExecutor.DelayQueue<long[]> queue =
+                    delayedExecutor.createDelayQueue(
+                    new DelayedExecutor.Worker<long[]>() {
+                        @Override
+                        public boolean doWork(final long[] element) {
+                            fired.incrementAndGet();
+                            cdl.countDown();
+                            return true;
+                        }
+                    }, new DelayedExecutor.Resolver<long[]>() {
+                        @Override
+                        public boolean removeTimeout(final long[] element) {
+                            element[0] = DelayedExecutor.UNSET_TIMEOUT;
+                            return true;
+                        }
+
+                        @Override
+                        public long getTimeoutMillis(final long[] element) {
+                            return element[0];
+                        }
+
+                        @Override
+                        public void setTimeoutMillis(final long[] element,
+                                final long timeoutMillis) {
+                            element[0] = timeoutMillis;
+                        }
+                    });
+
+            final long[] removed = {DelayedExecutor.UNSET_TIMEOUT};
+            queue.add(removed, 100, TimeUnit.MILLISECONDS);
+            queue.remove(removed);
+
+            // the element could be added back right after the removal
+            final long[] readded = {DelayedExecutor.UNSET_TIMEOUT};
+            queue.add(readded, 1, TimeUnit.HOURS);
+            queue.remove(readded);
+            queue.add(readded, 100, TimeUnit.MILLISECONDS);
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+            Thread.sleep(300);
+            assertEquals(1, fired.get());
+
+            delayedExecutor.destroy();
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
     public void testAwaitTermination() throws Exception {
         int threads = 100;
         ThreadPoolConfig cfg = ThreadPoolConfig.newConfig()
@@ -196,6 +303,219 @@ public class GrizzlyExecutorServiceTest extends GrizzlyTestCase {
         assertNotNull(defaultThreadPool.toString());
     }
     
+    public void testWorkStealingThreadPool() throws Exception {
+        final AtomicInteger queuedTasks = new AtomicInteger();
+        final AtomicInteger completedTasks = new AtomicInteger();
+        
+        final ThreadPoolConfig cfg = ThreadPoolConfig.newConfig()
+                .setPoolName("stealing-test")
+                .setCorePoolSize(-1).setMaxPoolSize(8)
+                .setWorkStealing(true);
+        cfg.getInitialMonitoringConfig().addProbes(new ThreadPoolProbe.Adapter() {
+            @Override
+            public void onTaskQueueEvent(AbstractThreadPool threadPool, Runnable task) {
+                queuedTasks.incrementAndGet();
+            }
+
+            @Override
+            public void onTaskCompleteEvent(AbstractThreadPool threadPool, Runnable task) {
+                completedTasks.incrementAndGet();
+            }
+        });
+        
+        final GrizzlyExecutorService r = GrizzlyExecutorService.createInstance(cfg);
+        try {
+            assertTrue(r.getConfiguration().getQueue().getClass()
+                    .getSimpleName().contains("StealingQueue"));
+            
+            final int tasks = 200000;
+            doTest(r, tasks);
+            
+            // tasks submitted by worker threads
+            final int parentTasks = 1000;
+            final int childTasks = 10;
+            final CountDownLatch latch =
+                    new CountDownLatch(parentTasks * childTasks);
+            final AtomicInteger nonWorkerThreads = new AtomicInteger();
+            for (int i = 0; i < parentTasks; i++) {
+                r.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < childTasks; j++) {
+                            r.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (!(Thread.currentThread() instanceof WorkerThread)) {
+                                        nonWorkerThreads.incrementAndGet();
+                                    }
+                                    latch.countDown();
+                                }
+                            });
+                        }
+                    }
+                });
+            }
+            
+            assertTrue("latch timed out", latch.await(30, TimeUnit.SECONDS));
+            assertEquals(0, nonWorkerThreads.get());
+            
+            r.shutdown();
+            assertTrue(r.awaitTermination(10, TimeUnit.SECONDS));
+            
+            final int total = tasks + parentTasks + parentTasks * childTasks;
+            assertEquals(total, queuedTasks.get());
+            assertEquals(total, completedTasks.get());
+        } finally {
+            r.shutdownNow();
+        }
+        
+        // queue limit
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final GrizzlyExecutorService limited = GrizzlyExecutorService.createInstance(
+                cfg.copy().setMaxPoolSize(1).setQueueLimit(1));
+        try {
+            final Runnable blockingTask = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blockLatch.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            };
+            
+            limited.execute(blockingTask);
+            // wait until the only worker takes the task
+            while (!limited.getConfiguration().getQueue().isEmpty()) {
+                Thread.sleep(5);
+            }
+            
+            limited.execute(blockingTask);
+            try {
+                limited.execute(blockingTask);
+                fail("The task queue limit has to be reached");
+            } catch (RejectedExecutionException expected) {
+            }
+        } finally {
+            blockLatch.countDown();
+            limited.shutdownNow();
+        }
+    }
+    
+    public void testVirtualThreadExecutorService() throws Exception {
+        final ExecutorService executor =
+                VirtualThreadExecutorService.createExecutorService(
+                        ThreadPoolConfig.newConfig()
+                        .setPoolName("virtual-test")
+                        .setVirtualThreads(true));
+        
+        try {
+            if (!VirtualThreads.isSupported()) {
+                // falls back to the platform thread pool
+                assertTrue(executor instanceof GrizzlyExecutorService);
+                return;
+            }
+            
+            assertTrue(executor instanceof VirtualThreadExecutorService);
+            
+            // way more blocked tasks, than a platform thread pool could run
+            final int tasks = 10000;
+            final CountDownLatch latch = new CountDownLatch(tasks);
+            final AtomicInteger platformThreads = new AtomicInteger();
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Thread t = Thread.currentThread();
+                        if (!VirtualThreads.isVirtual(t)
+                                || !t.getName().startsWith("virtual-test-")) {
+                            platformThreads.incrementAndGet();
+                        }
+                        
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException ignore) {
+                        }
+                        
+                        latch.countDown();
+                    }
+                });
+            }
+            
+            assertTrue("latch timed out", latch.await(30, TimeUnit.SECONDS));
+            assertEquals(0, platformThreads.get());
+            
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    public void testVirtualThreadExecutorServiceConfig() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            return;
+        }
+        
+        final ThreadPoolConfig probesConfig = ThreadPoolConfig.newConfig()
+                .setPoolName("virtual-probes").setVirtualThreads(true);
+        probesConfig.getInitialMonitoringConfig().addProbes(
+                new ThreadPoolProbe.Adapter());
+        try {
+            VirtualThreadExecutorService.createInstance(probesConfig);
+            fail("ThreadPoolProbes have to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        
+        // the probes are dropped with a warning, when the pool type is chosen
+        final ExecutorService noProbes =
+                VirtualThreadExecutorService.createExecutorService(probesConfig);
+        assertTrue(noProbes instanceof VirtualThreadExecutorService);
+        noProbes.shutdownNow();
+        
+        final ExecutorService threadPool = Executors.newSingleThreadExecutor();
+        final DelayedExecutor delayedExecutor = new DelayedExecutor(threadPool);
+        delayedExecutor.start();
+        
+        final VirtualThreadExecutorService executor =
+                VirtualThreadExecutorService.createInstance(
+                        ThreadPoolConfig.newConfig()
+                        .setPoolName("virtual-limited")
+                        .setQueueLimit(2)
+                        .setTransactionTimeout(delayedExecutor, 500,
+                                TimeUnit.MILLISECONDS));
+        
+        try {
+            final CountDownLatch interruptedLatch = new CountDownLatch(2);
+            final Runnable blockingTask = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException e) {
+                        interruptedLatch.countDown();
+                    }
+                }
+            };
+            
+            executor.execute(blockingTask);
+            executor.execute(blockingTask);
+            
+            try {
+                executor.execute(blockingTask);
+                fail("The queue limit has to be respected");
+            } catch (RejectedExecutionException expected) {
+            }
+            
+            // the transaction timeout interrupts the blocked tasks
+            assertTrue(interruptedLatch.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+            delayedExecutor.destroy();
+            threadPool.shutdownNow();
+        }
+    }
+    
     private void doTest(GrizzlyExecutorService r, int tasks) throws Exception{
         final CountDownLatch cl = new CountDownLatch(tasks);
         while(tasks-->0){
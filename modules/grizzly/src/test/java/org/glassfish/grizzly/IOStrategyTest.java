@@ -64,6 +64,7 @@ import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
 import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.strategies.SimpleDynamicNIOStrategy;
+import org.glassfish.grizzly.strategies.VirtualThreadIOStrategy;
 import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
 import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.grizzly.utils.StringFilter;
@@ -94,7 +95,8 @@ public class IOStrategyTest {
                     {WorkerThreadIOStrategy.getInstance()},
                     {LeaderFollowerNIOStrategy.getInstance()},
                     {SameThreadIOStrategy.getInstance()},
-                    {SimpleDynamicNIOStrategy.getInstance()}
+                    {SimpleDynamicNIOStrategy.getInstance()},
+                    {VirtualThreadIOStrategy.getInstance()}
         }
                 );
     }
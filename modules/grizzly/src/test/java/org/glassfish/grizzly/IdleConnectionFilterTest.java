@@ -117,6 +117,66 @@ public class IdleConnectionFilterTest extends GrizzlyTestCase {
         }
     }
 
+    public void testAcceptedConnectionIdleTimeoutTimingWheel() throws Exception {
+        Connection connection = null;
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final DelayedExecutor timeoutExecutor =
+                IdleTimeoutFilter.createTimingWheelIdleDelayedExecutor(
+                100, TimeUnit.MILLISECONDS);
+        timeoutExecutor.start();
+        IdleTimeoutFilter idleTimeoutFilter =
+                new IdleTimeoutFilter(timeoutExecutor, 2, TimeUnit.SECONDS);
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.newInstance();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(idleTimeoutFilter);
+        filterChainBuilder.add(new BaseFilter() {
+                private volatile Connection acceptedConnection;
+                @Override
+                public NextAction handleAccept(FilterChainContext ctx)
+                        throws IOException {
+                    acceptedConnection = ctx.getConnection();
+                    return ctx.getInvokeAction();
+                }
+
+                @Override
+                public NextAction handleClose(FilterChainContext ctx)
+                        throws IOException {
+                    if (ctx.getConnection().equals(acceptedConnection)) {
+                        latch.countDown();
+                    }
+
+                    return ctx.getInvokeAction();
+                }
+
+            });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(filterChainBuilder.build());
+        
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            Future<Connection> future = transport.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            // the timeout, which was infinite when the connection got accepted,
+            // has to be rescheduled
+            assertFalse(latch.await(1, TimeUnit.SECONDS));
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            timeoutExecutor.stop();
+            timeoutExecutor.destroy();
+            transport.shutdownNow();
+        }
+    }
+
     public void testConnectedConnectionIdleTimeout() throws Exception {
         Connection connection = null;
         final CountDownLatch latch = new CountDownLatch(1);
@@ -40,6 +40,9 @@
 
 package org.glassfish.grizzly;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -50,14 +53,21 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManager;
@@ -87,6 +97,8 @@ import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
 import org.glassfish.grizzly.ssl.SSLContextConfigurator;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.ssl.SSLFilter;
+import org.glassfish.grizzly.ssl.SSLProbe;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.utils.ChunkingFilter;
 import org.glassfish.grizzly.utils.ClientCheckFilter;
 import org.glassfish.grizzly.utils.EchoFilter;
@@ -393,6 +405,599 @@ public class SSLTest {
     }
 
 
+    @Test
+    public void testHandshakeTaskExecutor() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false);
+
+        final ExecutorService handshakeExecutor = Executors.newFixedThreadPool(2,
+                new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "handshake-task");
+            }
+        });
+        
+        final AtomicInteger offloadedCounter = new AtomicInteger();
+        final AtomicInteger inlineCounter = new AtomicInteger();
+        final SSLFilter serverSSLFilter = new SSLFilter(serverSSLConfigurator, null);
+        serverSSLFilter.setHandshakeTaskExecutor(handshakeExecutor);
+        serverSSLFilter.getMonitoringConfig().addProbes(new SSLProbe.Adapter() {
+            @Override
+            public void onHandshakeTasksEvent(Connection connection,
+                    long queueTimeNanos, long taskTimeNanos, boolean isOffloaded) {
+                if (isOffloaded
+                        && "handshake-task".equals(Thread.currentThread().getName())) {
+                    offloadedCounter.incrementAndGet();
+                } else {
+                    inlineCounter.incrementAndGet();
+                }
+            }
+        });
+        
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(serverSSLFilter);
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        // the handshake is processed by the selector threads
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .ioStrategy(SameThreadIOStrategy.getInstance())
+                .build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> inQueue = new LinkedBlockingQueue<String>();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new StringFilter());
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final String message = ctx.getMessage();
+                    inQueue.offer(message);
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            for (int i = 0; i < 3; i++) {
+                connection = connectorHandler.connect(
+                        new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+                assertTrue(connection != null);
+
+                final FutureImpl<SSLEngine> handshakeFuture = Futures.<SSLEngine>createSafeFuture();
+                sslFilter.handshake(connection, Futures.toCompletionHandler(handshakeFuture));
+                handshakeFuture.get(10, TimeUnit.SECONDS);
+
+                final String sendString = "Hello world! Connection#" + i;
+                connection.write(sendString).get(10, TimeUnit.SECONDS);
+                assertEquals(sendString, inQueue.poll(10, TimeUnit.SECONDS));
+                
+                connection.closeSilently();
+                connection = null;
+            }
+            
+            assertTrue("Handshake tasks were never offloaded",
+                    offloadedCounter.get() > 0);
+            assertEquals(0, inlineCounter.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+            handshakeExecutor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testHandshakeTaskExecutorRejected() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false);
+
+        final AtomicInteger rejectedCounter = new AtomicInteger();
+        final AtomicInteger inlineCounter = new AtomicInteger();
+        final SSLFilter serverSSLFilter = new SSLFilter(serverSSLConfigurator, null);
+        serverSSLFilter.setHandshakeTaskExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                rejectedCounter.incrementAndGet();
+                throw new RejectedExecutionException();
+            }
+        });
+        serverSSLFilter.getMonitoringConfig().addProbes(new SSLProbe.Adapter() {
+            @Override
+            public void onHandshakeTasksEvent(Connection connection,
+                    long queueTimeNanos, long taskTimeNanos, boolean isOffloaded) {
+                if (!isOffloaded) {
+                    inlineCounter.incrementAndGet();
+                }
+            }
+        });
+        
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(serverSSLFilter);
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .ioStrategy(SameThreadIOStrategy.getInstance())
+                .build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> inQueue = new LinkedBlockingQueue<String>();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new StringFilter());
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final String message = ctx.getMessage();
+                    inQueue.offer(message);
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            connection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            final FutureImpl<SSLEngine> handshakeFuture = Futures.<SSLEngine>createSafeFuture();
+            sslFilter.handshake(connection, Futures.toCompletionHandler(handshakeFuture));
+            handshakeFuture.get(10, TimeUnit.SECONDS);
+
+            final String sendString = "Hello world!";
+            connection.write(sendString).get(10, TimeUnit.SECONDS);
+            assertEquals(sendString, inQueue.poll(10, TimeUnit.SECONDS));
+            
+            // the rejected tasks have been run by the filter chain thread
+            assertTrue(rejectedCounter.get() > 0);
+            assertEquals(rejectedCounter.get(), inlineCounter.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testDynamicRecordSizing() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false)
+                .setDynamicRecordSizing(true)
+                .setDynamicRecordSize(1000)
+                .setDynamicRecordSizeThreshold(8192);
+
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(new SSLFilter(serverSSLConfigurator, null));
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> inQueue = new LinkedBlockingQueue<String>();
+            final List<Integer> recordSizes = new CopyOnWriteArrayList<Integer>();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            clientFilterChainBuilder.add(new RecordSizeFilter(recordSizes));
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new StringFilter());
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final String message = ctx.getMessage();
+                    inQueue.offer(message);
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            connection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            final FutureImpl<SSLEngine> handshakeFuture = Futures.<SSLEngine>createSafeFuture();
+            sslFilter.handshake(connection, Futures.toCompletionHandler(handshakeFuture));
+            handshakeFuture.get(10, TimeUnit.SECONDS);
+            
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 32 * 1024; i++) {
+                sb.append((char) ('a' + i % 26));
+            }
+            final String sendString = sb.toString();
+            
+            // let the post-handshake messages arrive
+            connection.write("warm-up").get(10, TimeUnit.SECONDS);
+            assertEquals("warm-up", inQueue.poll(10, TimeUnit.SECONDS));
+            final int handshakeRecordsCount = recordSizes.size();
+            
+            connection.write(sendString).get(10, TimeUnit.SECONDS);
+            assertEquals(sendString, inQueue.poll(10, TimeUnit.SECONDS));
+            
+            final List<Integer> echoRecordSizes = recordSizes.subList(
+                    handshakeRecordsCount, recordSizes.size());
+            
+            // the first 8K are sent using small records, the rest - full-size
+            int smallRecordsCount = 0;
+            while (smallRecordsCount < echoRecordSizes.size()
+                    && echoRecordSizes.get(smallRecordsCount) <= 1000 + 256) {
+                smallRecordsCount++;
+            }
+            
+            assertTrue("Small records were expected: " + echoRecordSizes,
+                    smallRecordsCount >= 8192 / 1000);
+            assertTrue("Full-size records were expected: " + echoRecordSizes,
+                    smallRecordsCount < echoRecordSizes.size()
+                    && echoRecordSizes.get(smallRecordsCount) > 8192);
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testWrapUnwrapProbe() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false);
+
+        final AtomicInteger wrappedBytes = new AtomicInteger();
+        final AtomicInteger unwrappedBytes = new AtomicInteger();
+        final AtomicInteger unwrappedRecords = new AtomicInteger();
+        final SSLFilter serverSSLFilter = new SSLFilter(serverSSLConfigurator, null);
+        serverSSLFilter.getMonitoringConfig().addProbes(new SSLProbe.Adapter() {
+            @Override
+            public void onWrapEvent(Connection connection, int plainBytes,
+                    int encryptedBytes) {
+                assertTrue(encryptedBytes > plainBytes);
+                wrappedBytes.addAndGet(plainBytes);
+            }
+
+            @Override
+            public void onUnwrapEvent(Connection connection, int encryptedBytes,
+                    int plainBytes, int recordsCount) {
+                assertTrue(encryptedBytes > plainBytes);
+                unwrappedBytes.addAndGet(plainBytes);
+                unwrappedRecords.addAndGet(recordsCount);
+            }
+        });
+        
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(serverSSLFilter);
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> inQueue = new LinkedBlockingQueue<String>();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new StringFilter());
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final String message = ctx.getMessage();
+                    inQueue.offer(message);
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            connection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            final FutureImpl<SSLEngine> handshakeFuture = Futures.<SSLEngine>createSafeFuture();
+            sslFilter.handshake(connection, Futures.toCompletionHandler(handshakeFuture));
+            handshakeFuture.get(10, TimeUnit.SECONDS);
+            
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 128 * 1024; i++) {
+                sb.append((char) ('a' + i % 26));
+            }
+            final String sendString = sb.toString();
+            
+            connection.write(sendString).get(10, TimeUnit.SECONDS);
+            assertEquals(sendString, inQueue.poll(10, TimeUnit.SECONDS));
+            
+            assertTrue(unwrappedBytes.get() >= sendString.length());
+            assertEquals(unwrappedBytes.get(), wrappedBytes.get());
+            assertTrue("Unexpected records count: " + unwrappedRecords.get(),
+                    unwrappedRecords.get() >= sendString.length() / (16 * 1024));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFileTransfer() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false);
+
+        // the file content spans several chunks
+        final byte[] fileContent = new byte[1024 * 1024 + 123];
+        new Random().nextBytes(fileContent);
+        final File file = File.createTempFile("grizzly-ssl-file-transfer", ".tmp");
+        file.deleteOnExit();
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(fileContent);
+        } finally {
+            fos.close();
+        }
+        
+        final byte[] trailer = "END".getBytes();
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(fileContent);
+        expected.write(trailer);
+        
+        final FutureImpl<WriteResult> fileTransferFuture =
+                Futures.createSafeFuture();
+        
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(new SSLFilter(serverSSLConfigurator, null));
+        serverFilterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                final Buffer request = ctx.getMessage();
+                request.tryDispose();
+                
+                ctx.write(new FileTransfer(file),
+                        Futures.toCompletionHandler(fileTransferFuture));
+                // has to be written after the file content
+                ctx.write(Buffers.wrap(ctx.getMemoryManager(), trailer));
+                return ctx.getStopAction();
+            }
+        });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final ByteArrayOutputStream received = new ByteArrayOutputStream();
+            final FutureImpl<byte[]> receivedFuture = Futures.createSafeFuture();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final Buffer buffer = ctx.getMessage();
+                    final byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    buffer.tryDispose();
+                    
+                    received.write(bytes);
+                    if (received.size() >= expected.size()) {
+                        receivedFuture.result(received.toByteArray());
+                    }
+                    
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            connection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            connection.write(Buffers.wrap(manager, "GET"));
+            
+            assertTrue(Arrays.equals(expected.toByteArray(),
+                    receivedFuture.get(10, TimeUnit.SECONDS)));
+            assertEquals(fileContent.length,
+                    fileTransferFuture.get(10, TimeUnit.SECONDS).getWrittenSize());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSessionResumption() throws Exception {
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        sslContextConfigurator.setServerSessionCacheSize(100);
+        sslContextConfigurator.setServerSessionTimeout(60);
+        assertEquals(100, sslContextConfigurator.getServerSessionCacheSize());
+        assertEquals(60, sslContextConfigurator.getServerSessionTimeout());
+        
+        final SSLEngineConfigurator clientSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext());
+        final SSLEngineConfigurator serverSSLConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(),
+                false, false, false);
+        
+        assertEquals(100, serverSSLConfigurator.getSslContext()
+                .getServerSessionContext().getSessionCacheSize());
+        assertEquals(60, serverSSLConfigurator.getSslContext()
+                .getServerSessionContext().getSessionTimeout());
+
+        final BlockingQueue<Boolean> serverHandshakes =
+                new LinkedBlockingQueue<Boolean>();
+        final SSLFilter serverSSLFilter = new SSLFilter(serverSSLConfigurator, null);
+        serverSSLFilter.getMonitoringConfig().addProbes(new SSLProbe.Adapter() {
+            @Override
+            public void onHandshakeCompleteEvent(Connection connection,
+                    boolean isSessionResumed) {
+                serverHandshakes.offer(isSessionResumed);
+            }
+        });
+        
+        FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.newInstance();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(serverSSLFilter);
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(serverFilterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> inQueue = new LinkedBlockingQueue<String>();
+            
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.newInstance();
+            clientFilterChainBuilder.add(new TransportFilter());
+            final SSLFilter sslFilter = new SSLFilter(null, clientSSLConfigurator);
+            clientFilterChainBuilder.add(sslFilter);
+            clientFilterChainBuilder.add(new StringFilter());
+            clientFilterChainBuilder.add(new BaseFilter() {
+
+                @Override
+                public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                    final String message = ctx.getMessage();
+                    inQueue.offer(message);
+                    return ctx.getStopAction();
+                }
+            });
+            
+            TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientFilterChainBuilder.build())
+                    .build();
+            
+            for (int i = 0; i < 3; i++) {
+                connection = connectorHandler.connect(
+                        new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+                assertTrue(connection != null);
+
+                final FutureImpl<SSLEngine> handshakeFuture = Futures.<SSLEngine>createSafeFuture();
+                sslFilter.handshake(connection, Futures.toCompletionHandler(handshakeFuture));
+                handshakeFuture.get(10, TimeUnit.SECONDS);
+
+                final String sendString = "Hello world! Connection#" + i;
+                connection.write(sendString).get(10, TimeUnit.SECONDS);
+                assertEquals(sendString, inQueue.poll(10, TimeUnit.SECONDS));
+                
+                // the first handshake is full, the others resume the session
+                assertEquals(i > 0, serverHandshakes.poll(10, TimeUnit.SECONDS));
+                
+                connection.closeSilently();
+                connection = null;
+            }
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
     // ------------------------------------------------------- Protected Methods
 
     protected void doTestPingPongFilterChain(boolean isBlocking,
@@ -980,4 +1585,43 @@ public class SSLTest {
 
     } // END Client Test Filter
 
+    /**
+     * Collects the sizes of the TLS records, coming from the network.
+     */
+    private static class RecordSizeFilter extends BaseFilter {
+        private static final int HEADER_SIZE = 5;
+        
+        private final List<Integer> recordSizes;
+        private final byte[] header = new byte[HEADER_SIZE];
+        private int headerBytes;
+        private int bytesToSkip;
+
+        private RecordSizeFilter(final List<Integer> recordSizes) {
+            this.recordSizes = recordSizes;
+        }
+
+        @Override
+        public NextAction handleRead(FilterChainContext ctx) throws IOException {
+            final Buffer buffer = ctx.getMessage();
+            
+            int pos = buffer.position();
+            final int lim = buffer.limit();
+            while (pos < lim) {
+                if (bytesToSkip > 0) {
+                    final int skip = Math.min(bytesToSkip, lim - pos);
+                    bytesToSkip -= skip;
+                    pos += skip;
+                } else {
+                    header[headerBytes++] = buffer.get(pos++);
+                    if (headerBytes == HEADER_SIZE) {
+                        bytesToSkip = ((header[3] & 0xFF) << 8) | (header[4] & 0xFF);
+                        recordSizes.add(bytesToSkip);
+                        headerBytes = 0;
+                    }
+                }
+            }
+            
+            return ctx.getInvokeAction();
+        }
+    } // END RecordSizeFilter
 }
@@ -41,24 +41,36 @@
 package org.glassfish.grizzly;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
@@ -68,17 +80,26 @@ import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.AbstractNIOConnectionDistributor;
+import org.glassfish.grizzly.nio.AdaptiveReceiveBufferSizePredictor;
+import org.glassfish.grizzly.nio.LeastLoadedConnectionDistributor;
 import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.nio.NIOTransport;
+import org.glassfish.grizzly.nio.ReceiveBufferSizePredictor;
 import org.glassfish.grizzly.nio.RegisterChannelResult;
 import org.glassfish.grizzly.nio.SelectorRunner;
+import org.glassfish.grizzly.nio.WorkerGroupThreadFactory;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnection;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOServerConnection;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.nio.transport.UnixDomainSockets;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
+import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.grizzly.utils.BufferInQueueFilter;
 import org.glassfish.grizzly.utils.ClientCheckFilter;
@@ -91,9 +112,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static junit.framework.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 
 /**
@@ -221,6 +244,43 @@ public class TCPNIOTransportTest {
         }
     }
 
+    @Test
+    public void testReusePortAcceptors() throws Exception {
+        Connection connection = null;
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .acceptorsCount(4)
+                .build();
+
+        try {
+            final TCPNIOServerConnection serverConnection = transport.bind(PORT);
+            transport.start();
+
+            for (int i = 0; i < 8; i++) {
+                Future<Connection> future = transport.connect("localhost", PORT);
+                connection = future.get(10, TimeUnit.SECONDS);
+                assertTrue(connection != null);
+                connection.closeSilently();
+            }
+
+            // all the acceptors have to be unbound together
+            transport.unbind(serverConnection);
+
+            Future<Connection> future = transport.connect("localhost", PORT);
+            try {
+                connection = future.get(10, TimeUnit.SECONDS);
+                assertTrue("Server connection should be closed!", false);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
     @Test
     public void testClose() throws Exception {
         final BlockingQueue<Connection> acceptedQueue = new LinkedTransferQueue<>();
@@ -695,6 +755,945 @@ public class TCPNIOTransportTest {
         }
     }
 
+    @Test
+    public void testLeastLoadedDistributor() throws Exception {
+        final List<Connection> connections = new ArrayList<Connection>();
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setNIOChannelDistributor(
+                new LeastLoadedConnectionDistributor(transport));
+        transport.setSelectorRunnersCount(4);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            for (int i = 0; i < 12; i++) {
+                Future<Connection> future = transport.connect("localhost", PORT);
+                final Connection connection = future.get(10, TimeUnit.SECONDS);
+                assertTrue(connection != null);
+                connections.add(connection);
+            }
+
+            // 1 server + 12 client + 12 accepted channels
+            final int[] load = transport.getSelectorRunnersLoad();
+            assertEquals(4, load.length);
+            for (int i = 0; i < load.length; i++) {
+                assertTrue("Runner #" + i + " has no channels assigned: "
+                        + Arrays.toString(load), load[i] > 0);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAdaptiveReceiveBufferSizePredictor() throws Exception {
+        final ReceiveBufferSizePredictor predictor =
+                new AdaptiveReceiveBufferSizePredictor(64, 1024, 65536);
+        assertEquals(1024, predictor.nextReceiveBufferSize());
+
+        // full reads grow the buffer up to the maximum
+        int size = predictor.nextReceiveBufferSize();
+        for (int i = 0; i < 16; i++) {
+            predictor.onRead(predictor.nextReceiveBufferSize());
+            assertTrue(predictor.nextReceiveBufferSize() >= size);
+            size = predictor.nextReceiveBufferSize();
+        }
+        assertEquals(65536, predictor.nextReceiveBufferSize());
+
+        // single small read doesn't shrink the buffer
+        predictor.onRead(10);
+        assertEquals(65536, predictor.nextReceiveBufferSize());
+
+        // repeated small reads shrink it down to the minimum
+        for (int i = 0; i < 256; i++) {
+            predictor.onRead(10);
+        }
+        assertEquals(64, predictor.nextReceiveBufferSize());
+    }
+
+    @Test
+    public void testAdaptiveReceiveBufferEcho() throws Exception {
+        Connection connection = null;
+
+        final AtomicInteger maxPredictedSize = new AtomicInteger();
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final int predicted = ((TCPNIOConnection) ctx.getConnection())
+                                .getReceiveBufferSizePredictor()
+                                .nextReceiveBufferSize();
+                        if (predicted > maxPredictedSize.get()) {
+                            maxPredictedSize.set(predicted);
+                        }
+                        return ctx.getInvokeAction();
+                    }
+                })
+                .add(new StringFilter())
+                .add(new EchoFilter());
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .memoryManager(new HeapMemoryManager())
+                .receiveBufferSizePredictorFactory(
+                        AdaptiveReceiveBufferSizePredictor.factory(64, 64, 65536))
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(new StringFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            connection.configureBlocking(true);
+
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                final String testString = sb.toString() + "Hello #" + i;
+                connection.write(testString);
+
+                final String inString = inQueueFilter.poll(10, TimeUnit.SECONDS);
+                assertEquals(testString, inString);
+
+                for (int j = 0; j < 4096; j++) {
+                    sb.append((char) ('a' + j % 26));
+                }
+            }
+
+            assertTrue("Receive buffer size wasn't adapted: " + maxPredictedSize,
+                    maxPredictedSize.get() > 64);
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadBudget() throws Exception {
+        Connection connection = null;
+
+        final AtomicInteger maxMessageSize = new AtomicInteger();
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final int size = ((Buffer) ctx.getMessage()).remaining();
+                        if (size > maxMessageSize.get()) {
+                            maxMessageSize.set(size);
+                        }
+                        return ctx.getInvokeAction();
+                    }
+                })
+                .add(new StringFilter())
+                .add(new EchoFilter());
+
+        final int readBufferSize = 1024;
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .readBudget(4, 1024 * 1024)
+                .build();
+        transport.setReadBufferSize(readBufferSize);
+        transport.setFilterChain(serverChainBuilder.build());
+
+        final AtomicInteger exhaustedCounter = new AtomicInteger();
+        final AtomicInteger exhaustedIterations = new AtomicInteger();
+        transport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+            @Override
+            public void onReadBudgetExhaustedEvent(Transport transport,
+                    Connection connection, int iterations, int bytesRead) {
+                exhaustedIterations.set(iterations);
+                exhaustedCounter.incrementAndGet();
+            }
+        });
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(new StringFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 256 * 1024; i++) {
+                sb.append((char) ('a' + i % 26));
+            }
+            final String testString = sb.toString();
+
+            connection.write(testString);
+
+            final String inString = inQueueFilter.poll(10, TimeUnit.SECONDS);
+            assertEquals(testString, inString);
+
+            assertTrue("Several reads were expected per READ event",
+                    maxMessageSize.get() > readBufferSize);
+            assertTrue("Read budget was never exhausted",
+                    exhaustedCounter.get() > 0);
+            assertEquals(4, exhaustedIterations.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteCorking() throws Exception {
+        Connection connection = null;
+
+        final int chunksNum = 10;
+        final CountDownLatch completedWrites = new CountDownLatch(chunksNum);
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final MemoryManager mm = ctx.getMemoryManager();
+                        for (int i = 0; i < chunksNum; i++) {
+                            ctx.write(Buffers.wrap(mm, String.valueOf(i)),
+                                    new EmptyCompletionHandler<WriteResult>() {
+                                        @Override
+                                        public void completed(WriteResult result) {
+                                            completedWrites.countDown();
+                                        }
+                                    });
+                        }
+                        return ctx.getStopAction();
+                    }
+                });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .writeCorkingEnabled(true)
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        final AtomicInteger writes = new AtomicInteger();
+        transport.getConnectionMonitoringConfig().addProbes(new ConnectionProbe.Adapter() {
+            @Override
+            public void onWriteEvent(Connection connection, Buffer data, long size) {
+                writes.incrementAndGet();
+            }
+        });
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BufferInQueueFilter inQueueFilter = new BufferInQueueFilter(chunksNum);
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            connection.write(Buffers.wrap(transport.getMemoryManager(), "Hello"))
+                    .get(10, TimeUnit.SECONDS);
+
+            final Buffer response = inQueueFilter.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals("0123456789", response.toStringContent());
+
+            assertTrue(completedWrites.await(10, TimeUnit.SECONDS));
+            // one client write + one server write
+            assertEquals("Corked chunks were expected to be written at once",
+                    2, writes.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteCorkingOtherThreadWrite() throws Exception {
+        Connection connection = null;
+
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(final FilterChainContext ctx)
+                            throws IOException {
+                        final MemoryManager mm = ctx.getMemoryManager();
+                        ctx.write(Buffers.wrap(mm, "0"));
+                        
+                        // the write from another thread is not corked, but
+                        // it may not overtake the corked data
+                        final Thread writer = new Thread() {
+                            @Override
+                            public void run() {
+                                ctx.getConnection().write(Buffers.wrap(mm, "1"));
+                            }
+                        };
+                        writer.start();
+                        try {
+                            writer.join();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        
+                        ctx.write(Buffers.wrap(mm, "2"));
+                        return ctx.getStopAction();
+                    }
+                });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .writeCorkingEnabled(true)
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BufferInQueueFilter inQueueFilter = new BufferInQueueFilter(3);
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            connection.write(Buffers.wrap(transport.getMemoryManager(), "Hello"))
+                    .get(10, TimeUnit.SECONDS);
+
+            final Buffer response = inQueueFilter.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals("012", response.toStringContent());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParkingBlockingIO() throws Exception {
+        Connection connection = null;
+
+        final BlockingQueue<Object> serverResultQueue = new LinkedTransferQueue<>();
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new StringFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final String first = ctx.getMessage();
+                        serverResultQueue.add(first);
+
+                        final Connection c = ctx.getConnection();
+                        c.setBlockingReadTimeout(2, TimeUnit.SECONDS);
+                        
+                        final String second;
+                        try {
+                            final ReadResult rr = ctx.read();
+                            second = (String) rr.getMessage();
+                            rr.recycle();
+                        } catch (IOException e) {
+                            serverResultQueue.add(e);
+                            return ctx.getStopAction();
+                        }
+                        
+                        // big enough to fill up the socket send buffer
+                        final StringBuilder sb = new StringBuilder();
+                        while (sb.length() < 4 * 1024 * 1024) {
+                            sb.append(first).append(second);
+                        }
+                        
+                        ctx.write(sb.toString(), true);
+                        serverResultQueue.add(second);
+                        
+                        return ctx.getStopAction();
+                    }
+                });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .parkingBlockingIOEnabled(true)
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(new StringFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            for (int i = 0; i < 3; i++) {
+                connection.write("Hello#" + i);
+                assertEquals("Hello#" + i,
+                        serverResultQueue.poll(10, TimeUnit.SECONDS));
+                
+                // the server thread is parked in the blocking read
+                Thread.sleep(50);
+                
+                connection.write("World#" + i);
+                assertEquals("World#" + i,
+                        serverResultQueue.poll(10, TimeUnit.SECONDS));
+                
+                final String response = inQueueFilter.poll(10, TimeUnit.SECONDS);
+                assertNotNull(response);
+                assertTrue(response.startsWith("Hello#" + i + "World#" + i));
+                assertTrue(response.length() >= 4 * 1024 * 1024);
+            }
+            
+            // the blocking read has to time out
+            connection.write("Hello");
+            assertEquals("Hello", serverResultQueue.poll(10, TimeUnit.SECONDS));
+            final Object result = serverResultQueue.poll(10, TimeUnit.SECONDS);
+            assertTrue("Unexpected result: " + result, result instanceof IOException);
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnixDomainSocketEcho() throws Exception {
+        assumeTrue("Unix domain sockets are not supported",
+                UnixDomainSockets.isSupported());
+        
+        Connection connection = null;
+
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new StringFilter())
+                .add(new EchoFilter());
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        final Path socketFile = Files.createTempDirectory("grizzly-uds")
+                .resolve("echo.sock");
+        final SocketAddress address = UnixDomainSockets.address(socketFile);
+        
+        try {
+            final TCPNIOServerConnection serverConnection = transport.bind(address);
+            transport.start();
+            
+            assertTrue(Files.exists(socketFile));
+            assertEquals(socketFile, UnixDomainSockets.getPath(
+                    serverConnection.getLocalAddress()));
+
+            final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(new StringFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(address);
+
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+            assertTrue(UnixDomainSockets.isUnixDomainSocketAddress(
+                    (SocketAddress) connection.getPeerAddress()));
+
+            for (int i = 0; i < 10; i++) {
+                final String testString = "Hello #" + i;
+                connection.write(testString);
+                
+                assertEquals(testString, inQueueFilter.poll(10, TimeUnit.SECONDS));
+            }
+            
+            connection.closeSilently();
+            connection = null;
+            
+            transport.unbind(serverConnection);
+            assertTrue("Socket file wasn't removed", !Files.exists(socketFile));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+            Files.deleteIfExists(socketFile);
+            Files.deleteIfExists(socketFile.getParent());
+        }
+    }
+
+    @Test
+    public void testSelectorWorkerGroups() throws Exception {
+        final int runnersCount = 2;
+        final int groupSize = 2;
+        
+        // group threads, registered by the thread factory hook
+        final List<Set<Thread>> groupThreads = new ArrayList<Set<Thread>>();
+        for (int i = 0; i < runnersCount; i++) {
+            groupThreads.add(Collections.newSetFromMap(
+                    new ConcurrentHashMap<Thread, Boolean>()));
+        }
+        
+        final AtomicInteger misplacedEvents = new AtomicInteger();
+        final AtomicInteger processedEvents = new AtomicInteger();
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final SelectorRunner runner = ((NIOConnection)
+                                ctx.getConnection()).getSelectorRunner();
+                        final String poolName = ((GrizzlyExecutorService)
+                                runner.getWorkerThreadPool())
+                                .getConfiguration().getPoolName();
+                        final int index = Integer.parseInt(
+                                poolName.substring(poolName.lastIndexOf('-') + 1));
+                        
+                        if (!groupThreads.get(index).contains(Thread.currentThread())) {
+                            misplacedEvents.incrementAndGet();
+                        }
+                        
+                        processedEvents.incrementAndGet();
+                        return ctx.getInvokeAction();
+                    }
+                })
+                .add(new EchoFilter());
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .selectorRunnersCount(runnersCount)
+                .workerGroupSize(groupSize)
+                .workerGroupThreadFactory(new WorkerGroupThreadFactory() {
+                    @Override
+                    public ThreadFactory createThreadFactory(final int groupIndex,
+                            final ThreadPoolConfig groupConfig) {
+                        final AtomicInteger counter = new AtomicInteger();
+                        return new ThreadFactory() {
+                            @Override
+                            public Thread newThread(final Runnable r) {
+                                final Thread t = new DefaultWorkerThread(
+                                        AttributeBuilder.DEFAULT_ATTRIBUTE_BUILDER,
+                                        groupConfig.getPoolName() + '(' + counter.incrementAndGet() + ')',
+                                        null, r);
+                                groupThreads.get(groupIndex).add(t);
+                                return t;
+                            }
+                        };
+                    }
+                })
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        final List<Connection> connections = new ArrayList<Connection>();
+        try {
+            transport.bind(PORT);
+            transport.start();
+            
+            for (Set<Thread> threads : groupThreads) {
+                assertEquals(groupSize, threads.size());
+            }
+
+            final int connectionsCount = 8;
+            final int messagesCount = 5;
+            for (int i = 0; i < connectionsCount; i++) {
+                final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+                final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                        .add(new TransportFilter())
+                        .add(new StringFilter())
+                        .add(inQueueFilter);
+
+                final TCPNIOConnectorHandler connectorHandler =
+                        TCPNIOConnectorHandler.builder(transport)
+                        .filterChain(clientChainBuilder.build())
+                        .build();
+
+                final Connection connection = connectorHandler.connect(
+                        new InetSocketAddress("localhost", PORT)).get(10, TimeUnit.SECONDS);
+                connections.add(connection);
+                
+                for (int j = 0; j < messagesCount; j++) {
+                    final String message = "Hello#" + i + "-" + j;
+                    connection.write(message);
+                    assertEquals(message, inQueueFilter.poll(10, TimeUnit.SECONDS));
+                }
+            }
+            
+            assertTrue(processedEvents.get() >= connectionsCount * messagesCount);
+            assertEquals(0, misplacedEvents.get());
+        } finally {
+            for (Connection connection : connections) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSelectorBusyPoll() throws Exception {
+        Connection connection = null;
+
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new EchoFilter());
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .selectorRunnersCount(1)
+                .selectorSpinTime(20, TimeUnit.MILLISECONDS)
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+        
+        assertEquals(20000, transport.getSelectorSpinTime(TimeUnit.MICROSECONDS));
+
+        final AtomicInteger spinCounter = new AtomicInteger();
+        final AtomicInteger parkCounter = new AtomicInteger();
+        transport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+            @Override
+            public void onSelectorSpinEvent(Transport transport,
+                    long spinTimeNanos, boolean isParked) {
+                spinCounter.incrementAndGet();
+                if (isParked) {
+                    parkCounter.incrementAndGet();
+                }
+            }
+        });
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final InQueueFilter<String> inQueueFilter = new InQueueFilter<String>();
+            final FilterChainBuilder clientChainBuilder = FilterChainBuilder.newInstance()
+                    .add(new TransportFilter())
+                    .add(new StringFilter())
+                    .add(inQueueFilter);
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .filterChain(clientChainBuilder.build())
+                    .build();
+
+            // the channel registration task is added while the runner is spinning
+            connection = connectorHandler.connect(new InetSocketAddress(
+                    "localhost", PORT)).get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            for (int i = 0; i < 10; i++) {
+                connection.write("Hello#" + i);
+                assertEquals("Hello#" + i, inQueueFilter.poll(10, TimeUnit.SECONDS));
+            }
+            
+            // let the spin phase expire
+            Thread.sleep(100);
+            connection.write("World");
+            assertEquals("World", inQueueFilter.poll(10, TimeUnit.SECONDS));
+            
+            assertTrue(spinCounter.get() > 0);
+            assertTrue(parkCounter.get() > 0);
+            assertTrue(parkCounter.get() < spinCounter.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteQueueBackPressure() throws Exception {
+        final int amplifier = 256;
+        final int requestSize = 16 * 1024;
+        
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final Buffer request = ctx.getMessage();
+                        final byte[] response =
+                                new byte[request.remaining() * amplifier];
+                        request.tryDispose();
+                        
+                        ctx.write(Buffers.wrap(
+                                ctx.getMemoryManager(), response));
+                        return ctx.getStopAction();
+                    }
+                });
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .writeQueueWaterMarks(64 * 1024, 256 * 1024)
+                .build();
+        transport.setWriteBufferSize(8192);
+        transport.setFilterChain(serverChainBuilder.build());
+        
+        assertEquals(64 * 1024, transport.getWriteQueueLowWaterMark());
+        assertEquals(256 * 1024, transport.getWriteQueueHighWaterMark());
+
+        final CountDownLatch highWaterMarkLatch = new CountDownLatch(1);
+        final CountDownLatch lowWaterMarkLatch = new CountDownLatch(1);
+        final AtomicInteger highWaterMarkCounter = new AtomicInteger();
+        final AtomicInteger lowWaterMarkCounter = new AtomicInteger();
+        final BlockingQueue<Boolean> suspendedStates =
+                new LinkedTransferQueue<Boolean>();
+        transport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+            @Override
+            public void onWriteQueueHighWaterMarkEvent(Transport transport,
+                    Connection connection, int queueSize) {
+                highWaterMarkCounter.incrementAndGet();
+                suspendedStates.offer(queueSize > 256 * 1024
+                        && ((NIOConnection) connection).isReadSuspended());
+                highWaterMarkLatch.countDown();
+            }
+
+            @Override
+            public void onWriteQueueLowWaterMarkEvent(Transport transport,
+                    Connection connection, int queueSize) {
+                lowWaterMarkCounter.incrementAndGet();
+                suspendedStates.offer(queueSize <= 64 * 1024
+                        && !((NIOConnection) connection).isReadSuspended());
+                lowWaterMarkLatch.countDown();
+            }
+        });
+
+        Socket socket = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket = new Socket();
+            socket.setReceiveBufferSize(8192);
+            socket.connect(new InetSocketAddress("localhost", PORT));
+            
+            // the client sends the requests, but doesn't read the responses
+            final byte[] request = new byte[1024];
+            for (int i = 0; i < requestSize / request.length; i++) {
+                socket.getOutputStream().write(request);
+                socket.getOutputStream().flush();
+            }
+            
+            assertTrue("High-water mark was never reached",
+                    highWaterMarkLatch.await(10, TimeUnit.SECONDS));
+            assertTrue(suspendedStates.poll(10, TimeUnit.SECONDS));
+            
+            final InputStream in = socket.getInputStream();
+            final byte[] buf = new byte[8192];
+            long remaining = (long) requestSize * amplifier;
+            while (remaining > 0) {
+                final int read = in.read(buf);
+                if (read == -1) {
+                    fail("Unexpected EOF, remaining=" + remaining);
+                }
+                remaining -= read;
+            }
+            
+            assertTrue("Low-water mark was never reached",
+                    lowWaterMarkLatch.await(10, TimeUnit.SECONDS));
+            
+            // every suspension has been released
+            assertEquals(highWaterMarkCounter.get(), lowWaterMarkCounter.get());
+            Boolean state;
+            while ((state = suspendedStates.poll()) != null) {
+                assertTrue(state);
+            }
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnbalancedResumeRead() throws Exception {
+        Connection connection = null;
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            Future<Connection> future = transport.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+            final NIOConnection nioConnection = (NIOConnection) connection;
+            
+            nioConnection.suspendRead();
+            nioConnection.suspendRead();
+            nioConnection.resumeRead();
+            assertTrue(nioConnection.isReadSuspended());
+            nioConnection.resumeRead();
+            assertFalse(nioConnection.isReadSuspended());
+            
+            try {
+                nioConnection.resumeRead();
+                fail("IllegalStateException is expected");
+            } catch (IllegalStateException expected) {
+            }
+            
+            // the unbalanced call doesn't break the suspensions counting
+            nioConnection.suspendRead();
+            assertTrue(nioConnection.isReadSuspended());
+            nioConnection.resumeRead();
+            assertFalse(nioConnection.isReadSuspended());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParkingBlockingWriteInterest() throws Exception {
+        final int size = 4 * 1024 * 1024;
+        final BlockingQueue<Object> serverResultQueue = new LinkedTransferQueue<>();
+        final FilterChainBuilder serverChainBuilder = FilterChainBuilder.newInstance()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        final NIOConnection c = (NIOConnection) ctx.getConnection();
+                        serverResultQueue.add(c);
+                        
+                        final Buffer response = Buffers.wrap(
+                                c.getMemoryManager(), new byte[size]);
+                        ctx.write(response, true);
+                        serverResultQueue.add(Boolean.TRUE);
+                        
+                        return ctx.getStopAction();
+                    }
+                });
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .parkingBlockingIOEnabled(true)
+                .build();
+        transport.setFilterChain(serverChainBuilder.build());
+
+        Socket socket = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket = new Socket("localhost", PORT);
+            socket.getOutputStream().write(1);
+            
+            final NIOConnection serverConnection = (NIOConnection)
+                    serverResultQueue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(serverConnection);
+            final SelectionKey key = serverConnection.getSelectionKey();
+            
+            // the client doesn't read, so the server writer gets parked
+            // waiting for OP_WRITE
+            Thread.sleep(200);
+            assertTrue((key.interestOps() & SelectionKey.OP_WRITE) != 0);
+            
+            final InputStream is = socket.getInputStream();
+            final byte[] buf = new byte[8192];
+            int total = 0;
+            while (total < size) {
+                final int n = is.read(buf);
+                assertTrue(n > 0);
+                total += n;
+            }
+            
+            assertEquals(Boolean.TRUE, serverResultQueue.poll(10, TimeUnit.SECONDS));
+            
+            // once the parked write is done, OP_WRITE must not stay registered
+            final long deadline = System.currentTimeMillis() + 5000;
+            while ((key.interestOps() & SelectionKey.OP_WRITE) != 0
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            
+            assertEquals(0, key.interestOps() & SelectionKey.OP_WRITE);
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
     @Test
     public void testConnectFutureCancel() throws Exception {
         TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
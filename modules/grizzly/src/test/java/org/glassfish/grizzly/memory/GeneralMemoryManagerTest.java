@@ -45,7 +45,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.InvalidMarkException;
+import java.util.Arrays;
 
 import org.glassfish.grizzly.Buffer;
 
@@ -116,6 +118,93 @@ public class GeneralMemoryManagerTest extends AbstractMemoryManagerTest {
         }
     }
 
+    @Test
+    public void testBufferIndexOf() {
+        final int size = 67;
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 7 == 0 ? '\r' : i % 11 == 0 ? '\n' : 'a' + i % 26);
+        }
+        data[40] = (byte) 0x80;
+        data[41] = '\n';
+
+        final Buffer heapOrDirect = mm.allocate(size);
+        heapOrDirect.put(data).flip();
+
+        final ByteBuffer littleEndian = ByteBuffer.allocateDirect(size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        littleEndian.put(data).flip();
+
+        // split the data between several buffers of different types
+        final Buffer composite = Buffers.appendBuffers(mm,
+                Buffers.wrap(mm, Arrays.copyOfRange(data, 0, 5)),
+                Buffers.appendBuffers(mm,
+                        Buffers.wrap(mm, Arrays.copyOfRange(data, 5, 30)),
+                        new ByteBufferWrapper(ByteBuffer.wrap(data, 30, size - 30).slice())));
+
+        final Buffer[] buffers = {
+            heapOrDirect,
+            new ByteBufferWrapper(littleEndian),
+            composite
+        };
+
+        final byte[] needles = {'\r', '\n', 'a', 'z', (byte) 0x80, 0};
+        for (Buffer buffer : buffers) {
+            for (int from = 0; from <= size; from++) {
+                for (int to = from; to <= size; to++) {
+                    for (byte needle : needles) {
+                        assertEquals(indexOf(data, from, to, needle, needle),
+                                buffer.indexOf(needle, from, to));
+                    }
+                    
+                    assertEquals(indexOf(data, from, to, (byte) '\r', (byte) '\n'),
+                            buffer.indexOf((byte) '\r', (byte) '\n', from, to));
+                    assertEquals(indexOfCRLF(data, from, to),
+                            buffer.indexOfCRLF(from, to));
+                }
+            }
+        }
+
+        try {
+            heapOrDirect.indexOf((byte) 'a', 0, size + 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testBufferMismatch() {
+        final byte[] data = "--boundary-0123456789-abcdefghijklmnopqrstuvwxyz--".getBytes();
+        final int size = data.length;
+
+        final Buffer heapOrDirect = mm.allocate(size);
+        heapOrDirect.put(data).flip();
+
+        final Buffer composite = Buffers.appendBuffers(mm,
+                Buffers.wrap(mm, Arrays.copyOfRange(data, 0, 3)),
+                Buffers.wrap(mm, Arrays.copyOfRange(data, 3, size)));
+
+        for (Buffer buffer : new Buffer[] {heapOrDirect, composite}) {
+            for (int index = 0; index < size; index++) {
+                for (int len = 0; len <= size - index; len++) {
+                    // equal regions
+                    assertEquals(-1, buffer.mismatch(index, data, index, len));
+
+                    // the last byte differs
+                    if (len > 0) {
+                        final byte[] copy = Arrays.copyOfRange(data, index, index + len);
+                        copy[len - 1]++;
+                        assertEquals(len - 1, buffer.mismatch(index, copy, 0, len));
+                    }
+                }
+            }
+
+            // the buffer is shorter than the array
+            assertEquals(2, buffer.mismatch(size - 2,
+                    new byte[] {'-', '-', '\r', '\n'}, 0, 4));
+        }
+    }
+
     @Test
     public void testBufferSlice() {
         Buffer b = mm.allocate(10);
@@ -144,4 +233,25 @@ public class GeneralMemoryManagerTest extends AbstractMemoryManagerTest {
         assertMarkExceptionThrown(newBuffer);
     }
 
+
+    private static int indexOf(final byte[] data, final int from, final int to,
+            final byte b1, final byte b2) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b1 || data[i] == b2) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+
+    private static int indexOfCRLF(final byte[] data, final int from, final int to) {
+        for (int i = from; i < to - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import org.glassfish.grizzly.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link MappedFileBuffer} test set.
+ */
+public class MappedFileBufferTest {
+    private static final int FILE_SIZE = 16384;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("grizzly-mapped", ".tmp");
+        final byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+
+    // ------------------------------------------------------------ Test Methods
+
+
+    @Test
+    public void testContent() throws IOException {
+        final Buffer buffer = MappedFileBuffer.map(file);
+        assertTrue(buffer instanceof MappedFileBuffer);
+        assertEquals(FILE_SIZE, buffer.remaining());
+        assertTrue(buffer.isReadOnly());
+
+        for (int i = 0; i < FILE_SIZE; i++) {
+            assertEquals("Mismatch at " + i, (byte) i, buffer.get(i));
+        }
+
+        try {
+            buffer.put(0, (byte) 1);
+            fail("ReadOnlyBufferException is expected");
+        } catch (ReadOnlyBufferException expected) {
+        }
+
+        buffer.dispose();
+    }
+
+    @Test
+    public void testReferenceCounting() throws IOException {
+        final MappedFileBuffer buffer =
+                (MappedFileBuffer) MappedFileBuffer.map(file);
+        assertEquals(1, buffer.referenceCount());
+
+        final Buffer tail = buffer.split(FILE_SIZE / 2);
+        assertEquals(2, buffer.referenceCount());
+        assertEquals((byte) (FILE_SIZE / 2), tail.get(0));
+
+        final Buffer duplicate = buffer.duplicate();
+        final MappedFileBuffer shared = buffer.share();
+        assertNotNull(shared);
+        assertEquals(4, buffer.referenceCount());
+        assertEquals(FILE_SIZE, shared.remaining());
+        assertEquals(FILE_SIZE, shared.regionSize());
+
+        // the original buffer could be disposed, while its views are in use
+        buffer.dispose();
+        assertEquals(3, shared.referenceCount());
+        assertEquals((byte) 1, duplicate.get(1));
+        assertEquals((byte) (FILE_SIZE - 1), tail.get(tail.limit() - 1));
+
+        duplicate.dispose();
+        tail.dispose();
+        assertEquals(1, shared.referenceCount());
+
+        shared.dispose();
+        assertEquals(0, shared.referenceCount());
+        assertNull("The region has been released", shared.share());
+    }
+
+    @Test
+    public void testMapRegion() throws IOException {
+        final FileInputStream fis = new FileInputStream(file);
+        final Buffer buffer;
+        try {
+            buffer = MappedFileBuffer.map(fis.getChannel(), 1024L, 1024L);
+        } finally {
+            fis.close();
+        }
+
+        // the mapping stays valid after the channel is closed
+        assertTrue(buffer instanceof MappedFileBuffer);
+        assertEquals(1024, buffer.remaining());
+        assertEquals((byte) 1024, buffer.get(0));
+        assertEquals((byte) 2047, buffer.get(1023));
+        
+        buffer.dispose();
+    }
+}
@@ -44,6 +44,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -55,6 +56,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.attributes.AttributeBuilder;
+import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -914,6 +917,427 @@ public class PooledMemoryManagerTest {
     }
 
 
+    @Test
+    public void testReferenceCount() {
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                        1,
+                        0,
+                        1,
+                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                        isDirect);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final ReferenceCountedBuffer b = (ReferenceCountedBuffer) mm.allocate(4096);
+        assertEquals(1, b.referenceCount());
+        
+        b.put(0, (byte) 'a');
+        b.put(2048, (byte) 'b');
+        
+        final Buffer tail = b.split(2048);
+        final Buffer slice = b.slice(0, 1024);
+        final Buffer duplicate = tail.duplicate();
+        assertEquals(4, b.referenceCount());
+        
+        // the memory is shared, not copied
+        assertEquals('a', slice.get(0));
+        assertEquals('b', duplicate.get(0));
+
+        b.tryDispose();
+        tail.tryDispose();
+        assertEquals(2, b.referenceCount());
+        
+        // disposed view can't be disposed twice
+        tail.tryDispose();
+        assertEquals(2, b.referenceCount());
+        assertEquals('b', duplicate.get(0));
+
+        slice.tryDispose();
+        assertEquals(0, probe.bufferReleasedToPool.get());
+        duplicate.tryDispose();
+        assertEquals(0, b.referenceCount());
+        assertEquals(1, probe.bufferReleasedToPool.get());
+        
+        // the buffer is reusable
+        final ReferenceCountedBuffer b2 = (ReferenceCountedBuffer) mm.allocate(4096);
+        assertEquals(1, b2.referenceCount());
+        b2.tryDispose();
+        assertEquals(2, probe.bufferReleasedToPool.get());
+    }
+
+    @Test
+    public void testDebugModeDoubleDispose() {
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                        1,
+                        0,
+                        1,
+                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                        isDirect);
+
+        final boolean oldDebugMode = PooledMemoryManager.DEBUG_MODE;
+        PooledMemoryManager.DEBUG_MODE = true;
+        try {
+            final Buffer b = mm.allocate(4096);
+            final Buffer slice = b.slice();
+            slice.tryDispose();
+            
+            try {
+                slice.tryDispose();
+                fail("IllegalStateException is expected");
+            } catch (IllegalStateException e) {
+                assertNotNull(e.getCause());
+            }
+            
+            b.tryDispose();
+        } finally {
+            PooledMemoryManager.DEBUG_MODE = oldDebugMode;
+        }
+    }
+
+    @Test
+    public void testAdaptiveRebalanceAndTrim() {
+        final PooledMemoryManager mm = PooledMemoryManager.builder()
+                .setBaseBufferSize(1024)
+                .setNumberOfPools(2)
+                .setGrowthFactor(2)
+                .setNumberOfPoolSlices(1)
+                .setPercentOfHeap(0.001f)
+                .setDirect(isDirect)
+                .setAdaptive(true)
+                .setRebalanceInterval(1, TimeUnit.HOURS)
+                .setIdleTrimTimeout(1, TimeUnit.MINUTES)
+                .build();
+        assertTrue(mm.isAdaptive());
+        
+        final PooledMemoryManager.Pool smallPool = mm.getPools()[0];
+        final PooledMemoryManager.Pool largePool = mm.getPools()[1];
+        final long smallPoolSize = smallPool.getMaxSize();
+        final long largePoolSize = largePool.getMaxSize();
+        final int largePoolElements = largePool.elementsCount();
+        
+        // exhaust the large pool and make it allocate unpooled buffers
+        final int misses = 16;
+        final Buffer[] buffers = new Buffer[largePoolElements + misses];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(4096);
+        }
+        
+        final long now = System.currentTimeMillis();
+        mm.getAdaptiveSizing().rebalance(now);
+        
+        // the idle small pool donated memory to the large one
+        assertTrue(smallPool.getMaxSize() < smallPoolSize);
+        assertTrue(largePool.getMaxSize() > largePoolSize);
+        assertTrue(smallPool.getMaxSize() + largePool.getMaxSize()
+                <= smallPoolSize + largePoolSize);
+        assertEquals(smallPool.getMaxSize(), smallPool.size());
+        
+        for (Buffer buffer : buffers) {
+            buffer.tryDispose();
+        }
+        
+        // the large pool retains more buffers now
+        assertTrue(largePool.elementsCount() > largePoolElements);
+        
+        // nothing is trimmed before the quiet period expires
+        mm.getAdaptiveSizing().rebalance(now + 1000);
+        assertTrue(smallPool.elementsCount() > 0);
+        assertTrue(largePool.elementsCount() > 0);
+        
+        mm.getAdaptiveSizing().rebalance(now + TimeUnit.MINUTES.toMillis(1));
+        assertEquals(0, smallPool.elementsCount());
+        assertEquals(0, largePool.elementsCount());
+        
+        // trimmed pools are still operational
+        final Buffer b = mm.allocate(4096);
+        b.tryDispose();
+        assertEquals(1, largePool.elementsCount());
+        
+        // the rebalancer thread is gone with the last adaptive manager
+        assertTrue(PooledMemoryManager.AdaptiveSizingTask.isSchedulerRunning());
+        mm.stopAdaptiveSizing();
+        assertFalse(PooledMemoryManager.AdaptiveSizingTask.isSchedulerRunning());
+        mm.stopAdaptiveSizing();
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        final PooledMemoryManager mm = PooledMemoryManager.builder()
+                .setNumberOfPools(1)
+                .setNumberOfPoolSlices(1)
+                .setPercentOfHeap(0.001f)
+                .setDirect(isDirect)
+                .setLeakDetectionSamplingRate(1.0f)
+                .build();
+        assertEquals(1.0f, mm.getLeakDetectionSamplingRate(), 0.0f);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+        
+        final BufferLeakDetector leakDetector = mm.getLeakDetector();
+
+        // properly disposed buffers are not tracked anymore
+        final Buffer b = mm.allocate(1024);
+        b.split(512).tryDispose();
+        b.tryDispose();
+        assertEquals(0, leakDetector.getTrackedCount());
+        
+        // leak a buffer
+        mm.allocate(1024).put((byte) 1);
+        assertEquals(1, leakDetector.getTrackedCount());
+        
+        final Map<String, Long> sites = mm.getAllocationSites();
+        assertEquals(1, sites.size());
+        // both allocations come from the same call site
+        assertEquals(2L, sites.values().iterator().next().longValue());
+        
+        for (int i = 0; i < 50 && probe.bufferLeaked.get() == 0; i++) {
+            System.gc();
+            Thread.sleep(100);
+            leakDetector.reportLeaks();
+        }
+        
+        assertEquals(1, probe.bufferLeaked.get());
+        assertEquals(0, leakDetector.getTrackedCount());
+    }
+
+    @Test
+    public void testMagazineAllocationAndDispose() throws Exception {
+        final int magazineSize = 8;
+        final int magazineBatchSize = 4;
+        
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                                        1,
+                                        0,
+                                        1,
+                                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                                        isDirect,
+                                        magazineSize,
+                                        magazineBatchSize);
+        assertEquals(magazineSize, mm.getMagazineSize());
+        assertEquals(magazineBatchSize, mm.getMagazineBatchSize());
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final PooledMemoryManager.Pool pool = mm.getPools()[0];
+        final int maxElements = pool.getSlices()[0].getMaxElementsCount();
+
+        final PooledMemoryManager mmFinal = mm;
+        final Throwable[] error = new Throwable[1];
+        final Thread t = new DefaultWorkerThread(
+                AttributeBuilder.DEFAULT_ATTRIBUTE_BUILDER,
+                "magazine", null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    doMagazineAllocationAndDispose();
+                } catch (Throwable e) {
+                    error[0] = e;
+                }
+            }
+            
+            private void doMagazineAllocationAndDispose() {
+                // the 1st allocation refills the empty magazine with a batch
+                Buffer b = mmFinal.allocate(4096);
+                assertEquals(magazineBatchSize - 1, pool.magazineElementsCount());
+                assertEquals(maxElements - magazineBatchSize, pool.elementsCount());
+
+                // the buffer is returned to the magazine, slices are not touched
+                b.tryDispose();
+                assertEquals(magazineBatchSize, pool.magazineElementsCount());
+                assertEquals(maxElements - magazineBatchSize, pool.elementsCount());
+                assertEquals(1, probe.bufferAllocatedFromPool.get());
+                assertEquals(1, probe.bufferReleasedToPool.get());
+
+                final int count = magazineSize * 3;
+                final Buffer[] buffers = new Buffer[count];
+                for (int i = 0; i < count; i++) {
+                    buffers[i] = mmFinal.allocate(4096);
+                }
+        
+                assertEquals(maxElements - count, pool.elementsCount()
+                        + pool.magazineElementsCount());
+        
+                for (int i = 0; i < count; i++) {
+                    buffers[i].tryDispose();
+                    assertTrue(pool.magazineElementsCount() <= magazineSize);
+                }
+
+                // overflowing buffers are flushed back to the slices in batches
+                assertEquals(maxElements, pool.elementsCount()
+                        + pool.magazineElementsCount());
+                assertEquals(count + 1, probe.bufferAllocatedFromPool.get());
+                assertEquals(count + 1, probe.bufferReleasedToPool.get());
+                assertEquals(0, probe.bufferAllocated.get());
+            }
+        });
+        t.start();
+        t.join(10000);
+        
+        if (error[0] != null) {
+            throw new AssertionError(error[0]);
+        }
+        
+        // the magazine is drained, once the thread is gone
+        assertEquals(maxElements, pool.elementsCount());
+
+        // non-Grizzly threads don't cache buffers
+        mm.allocate(4096).tryDispose();
+        assertEquals(0, pool.magazineElementsCount());
+        assertEquals(maxElements, pool.elementsCount());
+    }
+
+    @Test
+    public void testMagazineTrim() throws Exception {
+        PooledMemoryManager mm =
+                new PooledMemoryManager(DEFAULT_BASE_BUFFER_SIZE,
+                                        1,
+                                        0,
+                                        1,
+                                        DEFAULT_HEAP_USAGE_PERCENTAGE,
+                                        DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                                        isDirect,
+                                        8,
+                                        4);
+
+        final PooledMemoryManager.Pool pool = mm.getPools()[0];
+        final int maxElements = pool.getSlices()[0].getMaxElementsCount();
+
+        final PooledMemoryManager mmFinal = mm;
+        final CountDownLatch cachedLatch = new CountDownLatch(1);
+        final CountDownLatch trimmedLatch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        final Thread t = new DefaultWorkerThread(
+                AttributeBuilder.DEFAULT_ATTRIBUTE_BUILDER,
+                "magazine-trim", null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mmFinal.allocate(4096).tryDispose();
+                    assertEquals(4, pool.magazineElementsCount());
+                    cachedLatch.countDown();
+                    
+                    assertTrue(trimmedLatch.await(10, TimeUnit.SECONDS));
+                    // the magazine is emptied on the next access
+                    assertEquals(0, pool.magazineElementsCount());
+                    assertEquals(0, pool.elementsCount());
+                    
+                    // and it's refilled as usual
+                    mmFinal.allocate(4096).tryDispose();
+                    assertEquals(1, pool.magazineElementsCount());
+                } catch (Throwable e) {
+                    error[0] = e;
+                }
+            }
+        });
+        t.start();
+        
+        assertTrue(cachedLatch.await(10, TimeUnit.SECONDS));
+        assertEquals(maxElements - 4, pool.elementsCount());
+        pool.trim();
+        trimmedLatch.countDown();
+        t.join(10000);
+        
+        if (error[0] != null) {
+            throw new AssertionError(error[0]);
+        }
+    }
+
+    @Test
+    public void testInvalidMagazineArguments() {
+        try {
+            new PooledMemoryManager(1024, 1, 0, 1, DEFAULT_HEAP_USAGE_PERCENTAGE,
+                    DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect, -1, -1);
+            fail();
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+
+        try {
+            new PooledMemoryManager(1024, 1, 0, 1, DEFAULT_HEAP_USAGE_PERCENTAGE,
+                    DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect, 4, 8);
+            fail();
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+
+    @Test
+    public void testThreadAffinity() throws Exception {
+        final int numberOfSlices = 4;
+        
+        PooledMemoryManager mm = PooledMemoryManager.builder()
+                .setNumberOfPools(1)
+                .setGrowthFactor(0)
+                .setNumberOfPoolSlices(numberOfSlices)
+                .setDirect(isDirect)
+                .build();
+        assertFalse(mm.isThreadAffinity());
+        
+        mm = PooledMemoryManager.builder()
+                .setNumberOfPools(1)
+                .setGrowthFactor(0)
+                .setNumberOfPoolSlices(numberOfSlices)
+                .setDirect(isDirect)
+                .setThreadAffinity(true)
+                .build();
+        assertTrue(mm.isThreadAffinity());
+        
+        final PooledMemoryManager.PoolSlice[] slices = mm.getPools()[0].getSlices();
+        final int maxElements = slices[0].getMaxElementsCount();
+        
+        final int threadsCount = numberOfSlices * 2;
+        final PooledMemoryManager.PoolSlice[] owners =
+                new PooledMemoryManager.PoolSlice[threadsCount];
+        final ThreadLocalPool[] createdPools = new ThreadLocalPool[threadsCount];
+        final ThreadLocalPool[] memoryPools = new ThreadLocalPool[threadsCount];
+        
+        // the thread's memory pool isn't occupied by the binding
+        final HeapMemoryManager heapMM = new HeapMemoryManager();
+        
+        final PooledMemoryManager mmFinal = mm;
+        for (int i = 0; i < threadsCount; i++) {
+            final int idx = i;
+            createdPools[i] = heapMM.createThreadLocalPool();
+            final Thread t = new DefaultWorkerThread(
+                    AttributeBuilder.DEFAULT_ATTRIBUTE_BUILDER,
+                    "affinity-" + i, createdPools[i],
+                    new Runnable() {
+                @Override
+                public void run() {
+                    final Buffer b = mmFinal.allocate(4096);
+                    owners[idx] = ((PooledMemoryManager.PoolBuffer) b).owner();
+                    b.tryDispose();
+                    memoryPools[idx] =
+                            AbstractThreadLocalMemoryManager.getThreadLocalPool();
+                }
+            });
+            t.start();
+            t.join(10000);
+        }
+        
+        for (int i = 0; i < threadsCount; i++) {
+            // threads are distributed among the slices in round-robin fashion
+            assertSame(slices[i % numberOfSlices], owners[i]);
+            assertNotNull(memoryPools[i]);
+            assertSame(createdPools[i], memoryPools[i]);
+        }
+        
+        for (PooledMemoryManager.PoolSlice slice : slices) {
+            assertEquals(maxElements, slice.elementsCount());
+        }
+    }
+
+
     // ---------------------------------------------------------- Nested Classes
 
 
@@ -923,6 +1347,7 @@ public class PooledMemoryManagerTest {
         AtomicInteger bufferReleasedToPool = new AtomicInteger();
         AtomicInteger poolDepleted = new AtomicInteger();
         AtomicInteger poolRestoredToFull = new AtomicInteger();
+        AtomicInteger bufferLeaked = new AtomicInteger();
 
         @Override
         public void onBufferAllocateEvent(int size) {
@@ -948,5 +1373,10 @@ public class PooledMemoryManagerTest {
         public void onPoolRestoredToFullEvent() {
             poolRestoredToFull.incrementAndGet();
         }
+
+        @Override
+        public void onBufferLeakEvent(int size) {
+            bufferLeaked.incrementAndGet();
+        }
     }
 }
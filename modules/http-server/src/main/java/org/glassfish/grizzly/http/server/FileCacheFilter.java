@@ -56,6 +56,7 @@ import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.filecache.FileCache.CacheType;
 import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
@@ -120,19 +121,27 @@ public class FileCacheFilter extends BaseFilter {
                         isServeCompressed);
 
                 if (cacheEntry.type != CacheType.FILE) {
-                    // the payload is available in a ByteBuffer
-                    final Buffer buffer = Buffers.wrap(ctx.getMemoryManager(),
-                            cacheEntry.getByteBuffer(isServeCompressed).duplicate());
-
-                    ctx.write(HttpContent.builder(response)
-                            .content(buffer)
-                            .last(true)
-                            .build());
-
-                    return flush(ctx);
+                    // the payload is available as a shared file mapping,
+                    // the view keeps the mapping alive until it's written
+                    final Buffer buffer = cacheEntry.getBuffer(isServeCompressed);
+
+                    if (buffer != null) {
+                        ctx.write(HttpContent.builder(response)
+                                .content(buffer)
+                                .last(true)
+                                .build());
+
+                        return flush(ctx);
+                    }
+                    
+                    // the entry has been just removed from the cache
+                    return sendFileUsingBuffers(ctx, response, cacheEntry,
+                            isServeCompressed);
                 }
                 
-                return fileCache.isFileSendEnabled() && !request.isSecure()
+                // FileTransfer can't be framed by HTTP/2
+                return fileCache.isFileSendEnabled()
+                        && request.getProtocol() != Protocol.HTTP_2_0
                         ? sendFileZeroCopy(ctx, response, cacheEntry,
                             isServeCompressed)
                         : sendFileUsingBuffers(ctx, response, cacheEntry,
@@ -88,6 +88,7 @@ import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
 import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.TimingWheelDelayedExecutor;
 import org.glassfish.grizzly.utils.Futures;
 import org.glassfish.grizzly.utils.IdleTimeoutFilter;
 
@@ -260,7 +261,9 @@ public class HttpServer {
         
         configureAuxThreadPool();
 
-        delayedExecutor = new DelayedExecutor(auxExecutorService);
+        delayedExecutor = serverConfig.isTimingWheelEnabled()
+                ? new TimingWheelDelayedExecutor(auxExecutorService)
+                : new DelayedExecutor(auxExecutorService);
         delayedExecutor.start();
 
         for (final NetworkListener listener : listeners.values()) {
@@ -540,6 +543,17 @@ public class HttpServer {
     public static HttpServer createSimpleServer(final String docRoot,
                                                 final SocketAddress socketAddress) {
 
+        if (!(socketAddress instanceof InetSocketAddress)) {
+            // generic endpoint, like a Unix domain socket address
+            final HttpServer server = new HttpServer();
+            final ServerConfiguration config = server.getServerConfiguration();
+            if (docRoot != null) {
+                config.addHttpHandler(new StaticHttpHandler(docRoot), "/");
+            }
+            server.addListener(new NetworkListener("grizzly", socketAddress));
+            return server;
+        }
+        
         final InetSocketAddress inetAddr = (InetSocketAddress) socketAddress;
         return createSimpleServer(docRoot, inetAddr.getHostName(), inetAddr.getPort());
     }
@@ -40,8 +40,16 @@
 
 package org.glassfish.grizzly.http.server;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import org.glassfish.grizzly.Transport;
+import org.glassfish.grizzly.TransportProbe;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.grizzly.threadpool.Threads;
+import org.glassfish.grizzly.threadpool.VirtualThreadExecutorService;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 
 /**
  * An implementation of this interface will be  responsible for executing
@@ -95,4 +103,72 @@ public interface RequestExecutorProvider {
             return request.getContext().getConnection().getTransport().getWorkerThreadPool();
         }
     }
+
+    /**
+     * The {@link RequestExecutorProvider} implementation, which executes
+     * the user code associated with each {@link Request} on a new virtual
+     * {@link Thread}, so the user code blocking on slow downstream services,
+     * or on blocking {@link Request}/{@link Response} I/O, doesn't hold
+     * a platform {@link Thread}.
+     * If the current {@link Thread} is already a virtual one - <tt>null</tt>
+     * is returned to execute the user code on the current {@link Thread}.
+     * If the JDK doesn't support virtual threads, the implementation behaves
+     * like {@link WorkerThreadProvider}.
+     * 
+     * Each {@link Transport} (network listener) gets its own executor, which
+     * is shut down, once the {@link Transport} is stopped.
+     * 
+     * @see VirtualThreads#isSupported()
+     * @since 3.0
+     */
+    public static class VirtualThreadProvider extends WorkerThreadProvider {
+        private final ConcurrentMap<Transport, ExecutorService> executors =
+                new ConcurrentHashMap<Transport, ExecutorService>();
+        
+        @Override
+        public Executor getExecutor(final Request request) {
+            if (!VirtualThreads.isSupported()) {
+                return super.getExecutor(request);
+            }
+            
+            if (VirtualThreads.isVirtual(Thread.currentThread())) {
+                return null; // Execute in the current thread
+            }
+            
+            final Transport transport =
+                    request.getContext().getConnection().getTransport();
+            final ExecutorService executor = executors.get(transport);
+            
+            return executor != null ? executor : createExecutor(transport);
+        }
+
+        private ExecutorService createExecutor(final Transport transport) {
+            final ExecutorService executor =
+                    VirtualThreadExecutorService.createInstance(
+                            ThreadPoolConfig.newConfig()
+                            .setPoolName("Grizzly-http-request"));
+            
+            final ExecutorService existing =
+                    executors.putIfAbsent(transport, executor);
+            if (existing != null) {
+                executor.shutdown();
+                return existing;
+            }
+            
+            transport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+                @Override
+                public void onStopEvent(final Transport transport) {
+                    transport.getMonitoringConfig().removeProbes(this);
+                    
+                    final ExecutorService stoppedExecutor =
+                            executors.remove(transport);
+                    if (stoppedExecutor != null) {
+                        stoppedExecutor.shutdown();
+                    }
+                }
+            });
+            
+            return executor;
+        }
+    }
 }
@@ -53,6 +53,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.TimingWheelDelayedExecutor;
 
 /**
  * Configuration options for a particular {@link HttpServer} instance.
@@ -96,6 +98,9 @@ public class ServerConfiguration extends ServerFilterConfiguration {
      */
     private long maxPayloadRemainderToSkip = -1;
     
+    // flag, which enables/disables timing wheel based timeouts processing
+    private boolean timingWheelEnabled;
+    
     final Object handlersSync = new Object();
     
     // ------------------------------------------------------------ Constructors
@@ -371,4 +376,31 @@ public class ServerConfiguration extends ServerFilterConfiguration {
     public void setMaxPayloadRemainderToSkip(long maxPayloadRemainderToSkip) {
         this.maxPayloadRemainderToSkip = maxPayloadRemainderToSkip;
     }    
+
+    /**
+     * @return <tt>true</tt> if the server processes the timeouts (idle and
+     * keep-alive connections, suspended responses, file cache entries) using
+     * {@link TimingWheelDelayedExecutor}, or <tt>false</tt> if the default
+     * {@link DelayedExecutor} is used.
+     * 
+     * @since 3.0
+     */
+    public boolean isTimingWheelEnabled() {
+        return timingWheelEnabled;
+    }
+
+    /**
+     * Enables/disables {@link TimingWheelDelayedExecutor} usage for the server
+     * timeouts processing (idle and keep-alive connections, suspended
+     * responses, file cache entries). Unlike the default {@link DelayedExecutor},
+     * the timing wheel doesn't check all the registered elements
+     * periodically, which matters if there are lots of idle connections.
+     * The value has to be set before the server is started.
+     * 
+     * @param timingWheelEnabled <tt>true</tt> to use {@link TimingWheelDelayedExecutor}
+     * @since 3.0
+     */
+    public void setTimingWheelEnabled(boolean timingWheelEnabled) {
+        this.timingWheelEnabled = timingWheelEnabled;
+    }
 } // END ServerConfiguration
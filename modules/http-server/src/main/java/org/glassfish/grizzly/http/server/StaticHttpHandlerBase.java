@@ -53,6 +53,7 @@ import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.WriteResult;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.Protocol;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.io.NIOOutputStream;
 import org.glassfish.grizzly.http.io.OutputBuffer;
@@ -116,7 +117,8 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
     /**
      * <p>
      * Depending on {@link Response#isSendFileEnabled()} value, the method
-     * will either use zero-copy {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * will either use zero-copy {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * (memory-mapped file chunks in case of a secure connection),
      * or auxiliary buffer to send file to the remote endpoint.
      * Note that all headers necessary for the file transfer must be set prior
      * to invoking this method as this will case the HTTP header to be flushed
@@ -153,7 +155,9 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         final long length = file.length();
         response.setContentLengthLong(length);
         response.addDateHeader(Header.Date, System.currentTimeMillis());
-        if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
+        // FileTransfer can't be framed by HTTP/2
+        if (!response.isSendFileEnabled()
+                || response.getRequest().getProtocol() == Protocol.HTTP_2_0) {
             sendUsingBuffers(response, file, completionHandler);
         } else {
             sendZeroCopy(response, file, completionHandler);
@@ -57,7 +57,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
@@ -72,6 +71,7 @@ import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.util.ContentType;
 import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.memory.MappedFileBuffer;
 import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringAware;
 import org.glassfish.grizzly.monitoring.MonitoringConfig;
@@ -338,11 +338,15 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
 
         if (entry.type == FileCache.CacheType.MAPPED) {
-            subMappedMemorySize(entry.bb.remaining());
+            subMappedMemorySize(entry.plainFileSize);
         } else if (entry.type == FileCache.CacheType.HEAP) {
-            subHeapSize(entry.bb.remaining());
+            subHeapSize(entry.plainFileSize);
         }
 
+        // the memory gets unmapped as soon as the responses, which are
+        // being sent, release the entry's buffers
+        entry.releaseBuffers();
+        
         notifyProbesEntryRemoved(this, entry);
     }
 
@@ -375,12 +379,12 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     private FileCacheEntry tryMapFileToBuffer(final File file) {
         
         final long size = file.length();
-        if (size > getMaxEntrySize()) {
+        if (size > getMaxEntrySize() || size > Integer.MAX_VALUE) {
             return null;
         }
         
         final CacheType type;
-        final ByteBuffer bb;
+        final MappedFileBuffer buffer;
         FileChannel fileChannel = null;
         FileInputStream stream = null;
         try {
@@ -405,10 +409,10 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             stream = new FileInputStream(file);
             fileChannel = stream.getChannel();
 
-            bb = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer = MappedFileBuffer.map(fileChannel, 0, (int) size);
 
             if (type == CacheType.HEAP) {
-                ((MappedByteBuffer) bb).load();
+                buffer.load();
             }    
         } catch (Exception e) {
             notifyProbesError(this, e);
@@ -433,7 +437,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         final FileCacheEntry entry = new FileCacheEntry(this);
         entry.type = type;
         entry.plainFileSize = size;
-        entry.bb = bb;
+        entry.buffer = buffer;
 
         return entry;
     }
@@ -707,14 +711,14 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                     try {
                         final FileChannel cFileChannel = cFis.getChannel();
 
-                        final MappedByteBuffer compressedBb = cFileChannel.map(
-                                FileChannel.MapMode.READ_ONLY, 0, size);
+                        final MappedFileBuffer compressedBuffer =
+                                MappedFileBuffer.map(cFileChannel, 0, (int) size);
 
                         if (entry.type == CacheType.HEAP) {
-                            compressedBb.load();
+                            compressedBuffer.load();
                         }
                         
-                        entry.compressedBb = compressedBb;
+                        entry.compressedBuffer = compressedBuffer;
                     } finally {
                         cFis.close();
                     }
@@ -47,9 +47,11 @@ import org.glassfish.grizzly.http.CompressionConfig;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.util.ContentType;
+import org.glassfish.grizzly.memory.MappedFileBuffer;
 
 /**
  * The entry value in the file cache map.
@@ -65,7 +67,8 @@ public final class FileCacheEntry implements Runnable {
     public String requestURI;
     public long lastModified = -1;
     public ContentType contentType;
-    ByteBuffer bb;
+    // The master mapping of the plain file, shared by the responses
+    MappedFileBuffer buffer;
     // The reference to the plain file to be served
     File plainFile;
     long plainFileSize = -1;
@@ -73,7 +76,7 @@ public final class FileCacheEntry implements Runnable {
     private boolean canBeCompressed;
     private AtomicBoolean isCompressed;
     volatile File compressedFile;
-    ByteBuffer compressedBb;
+    MappedFileBuffer compressedBuffer;
     long compressedFileSize = -1;
     
     public String xPoweredBy;
@@ -86,6 +89,8 @@ public final class FileCacheEntry implements Runnable {
     public volatile long timeoutMillis;
 
     private final FileCache fileCache;
+    
+    private final AtomicBoolean isReleased = new AtomicBoolean();
 
     public FileCacheEntry(FileCache fileCache) {
         this.fileCache = fileCache;
@@ -149,13 +154,78 @@ public final class FileCacheEntry implements Runnable {
     
     /**
      * Returns the entry's {@link ByteBuffer} representation.
+     * The entry's file mapping is released once the entry is removed from
+     * the {@link FileCache}, so the content is copied into a new heap
+     * {@link ByteBuffer}, which stays valid regardless of the entry state.
+     * 
      * @param isCompressed if <tt>true</tt> the compressed {@link ByteBuffer}
      *        will be returned, otherwise uncompressed {@link ByteBuffer} will
      *        be returned as the result.
-     * @return the entry's {@link ByteBuffer} reference
+     * @return the copy of the entry's content, or <tt>null</tt> if the entry
+     *         has been already removed from the {@link FileCache}
+     * 
+     * @deprecated the method copies the entry's content on each call,
+     *             please use {@link #getBuffer(boolean)}.
      */
+    @Deprecated
     public ByteBuffer getByteBuffer(final boolean isCompressed) {
-        return isCompressed ? compressedBb : bb;
+        final Buffer view = getBuffer(isCompressed);
+        if (view == null) {
+            return null;
+        }
+        
+        try {
+            final ByteBuffer copy = ByteBuffer.allocate(view.remaining());
+            view.get(copy);
+            copy.flip();
+            return copy;
+        } finally {
+            view.dispose();
+        }
+    }
+    
+    /**
+     * Returns a new {@link Buffer} view of the entry's file mapping.
+     * The view keeps the mapping alive until it's disposed, even if the entry
+     * is removed from the {@link FileCache} in the meantime, so the same
+     * mapped memory is shared by all the responses serving this entry.
+     * 
+     * @param isCompressed if <tt>true</tt> the compressed file view
+     *        will be returned, otherwise uncompressed file view will
+     *        be returned as the result.
+     * @return the entry's {@link Buffer} view, or <tt>null</tt> if the entry
+     *         has been already removed from the {@link FileCache}
+     * 
+     * @since 3.0
+     */
+    public Buffer getBuffer(final boolean isCompressed) {
+        final MappedFileBuffer master = isCompressed ? compressedBuffer : buffer;
+        if (master == null) {
+            return null;
+        }
+        
+        final Buffer view = master.share();
+        if (view != null) {
+            view.allowBufferDispose(true);
+        }
+        
+        return view;
+    }
+    
+    /**
+     * Releases the entry's file mappings. The mapped memory is going to be
+     * unmapped as soon as all the {@link Buffer} views, returned by
+     * {@link #getBuffer(boolean)}, are disposed.
+     */
+    void releaseBuffers() {
+        if (isReleased.compareAndSet(false, true)) {
+            if (buffer != null) {
+                buffer.dispose();
+            }
+            if (compressedBuffer != null) {
+                compressedBuffer.dispose();
+            }
+        }
     }
     
     @Override
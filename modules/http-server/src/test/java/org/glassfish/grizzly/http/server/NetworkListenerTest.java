@@ -41,10 +41,17 @@
 package org.glassfish.grizzly.http.server;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.ProtocolFamily;
+import java.net.StandardProtocolFamily;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +62,7 @@ import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.PortRange;
 import org.glassfish.grizzly.http.server.util.Globals;
 import org.glassfish.grizzly.impl.FutureImpl;
+import org.glassfish.grizzly.nio.transport.UnixDomainSockets;
 import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.grizzly.utils.Futures;
 import org.junit.FixMethodOrder;
@@ -62,6 +70,7 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 /**
  * {@link NetworkListener} tests.
  * 
@@ -370,4 +379,61 @@ public class NetworkListenerTest {
             }
         }
     }
+
+    @Test
+    public void testUnixDomainSocket() throws Exception {
+        assumeTrue("Unix domain sockets are not supported",
+                UnixDomainSockets.isSupported());
+        
+        final Path socketFile = Files.createTempDirectory("grizzly-uds")
+                .resolve("http.sock");
+        final HttpServer server = HttpServer.createSimpleServer(null,
+                UnixDomainSockets.address(socketFile));
+        server.getServerConfiguration().addHttpHandler(
+                new HttpHandler() {
+                    @Override
+                    public void service(Request request, Response response) throws Exception {
+                        response.setContentType("text/plain");
+                        response.getWriter().write("Hello "
+                                + request.getLocalPort() + " "
+                                + request.getRemotePort());
+                    }
+                }, "/test"
+        );
+        
+        try {
+            server.start();
+            assertTrue(Files.exists(socketFile));
+            
+            // SocketChannel.open(StandardProtocolFamily.UNIX) is JDK 16+ API
+            final SocketChannel channel = (SocketChannel) SocketChannel.class
+                    .getMethod("open", ProtocolFamily.class)
+                    .invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+            try {
+                channel.connect(UnixDomainSockets.address(socketFile));
+                channel.write(ByteBuffer.wrap(("GET /test HTTP/1.1\r\n"
+                        + "Host: localhost\r\n"
+                        + "Connection: close\r\n\r\n")
+                        .getBytes(Charsets.ASCII_CHARSET)));
+                
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final ByteBuffer buffer = ByteBuffer.allocate(1024);
+                while (channel.read(buffer) != -1) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                
+                final String response = new String(out.toByteArray(),
+                        Charsets.ASCII_CHARSET);
+                assertTrue(response, response.startsWith("HTTP/1.1 200"));
+                assertTrue(response, response.endsWith("Hello 0 0"));
+            } finally {
+                channel.close();
+            }
+        } finally {
+            server.shutdownNow();
+            Files.deleteIfExists(socketFile);
+            Files.deleteIfExists(socketFile.getParent());
+        }
+    }
 }
@@ -1165,6 +1165,12 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         final int start = parsingState.start;
         int offset = parsingState.offset;
 
+        if (preserveHeaderCase) {
+            // nothing to lowercase, so jump right to the colon
+            final int colonIdx = input.indexOf(Constants.COLON, offset, limit);
+            offset = colonIdx != -1 ? colonIdx : Math.max(offset, limit);
+        }
+        
         while(offset < limit) {
             byte b = input.get(offset);
             if (b == Constants.COLON) {
@@ -1199,6 +1205,26 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
 
         final boolean hasShift = (offset != parsingState.checkpoint);
         
+        if (!hasShift && offset < limit) {
+            // the value doesn't have to be moved, so skip everything up to
+            // the first CR or LF at once
+            final int eolIdx = input.indexOf(Constants.CR, Constants.LF,
+                    offset, limit);
+            final int end = eolIdx != -1 ? eolIdx : limit;
+            
+            int valueEnd = end;
+            while (valueEnd > offset && input.get(valueEnd - 1) == Constants.SP) {
+                valueEnd--;
+            }
+            
+            if (valueEnd > offset) {
+                parsingState.checkpoint2 = valueEnd;
+            }
+            
+            parsingState.checkpoint = end;
+            offset = end;
+        }
+        
         while(offset < limit) {
             final byte b = input.get(offset);
             if (b == Constants.CR) {
@@ -329,9 +329,10 @@ public abstract class HttpRequestPacket extends HttpHeader {
      */
     public DataChunk remoteAddr() {
         if (remoteAddressC.isNull()) {
-            remoteAddressC
-                  .setString(((InetSocketAddress) connection.getPeerAddress())
-                        .getAddress().getHostAddress());
+            final Object peerAddress = connection.getPeerAddress();
+            remoteAddressC.setString(peerAddress instanceof InetSocketAddress
+                  ? ((InetSocketAddress) peerAddress).getAddress().getHostAddress()
+                  : String.valueOf(peerAddress));
         }
         return remoteAddressC;
 
@@ -356,8 +357,10 @@ public abstract class HttpRequestPacket extends HttpHeader {
     public DataChunk remoteHost() {
          if ((remoteHostC.isNull())) {
             String remoteHost = null;
-            InetAddress inetAddr = ((InetSocketAddress) connection
-                  .getPeerAddress()).getAddress();
+            final Object peerAddress = connection.getPeerAddress();
+            InetAddress inetAddr = peerAddress instanceof InetSocketAddress
+                  ? ((InetSocketAddress) peerAddress).getAddress()
+                  : null;
             if (inetAddr != null) {
                 remoteHost = inetAddr.getHostName();
             }
@@ -415,9 +418,10 @@ public abstract class HttpRequestPacket extends HttpHeader {
     public DataChunk localName() {
 
         if (localNameC.isNull()) {
-            InetAddress inetAddr = ((InetSocketAddress) connection
-                  .getLocalAddress()).getAddress();
-            localNameC.setString(inetAddr.getHostName());
+            final Object localAddress = connection.getLocalAddress();
+            localNameC.setString(localAddress instanceof InetSocketAddress
+                  ? ((InetSocketAddress) localAddress).getAddress().getHostName()
+                  : String.valueOf(localAddress));
         }
         return localNameC;
         
@@ -441,9 +445,10 @@ public abstract class HttpRequestPacket extends HttpHeader {
      */
     public DataChunk localAddr() {
         if (localAddressC.isNull()) {
-            InetAddress inetAddr = ((InetSocketAddress) connection
-                  .getLocalAddress()).getAddress();
-            localAddressC.setString(inetAddr.getHostAddress());
+            final Object localAddress = connection.getLocalAddress();
+            localAddressC.setString(localAddress instanceof InetSocketAddress
+                  ? ((InetSocketAddress) localAddress).getAddress().getHostAddress()
+                  : String.valueOf(localAddress));
         }
         return localAddressC;
     }
@@ -466,7 +471,11 @@ public abstract class HttpRequestPacket extends HttpHeader {
      */
     public int getRemotePort() {
         if (remotePort == -1) {
-            remotePort = ((InetSocketAddress) connection.getPeerAddress()).getPort();
+            final Object peerAddress = connection.getPeerAddress();
+            // non-IP endpoints, like Unix domain sockets, have no port
+            remotePort = peerAddress instanceof InetSocketAddress
+                    ? ((InetSocketAddress) peerAddress).getPort()
+                    : 0;
         }
         return remotePort;
     }
@@ -490,7 +499,10 @@ public abstract class HttpRequestPacket extends HttpHeader {
      */
     public int getLocalPort() {
         if (localPort == -1) {
-            localPort = ((InetSocketAddress) connection.getLocalAddress()).getPort();
+            final Object localAddress = connection.getLocalAddress();
+            localPort = localAddress instanceof InetSocketAddress
+                    ? ((InetSocketAddress) localAddress).getPort()
+                    : 0;
         }
         return localPort;
     }
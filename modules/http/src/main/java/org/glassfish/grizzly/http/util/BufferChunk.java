@@ -535,17 +535,13 @@ public class BufferChunk implements Chunk {
     protected void notifyDirectUpdate() {
     }
 
-    public static int indexOf(final Buffer buffer, int off, final int end, final char qq) {
-        // Works only for UTF
-        while (off < end) {
-            final byte b = buffer.get(off);
-            if (b == qq) {
-                return off;
-            }
-            off++;
+    public static int indexOf(final Buffer buffer, final int off, final int end, final char qq) {
+        // Works only for UTF, non-ASCII chars can't match a single byte
+        if (qq > 0x7F) {
+            return -1;
         }
         
-        return -1;
+        return buffer.indexOf((byte) qq, off, end);
     }
 
     public static int indexOf(final Buffer buffer, int off, final int end, final CharSequence s) {
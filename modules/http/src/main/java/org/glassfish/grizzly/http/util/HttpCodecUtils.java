@@ -66,8 +66,17 @@ public class HttpCodecUtils {
             // Default is what the socket tells us. Overridden if a host is
             // found/parsed
             final Connection connection = request.getConnection();
-            request.setServerPort(((InetSocketAddress) connection.getLocalAddress()).getPort());
-            final InetAddress localAddress = ((InetSocketAddress) connection.getLocalAddress()).getAddress();
+            final Object localSocketAddress = connection.getLocalAddress();
+            if (!(localSocketAddress instanceof InetSocketAddress)) {
+                // non-IP endpoint, like a Unix domain socket
+                request.setServerPort(0);
+                request.setLocalHost("localhost");
+                serverNameDC.setString("localhost");
+                return;
+            }
+            
+            request.setServerPort(((InetSocketAddress) localSocketAddress).getPort());
+            final InetAddress localAddress = ((InetSocketAddress) localSocketAddress).getAddress();
             // Setting the socket-related fields. The adapter doesn't know
             // about socket.
             request.setLocalHost(localAddress.getHostName());
@@ -225,19 +234,25 @@ public class HttpCodecUtils {
         final int limit = Math.min(input.limit(), state.packetLimit);
 
         while (offset < limit) {
-            final byte b = input.get(offset);
-            if (b == Constants.CR) {
-                state.checkpoint = offset;
-            } else if (b == Constants.LF) {
+            final int idx = input.indexOf(Constants.CR, Constants.LF,
+                    offset, limit);
+            if (idx == -1) {
+                offset = limit;
+                break;
+            }
+            
+            if (input.get(idx) == Constants.CR) {
+                state.checkpoint = idx;
+            } else {
                 if (state.checkpoint == -1) {
-                    state.checkpoint = offset;
+                    state.checkpoint = idx;
                 }
 
-                state.offset = offset + 1;
+                state.offset = idx + 1;
                 return true;
             }
 
-            offset++;
+            offset = idx + 1;
         }
 
         state.offset = offset;
@@ -273,19 +288,10 @@ public class HttpCodecUtils {
         return false;
     }
 
-    public static int findSpace(final Buffer input, int offset,
+    public static int findSpace(final Buffer input, final int offset,
                                 final int packetLimit) {
         final int limit = Math.min(input.limit(), packetLimit);
-        while (offset < limit) {
-            final byte b = input.get(offset);
-            if (isSpaceOrTab(b)) {
-                return offset;
-            }
-
-            offset++;
-        }
-
-        return -1;
+        return input.indexOf(Constants.SP, Constants.HT, offset, limit);
     }
 
     public static int findSpace(final byte[] input, int offset,
@@ -333,19 +339,10 @@ public class HttpCodecUtils {
         return -1;
     }
 
-    public static int indexOf(final Buffer input, int offset,
+    public static int indexOf(final Buffer input, final int offset,
                               final byte b, final int packetLimit) {
         final int limit = Math.min(input.limit(), packetLimit);
-        while (offset < limit) {
-            final byte currentByte = input.get(offset);
-            if (currentByte == b) {
-                return offset;
-            }
-
-            offset++;
-        }
-
-        return -1;
+        return input.indexOf(b, offset, limit);
     }
 
     public static Buffer getLongAsBuffer(final MemoryManager memoryManager,
@@ -70,6 +70,7 @@ public class MemoryManager extends JmxObject {
     private final AtomicLong poolReleasedBytes = new AtomicLong();
     private final AtomicLong poolDepletedEventCount = new AtomicLong();
     private final AtomicLong poolRestoredToFullEventCount = new AtomicLong();
+    private final AtomicLong leakedBufferCount = new AtomicLong();
 
     public MemoryManager(org.glassfish.grizzly.memory.MemoryManager memoryManager) {
         this.memoryManager = memoryManager;
@@ -134,6 +135,12 @@ public class MemoryManager extends JmxObject {
         return poolRestoredToFullEventCount.get();
     }
 
+    @ManagedAttribute(id="leaked-buffer-count")
+    @Description("Total number of sampled pooled buffers that have been garbage collected without being disposed.")
+    public long getLeakedBufferCount() {
+        return leakedBufferCount.get();
+    }
+
     private class JmxMemoryProbe implements MemoryProbe {
 
         @Override
@@ -163,5 +170,10 @@ public class MemoryManager extends JmxObject {
             poolRestoredToFullEventCount.incrementAndGet();
         }
 
+        @Override
+        public void onBufferLeakEvent(int size) {
+            leakedBufferCount.incrementAndGet();
+        }
+
     }
 }
@@ -40,6 +40,8 @@
 
 package org.glassfish.grizzly.memory.jmx;
 
+import java.util.Map;
+
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.InheritedAttribute;
 import org.glassfish.gmbal.InheritedAttributes;
@@ -60,4 +62,10 @@ public class PooledMemoryManager extends MemoryManager {
         super(memoryManager);
     }
 
+    @ManagedAttribute(id="allocation-sites")
+    @Description("Number of sampled buffer allocations per call site (only populated when leak detection is enabled).")
+    public Map<String, Long> getAllocationSites() {
+        return ((org.glassfish.grizzly.memory.PooledMemoryManager) memoryManager).getAllocationSites();
+    }
+
 }
@@ -40,12 +40,14 @@
 
 package org.glassfish.grizzly.nio.transport.jmx;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.glassfish.gmbal.Description;
@@ -78,6 +80,12 @@ public class NIOTransport extends JmxObject {
 
     private final AtomicLong bytesRead = new AtomicLong();
     private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong readBudgetExhaustedCount = new AtomicLong();
+    private final AtomicLong selectorSpinCount = new AtomicLong();
+    private final AtomicLong selectorParkCount = new AtomicLong();
+    private final AtomicLong selectorSpinTimeNanos = new AtomicLong();
+    private final AtomicLong writeQueueHighWaterMarkCount = new AtomicLong();
+    private final AtomicLong writeQueueLowWaterMarkCount = new AtomicLong();
     
     private volatile EventDate stateEvent;
     private volatile EventDate lastErrorEvent;
@@ -183,6 +191,11 @@ public class NIOTransport extends JmxObject {
         return transport.getSelectorRunnersCount();
     }
 
+    @ManagedAttribute(id="selector-threads-load")
+    public String getSelectorHandlerRunnersLoad() {
+        return Arrays.toString(transport.getSelectorRunnersLoad());
+    }
+
     @ManagedAttribute(id="thread-pool-type")
     public String getThreadPoolType() {
         return getType(transport.getWorkerThreadPool());
@@ -203,6 +216,46 @@ public class NIOTransport extends JmxObject {
         return bytesWritten.get();
     }
 
+    @ManagedAttribute(id="read-budget-exhausted-count")
+    public long getReadBudgetExhaustedCount() {
+        return readBudgetExhaustedCount.get();
+    }
+
+    @ManagedAttribute(id="selector-spin-count")
+    public long getSelectorSpinCount() {
+        return selectorSpinCount.get();
+    }
+
+    @ManagedAttribute(id="selector-park-count")
+    public long getSelectorParkCount() {
+        return selectorParkCount.get();
+    }
+
+    @ManagedAttribute(id="selector-spin-time-micros")
+    public long getSelectorSpinTimeMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(selectorSpinTimeNanos.get());
+    }
+
+    @ManagedAttribute(id="write-queue-low-water-mark")
+    public int getWriteQueueLowWaterMark() {
+        return transport.getWriteQueueLowWaterMark();
+    }
+
+    @ManagedAttribute(id="write-queue-high-water-mark")
+    public int getWriteQueueHighWaterMark() {
+        return transport.getWriteQueueHighWaterMark();
+    }
+
+    @ManagedAttribute(id="write-queue-high-water-mark-count")
+    public long getWriteQueueHighWaterMarkCount() {
+        return writeQueueHighWaterMarkCount.get();
+    }
+
+    @ManagedAttribute(id="write-queue-low-water-mark-count")
+    public long getWriteQueueLowWaterMarkCount() {
+        return writeQueueLowWaterMarkCount.get();
+    }
+
     @ManagedAttribute(id="bound-addresses")
     public String getBoundAddresses() {
         return boundAddresses.toString();
@@ -341,6 +394,34 @@ public class NIOTransport extends JmxObject {
                 rebuildSubTree();
             }
         }
+
+        @Override
+        public void onReadBudgetExhaustedEvent(Transport transport,
+                Connection connection, int iterations, int bytesRead) {
+            readBudgetExhaustedCount.incrementAndGet();
+        }
+
+        @Override
+        public void onSelectorSpinEvent(Transport transport,
+                long spinTimeNanos, boolean isParked) {
+            selectorSpinCount.incrementAndGet();
+            selectorSpinTimeNanos.addAndGet(spinTimeNanos);
+            if (isParked) {
+                selectorParkCount.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onWriteQueueHighWaterMarkEvent(Transport transport,
+                Connection connection, int queueSize) {
+            writeQueueHighWaterMarkCount.incrementAndGet();
+        }
+
+        @Override
+        public void onWriteQueueLowWaterMarkEvent(Transport transport,
+                Connection connection, int queueSize) {
+            writeQueueLowWaterMarkCount.incrementAndGet();
+        }
     }
 
     private class JmxConnectionProbe implements ConnectionProbe {